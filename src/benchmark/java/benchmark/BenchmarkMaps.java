@@ -0,0 +1,153 @@
+package benchmark;
+
+// java standard library imports
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+// this project imports
+import model.drawable.terrain.Terrain;
+import model.drawable.tileOccupant.Infantry;
+import model.drawable.tileOccupant.Sniper;
+import model.map.CompactTileStorage;
+import model.map.Map;
+import model.map.TileStorage;
+import model.map.TileTypeRegistry;
+
+/**
+ * builds made up Maps of any size for the benchmarks to run on, the
+ * same seed always builds the same Map so runs can be compared
+ * nothing here ever touches an image file, Drawables only load their
+ * images the first time they are drawn
+ * @author Ryan Voor
+ */
+public class BenchmarkMaps {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // out of every 100 Tiles roughly how many are Forest, how many
+    // are Mountain, and how many have a unit standing on them
+    private static final int PERCENT_FOREST = 20;
+    private static final int PERCENT_MOUNTAIN = 10;
+    private static final int PERCENT_OCCUPIED = 3;
+
+    // out of every 1000 Tiles of a map file roughly how many
+    // have a Building on them
+    private static final int PER_MILLE_BUILDINGS = 5;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private BenchmarkMaps() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * builds a Map of the parameter size out of a random mix of Plains,
+     * Forest, and Mountain with a few units scattered around, the Tile
+     * in the middle of the Map always has an Infantry on it
+     * @param numberOfColumns the width of the Map in Tiles
+     * @param numberOfRows the height of the Map in Tiles
+     * @param seed the seed of the random numbers
+     * @return Map the new Map
+     */
+    public static Map buildRandomMap(int numberOfColumns, int numberOfRows,
+        long seed) {
+        Random random = new Random(seed);
+
+        // every Tile shares the same few Terrains, just like a Map
+        // that was read from a file
+        TileTypeRegistry registry = TileTypeRegistry.getInstance();
+        Terrain plains = registry.getTerrain(TileTypeRegistry.PLAINS);
+        Terrain forest = registry.getTerrain(TileTypeRegistry.FOREST);
+        Terrain mountain = registry.getTerrain(TileTypeRegistry.MOUNTAIN);
+
+        TileStorage tileStorage
+            = new CompactTileStorage(numberOfColumns, numberOfRows);
+        for (int y = 0; y < numberOfRows; y++) {
+            for (int x = 0; x < numberOfColumns; x++) {
+                int tileNumber = y * numberOfColumns + x;
+                int roll = random.nextInt(100);
+                Terrain terrain = plains;
+                if (roll < BenchmarkMaps.PERCENT_MOUNTAIN) {
+                    terrain = mountain;
+                } else if (roll < BenchmarkMaps.PERCENT_MOUNTAIN
+                    + BenchmarkMaps.PERCENT_FOREST) {
+                    terrain = forest;
+                }
+
+                tileStorage.setTerrain(tileNumber, terrain);
+                if (random.nextInt(100) < BenchmarkMaps.PERCENT_OCCUPIED) {
+                    if (random.nextBoolean()) {
+                        tileStorage.setOccupant(tileNumber, new Infantry());
+                    } else {
+                        tileStorage.setOccupant(tileNumber, new Sniper());
+                    }
+                }
+            }
+        }
+
+        tileStorage.setOccupant(
+            (numberOfRows / 2) * numberOfColumns + numberOfColumns / 2,
+            new Infantry());
+        return new Map(tileStorage);
+    }
+
+    /**
+     * writes a map file of the parameter size, in the format that
+     * Map.buildMap reads, out of the same kind of random mix as
+     * buildRandomMap plus a few Buildings, the units are all Snipers
+     * that belong to player 0 or 1
+     * @param numberOfColumns the width of the map in Tiles
+     * @param numberOfRows the height of the map in Tiles
+     * @param seed the seed of the random numbers
+     * @param file the file to write
+     */
+    public static void writeRandomMapFile(int numberOfColumns,
+        int numberOfRows, long seed, File file) throws IOException {
+        Random random = new Random(seed);
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        try {
+            for (int y = 0; y < numberOfRows; y++) {
+                for (int x = 0; x < numberOfColumns; x++) {
+                    int roll = random.nextInt(100);
+                    char terrain = 'p';
+                    if (roll < BenchmarkMaps.PERCENT_MOUNTAIN) {
+                        terrain = 'm';
+                    } else if (roll < BenchmarkMaps.PERCENT_MOUNTAIN
+                        + BenchmarkMaps.PERCENT_FOREST) {
+                        terrain = 'f';
+                    }
+                    writer.write(terrain);
+
+                    char building = 'n';
+                    if (random.nextInt(1000)
+                        < BenchmarkMaps.PER_MILLE_BUILDINGS) {
+                        building = random.nextBoolean() ? 'c' : 'm';
+                    }
+                    writer.write(building);
+
+                    if (random.nextInt(100) < BenchmarkMaps.PERCENT_OCCUPIED) {
+                        writer.write("sn");
+                        writer.write(random.nextBoolean() ? '1' : '0');
+                    } else {
+                        writer.write("nn");
+                    }
+                    writer.write(',');
+                }
+                writer.newLine();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package benchmark;
+
+// java standard library imports
+import java.util.Random;
+
+// this project imports
+import model.drawable.tileOccupant.Sniper;
+import model.drawable.tileOccupant.TileOccupant;
+import model.map.Map;
+import model.map.Tile;
+import model.pathfinding.AStarSearch;
+import model.pathfinding.DijkstraSearch;
+import model.pathfinding.HierarchicalPathfinder;
+import model.pathfinding.MovementCostGrid;
+import model.pathfinding.Path;
+
+/**
+ * times long routes across a big Map found with a HierarchicalPathfinder
+ * against the same routes found with plain A*, along with how long the
+ * abstract graph takes to build and how long it takes to patch it after
+ * a Tile changes, and prints how much more the hierarchical routes cost
+ * every hierarchical route is checked to be a real route that costs
+ * what it says and to exist exactly when the A* route does
+ * run it with "gradle benchmark -Pbenchmark=HierarchicalPathfindingBenchmark",
+ * the argument (-PbenchmarkArgs) is the size of the square Map, 1000 by
+ * default
+ * @author Ryan Voor
+ */
+public class HierarchicalPathfindingBenchmark {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final int DEFAULT_SIZE = 1000;
+
+    // the seeds the Map and the routes are picked from
+    private static final long SEED = 1331L;
+    private static final long ROUTE_SEED = 7L;
+
+    // how many routes to find before and while timing
+    private static final int WARM_UP_ROUTES = 50;
+    private static final int MEASURED_ROUTES = 200;
+
+    // how many Tiles to change while timing the rebuilds
+    private static final int CHANGED_TILES = 200;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private HierarchicalPathfindingBenchmark() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * runs the benchmark
+     * @param args the size of the Map
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0
+            ? Integer.parseInt(args[0])
+            : HierarchicalPathfindingBenchmark.DEFAULT_SIZE;
+        Map map = BenchmarkMaps.buildRandomMap(
+            size, size, HierarchicalPathfindingBenchmark.SEED);
+        TileOccupant occupant
+            = map.getTileFromIndices(size / 2, size / 2).getOccupant();
+        MovementCostGrid movementCosts = map.getMovementCostGrid(occupant);
+
+        long start = System.nanoTime();
+        HierarchicalPathfinder pathfinder
+            = map.getHierarchicalPathfinder(occupant.getMovementClass());
+        int numberOfNodes = pathfinder.getNumberOfNodes();
+        System.out.println(size + "x" + size + ": built "
+            + pathfinder.getNumberOfClusters() + " clusters with "
+            + numberOfNodes + " nodes in "
+            + HierarchicalPathfindingBenchmark.millisecondsSince(start));
+
+        AStarSearch search = new AStarSearch(size, size);
+        HierarchicalPathfindingBenchmark.timeRoutes(pathfinder, search,
+            movementCosts, size,
+            HierarchicalPathfindingBenchmark.WARM_UP_ROUTES, false);
+        HierarchicalPathfindingBenchmark.timeRoutes(pathfinder, search,
+            movementCosts, size,
+            HierarchicalPathfindingBenchmark.MEASURED_ROUTES, true);
+
+        // flip units on and off random Tiles, every change is followed
+        // by a route so that the rebuild is part of what gets timed
+        Random random = new Random(HierarchicalPathfindingBenchmark.SEED);
+        long rebuildsBefore = pathfinder.getNumberOfClusterRebuilds();
+        start = System.nanoTime();
+        for (int i = 0; i < HierarchicalPathfindingBenchmark.CHANGED_TILES;
+            i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            Tile tile = map.getTileFromIndices(x, y);
+            if (tile.hasOccupant()) {
+                tile.setOccupant(null);
+            } else {
+                tile.setOccupant(new Sniper());
+            }
+            pathfinder.findPath(0, size * size - 1);
+        }
+        System.out.println(HierarchicalPathfindingBenchmark.CHANGED_TILES
+            + " Tile changes, each followed by a route: "
+            + (pathfinder.getNumberOfClusterRebuilds() - rebuildsBefore)
+            + " cluster rebuilds in "
+            + HierarchicalPathfindingBenchmark.millisecondsSince(start));
+    }
+
+    /**
+     * finds routes between random Tiles with both searches, checks them,
+     * and prints how long each search took if asked to
+     * @param pathfinder the HierarchicalPathfinder to time
+     * @param search the A* search to compare it with
+     * @param movementCosts what it costs to move onto every Tile
+     * @param size the size of the square Map
+     * @param numberOfRoutes how many routes to find
+     * @param print whether to print the times
+     */
+    private static void timeRoutes(HierarchicalPathfinder pathfinder,
+        AStarSearch search, MovementCostGrid movementCosts, int size,
+        int numberOfRoutes, boolean print) {
+        Random random
+            = new Random(HierarchicalPathfindingBenchmark.ROUTE_SEED);
+        long flatNanos = 0;
+        long hierarchicalNanos = 0;
+        long flatCost = 0;
+        long hierarchicalCost = 0;
+        for (int i = 0; i < numberOfRoutes; i++) {
+            int from = random.nextInt(size * size);
+            int to = random.nextInt(size * size);
+
+            long start = System.nanoTime();
+            Path flatPath = search.findPath(movementCosts, from, to,
+                movementCosts.getMinimumMovementCost());
+            long middle = System.nanoTime();
+            Path hierarchicalPath = pathfinder.findPath(from, to);
+            flatNanos += middle - start;
+            hierarchicalNanos += System.nanoTime() - middle;
+
+            if ((null == flatPath) != (null == hierarchicalPath)) {
+                throw new IllegalStateException("only one search found a"
+                    + " route from Tile " + from + " to Tile " + to);
+            }
+            if (null != flatPath) {
+                HierarchicalPathfindingBenchmark.checkPath(
+                    hierarchicalPath, movementCosts, from, to);
+                flatCost += flatPath.getCost();
+                hierarchicalCost += hierarchicalPath.getCost();
+            }
+        }
+
+        if (print) {
+            System.out.println(numberOfRoutes + " routes, A*: "
+                + String.format("%.3f ms", flatNanos / 1000000.0
+                    / numberOfRoutes)
+                + " each, hierarchical: "
+                + String.format("%.3f ms", hierarchicalNanos / 1000000.0
+                    / numberOfRoutes)
+                + String.format(" each (%.2fx), ",
+                    ((double) flatNanos) / hierarchicalNanos)
+                + String.format("routes cost %.2f%% more",
+                    100.0 * (hierarchicalCost - flatCost) / flatCost));
+        }
+    }
+
+    /**
+     * makes sure the parameter Path goes from one Tile to the other one
+     * step at a time, only onto Tiles that can be moved onto, and that
+     * it costs what it says it costs
+     * @param path the Path to check
+     * @param movementCosts what it costs to move onto every Tile
+     * @param from the number of the Tile the Path should start on
+     * @param to the number of the Tile the Path should end on
+     */
+    private static void checkPath(Path path, MovementCostGrid movementCosts,
+        int from, int to) {
+        boolean valid = path.getTileNumber(0) == from
+            && path.getTileNumber(path.getLength() - 1) == to;
+        int cost = 0;
+        for (int i = 1; valid && i < path.getLength(); i++) {
+            int distance = Math.abs(path.getXIndex(i) - path.getXIndex(i - 1))
+                + Math.abs(path.getYIndex(i) - path.getYIndex(i - 1));
+            int movementCost
+                = movementCosts.getMovementCost(path.getTileNumber(i));
+            valid = 1 == distance
+                && DijkstraSearch.UNREACHABLE != movementCost;
+            cost += movementCost;
+        }
+        if (!valid || cost != path.getCost()) {
+            throw new IllegalStateException("bad route from Tile " + from
+                + " to Tile " + to);
+        }
+    }
+
+    /**
+     * returns how long it has been since the parameter time, ready to print
+     * @param start the time it started, from System.nanoTime
+     * @return String the time in milliseconds
+     */
+    private static String millisecondsSince(long start) {
+        return String.format(
+            "%.3f ms", (System.nanoTime() - start) / 1000000.0);
+    }
+}
@@ -0,0 +1,460 @@
+package benchmark;
+
+// java standard library imports
+import java.util.ArrayList;
+
+// this project imports
+import model.drawable.tileOccupant.TileOccupant;
+import model.map.Map;
+import model.map.Tile;
+
+/**
+ * the way Map used to work out movement ranges before it moved to
+ * DijkstraSearch, kept exactly as it was (boxed ArrayLists, a full scan of
+ * the grid to find each next Tile) so that the benchmark can check that
+ * the new search gives the same answers and see how much faster it is
+ * this is O(N^2) in the number of Tiles, so only run it on small Maps
+ * @author Ryan Voor
+ */
+public class LegacyDistanceGrid {
+
+    // instance variables
+    private final Map map;
+
+    /**
+     * constructor for the LegacyDistanceGrid class
+     * @param map the Map to search
+     */
+    public LegacyDistanceGrid(Map map) {
+        this.map = map;
+    }
+
+    /**
+     * works out the distance from the Tile at the parameter indices to
+     * every other Tile of the Map the same way Map used to
+     * @param xIndex the X Index of the starting Tile
+     * @param yIndex the Y Index of the starting Tile
+     * @param occupantInQuestion the TileOccupant that would be moving
+     * @return int[] the distance to every Tile, in the order given by
+     * Map.getTileNumber, Integer.MAX_VALUE for unreachable Tiles
+     */
+    public int[] search(int xIndex, int yIndex,
+        TileOccupant occupantInQuestion) {
+        DistanceGrid distanceGrid = new DistanceGrid(
+            this.map.getNumberOfColumns(),
+            this.map.getNumberOfRows()
+        );
+        this.buildDistanceGrid(distanceGrid, xIndex, yIndex,
+            occupantInQuestion);
+
+        int[] distances = new int[
+            this.map.getNumberOfColumns() * this.map.getNumberOfRows()];
+        for (int y = 0; y < this.map.getNumberOfRows(); y++) {
+            for (int x = 0; x < this.map.getNumberOfColumns(); x++) {
+                distances[this.map.getTileNumber(x, y)]
+                    = distanceGrid.getDistance(x, y);
+            }
+        }
+        return distances;
+    }
+
+
+
+
+    /**
+     * constructs the DistanceGrid for highlighting a TileOccupant's
+     * movement range using Dijkstra's Algorithm
+     * @param distanceGrid the DistanceGrid that we are filling in with
+     * distance values
+     * @param xIndex the X Index of the starting Tile
+     * @param yIndex the Y Index of the starting Tile
+     * @param occupantInQuestion the TileOccupant that may or may not
+     * be moving from the Tile with the parameter indices
+     */
+    private void buildDistanceGrid(DistanceGrid distanceGrid, int xIndex,
+        int yIndex, TileOccupant occupantInQuestion) {
+        //// see: https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm ////
+
+        // assign tentative distance values
+        // initial Tile: 0
+        // everything else: infinity (Integer.MAX_VALUE)
+        // DistanceGrid sets values to "infinity" by default so
+        // we only need to set the value for our initial Tile
+        distanceGrid.setDistance(xIndex, yIndex, 0);
+
+        // set initial Tile as current
+        int currentXIndex = xIndex;
+        int currentYIndex = yIndex;
+
+        // check the unvisited Tiles, if the smallest tentative distance
+        // of all the unvisited Tiles is "infinity" then stop looping
+        while (!distanceGrid.allUnvisitedDistancesAreInfinity()) {
+            // for current Tile calculate tentative distances of its
+            // unvisited neighbors and replace their current tentative
+            // distance if the new one is smaller than their current one,
+            // otherwise just leave their current tentative distance alone
+            int northXIndex = currentXIndex;
+            int northYIndex = currentYIndex - 1;
+            // check that we aren't at the edge of the Map and
+            // that this Tile is unvisited
+            if (northYIndex >= 0
+                && !distanceGrid.isVisited(northXIndex, northYIndex)) {
+                this.updateAdjacentTile(
+                    currentXIndex,
+                    currentYIndex,
+                    northXIndex,
+                    northYIndex,
+                    distanceGrid,
+                    occupantInQuestion
+                );
+            }
+
+            int eastXIndex = currentXIndex + 1;
+            int eastYIndex = currentYIndex;
+            // check that we aren't at the edge of the Map and
+            // that this Tile is unvisited
+            if (eastXIndex <= this.map.getMaxXIndex()
+                && !distanceGrid.isVisited(eastXIndex, eastYIndex)) {
+                this.updateAdjacentTile(
+                    currentXIndex,
+                    currentYIndex,
+                    eastXIndex,
+                    eastYIndex,
+                    distanceGrid,
+                    occupantInQuestion
+                );
+            }
+
+            int southXIndex = currentXIndex;
+            int southYIndex = currentYIndex + 1;
+            // check that we aren't at the edge of the Map and
+            // that this Tile is unvisited
+            if (southYIndex <= this.map.getMaxYIndex()
+                && !distanceGrid.isVisited(southXIndex, southYIndex)) {
+                this.updateAdjacentTile(
+                    currentXIndex,
+                    currentYIndex,
+                    southXIndex,
+                    southYIndex,
+                    distanceGrid,
+                    occupantInQuestion
+                );
+            }
+
+            int westXIndex = currentXIndex - 1;
+            int westYIndex = currentYIndex;
+            // check that we aren't at the edge of the Map and
+            // that this Tile is unvisited
+            if (westXIndex >= 0
+                && !distanceGrid.isVisited(westXIndex, westYIndex)) {
+                this.updateAdjacentTile(
+                    currentXIndex,
+                    currentYIndex,
+                    westXIndex,
+                    westYIndex,
+                    distanceGrid,
+                    occupantInQuestion
+                );
+            }
+
+
+            // mark the current Tile as visited
+            distanceGrid.setToVisited(currentXIndex, currentYIndex);
+
+
+            // set the unvisited Tile with the smallest tentative
+            // distance to be the new current Tile
+            currentXIndex = distanceGrid.getXIndexOfSmallestUnvisited();
+            currentYIndex = distanceGrid.getYIndexOfSmallestUnvisited();
+        }
+
+        // when we break out of the loop the DistanceGrid should
+        // be completely filled in with the shortest distances to
+        // each Tile
+    }
+
+
+    /**
+     * updates the adjacent tile at the parameter indices during the execution
+     * of dijkstra's algorithm
+     * @param currentXIndex the X Index of the Tile we are currently visiting
+     * @param currentYIndex the Y Index of the Tile we are currently visiting
+     * @param adjacentXIndex the X Index of the Tile we are updating that
+     * is adjacent to the Tile we are currently visiting
+     * @param adjacentYIndex the Y Index of the Tile we are updating that
+     * is adjacent to the Tile we are currently visiting
+     * @param distanceGrid the DistanceGrid that holds the relevant
+     * information for these Tiles
+     * @param occupantInQuestion the TileOccupant that will eventually
+     * potentially be moving onto one of these Tiles
+     */
+    private void updateAdjacentTile(int currentXIndex,
+        int currentYIndex, int adjacentXIndex, int adjacentYIndex,
+            DistanceGrid distanceGrid, TileOccupant occupantInQuestion) {
+        // grab the Tile to whatever side of the current Tile so we
+        // can grab the Terrain of that Tile so we can grab the
+        // movement cost of that Tile
+        Tile adjacentTile
+            = this.map.getTileFromIndices(adjacentXIndex, adjacentYIndex);
+        int adjacentMovementCost
+            = adjacentTile.getMovementCost(occupantInQuestion);
+
+        // grab current adjacent tile distance and current tile distance
+        int currentAdjacentTileDistance
+            = distanceGrid.getDistance(adjacentXIndex, adjacentYIndex);
+        int currentTileDistance
+            = distanceGrid.getDistance(currentXIndex, currentYIndex);
+
+        // use those to calculate the distance that might replace the
+        // adjacent tile distance
+        int potentialAdjacentTileDistance
+            = currentTileDistance + adjacentMovementCost;
+
+        // to avoid dealing with Integer overflows we just check
+        // for if the adjacentMovementCost is Integer.MAX_VALUE
+        if (Integer.MAX_VALUE == adjacentMovementCost) {
+            // this will cause logic to work as intended rather
+            // than sometimes ending up with a potential distance
+            // of Integer.MIN_VALUE or -1 etc. (int overflows are weird)
+            potentialAdjacentTileDistance = Integer.MAX_VALUE;
+        }
+
+        // if this new distance to the adjacent tile is shorter than
+        // the existing distance to the adjacent tile
+        if (potentialAdjacentTileDistance < currentAdjacentTileDistance) {
+            // replace the distance
+            distanceGrid.setDistance(
+                adjacentXIndex,
+                adjacentYIndex,
+                potentialAdjacentTileDistance
+            );
+        }
+    }
+
+
+    /**
+     * internal class that holds information about Tile maps
+     * that is relevant to the implementation of Dijkstra's algorithm
+     * @author Ryan Voor
+     */
+    private class DistanceGrid {
+        // see the giant comment at the top of the Map class for
+        // clarification on how the grid is laid out and accessed
+        // NOTE: the constructor makes 'width' lists of 'height' entries
+        // but getDistance indexes them by Y first, so this only works
+        // for square Maps, which is all the benchmark builds
+
+        // instance variables
+        ArrayList<ArrayList<Integer>> distances;
+        ArrayList<ArrayList<Boolean>> visited;
+
+        /**
+         * constructor for the DistanceGrid class
+         * @param width the width of the grid to be constructed
+         * @param height the height of the grid to be constructed
+         */
+        public DistanceGrid(int width, int height) {
+            this.distances = new ArrayList<ArrayList<Integer>>();
+            this.visited   = new ArrayList<ArrayList<Boolean>>();
+
+            // create 'width' number of rows each with
+            // 'height' number of entries (columns)
+            for (int i = 0; i < width; i++) {
+                this.distances.add(new ArrayList<Integer>());
+                this.visited.add(new ArrayList<Boolean>());
+
+                for (int j = 0; j < height; j++) {
+                    // Integer.MAX_VALUE is the default value for
+                    // the distances
+                    this.distances.get(i).add(Integer.MAX_VALUE);
+
+                    // false is the default value for 'visited'
+                    this.visited.get(i).add(false);
+                }
+            }
+        }
+
+        /////////////
+        // Getters //
+        /////////////
+
+        /**
+         * returns the current distance to the Tile with
+         * the parameter indices
+         * @param xIndex the X Index of the Tile with the distance
+         * that will be returned
+         * @param yIndex the Y Index of the Tile with the distance
+         * that will be returned
+         * @return int the current distance to the Tile located at
+         * the parameter indicies
+         */
+        public int getDistance(int xIndex, int yIndex) {
+            return this.distances.get(yIndex).get(xIndex);
+        }
+
+        /**
+         * returns whether the Tile at the parameter
+         * indicies has been visited
+         * @param xIndex the X Index of the Tile that may
+         * or may not have been visited
+         * @param yIndex the Y Index of the Tile that may
+         * or may not have been visited
+         * @return boolean whether the Tile at the parameter
+         * indicies has been visited
+         */
+        public boolean isVisited(int xIndex, int yIndex) {
+            return this.visited.get(yIndex).get(xIndex);
+        }
+
+        /**
+         * returns the number of columns in this grid
+         * @return int the number of columns in this grid
+         */
+        private int getNumberOfColumns() {
+            return this.distances.get(0).size();
+        }
+
+        /**
+         * returns the number of rows in this grid
+         * @return int the number of rows in this grid
+         */
+        private int getNumberOfRows() {
+            return this.distances.size();
+        }
+
+        /**
+         * returns the X Index of the smallest unvisited
+         * Tile in this grid
+         * @return int the X Index of the smallest unvisited
+         * Tile in this grid
+         */
+        public int getXIndexOfSmallestUnvisited() {
+            return getIndicesOfSmallestUnvisited("x");
+        }
+
+        /**
+         * returns the Y Index of the smallest unvisited
+         * Tile in this grid
+         * @return int the Y Index of the smallest unvisited
+         * Tile in this grid
+         */
+        public int getYIndexOfSmallestUnvisited() {
+            return getIndicesOfSmallestUnvisited("y");
+        }
+
+        /**
+         * returns either the X or Y index of the smallest
+         * unvisited Tile in this grid
+         * NOTE: because of logic in my implementation of
+         * dijkstra's algorithm this method should only ever
+         * be called if there is at least 1 unvisited Tile with
+         * a distance less than infinity
+         * @param index either "x" or "y" depending on which
+         * index the caller wants returned
+         */
+        private int getIndicesOfSmallestUnvisited(String index) {
+            int xIndexOfResult = -1;
+            int yIndexOfResult = -1;
+
+            for (int i = 0; i < this.getNumberOfColumns(); i++) {
+                for (int j = 0; j < this.getNumberOfRows(); j++) {
+                    // only bother checking all the other stuff
+                    // if this is an Unvisited Tile
+                    if (!this.isVisited(i, j)) {
+                        // figure out the distance of the Tile we're iterating
+                        // on as well as the tile that is the smallest distance
+                        // we've encountered so far
+                        int currentDistance = this.getDistance(i, j);
+                        int currentResultDistance = Integer.MAX_VALUE;
+                        // check if we've already encountered an unvisited
+                        // tile w/ distance less than infinity
+                        if (-1 != xIndexOfResult && -1 != yIndexOfResult) {
+                            currentResultDistance = this.getDistance(
+                                xIndexOfResult,
+                                yIndexOfResult
+                            );
+                        }
+
+                        // if the current iteration tile has a smaller distance
+                        // than the smallest we've encountered so far then
+                        // i guess we have a new smallest we've encountered
+                        // so far
+                        if (currentDistance < currentResultDistance) {
+                            xIndexOfResult = i;
+                            yIndexOfResult = j;
+                        }
+                    }
+                }
+            }
+
+            if (index.equals("x")) {
+                return xIndexOfResult;
+            }
+            if (index.equals("y")) {
+                return yIndexOfResult;
+            }
+            return -1;
+        }
+
+
+        /////////////
+        // Setters //
+        /////////////
+
+        /**
+         * sets the distance of the Tile with the parameter indices
+         * to the parameter distance
+         * @param xIndex the X Index of the Tile whose distance
+         * is to be set
+         * @param yIndex the Y Index of the Tile whose distance
+         * is to be set
+         * @param distance the distance to be set
+         */
+        public void setDistance(int xIndex, int yIndex, int distance) {
+            this.distances.get(yIndex).set(xIndex, distance);
+        }
+
+        /**
+         * sets the Tile at the parameter indices to the 'visited' status
+         * @param xIndex the X Index of the Tile to be set to 'visited'
+         * @param yIndex the Y Index of the Tile to be set to 'visited'
+         */
+        public void setToVisited(int xIndex, int yIndex) {
+            this.visited.get(yIndex).set(xIndex, true);
+        }
+
+        //////////////////
+        // Real Methods //
+        //////////////////
+
+        /**
+         * returns whether all the unvisited tiles have
+         * distance infinity
+         * NOTE: 'infinity' is just Integer.MAX_VALUE
+         * @return boolean whether all the unvisited tiles have
+         * distance infinity
+         */
+        public boolean allUnvisitedDistancesAreInfinity() {
+            // iterate over all the Tiles in this grid
+            // 'i' is the X Index or the Column
+            // 'j' is the Y Index or the Row
+            for (int i = 0; i < this.getNumberOfColumns(); i++) {
+                for (int j = 0; j < this.getNumberOfRows(); j++) {
+                    if (!this.isVisited(i, j)) {
+                        if (Integer.MAX_VALUE != this.getDistance(i, j)) {
+                            // if the current Tile is unvisited AND
+                            // it is not set to infinity distance then
+                            // all the unvisited tiles are not
+                            // distance infinity
+                            return false;
+                        }
+                    }
+                }
+            }
+
+            // execution will only get outside the loop if
+            // all the unvisited Tiles have distance 'infinity'
+            return true;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package benchmark;
+
+// java standard library imports
+import java.io.File;
+import java.io.IOException;
+
+// this project imports
+import exception.MapFileReadException;
+import model.map.MapCache;
+
+/**
+ * writes random map files of a few sizes and times loading them through
+ * a MapCache cold, when the map file has to be parsed and a copy
+ * written, and warm, when the copy is memory mapped instead, then
+ * rewrites the map file to make sure the cache notices that it changed
+ * the cache lives in a temporary directory so the cache of the game is
+ * never touched
+ * run it with "gradle benchmark -Pbenchmark=MapCacheBenchmark", the
+ * arguments (-PbenchmarkArgs) are the sizes of the square maps, 100,
+ * 500, and 1000 by default
+ * @author Ryan Voor
+ */
+public class MapCacheBenchmark {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final int[] DEFAULT_SIZES = {100, 500, 1000};
+
+    // the seeds the map files are written from, the second
+    // one is used to change the map file
+    private static final long SEED = 1331L;
+    private static final long CHANGED_SEED = 2110L;
+
+    // how many times to load each map before and while timing
+    private static final int WARM_UP_LOADS = 3;
+    private static final int MEASURED_LOADS = 5;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private MapCacheBenchmark() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * runs the benchmark
+     * @param args the sizes of the maps
+     */
+    public static void main(String[] args)
+        throws IOException, MapFileReadException {
+        int[] sizes = MapCacheBenchmark.DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        File directory = File.createTempFile("benchmark", "");
+        directory.delete();
+        directory.mkdir();
+        MapCache mapCache = new MapCache(directory);
+        try {
+            for (int size : sizes) {
+                File mapFile = File.createTempFile("benchmark", ".map");
+                mapFile.deleteOnExit();
+                BenchmarkMaps.writeRandomMapFile(
+                    size, size, MapCacheBenchmark.SEED, mapFile);
+                MapCacheBenchmark.timeMapFile(mapCache, mapFile, size);
+                mapFile.delete();
+            }
+        } finally {
+            mapCache.clear();
+            directory.delete();
+        }
+    }
+
+    /**
+     * times cold and warm loads of the parameter map file
+     * @param mapCache the cache to load through
+     * @param mapFile the map file
+     * @param size the number of rows and columns of the map
+     */
+    private static void timeMapFile(MapCache mapCache, File mapFile,
+        int size) throws IOException, MapFileReadException {
+        // clearing the cache before every load makes every load cold
+        for (int i = 0; i < MapCacheBenchmark.WARM_UP_LOADS; i++) {
+            mapCache.clear();
+            mapCache.buildMap(mapFile.getPath());
+        }
+        int numberOfColdLoads = mapCache.getNumberOfColdLoads();
+        double coldMilliseconds = 0;
+        for (int i = 0; i < MapCacheBenchmark.MEASURED_LOADS; i++) {
+            mapCache.clear();
+            mapCache.buildMap(mapFile.getPath());
+            coldMilliseconds += mapCache.getLastLoadMilliseconds();
+        }
+
+        // the last cold load left a copy behind
+        int numberOfWarmLoads = mapCache.getNumberOfWarmLoads();
+        for (int i = 0; i < MapCacheBenchmark.WARM_UP_LOADS; i++) {
+            mapCache.buildMap(mapFile.getPath());
+        }
+        double warmMilliseconds = 0;
+        for (int i = 0; i < MapCacheBenchmark.MEASURED_LOADS; i++) {
+            mapCache.buildMap(mapFile.getPath());
+            warmMilliseconds += mapCache.getLastLoadMilliseconds();
+        }
+        if (mapCache.getNumberOfColdLoads() != numberOfColdLoads
+            + MapCacheBenchmark.MEASURED_LOADS
+            || mapCache.getNumberOfWarmLoads() != numberOfWarmLoads
+            + MapCacheBenchmark.WARM_UP_LOADS
+            + MapCacheBenchmark.MEASURED_LOADS) {
+            throw new IllegalStateException("cache missed a warm load");
+        }
+
+        // a changed map file must not be loaded from the old copy
+        BenchmarkMaps.writeRandomMapFile(
+            size, size, MapCacheBenchmark.CHANGED_SEED, mapFile);
+        mapCache.buildMap(mapFile.getPath());
+        if (mapCache.getLastLoadWasWarm()) {
+            throw new IllegalStateException("cache used an old copy");
+        }
+
+        System.out.println(String.format("%dx%d map file of %.1f MB", size,
+            size, mapFile.length() / (1024.0 * 1024.0)));
+        System.out.println(String.format("  cold: %.1f ms, warm: %.1f ms"
+            + " (%.1fx faster)",
+            coldMilliseconds / MapCacheBenchmark.MEASURED_LOADS,
+            warmMilliseconds / MapCacheBenchmark.MEASURED_LOADS,
+            coldMilliseconds / warmMilliseconds));
+    }
+}
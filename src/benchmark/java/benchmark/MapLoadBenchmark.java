@@ -0,0 +1,111 @@
+package benchmark;
+
+// java standard library imports
+import java.io.File;
+import java.io.IOException;
+
+// this project imports
+import exception.MapFileReadException;
+import model.map.ChunkedTileStorage;
+import model.map.Map;
+
+/**
+ * writes a big random map file and times how long Map.buildMap takes to
+ * load it, along with how much heap the loaded Map keeps, so that changes
+ * to how a Map is read or stored can be compared
+ * the heap is measured after a garbage collection with the Map still
+ * held, so it is only as exact as the collector lets it be, but it is
+ * good enough to see the bytes every Tile costs, map files bigger than
+ * Map.CHUNKED_MAP_FILE_SIZE are loaded into a ChunkedTileStorage so for
+ * them it also prints how many chunks were read and kept
+ * run it with "gradle benchmark -Pbenchmark=MapLoadBenchmark", the
+ * argument (-PbenchmarkArgs) is the size of the square map, 1000 by
+ * default
+ * @author Ryan Voor
+ */
+public class MapLoadBenchmark {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final int DEFAULT_SIZE = 1000;
+
+    // the seed the map file is written from
+    private static final long SEED = 1331L;
+
+    // how many times to load the map before and while timing
+    private static final int WARM_UP_LOADS = 3;
+    private static final int MEASURED_LOADS = 5;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private MapLoadBenchmark() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * runs the benchmark
+     * @param args the size of the map
+     */
+    public static void main(String[] args)
+        throws IOException, MapFileReadException {
+        int size = args.length > 0
+            ? Integer.parseInt(args[0])
+            : MapLoadBenchmark.DEFAULT_SIZE;
+
+        File mapFile = File.createTempFile("benchmark", ".map");
+        mapFile.deleteOnExit();
+        BenchmarkMaps.writeRandomMapFile(
+            size, size, MapLoadBenchmark.SEED, mapFile);
+        System.out.println(size + "x" + size + " map file of "
+            + (mapFile.length() / 1024) + " KB");
+
+        for (int i = 0; i < MapLoadBenchmark.WARM_UP_LOADS; i++) {
+            Map.buildMap(mapFile.getPath());
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MapLoadBenchmark.MEASURED_LOADS; i++) {
+            Map.buildMap(mapFile.getPath());
+        }
+        double millisecondsPerLoad = (System.nanoTime() - start)
+            / 1000000.0 / MapLoadBenchmark.MEASURED_LOADS;
+
+        long heapBefore = MapLoadBenchmark.usedHeap();
+        Map map = Map.buildMap(mapFile.getPath());
+        long heapAfter = MapLoadBenchmark.usedHeap();
+
+        System.out.println(String.format("load: %.1f ms, heap kept: %.1f MB"
+            + " (%.1f bytes per Tile)", millisecondsPerLoad,
+            (heapAfter - heapBefore) / (1024.0 * 1024.0),
+            ((double) (heapAfter - heapBefore))
+                / (map.getNumberOfColumns() * map.getNumberOfRows())));
+        if (map.getTileStorage() instanceof ChunkedTileStorage) {
+            ChunkedTileStorage chunks
+                = (ChunkedTileStorage) map.getTileStorage();
+            System.out.println("chunked: " + chunks.getNumberOfChunkReads()
+                + " chunk reads, " + chunks.getNumberOfResidentChunks()
+                + " of " + chunks.getMaximumNumberOfChunks()
+                + " chunks in memory");
+        }
+    }
+
+    /**
+     * collects the garbage and returns how much of the heap is in use
+     * @return long the number of bytes of the heap in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
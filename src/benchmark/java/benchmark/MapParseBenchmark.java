@@ -0,0 +1,118 @@
+package benchmark;
+
+// java standard library imports
+import java.io.File;
+import java.io.IOException;
+
+// this project imports
+import exception.MapFileReadException;
+import model.map.CompactTileStorage;
+import model.map.Map;
+import model.map.MapFileParser;
+
+/**
+ * writes random map files of a few sizes and times how fast
+ * MapFileParser reads them, in megabytes and Tiles per second, next to
+ * how long all of Map.buildMap takes, so that the parser can be compared
+ * against the time it takes to build the rest of a Map
+ * run it with "gradle benchmark -Pbenchmark=MapParseBenchmark", the
+ * arguments (-PbenchmarkArgs) are the sizes of the square maps, 1000
+ * and 1400 by default, which make files of around 5 and 10 MB
+ * @author Ryan Voor
+ */
+public class MapParseBenchmark {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final int[] DEFAULT_SIZES = {1000, 1400};
+
+    // the seed the map files are written from
+    private static final long SEED = 1331L;
+
+    // how many times to read each map before and while timing
+    private static final int WARM_UP_READS = 3;
+    private static final int MEASURED_READS = 5;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private MapParseBenchmark() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * runs the benchmark
+     * @param args the sizes of the maps
+     */
+    public static void main(String[] args)
+        throws IOException, MapFileReadException {
+        int[] sizes = MapParseBenchmark.DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        for (int size : sizes) {
+            File mapFile = File.createTempFile("benchmark", ".map");
+            mapFile.deleteOnExit();
+            BenchmarkMaps.writeRandomMapFile(
+                size, size, MapParseBenchmark.SEED, mapFile);
+            MapParseBenchmark.timeMapFile(mapFile, size);
+            mapFile.delete();
+        }
+    }
+
+    /**
+     * times reading the parameter map file with the parser on its own
+     * and with all of Map.buildMap
+     * @param mapFile the map file
+     * @param size the number of rows and columns of the map
+     */
+    private static void timeMapFile(File mapFile, int size)
+        throws IOException, MapFileReadException {
+        double megabytes = mapFile.length() / (1024.0 * 1024.0);
+        long numberOfTiles = ((long) size) * size;
+
+        for (int i = 0; i < MapParseBenchmark.WARM_UP_READS; i++) {
+            MapFileParser.readTileStorage(mapFile.getPath());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MapParseBenchmark.MEASURED_READS; i++) {
+            CompactTileStorage tileStorage
+                = MapFileParser.readTileStorage(mapFile.getPath());
+            if (tileStorage.getNumberOfRows() != size) {
+                throw new IllegalStateException("map was read wrong");
+            }
+        }
+        double secondsPerRead = (System.nanoTime() - start)
+            / 1000000000.0 / MapParseBenchmark.MEASURED_READS;
+
+        for (int i = 0; i < MapParseBenchmark.WARM_UP_READS; i++) {
+            Map.buildMap(mapFile.getPath());
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < MapParseBenchmark.MEASURED_READS; i++) {
+            Map.buildMap(mapFile.getPath());
+        }
+        double secondsPerBuild = (System.nanoTime() - start)
+            / 1000000000.0 / MapParseBenchmark.MEASURED_READS;
+
+        System.out.println(String.format("%dx%d map file of %.1f MB", size,
+            size, megabytes));
+        System.out.println(String.format("  parse: %.1f ms, %.1f MB/s,"
+            + " %.1f million Tiles/s", secondsPerRead * 1000,
+            megabytes / secondsPerRead,
+            numberOfTiles / secondsPerRead / 1000000));
+        System.out.println(String.format("  buildMap: %.1f ms",
+            secondsPerBuild * 1000));
+    }
+}
@@ -0,0 +1,212 @@
+package benchmark;
+
+// java standard library imports
+import java.util.Arrays;
+
+// this project imports
+import model.drawable.tileOccupant.TileOccupant;
+import model.map.Map;
+import model.pathfinding.DijkstraSearch;
+import model.pathfinding.MovementCosts;
+import model.pathfinding.ReachableSet;
+
+/**
+ * times how long it takes to work out the distance from the middle of a
+ * Map to every other Tile, with DijkstraSearch and with the grid that Map
+ * used before it, and checks that both give exactly the same distances
+ * it also times the search that stops at the unit's movement range and
+ * checks that it finds exactly the Tiles the whole-Map search does
+ * run it with "gradle benchmark", the arguments (-PbenchmarkArgs) are
+ * the sizes of the square Maps to try, plus "--legacy-limit=N" to change
+ * the biggest size that the old grid is run on (it takes seconds at
+ * 100x100 and hours at 1000x1000)
+ * @author Ryan Voor
+ */
+public class PathfindingBenchmark {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final int[] DEFAULT_SIZES = {100, 250, 500, 1000};
+    private static final int DEFAULT_LEGACY_LIMIT = 100;
+    private static final String LEGACY_LIMIT_ARGUMENT = "--legacy-limit=";
+
+    // the seed every Map is built from
+    private static final long SEED = 1331L;
+
+    // how long to run each search before and while timing it
+    private static final long WARM_UP_NANOS = 1000000000L;
+    private static final long MEASURE_NANOS = 2000000000L;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private PathfindingBenchmark() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * runs the benchmark
+     * @param args the sizes of the Maps and "--legacy-limit=N"
+     */
+    public static void main(String[] args) {
+        int legacyLimit = PathfindingBenchmark.DEFAULT_LEGACY_LIMIT;
+        int[] sizes = new int[args.length];
+        int numberOfSizes = 0;
+        for (String arg : args) {
+            if (arg.startsWith(PathfindingBenchmark.LEGACY_LIMIT_ARGUMENT)) {
+                legacyLimit = Integer.parseInt(arg.substring(
+                    PathfindingBenchmark.LEGACY_LIMIT_ARGUMENT.length()));
+            } else {
+                sizes[numberOfSizes] = Integer.parseInt(arg);
+                numberOfSizes++;
+            }
+        }
+        if (0 == numberOfSizes) {
+            sizes = PathfindingBenchmark.DEFAULT_SIZES;
+        } else {
+            sizes = Arrays.copyOf(sizes, numberOfSizes);
+        }
+
+        for (int size : sizes) {
+            PathfindingBenchmark.runSize(size, size <= legacyLimit);
+        }
+    }
+
+    /**
+     * runs the benchmark on one square Map
+     * @param size the number of columns and rows of the Map
+     * @param runLegacy whether to run the old grid too
+     */
+    private static void runSize(int size, boolean runLegacy) {
+        Map map = BenchmarkMaps.buildRandomMap(
+            size, size, PathfindingBenchmark.SEED);
+        int x = size / 2;
+        int y = size / 2;
+        final int startTileNumber = map.getTileNumber(x, y);
+        TileOccupant occupant = map.getTileFromIndices(x, y).getOccupant();
+        final MovementCosts movementCosts
+            = map.getMovementCostGrid(occupant);
+        final DijkstraSearch search = new DijkstraSearch(size, size);
+
+        double nanosPerSearch = PathfindingBenchmark.time(new Runnable() {
+            @Override
+            public void run() {
+                search.search(movementCosts, startTileNumber);
+            }
+        });
+        String result = size + "x" + size + ": DijkstraSearch "
+            + PathfindingBenchmark.formatMillis(nanosPerSearch);
+
+        // the budgeted search should find exactly the Tiles that the
+        // whole-Map search puts within the movement range
+        final int budget = occupant.getMovementRange();
+        int[] distances = search.search(movementCosts, startTileNumber);
+        ReachableSet reachableSet = search.searchWithinBudget(
+            movementCosts, startTileNumber, budget);
+        PathfindingBenchmark.checkReachableSet(
+            reachableSet, distances, size);
+
+        double nanosPerBudgetedSearch
+            = PathfindingBenchmark.time(new Runnable() {
+                @Override
+                public void run() {
+                    search.searchWithinBudget(
+                        movementCosts, startTileNumber, budget);
+                }
+            });
+        result += ", within budget "
+            + PathfindingBenchmark.formatMillis(nanosPerBudgetedSearch)
+            + " (" + reachableSet.size() + " Tiles)";
+
+        if (runLegacy) {
+            // the old grid is far too slow to run over and over, once
+            // is plenty to see the difference
+            long start = System.nanoTime();
+            int[] legacyDistances
+                = new LegacyDistanceGrid(map).search(x, y, occupant);
+            long legacyNanos = System.nanoTime() - start;
+
+            if (!Arrays.equals(legacyDistances, distances)) {
+                throw new IllegalStateException("DijkstraSearch and the"
+                    + " legacy grid disagree on a " + size + "x" + size
+                    + " Map");
+            }
+            result += ", legacy grid "
+                + PathfindingBenchmark.formatMillis(legacyNanos)
+                + " (" + Math.round(legacyNanos / nanosPerSearch)
+                + "x slower), distances identical";
+        } else {
+            result += ", legacy grid skipped";
+        }
+
+        System.out.println(result);
+    }
+
+    /**
+     * makes sure that the parameter ReachableSet holds exactly the
+     * Tiles that are within its budget according to the parameter
+     * distances, and that their costs match
+     * @param reachableSet the result of a budgeted search
+     * @param distances the result of a whole-Map search from the same Tile
+     * @param size the size of the Map, for the error message
+     */
+    private static void checkReachableSet(ReachableSet reachableSet,
+        int[] distances, int size) {
+        int numberWithinBudget = 0;
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] <= reachableSet.getBudget()
+                && i != reachableSet.getStartTileNumber()) {
+                numberWithinBudget++;
+                if (reachableSet.getCost(i) != distances[i]) {
+                    throw new IllegalStateException("the budgeted search"
+                        + " got a different cost on a " + size + "x" + size
+                        + " Map");
+                }
+            }
+        }
+        if (numberWithinBudget != reachableSet.size()) {
+            throw new IllegalStateException("the budgeted search found a"
+                + " different number of Tiles on a " + size + "x" + size
+                + " Map");
+        }
+    }
+
+    /**
+     * runs the parameter work over and over for a while to warm it up,
+     * then over and over again while timing it
+     * @param work the work to time
+     * @return double the average number of nanoseconds one run took
+     */
+    private static double time(Runnable work) {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < PathfindingBenchmark.WARM_UP_NANOS) {
+            work.run();
+        }
+
+        int runs = 0;
+        start = System.nanoTime();
+        long elapsed = 0;
+        while (elapsed < PathfindingBenchmark.MEASURE_NANOS) {
+            work.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        }
+        return ((double) elapsed) / runs;
+    }
+
+    /**
+     * formats a number of nanoseconds as milliseconds
+     * @param nanos the number of nanoseconds
+     * @return String the number of milliseconds, to 3 places
+     */
+    private static String formatMillis(double nanos) {
+        return String.format("%.3f ms", nanos / 1000000.0);
+    }
+}
@@ -0,0 +1,135 @@
+package benchmark;
+
+// java standard library imports
+import java.util.concurrent.ForkJoinPool;
+
+// this project imports
+import model.map.Map;
+import model.map.ReachabilityTable;
+import model.pathfinding.ReachableSet;
+
+/**
+ * times how long it takes to work out the movement range of every unit
+ * on a big Map with Map.getAllTilesToWhichOccupantsCanMove, first on a
+ * pool with one thread and then with more and more threads up to the
+ * number of cores, and prints how much faster each one is than one thread
+ * every run is checked against the single threaded one so a speed up
+ * never comes from a wrong answer
+ * run it with "gradle benchmark -Pbenchmark=ReachabilityBatchBenchmark",
+ * the arguments (-PbenchmarkArgs) are the size of the square Map, 500 by
+ * default, and the most threads to try, the number of cores by default
+ * @author Ryan Voor
+ */
+public class ReachabilityBatchBenchmark {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final int DEFAULT_SIZE = 500;
+
+    // the seed the Map is built from
+    private static final long SEED = 1331L;
+
+    // how many times to run before timing anything, so that the first
+    // pool isn't charged for the JIT compiling everything
+    private static final int FIRST_WARM_UP_RUNS = 30;
+
+    // how many times to run each pool before and while timing it
+    private static final int WARM_UP_RUNS = 5;
+    private static final int MEASURED_RUNS = 10;
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private ReachabilityBatchBenchmark() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * runs the benchmark
+     * @param args the size of the Map and the most threads to try
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0
+            ? Integer.parseInt(args[0])
+            : ReachabilityBatchBenchmark.DEFAULT_SIZE;
+        int maximumThreads = args.length > 1
+            ? Integer.parseInt(args[1])
+            : Runtime.getRuntime().availableProcessors();
+
+        Map map = BenchmarkMaps.buildRandomMap(
+            size, size, ReachabilityBatchBenchmark.SEED);
+
+        ForkJoinPool warmUpPool = new ForkJoinPool(maximumThreads);
+        for (int i = 0; i < ReachabilityBatchBenchmark.FIRST_WARM_UP_RUNS;
+            i++) {
+            map.getAllTilesToWhichOccupantsCanMove(warmUpPool);
+        }
+        warmUpPool.shutdown();
+
+        ReachabilityTable expected = null;
+        double singleThreadNanos = 0;
+        for (int threads = 1; threads <= maximumThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+
+            ReachabilityTable table = null;
+            for (int i = 0; i < ReachabilityBatchBenchmark.WARM_UP_RUNS;
+                i++) {
+                table = map.getAllTilesToWhichOccupantsCanMove(pool);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ReachabilityBatchBenchmark.MEASURED_RUNS;
+                i++) {
+                table = map.getAllTilesToWhichOccupantsCanMove(pool);
+            }
+            double nanosPerRun = ((double) (System.nanoTime() - start))
+                / ReachabilityBatchBenchmark.MEASURED_RUNS;
+            pool.shutdown();
+
+            if (null == expected) {
+                expected = table;
+                singleThreadNanos = nanosPerRun;
+            } else {
+                ReachabilityBatchBenchmark.checkSameResults(expected, table);
+            }
+
+            System.out.println(size + "x" + size + ", " + table.size()
+                + " units, " + threads + " threads: "
+                + String.format("%.3f ms", nanosPerRun / 1000000.0)
+                + String.format(" (%.2fx)", singleThreadNanos / nanosPerRun));
+        }
+    }
+
+    /**
+     * makes sure that two tables hold exactly the same movement ranges
+     * @param expected the table worked out on one thread
+     * @param actual the table to check
+     */
+    private static void checkSameResults(ReachabilityTable expected,
+        ReachabilityTable actual) {
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("different number of units");
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            ReachableSet expectedSet = expected.getReachableSet(i);
+            ReachableSet actualSet = actual.getReachableSet(i);
+            boolean same = expected.getTileNumber(i) == actual.getTileNumber(i)
+                && expectedSet.size() == actualSet.size();
+            for (int j = 0; same && j < expectedSet.size(); j++) {
+                same = expectedSet.getTileNumber(j)
+                    == actualSet.getTileNumber(j)
+                    && expectedSet.getCostAt(j) == actualSet.getCostAt(j);
+            }
+            if (!same) {
+                throw new IllegalStateException("different movement range"
+                    + " for the unit on Tile " + expected.getTileNumber(i));
+            }
+        }
+    }
+}
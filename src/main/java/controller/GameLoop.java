@@ -0,0 +1,438 @@
+package controller;
+
+// javafx imports
+import javafx.animation.AnimationTimer;
+
+/**
+ * a fixed timestep game loop that runs on top of the JavaFX pulse
+ * the game state is advanced in ticks of exactly the same length no
+ * matter how often JavaFX calls handle, any time left over that isn't
+ * enough for a whole tick is carried into the next frame and handed to
+ * render as an interpolation factor so that drawing can smooth between
+ * the last two ticks
+ * frames can be capped to a maximum rate, and when the machine can't
+ * keep up only a bounded number of ticks are run per frame, the rest
+ * are skipped instead of letting the loop fall further and further
+ * behind
+ * subclasses fill in update and render, handle must not be overridden
+ * @author Ryan Voor
+ */
+public abstract class GameLoop extends AnimationTimer {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    // the defaults are the 60 FPS that the old frame cap was aiming for
+    private static final int DEFAULT_TICKS_PER_SECOND      = 60;
+    private static final int DEFAULT_MAX_FRAMES_PER_SECOND = 60;
+
+    // how many ticks a single frame may run to catch up before
+    // the rest of the backlog gets skipped
+    private static final int DEFAULT_MAX_TICKS_PER_FRAME = 5;
+
+    // a frame that took longer than this (the window was dragged, the
+    // machine went to sleep, a debugger was paused) is treated as if it
+    // only took this long so the game doesn't try to catch up on it
+    private static final long MAX_FRAME_TIME_IN_NANOS
+        = NANOS_PER_SECOND / 4;
+
+    // JavaFX pulses jitter by a little bit, without some slack a cap
+    // of 60 FPS would throw away every pulse that showed up slightly
+    // early and end up running at 30 FPS
+    private static final long FRAME_CAP_SLACK_IN_NANOS = 2000000L;
+
+    // how much each new frame counts towards the running averages
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    // the time we remember when no frame has been seen yet
+    private static final long NO_TIME = -1L;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // how the loop is set up
+    private final long tickLengthInNanos;
+    private long minimumFrameIntervalInNanos;
+    private int maxTicksPerFrame;
+
+    // where the loop is
+    private long lastFrameTime;
+    private long accumulatedNanos;
+    private long simulationTimeInNanos;
+
+    // timing statistics
+    private long frameCount;
+    private long tickCount;
+    private long skippedTickCount;
+    private long cappedFrameCount;
+    private int ticksLastFrame;
+    private long lastFrameTimeInNanos;
+    private long worstFrameTimeInNanos;
+    private double averageFrameTimeInNanos;
+    private double averageUpdateTimeInNanos;
+    private double averageRenderTimeInNanos;
+
+
+    //////////////////
+    // Constructors //
+    //////////////////
+
+    /**
+     * constructor for the GameLoop class, ticks 60 times a second
+     * and draws at most 60 frames a second
+     */
+    public GameLoop() {
+        this(
+            DEFAULT_TICKS_PER_SECOND,
+            DEFAULT_MAX_FRAMES_PER_SECOND,
+            DEFAULT_MAX_TICKS_PER_FRAME
+        );
+    }
+
+    /**
+     * constructor for the GameLoop class
+     * @param ticksPerSecond how many times a second the game state is
+     * advanced, this never changes while the loop is running
+     * @param maxFramesPerSecond the most frames that get drawn in a
+     * second, 0 means no cap other than the JavaFX pulse itself
+     * @param maxTicksPerFrame the most ticks that a single frame will
+     * run in order to catch up, must be at least 1
+     */
+    public GameLoop(int ticksPerSecond, int maxFramesPerSecond,
+        int maxTicksPerFrame) {
+        if (ticksPerSecond < 1) {
+            throw new IllegalArgumentException(
+                "A GameLoop must tick at least once a second"
+            );
+        }
+
+        this.tickLengthInNanos = NANOS_PER_SECOND / ticksPerSecond;
+        this.setMaxFramesPerSecond(maxFramesPerSecond);
+        this.setMaxTicksPerFrame(maxTicksPerFrame);
+        this.lastFrameTime = NO_TIME;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for how much game time passes every tick
+     * @return long the length of a tick in nanoseconds
+     */
+    public long getTickLengthInNanos() {
+        return this.tickLengthInNanos;
+    }
+
+    /**
+     * getter for how much game time has passed, this only ever
+     * moves forward a whole tick at a time
+     * @return long the game time in nanoseconds
+     */
+    public long getSimulationTimeInNanos() {
+        return this.simulationTimeInNanos;
+    }
+
+    /**
+     * getter for the number of frames that have been drawn
+     * @return long the number of frames
+     */
+    public long getFrameCount() {
+        return this.frameCount;
+    }
+
+    /**
+     * getter for the number of ticks that have been run
+     * @return long the number of ticks
+     */
+    public long getTickCount() {
+        return this.tickCount;
+    }
+
+    /**
+     * getter for the number of ticks that were skipped because
+     * the machine could not keep up
+     * @return long the number of skipped ticks
+     */
+    public long getSkippedTickCount() {
+        return this.skippedTickCount;
+    }
+
+    /**
+     * getter for the number of JavaFX pulses that were ignored
+     * because of the frame cap
+     * @return long the number of ignored pulses
+     */
+    public long getCappedFrameCount() {
+        return this.cappedFrameCount;
+    }
+
+    /**
+     * getter for the number of ticks that were run during the last frame
+     * @return int the number of ticks
+     */
+    public int getTicksLastFrame() {
+        return this.ticksLastFrame;
+    }
+
+    /**
+     * getter for how long it was between the last frame and the one
+     * before it
+     * @return double the length of the last frame in milliseconds
+     */
+    public double getLastFrameTimeInMillis() {
+        return this.lastFrameTimeInNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * getter for the longest time there has been between two frames
+     * @return double the length of the longest frame in milliseconds
+     */
+    public double getWorstFrameTimeInMillis() {
+        return this.worstFrameTimeInNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * getter for the running average of the time between frames
+     * @return double the average length of a frame in milliseconds
+     */
+    public double getAverageFrameTimeInMillis() {
+        return this.averageFrameTimeInNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * getter for the running average of the time spent running
+     * ticks every frame
+     * @return double the average update time in milliseconds
+     */
+    public double getAverageUpdateTimeInMillis() {
+        return this.averageUpdateTimeInNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * getter for the running average of the time spent drawing
+     * every frame
+     * @return double the average render time in milliseconds
+     */
+    public double getAverageRenderTimeInMillis() {
+        return this.averageRenderTimeInNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * getter for the frame rate that the loop is actually running at
+     * @return double the number of frames per second, 0 if no frames
+     * have been timed yet
+     */
+    public double getFramesPerSecond() {
+        if (0 == this.averageFrameTimeInNanos) {
+            return 0;
+        }
+        return NANOS_PER_SECOND / this.averageFrameTimeInNanos;
+    }
+
+    /**
+     * returns a one line summary of the timing statistics of this
+     * loop, useful for printing out while tuning performance
+     * @return String the summary
+     */
+    public String getStatistics() {
+        return "GameLoop: " + String.format("%.1f", this.getFramesPerSecond())
+            + " FPS, frame " + String.format("%.2f",
+                this.getAverageFrameTimeInMillis())
+            + "ms (worst " + String.format("%.2f",
+                this.getWorstFrameTimeInMillis())
+            + "ms), update " + String.format("%.2f",
+                this.getAverageUpdateTimeInMillis())
+            + "ms, render " + String.format("%.2f",
+                this.getAverageRenderTimeInMillis())
+            + "ms, " + this.frameCount + " frames, "
+            + this.tickCount + " ticks, "
+            + this.skippedTickCount + " skipped ticks, "
+            + this.cappedFrameCount + " capped pulses";
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * sets the most frames that get drawn in a second, JavaFX pulses
+     * that come sooner than that after the last frame are ignored
+     * @param maxFramesPerSecond the frame cap, 0 means no cap other
+     * than the JavaFX pulse itself
+     */
+    public void setMaxFramesPerSecond(int maxFramesPerSecond) {
+        if (maxFramesPerSecond < 0) {
+            throw new IllegalArgumentException(
+                "The frame cap of a GameLoop cannot be negative"
+            );
+        }
+
+        if (0 == maxFramesPerSecond) {
+            this.minimumFrameIntervalInNanos = 0;
+        } else {
+            this.minimumFrameIntervalInNanos
+                = NANOS_PER_SECOND / maxFramesPerSecond;
+        }
+    }
+
+    /**
+     * sets the most ticks that a single frame will run in order to catch
+     * up, when the game falls further behind than this the extra ticks
+     * are skipped, so the game slows down instead of locking up
+     * @param maxTicksPerFrame the most ticks per frame, at least 1
+     */
+    public void setMaxTicksPerFrame(int maxTicksPerFrame) {
+        if (maxTicksPerFrame < 1) {
+            throw new IllegalArgumentException(
+                "A GameLoop must be allowed at least one tick per frame"
+            );
+        }
+
+        this.maxTicksPerFrame = maxTicksPerFrame;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * advances the game state by exactly one tick
+     * @param simulationTimeInNanos the game time at the start of the tick
+     */
+    protected abstract void update(long simulationTimeInNanos);
+
+    /**
+     * draws a frame
+     * @param renderTimeInNanos the game time that the frame shows, this
+     * is the game time of the last tick plus the part of a tick that has
+     * passed since then, so it moves smoothly even between ticks
+     * @param interpolation how far between the last tick and the next
+     * one the frame is, between 0.0 and 1.0
+     */
+    protected abstract void render(long renderTimeInNanos,
+        double interpolation);
+
+    @Override
+    public void start() {
+        // forget when the last frame was so that the time the loop
+        // spent stopped doesn't count as one gigantic frame
+        this.lastFrameTime = NO_TIME;
+        super.start();
+    }
+
+    @Override
+    public final void handle(long now) {
+        // the very first frame just gets drawn, there is no earlier
+        // frame to measure the time since
+        if (NO_TIME == this.lastFrameTime) {
+            this.lastFrameTime = now;
+            this.render(this.simulationTimeInNanos, 0.0);
+            return;
+        }
+
+        // ignore the pulse if it came too soon after the last frame
+        long frameTime = now - this.lastFrameTime;
+        if (frameTime + FRAME_CAP_SLACK_IN_NANOS
+            < this.minimumFrameIntervalInNanos) {
+            this.cappedFrameCount++;
+            return;
+        }
+        this.lastFrameTime = now;
+
+        // add the real time that passed to what is owed to the game
+        this.accumulatedNanos += Math.min(frameTime, MAX_FRAME_TIME_IN_NANOS);
+
+        // run whole ticks until we have caught up or hit the limit
+        long updateStartTime = System.nanoTime();
+        int ticks = 0;
+        while (this.accumulatedNanos >= this.tickLengthInNanos
+            && ticks < this.maxTicksPerFrame) {
+            this.update(this.simulationTimeInNanos);
+            this.simulationTimeInNanos += this.tickLengthInNanos;
+            this.accumulatedNanos -= this.tickLengthInNanos;
+            ticks++;
+        }
+
+        // if there is still at least a whole tick owed then we can't
+        // keep up, skip it so that next frame doesn't start even
+        // further behind
+        if (this.accumulatedNanos >= this.tickLengthInNanos) {
+            long ticksToSkip = this.accumulatedNanos / this.tickLengthInNanos;
+            this.skippedTickCount += ticksToSkip;
+            this.accumulatedNanos -= ticksToSkip * this.tickLengthInNanos;
+        }
+
+        // draw whatever part of the way to the next tick we are
+        long renderStartTime = System.nanoTime();
+        double interpolation
+            = ((double) this.accumulatedNanos) / this.tickLengthInNanos;
+        this.render(
+            this.simulationTimeInNanos + this.accumulatedNanos,
+            interpolation
+        );
+        long renderEndTime = System.nanoTime();
+
+        this.recordFrame(
+            frameTime,
+            ticks,
+            renderStartTime - updateStartTime,
+            renderEndTime - renderStartTime
+        );
+    }
+
+    /**
+     * adds a frame into the timing statistics
+     * @param frameTime the time since the last frame in nanoseconds
+     * @param ticks the number of ticks that were run this frame
+     * @param updateTime the time spent running ticks in nanoseconds
+     * @param renderTime the time spent drawing in nanoseconds
+     */
+    private void recordFrame(long frameTime, int ticks, long updateTime,
+        long renderTime) {
+        this.frameCount++;
+        this.tickCount += ticks;
+        this.ticksLastFrame = ticks;
+        this.lastFrameTimeInNanos = frameTime;
+        this.worstFrameTimeInNanos
+            = Math.max(this.worstFrameTimeInNanos, frameTime);
+
+        if (1 == this.frameCount) {
+            // nothing to average against yet
+            this.averageFrameTimeInNanos  = frameTime;
+            this.averageUpdateTimeInNanos = updateTime;
+            this.averageRenderTimeInNanos = renderTime;
+        } else {
+            this.averageFrameTimeInNanos = GameLoop.average(
+                this.averageFrameTimeInNanos, frameTime);
+            this.averageUpdateTimeInNanos = GameLoop.average(
+                this.averageUpdateTimeInNanos, updateTime);
+            this.averageRenderTimeInNanos = GameLoop.average(
+                this.averageRenderTimeInNanos, renderTime);
+        }
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * folds a new value into a running average
+     * @param average the running average so far
+     * @param value the new value
+     * @return double the new running average
+     */
+    private static double average(double average, long value) {
+        return average + AVERAGE_WEIGHT * (value - average);
+    }
+}
@@ -1,35 +1,36 @@
 package controller;
 
 // javafx imports
-import javafx.animation.AnimationTimer;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
-import javafx.scene.paint.Color;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.Scene;
 
 // this project imports
 import fxapp.MainFXApplication;
 import model.Facade;
+import model.map.Camera;
 import model.map.Map;
+import model.map.MapRenderer;
 
 /**
  * Controller for Gameplay Screen
  */
 public class GameplayScreenController extends Controller {
 
-    // TODO there's a problem with the canvas being bigger than the map and
-    // that causing arrayindexoutofbounds exceptions. However, it doesnt really
-    // affect the user experience directly so i guess fixing it isnt super high
-    // priority
+    // how many pixels the arrow keys scroll the Map by
+    private static final int CAMERA_PAN_STEP_IN_PIXELS = 50;
+
     // TODO should make the mouse also hover over Tiles during selection like
     // the keyboard controls do
 
     // regular instance variables
     private Map map;
+    private MapRenderer mapRenderer;
+    private GameLoop gameLoop;
     private int selectedColumn;
     private int selectedRow;
     private boolean aTileIsSelected;
@@ -38,8 +39,16 @@ public class GameplayScreenController extends Controller {
 
     // FXML instance variables
     // these get set automatically by javafx and the fxml
+    // the Map is drawn in layers, one Canvas per layer stacked
+    // from the terrain at the bottom to the overlay on top
+    @FXML
+    private Canvas terrainCanvas;
+    @FXML
+    private Canvas buildingCanvas;
+    @FXML
+    private Canvas unitCanvas;
     @FXML
-    private Canvas mapCanvas;
+    private Canvas overlayCanvas;
 
     @Override
     public void setupController() {
@@ -57,61 +66,36 @@ public class GameplayScreenController extends Controller {
         }
 
         // grab the relevant instance variables
-        Canvas mapCanvas = this.getMapCanvas();
+        // the overlay Canvas is on top of the others so it is the
+        // one that gets all the mouse events
+        Canvas mapCanvas = this.getOverlayCanvas();
         Map map          = this.getMap();
         Scene scene      = this.getScene();
 
+        // set up the renderer that draws the Map onto the screen, it
+        // remembers what it drew on each layer so that every frame
+        // only the Tiles that changed on that layer get redrawn
+        this.mapRenderer = Facade.buildMapRenderer(
+            map,
+            this.getTerrainCanvas(),
+            this.getBuildingCanvas(),
+            this.getUnitCanvas(),
+            this.getOverlayCanvas()
+        );
+
         // draw the Map onto the screen
-        // this call draws the Map before the AnimationTimer gets
+        // this call draws the Map before the GameLoop gets
         // set up so this is the only time that we should be passing
         // in time = 0
-        Facade.drawMap(map, mapCanvas, 0);
+        Facade.renderMap(this.mapRenderer, 0);
 
         // TODO move these event handlers and the animation timer into
         // their own files (make them subclasses (since that's what they
         // are already implicitly)) to help keep this controller from
         // becoming gigantic
 
-        // set up mouse click event handler
-        mapCanvas.addEventHandler(MouseEvent.MOUSE_CLICKED,
-            new EventHandler<MouseEvent>() {
-                // execute this method when user clicks on the canvas
-                @Override
-                public void handle(MouseEvent e) {
-                    // unselect the tile that was previously selected
-                    GameplayScreenController.this.unselectCurrentTile();
-
-                    // select the tile that gets clicked on
-                    GameplayScreenController.this.selectTile(
-                        // cast this because I don't care about
-                        // partial pixel values
-                        Facade.getColumnFromCoordinate((int) e.getX()),
-                        Facade.getRowFromCoordinate((int) e.getY())
-                    );
-                }
-            });
-
-        // set up mouse move event handler
-        mapCanvas.addEventHandler(MouseEvent.MOUSE_MOVED,
-            new EventHandler<MouseEvent>() {
-                // execute this method when user moves the mouse on the canvas
-                @Override
-                public void handle(MouseEvent e) {
-                    // if there is no selected Tile
-                    // this is safe because the only Tile that should
-                    // ever get selected is the Tile that was just being
-                    // hovered
-                    if (!GameplayScreenController.this.getATileIsSelected()) {
-                        // hover the tile that get moved onto
-                        GameplayScreenController.this.hoverTile(
-                            // cast this because I don't care about
-                            // partial pixel values
-                            Facade.getColumnFromCoordinate((int) e.getX()),
-                            Facade.getRowFromCoordinate((int) e.getY())
-                        );
-                    }
-                }
-            });
+        // set up mouse event handlers
+        this.setupMouseHandlers(mapCanvas);
 
 
         // set up key event handlers
@@ -139,6 +123,31 @@ public class GameplayScreenController extends Controller {
                     case ESCAPE:
                         GameplayScreenController.this.escapeKeyPressed();
                         break;
+                    case UP:
+                        GameplayScreenController.this.panCamera(
+                            0, -CAMERA_PAN_STEP_IN_PIXELS);
+                        break;
+                    case DOWN:
+                        GameplayScreenController.this.panCamera(
+                            0, CAMERA_PAN_STEP_IN_PIXELS);
+                        break;
+                    case LEFT:
+                        GameplayScreenController.this.panCamera(
+                            -CAMERA_PAN_STEP_IN_PIXELS, 0);
+                        break;
+                    case RIGHT:
+                        GameplayScreenController.this.panCamera(
+                            CAMERA_PAN_STEP_IN_PIXELS, 0);
+                        break;
+                    case PLUS:
+                    case EQUALS:
+                    case ADD:
+                        GameplayScreenController.this.zoomCamera(true);
+                        break;
+                    case MINUS:
+                    case SUBTRACT:
+                        GameplayScreenController.this.zoomCamera(false);
+                        break;
                     default:
                         // ignore other button presses
                     break;
@@ -163,27 +172,17 @@ public class GameplayScreenController extends Controller {
         });
 
 
-        // set up animation timer (redraws canvas every frame)
-        AnimationTimer timer = new AnimationTimer() {
+        // set up the game loop, it advances the game in fixed ticks and
+        // redraws the canvases at most 60 times a second
+        this.gameLoop = new GameLoop() {
             @Override
-            public void handle(long now) {
-                // make the framerate 60 FPS by not
-                // executing the rest of this method if we aren't
-                // to the next 1/60 of a second interval
-                // 16670000L is 1/60th of a second in nanoseconds
-                if (0 == (now % 16670000L)) {
-                    return;
-                }
-
+            protected void update(long simulationTimeInNanos) {
                 // grab variables that we'll need
                 Map map          = GameplayScreenController.this.getMap();
-                Canvas mapCanvas = GameplayScreenController.this.getMapCanvas();
-                GraphicsContext graphicsContext
-                    = mapCanvas.getGraphicsContext2D();
+                MapRenderer mapRenderer
+                    = GameplayScreenController.this.getMapRenderer();
                 boolean aTileIsSelected
                     = GameplayScreenController.this.getATileIsSelected();
-                boolean selectedTileIsOccupied
-                    = GameplayScreenController.this.selectedTileIsOccupied();
                 int selectedColumn
                     = GameplayScreenController.this.getSelectedColumn();
                 int selectedRow
@@ -193,60 +192,57 @@ public class GameplayScreenController extends Controller {
                 int hoveredRow
                     = GameplayScreenController.this.getHoveredRow();
 
-                // clear the map
-                GameplayScreenController.this.clearMapCanvas();
-
-                // redraw the map
-                Facade.drawMap(map, mapCanvas, now);
+                // tell the renderer which Tiles need to be tinted,
+                // it works out for itself which Tiles actually changed
+                // and only redraws those
+                mapRenderer.setHoveredTile(hoveredColumn, hoveredRow);
+                mapRenderer.setMovementRange(null);
+                mapRenderer.setDangerZone(null);
+                mapRenderer.clearSelectedTile();
 
                 // if there is a currently selected Tile
                 if (aTileIsSelected) {
                     // highlight the selected Tile
-                    Facade.tintTile(
-                        mapCanvas,
-                        selectedColumn,
-                        selectedRow,
-                        Color.BLUE,
-                        0.3
-                    );
+                    mapRenderer.setSelectedTile(selectedColumn, selectedRow);
 
                     // if the selected Tile is occupied then highlight all
-                    // the Tiles that the TileOccupant can move to
-                    if (selectedTileIsOccupied) {
-                        // if the tile that is selected is occupied
-                        // then highlight where the tile occupant can move
-                        Facade.tintTilesToWhichOccupantCanMove(
-                            map,
-                            mapCanvas,
-                            selectedColumn,
-                            selectedRow,
-                            Color.RED,
-                            0.3
+                    // the Tiles that the TileOccupant can move to, and
+                    // all the Tiles its enemies could attack next turn
+                    if (GameplayScreenController.this
+                        .selectedTileIsOccupied()) {
+                        mapRenderer.setMovementRange(
+                            Facade.getTilesToWhichOccupantCanMove(
+                                map,
+                                selectedColumn,
+                                selectedRow
+                            )
+                        );
+                        mapRenderer.setDangerZone(
+                            Facade.getTilesThreatenedByEnemiesOfOccupant(
+                                map,
+                                selectedColumn,
+                                selectedRow
+                            )
                         );
                     }
-
                 }
+            }
 
-                // if there is a currently selected Tile and if
-                // the currently Selected Tile is the same one that
-                // is being hovered then don't draw the hovered Tile,
-                // if there is no currently selected Tile then draw
-                // the hovered Tile
-                if (aTileIsSelected && (selectedColumn != hoveredColumn
-                    || selectedRow != hoveredRow) || !aTileIsSelected) {
-                    Facade.tintTile(
-                        mapCanvas,
-                        hoveredColumn,
-                        hoveredRow,
-                        Color.GREEN,
-                        0.3
-                    );
-                }
+            @Override
+            protected void render(long renderTimeInNanos,
+                double interpolation) {
+                // redraw whatever changed, animations follow the game
+                // clock so they keep their timing even when the frame
+                // rate drops
+                Facade.renderMap(
+                    GameplayScreenController.this.getMapRenderer(),
+                    renderTimeInNanos
+                );
             }
         };
 
         // begin animation/redrawing
-        timer.start();
+        this.gameLoop.start();
     }
 
 
@@ -265,13 +261,71 @@ public class GameplayScreenController extends Controller {
     }
 
     /**
-     * getter for the Canvas object upon
-     * which the Map is drawn
+     * getter for the MapRenderer that draws the Map onto
+     * the screen that this Controller controls
+     * @return MapRenderer the renderer of the map
+     */
+    public MapRenderer getMapRenderer() {
+        return this.mapRenderer;
+    }
+
+    /**
+     * getter for the GameLoop that updates and redraws
+     * the screen that this Controller controls
+     * @return GameLoop the game loop, null before the
+     * controller has been set up
+     */
+    public GameLoop getGameLoop() {
+        return this.gameLoop;
+    }
+
+    /**
+     * getter for the Camera that decides which part of
+     * the Map is on the screen
+     * @return Camera the camera of the map renderer
+     */
+    public Camera getCamera() {
+        return this.getMapRenderer().getCamera();
+    }
+
+    /**
+     * getter for the bottom Canvas, the one
+     * that the Terrain of the Map is drawn on
+     * @return Canvas the canvas upon which
+     * the terrain is drawn
+     */
+    public Canvas getTerrainCanvas() {
+        return this.terrainCanvas;
+    }
+
+    /**
+     * getter for the Canvas that the Buildings
+     * of the Map are drawn on
+     * @return Canvas the canvas upon which
+     * the buildings are drawn
+     */
+    public Canvas getBuildingCanvas() {
+        return this.buildingCanvas;
+    }
+
+    /**
+     * getter for the Canvas that the occupants
+     * and invaders of the Map are drawn on
      * @return Canvas the canvas upon which
-     * the map is drawn
+     * the units are drawn
      */
-    public Canvas getMapCanvas() {
-        return this.mapCanvas;
+    public Canvas getUnitCanvas() {
+        return this.unitCanvas;
+    }
+
+    /**
+     * getter for the top Canvas, the one that the
+     * tints are drawn on and that gets mouse events
+     * @return Canvas the canvas upon which
+     * the tints are drawn
+     */
+    public Canvas getOverlayCanvas() {
+        return this.overlayCanvas;
     }
 
     /**
@@ -470,20 +524,40 @@ public class GameplayScreenController extends Controller {
     }
 
     /**
-     * completely clears the Canvas on this Screen with
-     * the Map drawn on it
+     * scrolls the Map on the screen by the parameter number
+     * of pixels, stopping at the edges of the Map
+     * @param deltaX how far to scroll right, negative scrolls left
+     * @param deltaY how far to scroll down, negative scrolls up
+     */
+    private void panCamera(int deltaX, int deltaY) {
+        Facade.panCamera(this.getCamera(), deltaX, deltaY);
+    }
+
+    /**
+     * zooms the Map on the screen in or out by one level,
+     * keeping the middle of the screen where it is
+     * @param zoomIn true to zoom in, false to zoom out
      */
-    private void clearMapCanvas() {
-        // grab the mapCanvas
-        Canvas mapCanvas                = this.getMapCanvas();
-        GraphicsContext graphicsContext = mapCanvas.getGraphicsContext2D();
+    private void zoomCamera(boolean zoomIn) {
+        Camera camera = this.getCamera();
+        int centerX   = camera.getViewportWidth() / 2;
+        int centerY   = camera.getViewportHeight() / 2;
+        if (zoomIn) {
+            Facade.zoomCameraIn(camera, centerX, centerY);
+        } else {
+            Facade.zoomCameraOut(camera, centerX, centerY);
+        }
+    }
 
-        // clear the canvas
-        graphicsContext.clearRect(
-            0,
-            0,
-            mapCanvas.getHeight(),
-            mapCanvas.getWidth()
+    /**
+     * scrolls the Map on the screen just enough that the
+     * currently hovered Tile is completely visible
+     */
+    private void scrollToHoveredTile() {
+        Facade.scrollCameraToTile(
+            this.getCamera(),
+            this.getHoveredColumn(),
+            this.getHoveredRow()
         );
     }
 
@@ -552,46 +626,168 @@ public class GameplayScreenController extends Controller {
     }
 
 
+    //// mouse handler methods ////
+
+    /**
+     * makes the parameter Canvas send its clicks, mouse movements, and
+     * scrolls to the mouse handler methods below
+     * @param mapCanvas the Canvas that gets all the mouse events, the
+     * one on top of the others
+     */
+    private void setupMouseHandlers(Canvas mapCanvas) {
+        // set up mouse click event handler
+        mapCanvas.addEventHandler(MouseEvent.MOUSE_CLICKED,
+            new EventHandler<MouseEvent>() {
+                // execute this method when user clicks on the canvas
+                @Override
+                public void handle(MouseEvent e) {
+                    // cast this because I don't care about
+                    // partial pixel values
+                    GameplayScreenController.this.mouseClicked(
+                        (int) e.getX(), (int) e.getY());
+                }
+            });
+
+        // set up mouse move event handler
+        mapCanvas.addEventHandler(MouseEvent.MOUSE_MOVED,
+            new EventHandler<MouseEvent>() {
+                // execute this method when user moves the mouse on the canvas
+                @Override
+                public void handle(MouseEvent e) {
+                    GameplayScreenController.this.mouseMoved(
+                        (int) e.getX(), (int) e.getY());
+                }
+            });
+
+        // set up scroll event handler
+        mapCanvas.addEventHandler(ScrollEvent.SCROLL,
+            new EventHandler<ScrollEvent>() {
+                // execute this method when user scrolls over the canvas
+                @Override
+                public void handle(ScrollEvent e) {
+                    GameplayScreenController.this.mouseScrolled(e);
+                }
+            });
+    }
+
+    /**
+     * executes when the user clicks on the Map,
+     * it unselects the Tile that was previously selected
+     * and selects the Tile that got clicked on
+     * @param x where on the screen the click was, in pixels
+     * @param y where on the screen the click was, in pixels
+     */
+    private void mouseClicked(int x, int y) {
+        // unselect the tile that was previously selected
+        this.unselectCurrentTile();
+
+        // select the tile that gets clicked on, the Camera
+        // turns the screen coordinates into Map coordinates
+        // and clamps them so that clicking past the edge of
+        // the Map selects the Tile on the edge
+        Camera camera = this.getCamera();
+        this.selectTile(
+            Facade.getColumnFromCoordinate(camera, x),
+            Facade.getRowFromCoordinate(camera, y)
+        );
+    }
+
+    /**
+     * executes when the user moves the mouse over the Map,
+     * it hovers the Tile under the mouse if no Tile is selected
+     * @param x where on the screen the mouse is, in pixels
+     * @param y where on the screen the mouse is, in pixels
+     */
+    private void mouseMoved(int x, int y) {
+        // if there is no selected Tile
+        // this is safe because the only Tile that should
+        // ever get selected is the Tile that was just being
+        // hovered
+        if (!this.getATileIsSelected()) {
+            // hover the tile that get moved onto
+            Camera camera = this.getCamera();
+            this.hoverTile(
+                Facade.getColumnFromCoordinate(camera, x),
+                Facade.getRowFromCoordinate(camera, y)
+            );
+        }
+    }
+
+    /**
+     * executes when the user scrolls over the Map,
+     * it scrolls the Map on the screen, or zooms in or out on
+     * whatever is under the mouse if control is held down
+     * @param e the scroll event
+     */
+    private void mouseScrolled(ScrollEvent e) {
+        Camera camera = this.getCamera();
+
+        // scrolling with control held down zooms in or out
+        // on whatever is under the mouse
+        if (e.isControlDown()) {
+            if (0 < e.getDeltaY()) {
+                Facade.zoomCameraIn(camera, (int) e.getX(), (int) e.getY());
+            } else if (0 > e.getDeltaY()) {
+                Facade.zoomCameraOut(camera, (int) e.getX(), (int) e.getY());
+            }
+            return;
+        }
+
+        // scrolling up (a positive delta) should show more of
+        // the top of the Map so the Camera moves the opposite
+        // way that the delta points
+        this.panCamera((int) -e.getDeltaX(), (int) -e.getDeltaY());
+    }
+
+
     //// key handler methods ////
 
     /**
      * executes when the 'w' key is pressed,
      * it moves the currently hovered Tile to the
      * north by one Tile if we aren't at the edge of
-     * the Map
+     * the Map, then scrolls the Map so that the
+     * hovered Tile stays on the screen
      */
     private void wKeyPressed() {
         this.moveHoverNorthByOne();
+        this.scrollToHoveredTile();
     }
 
     /**
      * executes when the 'a' key is pressed,
      * it moves the currently hovered Tile to the
      * west by one Tile if we aren't at the edge of
-     * the Map
+     * the Map, then scrolls the Map so that the
+     * hovered Tile stays on the screen
      */
     private void aKeyPressed() {
         this.moveHoverWestByOne();
+        this.scrollToHoveredTile();
     }
 
     /**
      * executes when the 's' key is pressed,
      * it moves the currently hovered Tile to the
      * south by one Tile if we aren't at the edge of
-     * the Map
+     * the Map, then scrolls the Map so that the
+     * hovered Tile stays on the screen
      */
     private void sKeyPressed() {
         this.moveHoverSouthByOne();
+        this.scrollToHoveredTile();
     }
 
     /**
      * executes when the 'd' key is pressed,
      * it moves the currently hovered Tile to the
      * east by one Tile if we aren't at the edge of
-     * the Map
+     * the Map, then scrolls the Map so that the
+     * hovered Tile stays on the screen
      */
     private void dKeyPressed() {
         this.moveHoverEastByOne();
+        this.scrollToHoveredTile();
     }
 
     /**
@@ -631,6 +827,9 @@ public class GameplayScreenController extends Controller {
      */
     @FXML
     private void backButtonPressed() {
+        // stop the game loop so it doesn't keep redrawing
+        // a screen that nobody can see anymore
+        this.getGameLoop().stop();
         MainFXApplication.showMapSelectScreen();
     }
 
@@ -4,19 +4,42 @@ package controller;
 import java.io.FileNotFoundException;
 
 // javafx imports
+import javafx.concurrent.WorkerStateEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
 
 // this project imports
 import exception.MapFileReadException;
 import fxapp.MainFXApplication;
 import model.Facade;
 import model.map.Map;
+import model.map.MapLoadingTask;
 
 /**
  * Controller for Map Select Screen
  */
 public class MapSelectScreenController extends Controller {
 
+    // regular instance variables
+    // the task loading the Map that was picked, null if
+    // no Map has been picked yet
+    private MapLoadingTask mapLoadingTask;
+
+    // FXML instance variables
+    // these get set automatically by javafx and the fxml
+    @FXML
+    private Button exampleMapSelectButton;
+    @FXML
+    private VBox loadingBox;
+    @FXML
+    private Label loadingLabel;
+    @FXML
+    private ProgressBar loadingProgressBar;
+
     ///////////////////
     // Event Methods //
     ///////////////////
@@ -26,6 +49,10 @@ public class MapSelectScreenController extends Controller {
      */
     @FXML
     private void mapSelectBackButtonPressed() {
+        // stop loading the Map that was picked, nobody is going to see it
+        if (null != this.mapLoadingTask) {
+            this.mapLoadingTask.cancel();
+        }
         MainFXApplication.showWelcomeScreen();
     }
 
@@ -42,24 +69,56 @@ public class MapSelectScreenController extends Controller {
     ////////////////////
 
     /**
-     * builds Map with given File and if successful
+     * builds Map with given File and loads all of its images in the
+     * background while showing the progress, if successful it
      * takes the user to the game play screen
      * @param mapFilePath the path to map file to use
      * to build the Map
      */
     private void mapSelectButtonPressed(String mapFilePath) {
-        Map map = null;
-        try {
-            map = Facade.buildMap(mapFilePath);
-            // TODO there should be different catches for each type of error
-        } catch (MapFileReadException e) {
-            // TODO make this a user dialogue
-            System.out.println("Map File reading error: " + e.getMessage());
-            System.exit(0);
-        } catch (FileNotFoundException e) {
-            System.out.println("Map File was not found: " + e.getMessage());
-            System.exit(0);
+        // only load one Map at a time
+        if (null != this.mapLoadingTask) {
+            return;
         }
-        MainFXApplication.showGameplayScreen(map);
+
+        final MapLoadingTask task = Facade.buildMapLoadingTask(mapFilePath);
+        this.mapLoadingTask = task;
+
+        // show how far along the loading is
+        this.exampleMapSelectButton.setDisable(true);
+        this.loadingLabel.textProperty().bind(task.messageProperty());
+        this.loadingProgressBar.progressProperty()
+            .bind(task.progressProperty());
+        this.loadingBox.setVisible(true);
+
+        // these get run on the javafx thread once the task is done
+        task.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                // every image the Map needs is decoded by now
+                // so the first frame won't hitch
+                Map map = task.getValue();
+                MainFXApplication.showGameplayScreen(map);
+            }
+        });
+        task.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                // TODO make this a user dialogue
+                Throwable e = task.getException();
+                if (e instanceof MapFileReadException) {
+                    System.out.println(
+                        "Map File reading error: " + e.getMessage());
+                } else if (e instanceof FileNotFoundException) {
+                    System.out.println(
+                        "Map File was not found: " + e.getMessage());
+                } else {
+                    System.out.println("Map could not be loaded: " + e);
+                }
+                System.exit(0);
+            }
+        });
+
+        task.start();
     }
 }
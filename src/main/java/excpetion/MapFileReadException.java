@@ -6,7 +6,46 @@ package exception;
  * @version 1.0
  */
 public class MapFileReadException extends Exception {
+
+    // where in the file the problem is, lines and columns count
+    // from 1 and 0 means it isn't known
+    private final int lineNumber;
+    private final int columnNumber;
+
     public MapFileReadException(String message) {
         super(message);
+        this.lineNumber = 0;
+        this.columnNumber = 0;
+    }
+
+    /**
+     * constructor for a problem at a particular spot in the file,
+     * the spot is put in front of the message
+     * @param message what is wrong
+     * @param lineNumber the line of the file the problem is on
+     * @param columnNumber the character of that line the problem is at
+     */
+    public MapFileReadException(String message, int lineNumber,
+        int columnNumber) {
+        super("line " + lineNumber + ", column " + columnNumber + ": "
+            + message);
+        this.lineNumber = lineNumber;
+        this.columnNumber = columnNumber;
+    }
+
+    /**
+     * getter for the line of the file the problem is on
+     * @return int the line, counting from 1, 0 if it isn't known
+     */
+    public int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * getter for the character of the line the problem is at
+     * @return int the column, counting from 1, 0 if it isn't known
+     */
+    public int getColumnNumber() {
+        return this.columnNumber;
     }
 }
@@ -14,6 +14,7 @@ import javafx.stage.Stage;
 // this project imports
 import controller.Controller;
 import controller.GameplayScreenController;
+import model.drawable.image.TextureAtlas;
 import model.map.Map;
 
 /**
@@ -39,6 +40,11 @@ public class MainFXApplication extends Application {
     @Override
     public void start(Stage primaryStage) {
         mainScreen = primaryStage;
+
+        // pack all the sprites into the texture atlas before anything
+        // gets drawn so that the sheets are laid out as tightly as possible
+        TextureAtlas.getSharedAtlas().packSpriteDirectory();
+
         showWelcomeScreen();
     }
 
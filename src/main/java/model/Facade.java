@@ -8,7 +8,15 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.Color;
 
 // this project imports
+import model.map.Camera;
 import model.map.Map;
+import model.map.MapCache;
+import model.map.MapLoadingTask;
+import model.map.MapRenderer;
+import model.map.ReachabilityTable;
+import model.pathfinding.Path;
+import model.pathfinding.ReachableSet;
+import model.pathfinding.TileBitSet;
 import exception.MapFileReadException;
 
 /**
@@ -30,9 +38,42 @@ public class Facade {
         map.draw(mapCanvas, time);
     }
 
+    /**
+     * builds a MapRenderer that draws the parameter Map onto the
+     * parameter stack of Canvases, one Canvas per layer, only
+     * redrawing the Tiles that change on each layer
+     * @param map the map that will get drawn onto the canvases
+     * @param terrainCanvas the bottom canvas, for the Terrain
+     * @param buildingCanvas the canvas for the Buildings
+     * @param unitCanvas the canvas for the occupants and invaders
+     * @param overlayCanvas the top canvas, for the tints
+     * @return MapRenderer the renderer for the map
+     */
+    public static MapRenderer buildMapRenderer(Map map, Canvas terrainCanvas,
+        Canvas buildingCanvas, Canvas unitCanvas, Canvas overlayCanvas) {
+        return new MapRenderer(
+            map,
+            terrainCanvas,
+            buildingCanvas,
+            unitCanvas,
+            overlayCanvas
+        );
+    }
+
+    /**
+     * draws a frame of the Map that the parameter MapRenderer renders,
+     * only the Tiles that look different from last frame get redrawn
+     * @param mapRenderer the renderer of the map
+     * @param time the time used to calculate animation images
+     */
+    public static void renderMap(MapRenderer mapRenderer, long time) {
+        mapRenderer.render(time);
+    }
+
     /**
      * builds a Map object given the path to a file that holds the
-     * information for the Tiles of that Map
+     * information for the Tiles of that Map, through the shared MapCache
+     * so a map file that was loaded before isn't parsed again
      * @throws FileNotFoundException gets thrown if a Map file cannot be
      * found at the parameter file path
      * @throws MapFileReadException gets thrown if the Map file is invalid
@@ -42,7 +83,19 @@ public class Facade {
      */
     public static Map buildMap(String mapFilePath)
         throws FileNotFoundException, MapFileReadException {
-        return Map.buildMap(mapFilePath);
+        return MapCache.getSharedCache().buildMap(mapFilePath);
+    }
+
+    /**
+     * builds a task that builds a Map from the file at the parameter
+     * path and loads every image that Map needs on a background thread,
+     * the task has to be started before it does anything
+     * @param mapFilePath the file path to the file that represents
+     * the map that should be built
+     * @return MapLoadingTask the task, its value is the Map
+     */
+    public static MapLoadingTask buildMapLoadingTask(String mapFilePath) {
+        return new MapLoadingTask(mapFilePath);
     }
 
     /**
@@ -67,6 +120,77 @@ public class Facade {
         return Map.getRowFromCoordinate(yCoordinate);
     }
 
+    /**
+     * given an X-coordinate in pixels on the screen returns the tile
+     * column that the parameter Camera shows there, clamped so that it
+     * is always a column on the Map
+     * @param camera the Camera that decides what part of the Map shows
+     * @param xCoordinate the X coordinate on the screen
+     * @return int the column under the parameter coordinate
+     */
+    public static int getColumnFromCoordinate(Camera camera,
+        int xCoordinate) {
+        return camera.getColumnFromScreenX(xCoordinate);
+    }
+
+    /**
+     * given a Y-coordinate in pixels on the screen returns the tile
+     * row that the parameter Camera shows there, clamped so that it
+     * is always a row on the Map
+     * @param camera the Camera that decides what part of the Map shows
+     * @param yCoordinate the Y coordinate on the screen
+     * @return int the row under the parameter coordinate
+     */
+    public static int getRowFromCoordinate(Camera camera, int yCoordinate) {
+        return camera.getRowFromScreenY(yCoordinate);
+    }
+
+    /**
+     * scrolls the parameter Camera by the parameter number of pixels,
+     * it stops at the edges of the Map
+     * @param camera the Camera to scroll
+     * @param deltaX how far to scroll right, negative scrolls left
+     * @param deltaY how far to scroll down, negative scrolls up
+     */
+    public static void panCamera(Camera camera, int deltaX, int deltaY) {
+        camera.pan(deltaX, deltaY);
+    }
+
+    /**
+     * zooms the parameter Camera in by one level, keeping the
+     * parameter point on the screen over the same point on the Map
+     * @param camera the Camera to zoom
+     * @param anchorX the X coordinate on the screen that stays put
+     * @param anchorY the Y coordinate on the screen that stays put
+     */
+    public static void zoomCameraIn(Camera camera, int anchorX, int anchorY) {
+        camera.zoomIn(anchorX, anchorY);
+    }
+
+    /**
+     * zooms the parameter Camera out by one level, keeping the
+     * parameter point on the screen over the same point on the Map
+     * @param camera the Camera to zoom
+     * @param anchorX the X coordinate on the screen that stays put
+     * @param anchorY the Y coordinate on the screen that stays put
+     */
+    public static void zoomCameraOut(Camera camera, int anchorX,
+        int anchorY) {
+        camera.zoomOut(anchorX, anchorY);
+    }
+
+    /**
+     * scrolls the parameter Camera as little as possible so that the
+     * Tile at the parameter indices is fully on the screen
+     * @param camera the Camera to scroll
+     * @param columnIndex the X-Index of the Tile to show
+     * @param rowIndex the Y-Index of the Tile to show
+     */
+    public static void scrollCameraToTile(Camera camera,
+        int columnIndex, int rowIndex) {
+        camera.scrollToTile(columnIndex, rowIndex);
+    }
+
     /**
      * tint the tile at the parameter indices to the parameter
      * color and alpha
@@ -125,6 +249,92 @@ public class Facade {
         );
     }
 
+    /**
+     * figures out all the Tiles that the occupant located on the
+     * Tile specified by the parameter indices can move to
+     * @param map the Map that the Tile and TileOccupant in question
+     * are located on
+     * @param xIndex the column that the Tile we are checking is
+     * located in
+     * @param yIndex the row that the Tile we are checking is
+     * located in
+     * @return ReachableSet the Tiles that the occupant can move onto,
+     * see Map.getTilesToWhichOccupantCanMove
+     */
+    public static ReachableSet getTilesToWhichOccupantCanMove(Map map,
+        int xIndex, int yIndex) {
+        return map.getTilesToWhichOccupantCanMove(xIndex, yIndex);
+    }
+
+    /**
+     * works out the movement range of every unit on the parameter Map
+     * at once, spread across every core
+     * @param map the Map that the units are located on
+     * @return ReachabilityTable the movement range of every unit, see
+     * Map.getAllTilesToWhichOccupantsCanMove
+     */
+    public static ReachabilityTable getAllTilesToWhichOccupantsCanMove(
+        Map map) {
+        return map.getAllTilesToWhichOccupantsCanMove();
+    }
+
+    /**
+     * figures out every Tile that a unit belonging to another player
+     * than the occupant located on the parameter Tile could attack next
+     * turn, for showing which Tiles are dangerous to move onto
+     * @param map the Map that the Tile and TileOccupant in question
+     * are located on
+     * @param xIndex the column that the occupant is located in
+     * @param yIndex the row that the occupant is located in
+     * @return TileBitSet the Tiles the occupant's enemies threaten, see
+     * ThreatMap.getTilesThreatenedByEnemiesOf
+     */
+    public static TileBitSet getTilesThreatenedByEnemiesOfOccupant(Map map,
+        int xIndex, int yIndex) {
+        return map.getThreatMap().getTilesThreatenedByEnemiesOf(
+            map.getTileFromIndices(xIndex, yIndex).getOccupant().getPlayer());
+    }
+
+    /**
+     * returns how many units that don't belong to the parameter player
+     * could attack the Tile at the parameter indices next turn
+     * @param map the Map that the Tile is located on
+     * @param player the number of the player who is threatened
+     * @param xIndex the column that the Tile is located in
+     * @param yIndex the row that the Tile is located in
+     * @return int the number of enemy units that threaten the Tile
+     * @throws IndexOutOfBoundsException if the Tile is off the Map
+     */
+    public static int getThreatCount(Map map, int player, int xIndex,
+        int yIndex) {
+        return map.getThreatMap().getThreatCount(
+            player, map.getTileFromIndices(xIndex, yIndex).getTileNumber());
+    }
+
+    /**
+     * finds the cheapest route that the occupant located on the first
+     * Tile could walk to the second Tile
+     * @param map the Map that the Tiles are located on
+     * @param fromXIndex the column of the Tile the occupant is on
+     * @param fromYIndex the row of the Tile the occupant is on
+     * @param toXIndex the column of the Tile to get to
+     * @param toYIndex the row of the Tile to get to
+     * @return Path the route, start first, or null if the occupant
+     * can't get there, see Map.findPath
+     * @throws IndexOutOfBoundsException if either Tile is off the Map
+     * @throws IllegalArgumentException if the first Tile has no occupant
+     */
+    public static Path findPath(Map map, int fromXIndex, int fromYIndex,
+        int toXIndex, int toYIndex) {
+        return map.findPath(
+            fromXIndex,
+            fromYIndex,
+            toXIndex,
+            toYIndex,
+            map.getTileFromIndices(fromXIndex, fromYIndex).getOccupant()
+        );
+    }
+
     /**
      * returns the maximum possible X Index of the
      * parameter Map
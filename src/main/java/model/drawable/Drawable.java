@@ -9,6 +9,8 @@ import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 
 // this project imports
+import model.drawable.image.AnimationTimeline;
+import model.drawable.image.AtlasRegion;
 import model.map.Tile;
 
 /**
@@ -19,19 +21,6 @@ import model.map.Tile;
 public abstract class Drawable {
 
 
-    ///////////////
-    // constants //
-    ///////////////
-
-
-    // this constant was calculated via trial and error
-    // in order to determine how long between animation
-    // frames in order to make the animations look good
-    // see the draw method for information about how it
-    // is actually used
-    private long animationTimingConstant = 580000000L;
-
-
     ////////////////////////
     // instance variables //
     ////////////////////////
@@ -41,6 +30,11 @@ public abstract class Drawable {
     // when this class is drawn
     private ArrayList<String> imageFileUrls;
 
+    // every frame of every one of those files, this is shared
+    // with every other Drawable that shows the same files and
+    // is looked up the first time this Drawable gets drawn
+    private AnimationTimeline animationTimeline;
+
 
     /////////////////
     // Constructor //
@@ -76,6 +70,22 @@ public abstract class Drawable {
     }
 
 
+    /**
+     * getter for the timeline of every frame that this Drawable
+     * cycles through when it gets drawn
+     * @return AnimationTimeline the timeline of this Drawable
+     */
+    public AnimationTimeline getAnimationTimeline() {
+        // this is only ever null the first time we get drawn, after
+        // that the lookup is skipped entirely
+        if (null == this.animationTimeline) {
+            this.animationTimeline
+                = AnimationTimeline.getTimeline(this.getImageFileUrls());
+        }
+        return this.animationTimeline;
+    }
+
+
     /**
      * getter for the Image that should be drawn to
      * represent this class
@@ -84,21 +94,31 @@ public abstract class Drawable {
      * @return Image the image to be returned
      */
     public Image getImage(long time) {
-        // calculate which image in the animation we need
-        // this cast is ok since we should always have a small number
-        // of images so the result will fit into an int
-        // we divide the time by a constant and then mod by the
-        // number of animation frames we have to work with. This
-        // effectively gives us an index that should change every
-        // X frames where X is the constant that we divide by.
-        int indexOfCurrentImage
-            = (int) ((time / this.getAnimationTimingConstant()) % this.getNumberOfImages());
-
-        // grab the image that we need
-        ArrayList<Image> images = this.getImages();
-
-        // return it
-        return images.get(indexOfCurrentImage);
+        return this.getAnimationTimeline().getFrame(time);
+    }
+
+
+    /**
+     * getter for the region of the shared TextureAtlas that holds the
+     * Image that should be drawn to represent this class
+     * @param time the time that should be used to
+     * calculate animation images
+     * @return AtlasRegion the region of the atlas to be drawn
+     */
+    public AtlasRegion getAtlasRegion(long time) {
+        return this.getAnimationTimeline().getRegion(time);
+    }
+
+
+    /**
+     * getter for the index of the animation frame that should be
+     * shown at the parameter time
+     * @param time the time that should be used to
+     * calculate animation images
+     * @return int the index of the frame that should be shown
+     */
+    public int getFrameIndex(long time) {
+        return this.getAnimationTimeline().getFrameIndex(time);
     }
 
 
@@ -109,11 +129,12 @@ public abstract class Drawable {
      * on the Tile that this Building occupies
      */
     public ArrayList<Image> getImages() {
-        // build the ArrayList of images from the
-        // ArrayList of file urls
+        // build the ArrayList of images from the frames of the timeline,
+        // the frames themselves are only decoded once
+        AnimationTimeline timeline = this.getAnimationTimeline();
         ArrayList<Image> images = new ArrayList<Image>();
-        for (String imageFileUrl : this.getImageFileUrls()) {
-            images.add(new Image(imageFileUrl));
+        for (int i = 0; i < timeline.getNumberOfFrames(); i++) {
+            images.add(timeline.getFrameAtIndex(i));
         }
 
         return images;
@@ -127,20 +148,7 @@ public abstract class Drawable {
      * for this Building
      */
     public int getNumberOfImages() {
-        ArrayList<String> imageFileUrls = this.getImageFileUrls();
-        return imageFileUrls.size();
-    }
-
-
-    /**
-     * private getter for the animation timing constant,
-     * The number that was calcualted via trial and error
-     * in order to determine how long between animation
-     * frames in order to make the animations look good
-     * @return long the animation timing constant
-     */
-    private long getAnimationTimingConstant() {
-        return this.animationTimingConstant;
+        return this.getAnimationTimeline().getNumberOfFrames();
     }
 
 
@@ -149,6 +157,18 @@ public abstract class Drawable {
     //////////////////
 
 
+    /**
+     * resamples every Image of this Drawable to the parameter size ahead
+     * of time, every other Drawable that shows the same files shares the
+     * resampled Images so this only does any work once per size
+     * @param width the width in pixels the Images will be drawn at
+     * @param height the height in pixels the Images will be drawn at
+     */
+    public void prepareSize(int width, int height) {
+        this.getAnimationTimeline().prepareSize(width, height);
+    }
+
+
     /**
      * draws the Image that should be drawn to represent this class
      * onto the parameter canvas at the paremeter x and y coordinates
@@ -189,14 +209,25 @@ public abstract class Drawable {
      */
     public void draw(Canvas canvas, int xPosition, int yPosition,
         int width, int height, long time) {
-        // grab graphics context object and image
+        // grab graphics context object and the region of the
+        // texture atlas that holds our image already resampled to the
+        // size it is being drawn at, so the canvas never has to scale it
         GraphicsContext graphicsContext = canvas.getGraphicsContext2D();
-        Image image = this.getImage(time);
+        AtlasRegion region
+            = this.getAnimationTimeline().getRegion(time, width, height);
 
-        // draw the image onto the canvas
+        // draw the image onto the canvas, we copy our region out of
+        // the shared atlas sheet so that every Drawable on the Map
+        // draws from the same few textures
         graphicsContext.drawImage(
-            // the image being drawn
-            image,
+            // the atlas sheet that holds the image being drawn
+            region.getSheet(),
+            // x and y positions in pixels of our region of the sheet
+            region.getX(),
+            region.getY(),
+            // width and height of our region of the sheet
+            region.getWidth(),
+            region.getHeight(),
             // x and y positions in pixels of top left corner of image
             xPosition,
             yPosition,
@@ -0,0 +1,47 @@
+package model.drawable.image;
+
+// javafx imports
+import javafx.scene.image.Image;
+
+/**
+ * one fully composed frame of an animation along with
+ * how long that frame stays on the screen
+ * @author Ryan Voor
+ */
+public class AnimationFrame {
+
+    // instance variables
+    private final Image image;
+    private final int durationInMillis;
+
+    /**
+     * constructor for the AnimationFrame class
+     * @param image the fully composed Image of this frame
+     * @param durationInMillis how many milliseconds this
+     * frame stays on the screen
+     */
+    public AnimationFrame(Image image, int durationInMillis) {
+        this.image            = image;
+        this.durationInMillis = durationInMillis;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the Image of this frame
+     * @return Image the fully composed Image of this frame
+     */
+    public Image getImage() {
+        return this.image;
+    }
+
+    /**
+     * getter for the duration of this frame
+     * @return int how many milliseconds this frame stays on the screen
+     */
+    public int getDurationInMillis() {
+        return this.durationInMillis;
+    }
+}
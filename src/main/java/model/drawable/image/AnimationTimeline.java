@@ -0,0 +1,434 @@
+package model.drawable.image;
+
+// java standard library imports
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// javafx imports
+import javafx.scene.image.Image;
+
+/**
+ * every frame that a Drawable cycles through, decoded once, along with
+ * a precomputed table that turns a time into a frame index with a
+ * single array lookup
+ * a Drawable with several image files plays all the frames of the first
+ * file, then all the frames of the second file, and so on, still images
+ * count as a single frame that is shown for STILL_FRAME_DURATION_IN_MILLIS
+ * and animated GIFs use their own frames and delays
+ * frames can also be asked for at a size other than their own, the
+ * first time a size is asked for every frame is resampled to it once
+ * and packed into the TextureAtlas for that size, so drawing a frame at
+ * any size is always a plain copy instead of a resample
+ * @author Ryan Voor
+ */
+public class AnimationTimeline {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // this constant was calculated via trial and error
+    // in order to determine how long between animation
+    // frames in order to make the animations look good,
+    // it is used for images that don't have their own timing
+    private static final int STILL_FRAME_DURATION_IN_MILLIS = 580;
+
+    // the resolution of the frame lookup table, GIF delays are
+    // in hundredths of a second so 10ms loses nothing
+    private static final int TICK_IN_MILLIS = 10;
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    // timelines that have already been built, keyed by the
+    // list of image file urls that they were built from
+    private static final HashMap<ArrayList<String>, AnimationTimeline>
+        TIMELINES = new HashMap<ArrayList<String>, AnimationTimeline>();
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final String[] frameKeys;
+    private final Image[] frames;
+    private final AtlasRegion[] regions;
+
+    // the regions of the frames resampled to other sizes, each entry
+    // holds one size, there are only ever a handful of sizes (one per
+    // zoom level and sprite size) so they are searched in order
+    private final ArrayList<ScaledRegions> scaledRegions;
+    private final int[] durationsInMillis;
+
+    // the time in milliseconds (since the start of the loop) at
+    // which each frame stops being shown
+    private final long[] cumulativeDurationsInMillis;
+
+    // frameIndexAtTick[t] is the index of the frame being shown
+    // during the t'th TICK_IN_MILLIS of the loop
+    private final int[] frameIndexAtTick;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the AnimationTimeline class, packs every frame
+     * into the shared TextureAtlas and builds the lookup table
+     * @param frameKeys the TextureAtlas key of each frame
+     * @param animationFrames the frames in the order they are shown
+     */
+    private AnimationTimeline(ArrayList<String> frameKeys,
+        ArrayList<AnimationFrame> animationFrames) {
+        int numberOfFrames = animationFrames.size();
+        this.frameKeys         = frameKeys.toArray(new String[numberOfFrames]);
+        this.scaledRegions     = new ArrayList<ScaledRegions>();
+        this.frames            = new Image[numberOfFrames];
+        this.regions           = new AtlasRegion[numberOfFrames];
+        this.durationsInMillis = new int[numberOfFrames];
+        this.cumulativeDurationsInMillis = new long[numberOfFrames];
+
+        TextureAtlas atlas = TextureAtlas.getSharedAtlas();
+        long totalDuration = 0;
+        for (int i = 0; i < numberOfFrames; i++) {
+            AnimationFrame frame = animationFrames.get(i);
+            this.frames[i]  = frame.getImage();
+            this.regions[i]
+                = atlas.addImage(frameKeys.get(i), frame.getImage());
+
+            // round every duration to a whole number of ticks (at least
+            // one) so that the lookup table never skips a frame
+            float exactTicks
+                = ((float) frame.getDurationInMillis()) / TICK_IN_MILLIS;
+            int ticks = Math.max(1, Math.round(exactTicks));
+            this.durationsInMillis[i] = ticks * TICK_IN_MILLIS;
+
+            totalDuration += this.durationsInMillis[i];
+            this.cumulativeDurationsInMillis[i] = totalDuration;
+        }
+
+        // fill in the lookup table from the cumulative durations
+        this.frameIndexAtTick = new int[(int) (totalDuration / TICK_IN_MILLIS)];
+        int frameIndex = 0;
+        for (int tick = 0; tick < this.frameIndexAtTick.length; tick++) {
+            long tickStart = ((long) tick) * TICK_IN_MILLIS;
+            while (tickStart >= this.cumulativeDurationsInMillis[frameIndex]) {
+                frameIndex++;
+            }
+            this.frameIndexAtTick[tick] = frameIndex;
+        }
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * returns the index of the frame that should be shown at
+     * the parameter time, this is a single table lookup
+     * @param time the time in nanoseconds, the same clock
+     * that the AnimationTimer hands out
+     * @return int the index of the frame to show
+     */
+    public int getFrameIndex(long time) {
+        long timeInMillis = time / NANOS_PER_MILLI;
+        long loopLength
+            = ((long) this.frameIndexAtTick.length) * TICK_IN_MILLIS;
+
+        // this cast is safe because the result is less than the
+        // length of the lookup table
+        int tick = (int) ((timeInMillis % loopLength) / TICK_IN_MILLIS);
+        if (tick < 0) {
+            // times before zero just count backwards through the loop
+            tick += this.frameIndexAtTick.length;
+        }
+        return this.frameIndexAtTick[tick];
+    }
+
+    /**
+     * returns the frame that should be shown at the parameter time
+     * @param time the time in nanoseconds
+     * @return Image the frame to show
+     */
+    public Image getFrame(long time) {
+        return this.frames[this.getFrameIndex(time)];
+    }
+
+    /**
+     * returns the TextureAtlas region of the frame that should be
+     * shown at the parameter time
+     * @param time the time in nanoseconds
+     * @return AtlasRegion the region of the frame to show
+     */
+    public AtlasRegion getRegion(long time) {
+        return this.regions[this.getFrameIndex(time)];
+    }
+
+    /**
+     * returns the frame with the parameter index
+     * @param frameIndex the index of the frame
+     * @return Image the frame
+     */
+    public Image getFrameAtIndex(int frameIndex) {
+        return this.frames[frameIndex];
+    }
+
+    /**
+     * returns the TextureAtlas region of the frame with the parameter index
+     * @param frameIndex the index of the frame
+     * @return AtlasRegion the region of the frame
+     */
+    public AtlasRegion getRegionAtIndex(int frameIndex) {
+        return this.regions[frameIndex];
+    }
+
+    /**
+     * returns the TextureAtlas region of the frame that should be
+     * shown at the parameter time, resampled to the parameter size
+     * @param time the time in nanoseconds
+     * @param width the width in pixels the frame will be drawn at
+     * @param height the height in pixels the frame will be drawn at
+     * @return AtlasRegion the region of the frame at that size
+     */
+    public AtlasRegion getRegion(long time, int width, int height) {
+        return this.getRegionAtIndex(this.getFrameIndex(time), width, height);
+    }
+
+    /**
+     * returns the TextureAtlas region of the frame with the parameter
+     * index resampled to the parameter size, the frame is only ever
+     * resampled to any one size once
+     * @param frameIndex the index of the frame
+     * @param width the width in pixels the frame will be drawn at
+     * @param height the height in pixels the frame will be drawn at
+     * @return AtlasRegion the region of the frame at that size
+     */
+    public synchronized AtlasRegion getRegionAtIndex(int frameIndex,
+        int width, int height) {
+        AtlasRegion region = this.regions[frameIndex];
+        if (region.getWidth() == width && region.getHeight() == height) {
+            // the frame is already the right size
+            return region;
+        }
+
+        AtlasRegion[] regionsAtSize = this.getScaledRegions(width, height);
+        if (null == regionsAtSize[frameIndex]) {
+            regionsAtSize[frameIndex] = TextureAtlas
+                .getScaledAtlas(width, height)
+                .addImage(
+                    this.frameKeys[frameIndex],
+                    SpriteScaler.scale(this.frames[frameIndex], width, height)
+                );
+        }
+        return regionsAtSize[frameIndex];
+    }
+
+    /**
+     * resamples every frame of this timeline to the parameter size ahead
+     * of time, so that the first frame drawn at that size doesn't have
+     * to wait on it
+     * @param width the width in pixels the frames will be drawn at
+     * @param height the height in pixels the frames will be drawn at
+     */
+    public void prepareSize(int width, int height) {
+        for (int i = 0; i < this.getNumberOfFrames(); i++) {
+            this.getRegionAtIndex(i, width, height);
+        }
+    }
+
+    /**
+     * returns the regions of every frame at the parameter size, making
+     * an empty set of regions for that size if there isn't one yet,
+     * must be called while holding the lock on this timeline
+     * @param width the width in pixels of the frames
+     * @param height the height in pixels of the frames
+     * @return AtlasRegion[] the regions at that size, one slot per frame
+     */
+    private AtlasRegion[] getScaledRegions(int width, int height) {
+        for (ScaledRegions sizedRegions : this.scaledRegions) {
+            if (sizedRegions.getWidth() == width
+                && sizedRegions.getHeight() == height) {
+                return sizedRegions.getRegions();
+            }
+        }
+
+        ScaledRegions sizedRegions
+            = new ScaledRegions(width, height, this.getNumberOfFrames());
+        this.scaledRegions.add(sizedRegions);
+        return sizedRegions.getRegions();
+    }
+
+    /**
+     * returns how long the frame with the parameter index is shown
+     * @param frameIndex the index of the frame
+     * @return int the duration of the frame in milliseconds
+     */
+    public int getDurationInMillis(int frameIndex) {
+        return this.durationsInMillis[frameIndex];
+    }
+
+    /**
+     * getter for the number of frames in this timeline
+     * @return int the number of frames
+     */
+    public int getNumberOfFrames() {
+        return this.frames.length;
+    }
+
+    /**
+     * getter for how long it takes to play through every frame once
+     * @return long the length of the loop in milliseconds
+     */
+    public long getTotalDurationInMillis() {
+        return this.cumulativeDurationsInMillis[this.frames.length - 1];
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * returns the timeline for the parameter image file urls, the files
+     * are only decoded the first time any Drawable asks for them
+     * the decoding happens outside of any lock so that several threads
+     * can each decode a different timeline at the same time, if two
+     * threads happen to decode the same one then the first one finished
+     * wins and both get it back
+     * @param imageFileUrls the urls of the image files, in order
+     * @return AnimationTimeline the timeline that plays every frame of
+     * every one of those files
+     */
+    public static AnimationTimeline getTimeline(
+        ArrayList<String> imageFileUrls) {
+        synchronized (TIMELINES) {
+            AnimationTimeline timeline = TIMELINES.get(imageFileUrls);
+            if (null != timeline) {
+                return timeline;
+            }
+        }
+
+        ArrayList<String> frameKeys = new ArrayList<String>();
+        ArrayList<AnimationFrame> frames = new ArrayList<AnimationFrame>();
+        for (String imageFileUrl : imageFileUrls) {
+            ArrayList<AnimationFrame> fileFrames
+                = AnimationTimeline.decodeFrames(imageFileUrl);
+            for (int i = 0; i < fileFrames.size(); i++) {
+                frameKeys.add(AnimationTimeline.getFrameKey(imageFileUrl, i));
+                frames.add(fileFrames.get(i));
+            }
+        }
+        AnimationTimeline newTimeline
+            = new AnimationTimeline(frameKeys, frames);
+
+        synchronized (TIMELINES) {
+            AnimationTimeline timeline = TIMELINES.get(imageFileUrls);
+            if (null == timeline) {
+                timeline = newTimeline;
+
+                // copy the key so that nobody can change it out from under us
+                TIMELINES.put(new ArrayList<String>(imageFileUrls), timeline);
+            }
+            return timeline;
+        }
+    }
+
+    /**
+     * decodes every frame of the image file at the parameter url,
+     * GIFs come out with all their frames and delays and everything
+     * else comes out as a single still frame
+     * @param imageFileUrl the url of the image file
+     * @return ArrayList the frames of the file in order
+     */
+    public static ArrayList<AnimationFrame> decodeFrames(String imageFileUrl) {
+        if (GifFrameExtractor.isGif(imageFileUrl)) {
+            try {
+                ArrayList<AnimationFrame> frames
+                    = GifFrameExtractor.extractFrames(imageFileUrl);
+                if (!frames.isEmpty()) {
+                    return frames;
+                }
+            } catch (IOException e) {
+                // fall through and let JavaFX decode it as a still image
+                System.out.println("Could not extract GIF frames from "
+                    + imageFileUrl + ": " + e.getMessage());
+            }
+        }
+
+        ArrayList<AnimationFrame> frames = new ArrayList<AnimationFrame>();
+        frames.add(new AnimationFrame(
+            ImageCache.getSharedCache().getImage(imageFileUrl),
+            STILL_FRAME_DURATION_IN_MILLIS
+        ));
+        return frames;
+    }
+
+    /**
+     * returns the key that the frame with the parameter index of the
+     * image file at the parameter url is packed into a TextureAtlas with,
+     * the first frame uses the plain url so that still images are
+     * keyed by their url
+     * @param imageFileUrl the url of the image file
+     * @param frameIndex the index of the frame within that file
+     * @return String the key of the frame
+     */
+    public static String getFrameKey(String imageFileUrl, int frameIndex) {
+        if (0 == frameIndex) {
+            return imageFileUrl;
+        }
+        return imageFileUrl + "#" + frameIndex;
+    }
+
+
+    /**
+     * the regions of every frame of a timeline at one size
+     * @author Ryan Voor
+     */
+    private static class ScaledRegions {
+
+        // instance variables
+        private final int width;
+        private final int height;
+        private final AtlasRegion[] regions;
+
+        /**
+         * constructor for the ScaledRegions class, every region
+         * starts out empty
+         * @param width the width in pixels of the frames
+         * @param height the height in pixels of the frames
+         * @param numberOfFrames the number of frames in the timeline
+         */
+        public ScaledRegions(int width, int height, int numberOfFrames) {
+            this.width   = width;
+            this.height  = height;
+            this.regions = new AtlasRegion[numberOfFrames];
+        }
+
+        /**
+         * getter for the width of the frames
+         * @return int the width in pixels
+         */
+        public int getWidth() {
+            return this.width;
+        }
+
+        /**
+         * getter for the height of the frames
+         * @return int the height in pixels
+         */
+        public int getHeight() {
+            return this.height;
+        }
+
+        /**
+         * getter for the regions of the frames, slots are null
+         * until that frame gets resampled
+         * @return AtlasRegion[] the regions, one slot per frame
+         */
+        public AtlasRegion[] getRegions() {
+            return this.regions;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package model.drawable.image;
+
+// java standard library imports
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// this project imports
+import model.drawable.Drawable;
+import model.drawable.tileOccupant.TileOccupant;
+import model.map.Map;
+import model.map.Tile;
+import model.map.TileTypeRegistry;
+
+/**
+ * decodes every image that a Map needs before the Map is ever drawn,
+ * so that entering the Gameplay Screen doesn't hitch while the first
+ * frame waits on image files to be read off the disk
+ * the distinct sets of image files used by every kind of Terrain,
+ * Building, and unit are each decoded into their AnimationTimeline on a
+ * pool of background threads, then every sprite is resampled to the
+ * sizes a Map will be drawn at, when preload returns the ImageCache,
+ * TextureAtlas, and every timeline are all warm
+ * only the kinds are looked at, never the Tiles of a Map, so preloading
+ * takes as long for a huge Map as for a small one and never reads a
+ * Map whose Tiles are read on demand
+ * @author Ryan Voor
+ */
+public class AssetManager {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // leave one processor for the JavaFX thread so that
+    // the progress bar keeps moving while we load
+    private static final int NUMBER_OF_DECODER_THREADS
+        = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // the asset manager that is shared by the whole application
+    private static final AssetManager SHARED_MANAGER = new AssetManager();
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final ExecutorService decoderThreads;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the AssetManager class, the decoder threads are
+     * daemons so they never keep the application from closing
+     */
+    public AssetManager() {
+        this.decoderThreads = Executors.newFixedThreadPool(
+            NUMBER_OF_DECODER_THREADS,
+            new ThreadFactory() {
+                private int numberOfThreads = 0;
+
+                @Override
+                public synchronized Thread newThread(Runnable runnable) {
+                    this.numberOfThreads++;
+                    Thread thread = new Thread(
+                        runnable,
+                        "asset-decoder-" + this.numberOfThreads
+                    );
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the AssetManager that is shared by
+     * the whole application
+     * @return AssetManager the shared AssetManager
+     */
+    public static AssetManager getSharedManager() {
+        return AssetManager.SHARED_MANAGER;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * returns every distinct set of image files that any kind of Terrain,
+     * Building, or unit is drawn with
+     * @return ArrayList the image file urls of every distinct Drawable
+     */
+    public ArrayList<ArrayList<String>> collectImageFileUrls() {
+        LinkedHashSet<ArrayList<String>> imageFileUrls
+            = new LinkedHashSet<ArrayList<String>>();
+        for (Drawable kind : AssetManager.getEveryKindOfDrawable()) {
+            imageFileUrls.add(kind.getImageFileUrls());
+        }
+        return new ArrayList<ArrayList<String>>(imageFileUrls);
+    }
+
+    /**
+     * decodes every image that a Map can need and resamples them to the
+     * sizes a Map is drawn at, this blocks until everything is done so it
+     * should be called from a background thread
+     * @param progressListener told about every step that finishes,
+     * called on the thread that called this method
+     * @throws InterruptedException if the calling thread is interrupted,
+     * anything that hasn't been decoded yet is abandoned
+     */
+    public void preload(ProgressListener progressListener)
+        throws InterruptedException {
+        ArrayList<ArrayList<String>> imageFileUrls
+            = this.collectImageFileUrls();
+        ArrayList<Drawable> kinds = AssetManager.getEveryKindOfDrawable();
+
+        // one step for every set of images and one for every kind
+        int numberOfSteps = imageFileUrls.size() + kinds.size();
+        int stepsDone = 0;
+        progressListener.progressChanged(stepsDone, numberOfSteps);
+
+        // decode all the images at once on the decoder threads
+        ArrayList<Future<AnimationTimeline>> timelines
+            = new ArrayList<Future<AnimationTimeline>>();
+        for (final ArrayList<String> urls : imageFileUrls) {
+            timelines.add(this.decoderThreads.submit(
+                new Callable<AnimationTimeline>() {
+                    @Override
+                    public AnimationTimeline call() {
+                        return AnimationTimeline.getTimeline(urls);
+                    }
+                }
+            ));
+        }
+
+        try {
+            for (int i = 0; i < timelines.size(); i++) {
+                try {
+                    timelines.get(i).get();
+                } catch (ExecutionException e) {
+                    // one broken image file shouldn't keep the rest of the
+                    // Map from loading, it'll just get decoded (and fail)
+                    // again when it is drawn
+                    System.out.println("Could not preload "
+                        + imageFileUrls.get(i) + ": " + e.getCause());
+                }
+                stepsDone++;
+                progressListener.progressChanged(stepsDone, numberOfSteps);
+            }
+        } finally {
+            // if we got interrupted don't leave the decoder threads
+            // working on images that nobody is waiting for anymore
+            for (Future<AnimationTimeline> timeline : timelines) {
+                timeline.cancel(false);
+            }
+        }
+
+        // every Drawable looks up its timeline the first time it is drawn
+        // and units get drawn at half size when they share a Tile, get all
+        // of that out of the way now that the timelines are decoded, every
+        // Drawable of a kind shares its timeline so one of each is enough
+        int widthOfATile  = Tile.getWidthOfATileInPixels();
+        int heightOfATile = Tile.getHeightOfATileInPixels();
+        for (Drawable kind : kinds) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            kind.prepareSize(widthOfATile, heightOfATile);
+            if (kind instanceof TileOccupant) {
+                kind.prepareSize(widthOfATile / 2, heightOfATile / 2);
+            }
+            stepsDone++;
+            progressListener.progressChanged(stepsDone, numberOfSteps);
+        }
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * gives one of every kind of Terrain, Building, and unit that can be
+     * on a Map
+     * @return ArrayList one Drawable of every kind
+     */
+    private static ArrayList<Drawable> getEveryKindOfDrawable() {
+        ArrayList<Drawable> kinds = new ArrayList<Drawable>();
+        TileTypeRegistry registry = TileTypeRegistry.getInstance();
+        for (int terrainId = TileTypeRegistry.NONE + 1;
+            terrainId < registry.getNumberOfTerrainIds(); terrainId++) {
+            kinds.add(registry.getTerrain(terrainId));
+        }
+        for (int buildingId = TileTypeRegistry.NONE + 1;
+            buildingId < registry.getNumberOfBuildingIds(); buildingId++) {
+            kinds.add(registry.getBuilding(buildingId));
+        }
+        kinds.addAll(Map.getEveryKindOfTileOccupant());
+        return kinds;
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * gets told how far along a preload is
+     * @author Ryan Voor
+     */
+    public interface ProgressListener {
+
+        /**
+         * called every time a step of a preload finishes
+         * @param stepsDone the number of steps that are finished
+         * @param numberOfSteps the total number of steps
+         */
+        void progressChanged(int stepsDone, int numberOfSteps);
+    }
+}
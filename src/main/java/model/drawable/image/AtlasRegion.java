@@ -0,0 +1,98 @@
+package model.drawable.image;
+
+// javafx imports
+import javafx.scene.image.Image;
+
+/**
+ * the rectangle of a TextureAtlas sheet that holds one sprite,
+ * Drawables draw themselves by copying this rectangle out of the
+ * sheet rather than drawing a standalone Image
+ * @author Ryan Voor
+ */
+public class AtlasRegion {
+
+    // instance variables
+    private final Image sheet;
+    private final int sheetIndex;
+    private final int x;
+    private final int y;
+    private final int width;
+    private final int height;
+
+    /**
+     * constructor for the AtlasRegion class
+     * @param sheet the atlas sheet that holds the sprite
+     * @param sheetIndex the index of that sheet in its TextureAtlas
+     * @param x the X coordinate of the left edge of the sprite on the sheet
+     * @param y the Y coordinate of the top edge of the sprite on the sheet
+     * @param width the width in pixels of the sprite
+     * @param height the height in pixels of the sprite
+     */
+    public AtlasRegion(Image sheet, int sheetIndex, int x, int y,
+        int width, int height) {
+        this.sheet      = sheet;
+        this.sheetIndex = sheetIndex;
+        this.x          = x;
+        this.y          = y;
+        this.width      = width;
+        this.height     = height;
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the atlas sheet that holds this region
+     * @return Image the atlas sheet
+     */
+    public Image getSheet() {
+        return this.sheet;
+    }
+
+    /**
+     * getter for the index of the sheet that holds this region
+     * @return int the index of the sheet in its TextureAtlas
+     */
+    public int getSheetIndex() {
+        return this.sheetIndex;
+    }
+
+    /**
+     * getter for the X coordinate of this region on its sheet
+     * @return int the X coordinate of the left edge of this region
+     */
+    public int getX() {
+        return this.x;
+    }
+
+    /**
+     * getter for the Y coordinate of this region on its sheet
+     * @return int the Y coordinate of the top edge of this region
+     */
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * getter for the width of this region
+     * @return int the width in pixels of this region
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * getter for the height of this region
+     * @return int the height in pixels of this region
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    @Override
+    public String toString() {
+        return this.sheetIndex + " " + this.x + " " + this.y + " "
+            + this.width + " " + this.height;
+    }
+}
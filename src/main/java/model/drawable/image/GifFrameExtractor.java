@@ -0,0 +1,264 @@
+package model.drawable.image;
+
+// java standard library imports
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+
+// javafx imports
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * decodes every frame of an animated GIF exactly once, each frame is
+ * composed on top of the frames before it the same way a browser would
+ * (GIF frames are usually only the part of the picture that changed)
+ * and comes out with the delay that the GIF itself asks for
+ * @author Ryan Voor
+ */
+public class GifFrameExtractor {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // names of the metadata formats and nodes that the standard
+    // java GIF reader uses
+    private static final String IMAGE_METADATA_FORMAT
+        = "javax_imageio_gif_image_1.0";
+    private static final String STREAM_METADATA_FORMAT
+        = "javax_imageio_gif_stream_1.0";
+
+    // GIF delays are stored in hundredths of a second
+    private static final int MILLIS_PER_GIF_DELAY_UNIT = 10;
+
+    // browsers treat delays this short as "as fast as possible"
+    // and show the frame for 100ms instead, we do the same
+    private static final int MINIMUM_GIF_DELAY = 2;
+    private static final int DEFAULT_GIF_DELAY = 10;
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private GifFrameExtractor() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * returns whether the parameter url points at a GIF file
+     * @param url the url of an image file
+     * @return boolean whether the file is a GIF
+     */
+    public static boolean isGif(String url) {
+        return url.toLowerCase().endsWith(".gif");
+    }
+
+    /**
+     * decodes every frame of the GIF at the parameter url
+     * @param url the url of the GIF file
+     * @return ArrayList the fully composed frames of the GIF in order
+     * @throws IOException if the file cannot be read or is not a GIF
+     */
+    public static ArrayList<AnimationFrame> extractFrames(String url)
+        throws IOException {
+        Iterator<ImageReader> readers
+            = ImageIO.getImageReadersByFormatName("gif");
+        if (!readers.hasNext()) {
+            throw new IOException("no GIF reader is available");
+        }
+        ImageReader reader = readers.next();
+
+        InputStream inputStream = new URL(url).openStream();
+        ImageInputStream imageInputStream
+            = ImageIO.createImageInputStream(inputStream);
+        try {
+            reader.setInput(imageInputStream, false);
+            return GifFrameExtractor.composeFrames(reader);
+        } finally {
+            reader.dispose();
+            imageInputStream.close();
+            inputStream.close();
+        }
+    }
+
+    /**
+     * composes all the frames coming out of the parameter reader
+     * @param reader an ImageReader whose input is a GIF
+     * @return ArrayList the fully composed frames of the GIF in order
+     * @throws IOException if the GIF cannot be read
+     */
+    private static ArrayList<AnimationFrame> composeFrames(ImageReader reader)
+        throws IOException {
+        int numberOfFrames = reader.getNumImages(true);
+        ArrayList<AnimationFrame> frames = new ArrayList<AnimationFrame>();
+        if (0 == numberOfFrames) {
+            return frames;
+        }
+
+        // the logical screen is the full size of the animation, the
+        // individual frames can be smaller and placed anywhere on it
+        int screenWidth  = reader.getWidth(0);
+        int screenHeight = reader.getHeight(0);
+        IIOMetadata streamMetadata = reader.getStreamMetadata();
+        if (null != streamMetadata) {
+            IIOMetadataNode screenDescriptor = GifFrameExtractor.findNode(
+                (IIOMetadataNode) streamMetadata.getAsTree(
+                    STREAM_METADATA_FORMAT),
+                "LogicalScreenDescriptor"
+            );
+            if (null != screenDescriptor) {
+                screenWidth  = Integer.parseInt(
+                    screenDescriptor.getAttribute("logicalScreenWidth"));
+                screenHeight = Integer.parseInt(
+                    screenDescriptor.getAttribute("logicalScreenHeight"));
+            }
+        }
+
+        BufferedImage screen = new BufferedImage(
+            screenWidth,
+            screenHeight,
+            BufferedImage.TYPE_INT_ARGB
+        );
+        Graphics2D graphics = screen.createGraphics();
+
+        for (int i = 0; i < numberOfFrames; i++) {
+            BufferedImage rawFrame = reader.read(i);
+            IIOMetadataNode metadata = (IIOMetadataNode) reader
+                .getImageMetadata(i).getAsTree(IMAGE_METADATA_FORMAT);
+
+            // where this frame goes on the logical screen
+            IIOMetadataNode descriptor
+                = GifFrameExtractor.findNode(metadata, "ImageDescriptor");
+            int left = GifFrameExtractor.getIntAttribute(
+                descriptor, "imageLeftPosition", 0);
+            int top  = GifFrameExtractor.getIntAttribute(
+                descriptor, "imageTopPosition", 0);
+
+            // how long it stays up and what to do with it afterwards
+            IIOMetadataNode control = GifFrameExtractor.findNode(
+                metadata, "GraphicControlExtension");
+            int delay = GifFrameExtractor.getIntAttribute(
+                control, "delayTime", DEFAULT_GIF_DELAY);
+            if (delay < MINIMUM_GIF_DELAY) {
+                delay = DEFAULT_GIF_DELAY;
+            }
+            String disposalMethod = null == control
+                ? "none" : control.getAttribute("disposalMethod");
+
+            // remember what was under this frame if we need to put it back
+            BufferedImage previousScreen = null;
+            if ("restoreToPrevious".equals(disposalMethod)) {
+                previousScreen = GifFrameExtractor.copy(screen);
+            }
+
+            graphics.drawImage(rawFrame, left, top, null);
+            frames.add(new AnimationFrame(
+                GifFrameExtractor.toFxImage(screen),
+                delay * MILLIS_PER_GIF_DELAY_UNIT
+            ));
+
+            // get the screen ready for the next frame
+            if ("restoreToBackgroundColor".equals(disposalMethod)) {
+                graphics.setComposite(AlphaComposite.Clear);
+                graphics.fillRect(
+                    left, top, rawFrame.getWidth(), rawFrame.getHeight());
+                graphics.setComposite(AlphaComposite.SrcOver);
+            } else if (null != previousScreen) {
+                graphics.setComposite(AlphaComposite.Src);
+                graphics.drawImage(previousScreen, 0, 0, null);
+                graphics.setComposite(AlphaComposite.SrcOver);
+            }
+        }
+
+        graphics.dispose();
+        return frames;
+    }
+
+    /**
+     * copies the pixels of the parameter BufferedImage into a new
+     * JavaFX Image
+     * @param bufferedImage the image to copy
+     * @return WritableImage the JavaFX copy of the image
+     */
+    private static WritableImage toFxImage(BufferedImage bufferedImage) {
+        int width  = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
+        int[] pixels
+            = bufferedImage.getRGB(0, 0, width, height, null, 0, width);
+
+        WritableImage image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(
+            0,
+            0,
+            width,
+            height,
+            PixelFormat.getIntArgbInstance(),
+            pixels,
+            0,
+            width
+        );
+        return image;
+    }
+
+    /**
+     * makes a copy of the parameter BufferedImage
+     * @param bufferedImage the image to copy
+     * @return BufferedImage the copy
+     */
+    private static BufferedImage copy(BufferedImage bufferedImage) {
+        BufferedImage copy = new BufferedImage(
+            bufferedImage.getWidth(),
+            bufferedImage.getHeight(),
+            BufferedImage.TYPE_INT_ARGB
+        );
+        Graphics2D graphics = copy.createGraphics();
+        graphics.drawImage(bufferedImage, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+
+    /**
+     * finds the direct child of the parameter node that has the
+     * parameter name
+     * @param node the node whose children get searched
+     * @param name the name of the child we are looking for
+     * @return IIOMetadataNode the child, null if there is no such child
+     */
+    private static IIOMetadataNode findNode(IIOMetadataNode node, String name) {
+        for (int i = 0; i < node.getLength(); i++) {
+            if (name.equals(node.item(i).getNodeName())) {
+                return (IIOMetadataNode) node.item(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * reads an integer attribute off of a metadata node
+     * @param node the node to read from, may be null
+     * @param name the name of the attribute
+     * @param defaultValue what to return if there is no such attribute
+     * @return int the value of the attribute
+     */
+    private static int getIntAttribute(IIOMetadataNode node, String name,
+        int defaultValue) {
+        if (null == node || !node.hasAttribute(name)) {
+            return defaultValue;
+        }
+        return Integer.parseInt(node.getAttribute(name));
+    }
+}
@@ -0,0 +1,368 @@
+package model.drawable.image;
+
+// java standard library imports
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// javafx imports
+import javafx.scene.image.Image;
+
+/**
+ * process-wide cache of decoded Images, every Drawable that shows the
+ * same image file shares one decoded Image object from this cache rather
+ * than decoding its own copy every time it gets drawn
+ * Images are keyed by their url and the size they were decoded at and
+ * the least recently used Images get evicted once the decoded pixels
+ * take up more memory than the budget of the cache
+ * @author Ryan Voor
+ */
+public class ImageCache {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the memory budget of the shared cache, 64 megabytes is enough
+    // to hold every sprite we have many times over
+    private static final long DEFAULT_MEMORY_BUDGET_IN_BYTES
+        = 64L * 1024L * 1024L;
+
+    // decoded Images are stored as 32 bit ARGB pixels
+    private static final int BYTES_PER_PIXEL = 4;
+
+    // the size used to say "decode this Image at its natural size"
+    private static final int NATURAL_SIZE = 0;
+
+    // the cache that is shared by every Drawable in the application
+    private static final ImageCache SHARED_CACHE
+        = new ImageCache(DEFAULT_MEMORY_BUDGET_IN_BYTES);
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the maximum number of bytes of decoded pixels this cache will hold
+    private final long memoryBudgetInBytes;
+
+    // the cached Images, this LinkedHashMap is in access order so
+    // iterating over it starts at the least recently used Image
+    private final LinkedHashMap<CacheKey, CacheEntry> entries;
+
+    // bookkeeping, all of these are guarded by 'this'
+    private long memoryUsedInBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ImageCache class
+     * @param memoryBudgetInBytes the maximum number of bytes of
+     * decoded pixels that this cache should hold onto
+     */
+    public ImageCache(long memoryBudgetInBytes) {
+        this.memoryBudgetInBytes = memoryBudgetInBytes;
+        // 'true' makes the LinkedHashMap order its entries by access
+        // rather than by insertion which is exactly what LRU needs
+        this.entries
+            = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true);
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the ImageCache that is shared by every
+     * Drawable in the application
+     * @return ImageCache the shared ImageCache
+     */
+    public static ImageCache getSharedCache() {
+        return ImageCache.SHARED_CACHE;
+    }
+
+    /**
+     * getter for the memory budget of this cache
+     * @return long the maximum number of bytes of decoded
+     * pixels this cache will hold
+     */
+    public long getMemoryBudgetInBytes() {
+        return this.memoryBudgetInBytes;
+    }
+
+    /**
+     * getter for the number of bytes of decoded pixels
+     * that this cache is currently holding
+     * @return long the number of bytes currently in use
+     */
+    public synchronized long getMemoryUsedInBytes() {
+        return this.memoryUsedInBytes;
+    }
+
+    /**
+     * getter for the number of lookups that were answered
+     * with an Image that was already decoded
+     * @return long the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * getter for the number of lookups that had to decode
+     * an Image from its file
+     * @return long the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    /**
+     * getter for the number of Images that have been thrown
+     * out of this cache to stay under the memory budget
+     * @return long the number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /**
+     * getter for the number of Images currently in this cache
+     * @return int the number of cached Images
+     */
+    public synchronized int getSize() {
+        return this.entries.size();
+    }
+
+    /**
+     * returns the fraction of lookups that were cache hits
+     * @return double the hit ratio between 0.0 and 1.0,
+     * 0.0 if there have not been any lookups yet
+     */
+    public synchronized double getHitRatio() {
+        long lookups = this.hitCount + this.missCount;
+        if (0 == lookups) {
+            return 0.0;
+        }
+        return ((double) this.hitCount) / lookups;
+    }
+
+    /**
+     * returns the decoded Image for the parameter url at the
+     * natural size of the image file
+     * @param url the url of the image file
+     * @return Image the decoded Image
+     */
+    public Image getImage(String url) {
+        return this.getImage(url, NATURAL_SIZE, NATURAL_SIZE);
+    }
+
+    /**
+     * returns the decoded Image for the parameter url scaled to the
+     * parameter size, the Image only gets decoded the first time it is
+     * asked for (or after it has been evicted)
+     * @param url the url of the image file
+     * @param width the width in pixels to decode the image at,
+     * 0 means use the natural width of the file
+     * @param height the height in pixels to decode the image at,
+     * 0 means use the natural height of the file
+     * @return Image the decoded Image
+     */
+    public Image getImage(String url, int width, int height) {
+        CacheKey key = new CacheKey(url, width, height);
+
+        // fast path, the Image has already been decoded
+        synchronized (this) {
+            CacheEntry entry = this.entries.get(key);
+            if (null != entry) {
+                this.hitCount++;
+                return entry.getImage();
+            }
+            this.missCount++;
+        }
+
+        // decode outside of the lock so that one slow file
+        // doesn't hold up every other thread that is drawing
+        Image image = ImageCache.decode(url, width, height);
+
+        synchronized (this) {
+            // another thread might have decoded the same Image while
+            // we were decoding ours, if so then hand back theirs so
+            // that everybody keeps sharing one instance
+            CacheEntry existingEntry = this.entries.get(key);
+            if (null != existingEntry) {
+                return existingEntry.getImage();
+            }
+
+            CacheEntry newEntry = new CacheEntry(image);
+            this.entries.put(key, newEntry);
+            this.memoryUsedInBytes += newEntry.getSizeInBytes();
+            this.evictToBudget(key);
+        }
+
+        return image;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * throws out every Image in this cache, the counters are left alone
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.memoryUsedInBytes = 0;
+    }
+
+    /**
+     * returns a short human readable report of the counters
+     * of this cache, useful for printing out while profiling
+     * @return String the report
+     */
+    public synchronized String getStatistics() {
+        return "ImageCache: " + this.entries.size() + " images, "
+            + this.memoryUsedInBytes + "/" + this.memoryBudgetInBytes
+            + " bytes, " + this.hitCount + " hits, "
+            + this.missCount + " misses, "
+            + this.evictionCount + " evictions";
+    }
+
+    /**
+     * throws out the least recently used Images until this cache
+     * fits inside of its memory budget, must be called while
+     * holding the lock on this cache
+     * @param keyToKeep the key of the Image that was just added, it is
+     * never evicted even if it is bigger than the whole budget since
+     * whoever asked for it is about to draw it
+     */
+    private void evictToBudget(CacheKey keyToKeep) {
+        Iterator<Map.Entry<CacheKey, CacheEntry>> iterator
+            = this.entries.entrySet().iterator();
+
+        while (this.memoryUsedInBytes > this.memoryBudgetInBytes
+            && iterator.hasNext()) {
+            Map.Entry<CacheKey, CacheEntry> eldest = iterator.next();
+            if (eldest.getKey().equals(keyToKeep)) {
+                continue;
+            }
+            this.memoryUsedInBytes -= eldest.getValue().getSizeInBytes();
+            this.evictionCount++;
+            iterator.remove();
+        }
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * decodes the image file at the parameter url, the Image is decoded
+     * synchronously so its pixels are ready as soon as this returns
+     * @param url the url of the image file
+     * @param width the width to decode at, 0 for the natural width
+     * @param height the height to decode at, 0 for the natural height
+     * @return Image the freshly decoded Image
+     */
+    private static Image decode(String url, int width, int height) {
+        if (NATURAL_SIZE == width && NATURAL_SIZE == height) {
+            return new Image(url);
+        }
+
+        // smooth scaling looks a lot better than nearest neighbor
+        // and we only ever pay for it once per Image
+        return new Image(url, width, height, false, true);
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * the key that cached Images are stored under,
+     * an image file decoded at two different sizes
+     * gets two different keys
+     * @author Ryan Voor
+     */
+    private static final class CacheKey {
+        private final String url;
+        private final int width;
+        private final int height;
+
+        /**
+         * constructor for the CacheKey class
+         * @param url the url of the image file
+         * @param width the width the image is decoded at
+         * @param height the height the image is decoded at
+         */
+        CacheKey(String url, int width, int height) {
+            this.url    = url;
+            this.width  = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey otherKey = (CacheKey) other;
+            return this.width == otherKey.width
+                && this.height == otherKey.height
+                && this.url.equals(otherKey.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * this.url.hashCode() + this.width) * 31 + this.height;
+        }
+    }
+
+    /**
+     * a decoded Image along with how much memory it takes up
+     * @author Ryan Voor
+     */
+    private static final class CacheEntry {
+        private final Image image;
+        private final long sizeInBytes;
+
+        /**
+         * constructor for the CacheEntry class
+         * @param image the decoded Image
+         */
+        CacheEntry(Image image) {
+            this.image = image;
+            this.sizeInBytes = ((long) image.getWidth())
+                * ((long) image.getHeight()) * BYTES_PER_PIXEL;
+        }
+
+        /**
+         * getter for the decoded Image
+         * @return Image the decoded Image
+         */
+        Image getImage() {
+            return this.image;
+        }
+
+        /**
+         * getter for the memory used by the decoded Image
+         * @return long the number of bytes of pixels in the Image
+         */
+        long getSizeInBytes() {
+            return this.sizeInBytes;
+        }
+    }
+}
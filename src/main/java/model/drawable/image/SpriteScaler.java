@@ -0,0 +1,201 @@
+package model.drawable.image;
+
+// javafx imports
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * resamples sprites to a new size ahead of time so that they can be
+ * drawn at exactly their own size instead of being scaled by the Canvas
+ * on every single drawImage call
+ * shrinking works like a mipmap chain: the sprite is halved with a 2x2
+ * box filter over and over until the next halving would make it smaller
+ * than the size we want, and then whatever is left is averaged down to
+ * the exact size, this keeps small sprites from shimmering the way they
+ * do when the Canvas skips over most of the pixels of a big sprite
+ * every pixel is averaged with its alpha premultiplied so that see
+ * through pixels don't darken the edges of a sprite
+ * @author Ryan Voor
+ */
+public class SpriteScaler {
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private SpriteScaler() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * returns a copy of the parameter Image resampled to the
+     * parameter size
+     * @param image the Image to resample
+     * @param width the width in pixels of the copy, at least 1
+     * @param height the height in pixels of the copy, at least 1
+     * @return WritableImage the resampled copy
+     */
+    public static WritableImage scale(Image image, int width, int height) {
+        int sourceWidth  = (int) image.getWidth();
+        int sourceHeight = (int) image.getHeight();
+        int[] pixels = new int[sourceWidth * sourceHeight];
+        image.getPixelReader().getPixels(
+            0,
+            0,
+            sourceWidth,
+            sourceHeight,
+            PixelFormat.getIntArgbPreInstance(),
+            pixels,
+            0,
+            sourceWidth
+        );
+
+        // walk down the mipmap chain as far as we can
+        while (sourceWidth / 2 >= width && sourceHeight / 2 >= height
+            && sourceWidth > 1 && sourceHeight > 1) {
+            pixels = SpriteScaler.halve(pixels, sourceWidth, sourceHeight);
+            sourceWidth  /= 2;
+            sourceHeight /= 2;
+        }
+
+        // then take care of whatever is left over
+        if (sourceWidth != width || sourceHeight != height) {
+            pixels = SpriteScaler.resample(
+                pixels, sourceWidth, sourceHeight, width, height);
+        }
+
+        WritableImage scaledImage = new WritableImage(width, height);
+        scaledImage.getPixelWriter().setPixels(
+            0,
+            0,
+            width,
+            height,
+            PixelFormat.getIntArgbPreInstance(),
+            pixels,
+            0,
+            width
+        );
+        return scaledImage;
+    }
+
+    /**
+     * makes the next level of a mipmap chain, every pixel of the result
+     * is the average of a 2x2 block of the parameter pixels, an odd last
+     * row or column is dropped
+     * @param pixels the premultiplied ARGB pixels, row by row
+     * @param width the width of the parameter pixels
+     * @param height the height of the parameter pixels
+     * @return int[] the pixels of the half sized image, row by row
+     */
+    private static int[] halve(int[] pixels, int width, int height) {
+        int halfWidth  = width / 2;
+        int halfHeight = height / 2;
+        int[] halvedPixels = new int[halfWidth * halfHeight];
+
+        for (int y = 0; y < halfHeight; y++) {
+            int topRow    = (2 * y) * width;
+            int bottomRow = (2 * y + 1) * width;
+            for (int x = 0; x < halfWidth; x++) {
+                halvedPixels[y * halfWidth + x] = SpriteScaler.average(
+                    pixels, topRow + 2 * x, 2, bottomRow + 2 * x, 2);
+            }
+        }
+
+        return halvedPixels;
+    }
+
+    /**
+     * resamples the parameter pixels to any size by averaging all the
+     * pixels that each new pixel covers, when growing a sprite this ends
+     * up picking the nearest pixel
+     * @param pixels the premultiplied ARGB pixels, row by row
+     * @param width the width of the parameter pixels
+     * @param height the height of the parameter pixels
+     * @param newWidth the width to resample to
+     * @param newHeight the height to resample to
+     * @return int[] the resampled pixels, row by row
+     */
+    private static int[] resample(int[] pixels, int width, int height,
+        int newWidth, int newHeight) {
+        int[] resampledPixels = new int[newWidth * newHeight];
+
+        for (int y = 0; y < newHeight; y++) {
+            // the rows of the source that this row covers, always at
+            // least one so that growing a sprite still works
+            int firstRow = y * height / newHeight;
+            int lastRow  = Math.max(firstRow + 1, (y + 1) * height / newHeight);
+            for (int x = 0; x < newWidth; x++) {
+                int firstColumn = x * width / newWidth;
+                int lastColumn
+                    = Math.max(firstColumn + 1, (x + 1) * width / newWidth);
+
+                long alpha = 0;
+                long red   = 0;
+                long green = 0;
+                long blue  = 0;
+                for (int row = firstRow; row < lastRow; row++) {
+                    for (int column = firstColumn; column < lastColumn;
+                        column++) {
+                        int pixel = pixels[row * width + column];
+                        alpha += (pixel >>> 24) & 0xFF;
+                        red   += (pixel >>> 16) & 0xFF;
+                        green += (pixel >>> 8) & 0xFF;
+                        blue  += pixel & 0xFF;
+                    }
+                }
+
+                int count = (lastRow - firstRow) * (lastColumn - firstColumn);
+                resampledPixels[y * newWidth + x] = SpriteScaler.pack(
+                    alpha / count, red / count, green / count, blue / count);
+            }
+        }
+
+        return resampledPixels;
+    }
+
+    /**
+     * averages two runs of pixels, used to average a 2x2 block
+     * @param pixels the premultiplied ARGB pixels
+     * @param firstStart the index of the first pixel of the first run
+     * @param firstLength the number of pixels in the first run
+     * @param secondStart the index of the first pixel of the second run
+     * @param secondLength the number of pixels in the second run
+     * @return int the average of every pixel in both runs
+     */
+    private static int average(int[] pixels, int firstStart,
+        int firstLength, int secondStart, int secondLength) {
+        int alpha = 0;
+        int red   = 0;
+        int green = 0;
+        int blue  = 0;
+        for (int i = 0; i < firstLength + secondLength; i++) {
+            int pixel = i < firstLength
+                ? pixels[firstStart + i]
+                : pixels[secondStart + i - firstLength];
+            alpha += (pixel >>> 24) & 0xFF;
+            red   += (pixel >>> 16) & 0xFF;
+            green += (pixel >>> 8) & 0xFF;
+            blue  += pixel & 0xFF;
+        }
+
+        int count = firstLength + secondLength;
+        return SpriteScaler.pack(
+            alpha / count, red / count, green / count, blue / count);
+    }
+
+    /**
+     * puts the four channels of a pixel back together
+     * @param alpha the alpha channel, 0 to 255
+     * @param red the red channel, 0 to 255
+     * @param green the green channel, 0 to 255
+     * @param blue the blue channel, 0 to 255
+     * @return int the ARGB pixel
+     */
+    private static int pack(long alpha, long red, long green, long blue) {
+        return (int) ((alpha << 24) | (red << 16) | (green << 8) | blue);
+    }
+}
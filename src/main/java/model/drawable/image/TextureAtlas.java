@@ -0,0 +1,359 @@
+package model.drawable.image;
+
+// java standard library imports
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// javafx imports
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+/**
+ * packs many small sprites into a few big sheets so that drawing a
+ * whole Map only touches a handful of textures instead of switching
+ * textures on nearly every drawImage call
+ * sprites are packed into shelves (rows) on each sheet, every sprite
+ * gets a one pixel border copied from its own edges so that smoothing
+ * never bleeds in pixels from a neighboring sprite
+ * the manifest of the atlas maps the key of every sprite (usually the
+ * url of its image file) to the AtlasRegion it was packed into
+ * @author Ryan Voor
+ */
+public class TextureAtlas {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the width and height in pixels of each sheet, 1024x1024 fits
+    // about eighty of our 100x100 sprites on one sheet
+    private static final int SHEET_SIZE_IN_PIXELS = 1024;
+
+    // the number of pixels of copied edge around each sprite
+    private static final int PADDING_IN_PIXELS = 1;
+
+    // the directory that holds the sprites that Drawables are drawn with
+    private static final String SPRITE_DIRECTORY = "lib/images/resized";
+
+    // the atlas that is shared by every Drawable in the application
+    private static final TextureAtlas SHARED_ATLAS = new TextureAtlas();
+
+    // atlases of sprites that have been resampled to one particular size,
+    // keyed by that size, so that every sprite drawn at that size (for
+    // example every Terrain at one zoom level) comes out of the same sheets
+    private static final HashMap<String, TextureAtlas> SCALED_ATLASES
+        = new HashMap<String, TextureAtlas>();
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // all of these are guarded by 'this'
+    private final ArrayList<WritableImage> sheets;
+    private final HashMap<String, AtlasRegion> manifest;
+    private int shelfX;
+    private int shelfY;
+    private int shelfHeight;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the TextureAtlas class, makes an empty atlas
+     */
+    public TextureAtlas() {
+        this.sheets   = new ArrayList<WritableImage>();
+        this.manifest = new HashMap<String, AtlasRegion>();
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the TextureAtlas that is shared by every
+     * Drawable in the application
+     * @return TextureAtlas the shared TextureAtlas
+     */
+    public static TextureAtlas getSharedAtlas() {
+        return TextureAtlas.SHARED_ATLAS;
+    }
+
+    /**
+     * getter for the TextureAtlas that holds the sprites that have been
+     * resampled to the parameter size, it is created the first time
+     * anybody asks for that size
+     * @param width the width in pixels of the sprites
+     * @param height the height in pixels of the sprites
+     * @return TextureAtlas the atlas for that size
+     */
+    public static TextureAtlas getScaledAtlas(int width, int height) {
+        String size = width + "x" + height;
+        synchronized (SCALED_ATLASES) {
+            TextureAtlas atlas = SCALED_ATLASES.get(size);
+            if (null == atlas) {
+                atlas = new TextureAtlas();
+                SCALED_ATLASES.put(size, atlas);
+            }
+            return atlas;
+        }
+    }
+
+    /**
+     * getter for the number of sheets in this atlas
+     * @return int the number of sheets
+     */
+    public synchronized int getNumberOfSheets() {
+        return this.sheets.size();
+    }
+
+    /**
+     * returns a copy of the manifest of this atlas, sorted by key
+     * @return Map the key of every packed sprite mapped to
+     * the region of the sheet it was packed into
+     */
+    public synchronized Map<String, AtlasRegion> getManifest() {
+        return new TreeMap<String, AtlasRegion>(this.manifest);
+    }
+
+    /**
+     * returns the region that holds the image file at the parameter
+     * url, packing the image into the atlas first if this is the
+     * first time anybody has asked for it
+     * @param url the url of the image file
+     * @return AtlasRegion the region that holds the image
+     */
+    public synchronized AtlasRegion getRegion(String url) {
+        AtlasRegion region = this.manifest.get(url);
+        if (null == region) {
+            Image image = ImageCache.getSharedCache().getImage(url);
+            region = this.pack(url, image);
+        }
+        return region;
+    }
+
+    /**
+     * returns the region that was packed under the parameter key
+     * @param key the key that the sprite was packed under
+     * @return AtlasRegion the region, null if nothing has been
+     * packed under that key
+     */
+    public synchronized AtlasRegion getPackedRegion(String key) {
+        return this.manifest.get(key);
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * packs the parameter Image into this atlas under the parameter key,
+     * if something is already packed under that key then the existing
+     * region is returned and nothing new is packed
+     * @param key the key to pack the Image under
+     * @param image the Image to pack
+     * @return AtlasRegion the region that holds the Image
+     */
+    public synchronized AtlasRegion addImage(String key, Image image) {
+        AtlasRegion region = this.manifest.get(key);
+        if (null == region) {
+            region = this.pack(key, image);
+        }
+        return region;
+    }
+
+    /**
+     * packs every sprite (and every frame of every animated sprite)
+     * in the sprite directory into this atlas,
+     * this is meant to be called once at startup so that the sheets
+     * are laid out tallest sprite first which wastes the least space
+     */
+    public void packSpriteDirectory() {
+        this.packDirectory(new File(TextureAtlas.SPRITE_DIRECTORY));
+    }
+
+    /**
+     * packs every image file in the parameter directory into this atlas,
+     * the files are keyed by the same "file:" urls that Drawables use
+     * @param directory the directory full of image files
+     */
+    public void packDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (null == files) {
+            // not a directory, nothing to pack
+            return;
+        }
+
+        // sort so that the atlas comes out the same every run
+        Arrays.sort(files);
+        ArrayList<String> urls = new ArrayList<String>();
+        for (File file : files) {
+            if (file.isFile()) {
+                urls.add("file:" + directory.getPath() + "/" + file.getName());
+            }
+        }
+
+        this.packAll(urls);
+    }
+
+    /**
+     * packs every frame of all the image files at the parameter urls into
+     * this atlas, tallest frame first so that the shelves are as full
+     * as possible, the frames are keyed the same way AnimationTimeline
+     * keys them so that timelines find them already packed
+     * @param urls the urls of the image files to pack
+     */
+    public void packAll(ArrayList<String> urls) {
+        // decode everything up front, outside of the lock,
+        // so that we can sort by height
+        HashMap<String, Image> images = new HashMap<String, Image>();
+        for (String url : urls) {
+            ArrayList<AnimationFrame> frames
+                = AnimationTimeline.decodeFrames(url);
+            for (int i = 0; i < frames.size(); i++) {
+                images.put(
+                    AnimationTimeline.getFrameKey(url, i),
+                    frames.get(i).getImage()
+                );
+            }
+        }
+
+        this.packImages(images);
+    }
+
+    /**
+     * packs all the parameter Images into this atlas tallest first,
+     * Images whose keys are already packed are skipped
+     * @param images the Images to pack mapped from their keys
+     */
+    public synchronized void packImages(final HashMap<String, Image> images) {
+        ArrayList<String> keysToPack = new ArrayList<String>();
+        for (String key : images.keySet()) {
+            if (!this.manifest.containsKey(key)) {
+                keysToPack.add(key);
+            }
+        }
+
+        // sort by key first so that ties come out the same every run
+        Collections.sort(keysToPack);
+        Collections.sort(keysToPack, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return Double.compare(
+                    images.get(second).getHeight(),
+                    images.get(first).getHeight()
+                );
+            }
+        });
+
+        for (String key : keysToPack) {
+            this.pack(key, images.get(key));
+        }
+    }
+
+    /**
+     * copies the parameter Image onto a sheet and records where it went
+     * in the manifest, must be called while holding the lock on this atlas
+     * @param key the key to record the Image under
+     * @param image the Image to copy
+     * @return AtlasRegion the region the Image was copied into
+     */
+    private AtlasRegion pack(String key, Image image) {
+        int width  = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int paddedWidth  = width  + 2 * PADDING_IN_PIXELS;
+        int paddedHeight = height + 2 * PADDING_IN_PIXELS;
+
+        // a sprite that is bigger than a whole sheet gets a sheet of its own
+        if (paddedWidth > SHEET_SIZE_IN_PIXELS
+            || paddedHeight > SHEET_SIZE_IN_PIXELS) {
+            WritableImage sheet = new WritableImage(paddedWidth, paddedHeight);
+            this.sheets.add(sheet);
+            // the shared sheet we were filling is now no longer the last
+            // one so the next sprite starts a fresh shared sheet
+            this.shelfX = SHEET_SIZE_IN_PIXELS;
+            this.shelfY = SHEET_SIZE_IN_PIXELS;
+            return this.copyOntoSheet(key, image, this.sheets.size() - 1,
+                PADDING_IN_PIXELS, PADDING_IN_PIXELS);
+        }
+
+        // move onto the next shelf if this sprite doesn't fit on this one
+        if (this.shelfX + paddedWidth > SHEET_SIZE_IN_PIXELS) {
+            this.shelfX = 0;
+            this.shelfY += this.shelfHeight;
+            this.shelfHeight = 0;
+        }
+
+        // move onto the next sheet if the new shelf doesn't fit on this one
+        if (this.sheets.isEmpty()
+            || this.shelfY + paddedHeight > SHEET_SIZE_IN_PIXELS) {
+            this.sheets.add(new WritableImage(
+                SHEET_SIZE_IN_PIXELS,
+                SHEET_SIZE_IN_PIXELS
+            ));
+            this.shelfX = 0;
+            this.shelfY = 0;
+            this.shelfHeight = 0;
+        }
+
+        AtlasRegion region = this.copyOntoSheet(
+            key,
+            image,
+            this.sheets.size() - 1,
+            this.shelfX + PADDING_IN_PIXELS,
+            this.shelfY + PADDING_IN_PIXELS
+        );
+
+        this.shelfX += paddedWidth;
+        this.shelfHeight = Math.max(this.shelfHeight, paddedHeight);
+
+        return region;
+    }
+
+    /**
+     * copies the pixels of the parameter Image onto the parameter sheet,
+     * surrounds them with a border of copied edge pixels, and records the
+     * region in the manifest
+     * @param key the key to record the Image under
+     * @param image the Image to copy
+     * @param sheetIndex the index of the sheet to copy onto
+     * @param x the X coordinate on the sheet of the left edge of the Image
+     * @param y the Y coordinate on the sheet of the top edge of the Image
+     * @return AtlasRegion the region the Image was copied into
+     */
+    private AtlasRegion copyOntoSheet(String key, Image image,
+        int sheetIndex, int x, int y) {
+        WritableImage sheet = this.sheets.get(sheetIndex);
+        PixelWriter writer  = sheet.getPixelWriter();
+        PixelReader reader  = image.getPixelReader();
+        int width  = (int) image.getWidth();
+        int height = (int) image.getHeight();
+
+        // the sprite itself
+        writer.setPixels(x, y, width, height, reader, 0, 0);
+
+        // the border, each edge of the sprite is copied one pixel outwards
+        writer.setPixels(x, y - 1, width, 1, reader, 0, 0);
+        writer.setPixels(x, y + height, width, 1, reader, 0, height - 1);
+        writer.setPixels(x - 1, y, 1, height, reader, 0, 0);
+        writer.setPixels(x + width, y, 1, height, reader, width - 1, 0);
+
+        AtlasRegion region
+            = new AtlasRegion(sheet, sheetIndex, x, y, width, height);
+        this.manifest.put(key, region);
+        return region;
+    }
+}
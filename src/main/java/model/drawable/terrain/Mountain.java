@@ -1,8 +1,7 @@
 package model.drawable.terrain;
 
 // this project imports
-import model.drawable.tileOccupant.TileOccupant;
-import model.drawable.tileOccupant.FootMovementUnit;
+import model.drawable.tileOccupant.MovementClass;
 
 /**
  * represents a Mountain Terrain
@@ -42,10 +41,10 @@ public class Mountain extends Terrain {
     //////////////////
 
     @Override
-    public int getMovementCost(TileOccupant unit) {
-        // one if-statement for each type of unit
+    public int getMovementCost(MovementClass movementClass) {
+        // one if-statement for each way of moving
         // that can move onto a Tile with this Terrain
-        if (unit instanceof FootMovementUnit) {
+        if (MovementClass.FOOT == movementClass) {
             return this.getFootMovementUnitCost();
         }
 
@@ -9,6 +9,7 @@ import javafx.scene.image.Image;
 
 // this project imports
 import model.drawable.Drawable;
+import model.drawable.tileOccupant.MovementClass;
 import model.drawable.tileOccupant.TileOccupant;
 
 /**
@@ -31,24 +32,38 @@ public abstract class Terrain extends Drawable {
     // Abstract Methods //
     //////////////////////
 
+    /**
+     * returns the movement cost that a unit that moves the parameter
+     * way needs to pay to move onto a Tile that has this Terrain,
+     * returns Integer.MAX_VALUE if units that move that way cannot
+     * move onto a Tile with this Terrain,
+     * NOTE: the implementations of this methods will need
+     * to be updated every time a new MovementClass is added
+     * @param movementClass the way the unit that is attempting
+     * to move onto the Tile that has this Terrain moves
+     * @return int the movement cost that the unit must pay in order
+     * to move onto a Tile that has this Terrain
+     */
+    public abstract int getMovementCost(MovementClass movementClass);
+
+    /////////////
+    // Getters //
+    /////////////
+
     /**
      * returns the movement cost that a unit needs to pay
      * to move onto a Tile that has this Terrain,
      * returns Integer.MAX_VALUE if the Unit cannot move
-     * onto a Tile with this Terrain,
-     * NOTE: the implementations of this methods will need
-     * to be updated every time a new unit-type is added
+     * onto a Tile with this Terrain
      * @param unit the TileOccupant that is attempting
      * to move onto the Tile that has this Terrain
      * @return int the movement cost that the parameter
      * unit must pay in order to move onto a Tile that
      * has this Terrain
      */
-    public abstract int getMovementCost(TileOccupant unit);
-
-    /////////////
-    // Getters //
-    /////////////
+    public int getMovementCost(TileOccupant unit) {
+        return this.getMovementCost(unit.getMovementClass());
+    }
 
     /**
      * getter for the url of the image that
@@ -15,9 +15,18 @@ public abstract class FootMovementUnit extends TileOccupant {
      * @param fileImageUrls the urls of the files of
      * the Images that should be shown on the Tile
      * that this FootMovementUnit occupies
+     * @param movementRange how far this unit can move in a turn
+     * @param minimumAttackRange the closest Tile this unit can attack
+     * @param maximumAttackRange the farthest Tile this unit can attack
      */
     public FootMovementUnit(ArrayList<String> fileImageUrls,
-        int movementRange) {
-        super(fileImageUrls, movementRange);
+        int movementRange, int minimumAttackRange, int maximumAttackRange) {
+        super(fileImageUrls, movementRange, minimumAttackRange,
+            maximumAttackRange);
+    }
+
+    @Override
+    public MovementClass getMovementClass() {
+        return MovementClass.FOOT;
     }
 }
@@ -25,7 +25,9 @@ public class Infantry extends FootMovementUnit {
                         + "megaman_running_transparent_resized.gif"
                 )
             ),
-            3
+            3,
+            1,
+            1
         );
     }
 }
@@ -0,0 +1,12 @@
+package model.drawable.tileOccupant;
+
+/**
+ * the ways that a TileOccupant can get around the Map, every Terrain
+ * charges the same movement cost to every unit that moves the same way,
+ * so the Map only has to keep one grid of movement costs for each of these
+ * @author Ryan Voor
+ */
+public enum MovementClass {
+    // units that walk, see FootMovementUnit
+    FOOT
+}
@@ -25,7 +25,9 @@ public class Sniper extends FootMovementUnit {
                         + "megaman_jumping_transparent_resized.gif"
                 )
             ),
-            2
+            2,
+            2,
+            3
         );
     }
 }
@@ -20,16 +20,31 @@ public abstract class TileOccupant extends Drawable {
 
     // instance variables
     private int movementRange;
+    private int minimumAttackRange;
+    private int maximumAttackRange;
+
+    // the number of the player this TileOccupant belongs to,
+    // every TileOccupant belongs to player 0 unless it is told otherwise
+    private int player;
 
     /**
      * constructor for the TileOccupant class
      * @param imageFileUrls the urls of the files of
      * the Images that should be shown on the Tile
      * that this TileOccupant occupies
+     * @param movementRange how far this TileOccupant can move in a turn
+     * @param minimumAttackRange the closest Tile this TileOccupant can
+     * attack, counting across plus up and down from where it stands
+     * @param maximumAttackRange the farthest Tile this TileOccupant can
+     * attack, counting the same way
      */
-    public TileOccupant(ArrayList<String> imageFileUrls, int movementRange) {
+    public TileOccupant(ArrayList<String> imageFileUrls, int movementRange,
+        int minimumAttackRange, int maximumAttackRange) {
         super(imageFileUrls);
         this.movementRange = movementRange;
+        this.minimumAttackRange = minimumAttackRange;
+        this.maximumAttackRange = maximumAttackRange;
+        this.player = 0;
     }
 
     /////////////
@@ -45,4 +60,52 @@ public abstract class TileOccupant extends Drawable {
     public int getMovementRange() {
         return this.movementRange;
     }
+
+    /**
+     * getter for the closest Tile this TileOccupant can attack, the
+     * number of Tiles across plus up and down from where it stands
+     * @return int the minimumAttackRange of this Unit
+     */
+    public int getMinimumAttackRange() {
+        return this.minimumAttackRange;
+    }
+
+    /**
+     * getter for the farthest Tile this TileOccupant can attack, the
+     * number of Tiles across plus up and down from where it stands
+     * @return int the maximumAttackRange of this Unit
+     */
+    public int getMaximumAttackRange() {
+        return this.maximumAttackRange;
+    }
+
+    /**
+     * getter for the number of the player this TileOccupant belongs to
+     * @return int the player of this Unit
+     */
+    public int getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * getter for the way this TileOccupant gets around the Map,
+     * which decides how much each Terrain costs it to move onto
+     * @return MovementClass the way this TileOccupant moves
+     */
+    public abstract MovementClass getMovementClass();
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * setter for the number of the player this TileOccupant belongs to,
+     * this should be set before the TileOccupant is put onto a Tile since
+     * the Map only finds out about changes to its Tiles
+     * @param player the number of the player, never negative
+     */
+    public void setPlayer(int player) {
+        this.player = player;
+    }
 }
@@ -0,0 +1,75 @@
+package model.map;
+
+/**
+ * what the binary map format looks like, shared by BinaryMapWriter and
+ * BinaryMapReader, it holds the same things as a csv map file (see the
+ * comment under Map.buildMap) in a lot less space and without any text
+ * to parse
+ *
+ * every number is big endian, a "varint" is an unsigned number written
+ * 7 bits per byte starting with the lowest bits, with the top bit of a
+ * byte set when another byte follows
+ *
+ *     magic           4 bytes, "AIMP"
+ *     version         1 byte, VERSION
+ *     flags           1 byte, CHECKSUM_FLAG if there is a checksum
+ *     columns, rows   2 ints
+ *     3 type tables   terrains, buildings, then occupants, each is a
+ *                     byte with how many kinds it has followed by the
+ *                     csv letter of every kind, the kind with letter
+ *                     number k (counting from 1) has the id k in the
+ *                     layers, 0 means nothing is there
+ *     4 layers        terrains, buildings, occupants, then invaders,
+ *                     one value per Tile going across the rows from the
+ *                     top left, written as runs of a varint for how
+ *                     many Tiles the run covers and a varint for the
+ *                     value of all of them
+ *     checksum        an int, the CRC32 of every byte before it, only
+ *                     there if the flags say so
+ *
+ * the value of a Tile in the terrain and building layers is the id of
+ * its kind, in the occupant and invader layers it is player * 256 + id,
+ * so a Tile with no unit is 0 and a unit keeps the player it belongs to
+ * @author Ryan Voor
+ */
+final class BinaryMapFormat {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the first bytes of every binary map file, which is how they
+    // are told apart from csv map files
+    static final byte[] MAGIC = {'A', 'I', 'M', 'P'};
+
+    // the version of the format written, reading anything else fails
+    static final int VERSION = 1;
+
+    // the flag set when the file ends with a checksum
+    static final int CHECKSUM_FLAG = 1;
+
+    // how many bytes the magic, version, flags, and size take up
+    static final int HEADER_SIZE = BinaryMapFormat.MAGIC.length + 2 + 8;
+
+    // how many kinds a type table can hold
+    static final int MAXIMUM_NUMBER_OF_KINDS = 255;
+
+    // what the player of a unit is multiplied by in the occupant
+    // and invader layers, one more than the biggest id
+    static final int PLAYER_MULTIPLIER
+        = BinaryMapFormat.MAXIMUM_NUMBER_OF_KINDS + 1;
+
+    // which layer is which, in the order they are in the file
+    static final int TERRAIN_LAYER  = 0;
+    static final int BUILDING_LAYER = 1;
+    static final int OCCUPANT_LAYER = 2;
+    static final int INVADER_LAYER  = 3;
+    static final int NUMBER_OF_LAYERS = 4;
+
+
+    /**
+     * this class only has constants so it should never be constructed
+     */
+    private BinaryMapFormat() {
+    }
+}
@@ -0,0 +1,313 @@
+package model.map;
+
+// java standard library imports
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// this project imports
+import exception.MapFileReadException;
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * reads the binary map files that BinaryMapWriter writes into a
+ * CompactTileStorage, see BinaryMapFormat for what they look like
+ * the file is memory mapped and every run of a layer is filled in at
+ * once, so reading one is mostly copying bytes
+ * @author Ryan Voor
+ */
+public class BinaryMapReader {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the bytes of the file, without its magic, version, flags and
+    // checksum
+    private final ByteBuffer bytes;
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // the ids in TileTypeRegistry of the kinds in the type tables of
+    // the file, and the csv letters of the kinds of units
+    private int[] terrainIds;
+    private int[] buildingIds;
+    private char[] occupantLetters;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the BinaryMapReader class, private since a reader
+     * is only ever used for one file, see readTileStorage
+     * @param bytes the bytes of the file after its flags and before its
+     * checksum
+     */
+    private BinaryMapReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.numberOfColumns = bytes.getInt();
+        this.numberOfRows = bytes.getInt();
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * checks whether the parameter file starts like a binary map file,
+     * which is how Map.buildMap decides how to read it
+     * @param mapFileName the path to the file
+     * @return boolean whether the file is a binary map file
+     */
+    public static boolean isBinaryMapFile(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        byte[] magic = new byte[BinaryMapFormat.MAGIC.length];
+        int numberRead = 0;
+        InputStream in = new FileInputStream(mapFileName);
+        try {
+            while (numberRead < magic.length) {
+                int count = in.read(magic, numberRead,
+                    magic.length - numberRead);
+                if (-1 == count) {
+                    return false;
+                }
+                numberRead += count;
+            }
+        } catch (IOException e) {
+            throw new MapFileReadException(
+                "could not read map file: " + e.getMessage());
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // nothing more to read from it, so nothing to do
+            }
+        }
+        return Arrays.equals(magic, BinaryMapFormat.MAGIC);
+    }
+
+    /**
+     * reads every Tile of the parameter binary map file
+     * @param mapFileName the path to the map file
+     * @return CompactTileStorage the Tiles of the map
+     */
+    public static CompactTileStorage readTileStorage(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        return BinaryMapReader.readTileStorage(
+            MapFileParser.mapFile(mapFileName));
+    }
+
+    /**
+     * reads every Tile of a binary map file from the parameter bytes
+     * @param bytes the bytes of the map file, from position 0 to the limit
+     * @return CompactTileStorage the Tiles of the map
+     */
+    public static CompactTileStorage readTileStorage(ByteBuffer bytes)
+        throws MapFileReadException {
+        ByteBuffer in = bytes.duplicate();
+        in.position(0);
+        try {
+            // make sure this is a file we know how to read
+            byte[] magic = new byte[BinaryMapFormat.MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, BinaryMapFormat.MAGIC)) {
+                throw new MapFileReadException("not a binary map file");
+            }
+            int version = in.get() & 0xff;
+            if (BinaryMapFormat.VERSION != version) {
+                throw new MapFileReadException("binary map file is version "
+                    + version + " but only version " + BinaryMapFormat.VERSION
+                    + " can be read");
+            }
+
+            // the checksum covers everything in front of it
+            int flags = in.get() & 0xff;
+            if (0 != (flags & BinaryMapFormat.CHECKSUM_FLAG)) {
+                int end = in.limit() - 4;
+                if (end < in.position()) {
+                    throw new BufferUnderflowException();
+                }
+                ByteBuffer checked = bytes.duplicate();
+                checked.position(0);
+                checked.limit(end);
+                CRC32 checksum = new CRC32();
+                checksum.update(checked);
+                if ((int) checksum.getValue() != in.getInt(end)) {
+                    throw new MapFileReadException(
+                        "binary map file does not match its checksum");
+                }
+                in.limit(end);
+            }
+
+            return new BinaryMapReader(in).read();
+        } catch (BufferUnderflowException e) {
+            throw new MapFileReadException("binary map file is cut short");
+        }
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * reads the type tables and then the layers
+     * @return CompactTileStorage the Tiles of the map
+     */
+    private CompactTileStorage read() throws MapFileReadException {
+        if (this.numberOfColumns <= 0 || this.numberOfRows <= 0
+            || ((long) this.numberOfColumns) * this.numberOfRows
+                > Integer.MAX_VALUE - 8) {
+            throw new MapFileReadException("binary map file can't be "
+                + this.numberOfColumns + " by " + this.numberOfRows);
+        }
+        int numberOfTiles = this.numberOfColumns * this.numberOfRows;
+
+        // turn the letters of the type tables into the ids this game uses
+        char[] letters = this.readTypeTable();
+        this.terrainIds = new int[letters.length + 1];
+        for (int i = 0; i < letters.length; i++) {
+            this.terrainIds[i + 1] = Map.getTerrainIdFromFileLetter(letters[i]);
+        }
+        letters = this.readTypeTable();
+        this.buildingIds = new int[letters.length + 1];
+        for (int i = 0; i < letters.length; i++) {
+            this.buildingIds[i + 1]
+                = Map.getBuildingIdFromFileLetter(letters[i]);
+        }
+        this.occupantLetters = this.readTypeTable();
+
+        // the Terrains and Buildings go straight into the arrays of the
+        // storage, the units are put on it afterwards
+        byte[] terrainLayer = new byte[numberOfTiles];
+        byte[] buildingLayer = new byte[numberOfTiles];
+        this.readLayer(terrainLayer, this.terrainIds, 1);
+        this.readLayer(buildingLayer, this.buildingIds, 0);
+        CompactTileStorage tileStorage = new CompactTileStorage(
+            this.numberOfColumns, this.numberOfRows,
+            terrainLayer, buildingLayer);
+        this.readUnitLayer(tileStorage, BinaryMapFormat.OCCUPANT_LAYER);
+        this.readUnitLayer(tileStorage, BinaryMapFormat.INVADER_LAYER);
+
+        if (this.bytes.hasRemaining()) {
+            throw new MapFileReadException(
+                "binary map file has extra bytes after its layers");
+        }
+        return tileStorage;
+    }
+
+    /**
+     * reads a type table
+     * @return char[] the csv letters of its kinds
+     */
+    private char[] readTypeTable() {
+        char[] letters = new char[this.bytes.get() & 0xff];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) (this.bytes.get() & 0xff);
+        }
+        return letters;
+    }
+
+    /**
+     * reads the terrain or building layer into the parameter array
+     * @param layer the array to fill in with the ids of every Tile
+     * @param ids the id in TileTypeRegistry of every id in the file
+     * @param smallestId the smallest id a Tile can have, 1 when every
+     * Tile has to have something
+     */
+    private void readLayer(byte[] layer, int[] ids, int smallestId)
+        throws MapFileReadException {
+        int tileNumber = 0;
+        while (tileNumber < layer.length) {
+            int runLength = this.readRunLength(layer.length - tileNumber);
+            int value = this.readVarint();
+            if (value < smallestId || value >= ids.length) {
+                throw new MapFileReadException("binary map file has id "
+                    + value + " which isn't in its type table");
+            }
+            Arrays.fill(layer, tileNumber, tileNumber + runLength,
+                (byte) ids[value]);
+            tileNumber += runLength;
+        }
+    }
+
+    /**
+     * reads the occupant or invader layer and puts its units on the
+     * parameter storage
+     * @param tileStorage the storage to put the units on
+     * @param layer which layer, see BinaryMapFormat
+     */
+    private void readUnitLayer(CompactTileStorage tileStorage, int layer)
+        throws MapFileReadException {
+        int numberOfTiles = this.numberOfColumns * this.numberOfRows;
+        int tileNumber = 0;
+        while (tileNumber < numberOfTiles) {
+            int runLength = this.readRunLength(numberOfTiles - tileNumber);
+            int value = this.readVarint();
+            int id = value % BinaryMapFormat.PLAYER_MULTIPLIER;
+            if (0 == value) {
+                tileNumber += runLength;
+                continue;
+            } else if (0 == id || id > this.occupantLetters.length) {
+                throw new MapFileReadException("binary map file has id "
+                    + id + " which isn't in its type table");
+            }
+
+            // every Tile of the run gets its own unit
+            for (int i = 0; i < runLength; i++, tileNumber++) {
+                TileOccupant unit = Map.getTileOccupantFromFileLetter(
+                    this.occupantLetters[id - 1]);
+                unit.setPlayer(value / BinaryMapFormat.PLAYER_MULTIPLIER);
+                if (BinaryMapFormat.OCCUPANT_LAYER == layer) {
+                    tileStorage.setOccupant(tileNumber, unit);
+                } else {
+                    tileStorage.setInvader(tileNumber, unit);
+                }
+            }
+        }
+    }
+
+    /**
+     * reads how many Tiles a run covers
+     * @param numberOfTilesLeft how many Tiles of the layer are left
+     * @return int the length of the run
+     */
+    private int readRunLength(int numberOfTilesLeft)
+        throws MapFileReadException {
+        int runLength = this.readVarint();
+        if (runLength <= 0 || runLength > numberOfTilesLeft) {
+            throw new MapFileReadException("binary map file has a run of "
+                + runLength + " tiles where " + numberOfTilesLeft
+                + " are left");
+        }
+        return runLength;
+    }
+
+    /**
+     * reads a varint, see BinaryMapFormat
+     * @return int the number
+     */
+    private int readVarint() throws MapFileReadException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int next = this.bytes.get() & 0xff;
+            value |= (next & 0x7f) << shift;
+            if (0 == (next & 0x80)) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new MapFileReadException("binary map file has a number that"
+            + " is too big");
+    }
+}
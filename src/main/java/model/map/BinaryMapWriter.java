@@ -0,0 +1,246 @@
+package model.map;
+
+// java standard library imports
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+
+// this project imports
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * writes the Tiles of a Map in the binary map format, see
+ * BinaryMapFormat for what that looks like, BinaryMapReader reads
+ * them back
+ * only kinds of Terrains, Buildings, and units that a csv map file has
+ * a letter for can be written, the same as a csv map file
+ * @author Ryan Voor
+ */
+public class BinaryMapWriter {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final TileStorage tileStorage;
+
+    // the csv letters of the kinds written so far, the kind with
+    // letter number k has the id k in the layers
+    private final StringBuilder terrainLetters;
+    private final StringBuilder buildingLetters;
+    private final StringBuilder occupantLetters;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the BinaryMapWriter class, private since a writer
+     * is only ever used for one Map, see write
+     * @param tileStorage the Tiles to write
+     */
+    private BinaryMapWriter(TileStorage tileStorage) {
+        this.tileStorage = tileStorage;
+        this.terrainLetters = new StringBuilder();
+        this.buildingLetters = new StringBuilder();
+        this.occupantLetters = new StringBuilder();
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * writes the parameter Tiles to a binary map file
+     * @param tileStorage the Tiles to write
+     * @param mapFileName the path of the file to write, it is replaced
+     * if it is already there
+     * @param withChecksum whether to end the file with a checksum
+     */
+    public static void write(TileStorage tileStorage, String mapFileName,
+        boolean withChecksum) throws IOException {
+        OutputStream out = new FileOutputStream(mapFileName);
+        try {
+            BinaryMapWriter.write(tileStorage, out, withChecksum);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * writes the parameter Tiles in the binary map format to the
+     * parameter stream, which is left open
+     * @param tileStorage the Tiles to write
+     * @param out where to write them
+     * @param withChecksum whether to end with a checksum
+     */
+    public static void write(TileStorage tileStorage, OutputStream out,
+        boolean withChecksum) throws IOException {
+        out.write(new BinaryMapWriter(tileStorage).toBytes(withChecksum));
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * turns the Tiles into the bytes of a binary map file, the layers are
+     * written first since the type tables in front of them are only
+     * known once every Tile has been looked at
+     * @param withChecksum whether to end with a checksum
+     * @return byte[] the bytes of the file
+     */
+    private byte[] toBytes(boolean withChecksum) throws IOException {
+        ByteArrayOutputStream layers = new ByteArrayOutputStream();
+        for (int layer = 0; layer < BinaryMapFormat.NUMBER_OF_LAYERS;
+            layer++) {
+            this.writeLayer(layers, layer);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+            BinaryMapFormat.HEADER_SIZE + layers.size() + 16);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.write(BinaryMapFormat.MAGIC);
+        data.writeByte(BinaryMapFormat.VERSION);
+        data.writeByte(withChecksum ? BinaryMapFormat.CHECKSUM_FLAG : 0);
+        data.writeInt(this.tileStorage.getNumberOfColumns());
+        data.writeInt(this.tileStorage.getNumberOfRows());
+        BinaryMapWriter.writeTypeTable(data, this.terrainLetters);
+        BinaryMapWriter.writeTypeTable(data, this.buildingLetters);
+        BinaryMapWriter.writeTypeTable(data, this.occupantLetters);
+        layers.writeTo(data);
+
+        if (withChecksum) {
+            CRC32 checksum = new CRC32();
+            checksum.update(bytes.toByteArray());
+            data.writeInt((int) checksum.getValue());
+        }
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * writes the parameter layer of every Tile as runs of the same value
+     * @param out where to write the layer
+     * @param layer which layer, see BinaryMapFormat
+     */
+    private void writeLayer(ByteArrayOutputStream out, int layer) {
+        int numberOfTiles = this.tileStorage.getNumberOfColumns()
+            * this.tileStorage.getNumberOfRows();
+        int runValue = this.getValue(layer, 0);
+        int runLength = 1;
+        for (int tileNumber = 1; tileNumber < numberOfTiles; tileNumber++) {
+            int value = this.getValue(layer, tileNumber);
+            if (value == runValue) {
+                runLength++;
+            } else {
+                BinaryMapWriter.writeVarint(out, runLength);
+                BinaryMapWriter.writeVarint(out, runValue);
+                runValue = value;
+                runLength = 1;
+            }
+        }
+        BinaryMapWriter.writeVarint(out, runLength);
+        BinaryMapWriter.writeVarint(out, runValue);
+    }
+
+    /**
+     * gives the value the parameter Tile has in the parameter layer,
+     * adding its kind to the type table if it isn't in it yet
+     * @param layer which layer, see BinaryMapFormat
+     * @param tileNumber the number of the Tile
+     * @return int the value of the Tile
+     */
+    private int getValue(int layer, int tileNumber) {
+        int toBeReturned;
+        switch (layer) {
+        case BinaryMapFormat.TERRAIN_LAYER:
+            toBeReturned = BinaryMapWriter.getId(this.terrainLetters,
+                Map.getFileLetterOfTerrainId(
+                    this.tileStorage.getTerrainId(tileNumber)));
+            break;
+        case BinaryMapFormat.BUILDING_LAYER:
+            int buildingId = this.tileStorage.getBuildingId(tileNumber);
+            toBeReturned = TileTypeRegistry.NONE == buildingId
+                ? 0
+                : BinaryMapWriter.getId(this.buildingLetters,
+                    Map.getFileLetterOfBuildingId(buildingId));
+            break;
+        case BinaryMapFormat.OCCUPANT_LAYER:
+            toBeReturned = this.getUnitValue(
+                this.tileStorage.getOccupant(tileNumber));
+            break;
+        default:
+            toBeReturned = this.getUnitValue(
+                this.tileStorage.getInvader(tileNumber));
+            break;
+        }
+        return toBeReturned;
+    }
+
+    /**
+     * gives the value a unit has in the occupant and invader layers
+     * @param unit the unit, null if there isn't one
+     * @return int the value of the unit
+     */
+    private int getUnitValue(TileOccupant unit) {
+        if (null == unit) {
+            return 0;
+        }
+        return unit.getPlayer() * BinaryMapFormat.PLAYER_MULTIPLIER
+            + BinaryMapWriter.getId(this.occupantLetters,
+                Map.getFileLetterOfTileOccupant(unit));
+    }
+
+    /**
+     * gives the id of the kind with the parameter letter in the parameter
+     * type table, adding it to the end of the table if it isn't there
+     * @param letters the letters of the type table
+     * @param letter the csv letter of the kind
+     * @return int the id of the kind, counting from 1
+     */
+    private static int getId(StringBuilder letters, char letter) {
+        int index = letters.indexOf(String.valueOf(letter));
+        if (-1 == index) {
+            if (letters.length() == BinaryMapFormat.MAXIMUM_NUMBER_OF_KINDS) {
+                throw new IllegalStateException("too many kinds of tiles");
+            }
+            letters.append(letter);
+            index = letters.length() - 1;
+        }
+        return index + 1;
+    }
+
+    /**
+     * writes a type table, how many kinds it has then their letters
+     * @param out where to write the table
+     * @param letters the letters of the kinds
+     */
+    private static void writeTypeTable(DataOutputStream out,
+        StringBuilder letters) throws IOException {
+        out.writeByte(letters.length());
+        for (int i = 0; i < letters.length(); i++) {
+            out.writeByte(letters.charAt(i));
+        }
+    }
+
+    /**
+     * writes the parameter number as a varint, see BinaryMapFormat
+     * @param out where to write it
+     * @param value the number, never negative
+     */
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        int rest = value;
+        while (rest >= 0x80) {
+            out.write((rest & 0x7f) | 0x80);
+            rest >>>= 7;
+        }
+        out.write(rest);
+    }
+}
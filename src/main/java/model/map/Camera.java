@@ -0,0 +1,406 @@
+package model.map;
+
+/**
+ * the rectangle of a Map that is currently visible on the screen
+ * the camera has a position, which is the pixel on the Map that shows
+ * up in the top-left corner of the screen, and a viewport size, which is
+ * the size of the Canvas the Map is drawn on
+ * the position is always clamped so that the camera never looks past the
+ * edges of the Map, and only the Tiles that intersect the viewport ever
+ * need to be drawn, so the cost of drawing a frame depends on the size
+ * of the screen instead of the size of the Map
+ * the camera can also zoom out, each zoom level halves the size of a
+ * Tile on the screen, the levels are halves so that every sprite size
+ * lines up with a level of a mipmap chain (see SpriteScaler)
+ * @author Ryan Voor
+ */
+public class Camera {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how big a Tile is at each zoom level compared to its normal size,
+    // zoom level 0 is the normal size
+    private static final double[] ZOOM_SCALES = {1.0, 0.5, 0.25};
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the size of the Map that this camera looks at
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // the size of the screen in pixels
+    private final int viewportWidth;
+    private final int viewportHeight;
+
+    // the pixel on the Map (at the current zoom) that shows
+    // up in the top-left corner of the screen
+    private int x;
+    private int y;
+
+    // the index into ZOOM_SCALES of the current zoom
+    private int zoomLevel;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the Camera class, the camera starts out
+     * looking at the top-left corner of the Map
+     * @param map the Map that this camera looks at
+     * @param viewportWidth the width of the screen in pixels
+     * @param viewportHeight the height of the screen in pixels
+     */
+    public Camera(Map map, int viewportWidth, int viewportHeight) {
+        this.numberOfColumns = map.getNumberOfColumns();
+        this.numberOfRows    = map.getNumberOfRows();
+        this.viewportWidth   = viewportWidth;
+        this.viewportHeight  = viewportHeight;
+        this.x = 0;
+        this.y = 0;
+        this.zoomLevel = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the X coordinate on the Map of the left edge
+     * of the screen
+     * @return int the X coordinate in pixels
+     */
+    public int getX() {
+        return this.x;
+    }
+
+    /**
+     * getter for the Y coordinate on the Map of the top edge
+     * of the screen
+     * @return int the Y coordinate in pixels
+     */
+    public int getY() {
+        return this.y;
+    }
+
+    /**
+     * getter for the current zoom level
+     * @return int the zoom level, 0 is the normal size and every
+     * level after that is zoomed out twice as far
+     */
+    public int getZoomLevel() {
+        return this.zoomLevel;
+    }
+
+    /**
+     * getter for the number of zoom levels the camera has
+     * @return int the number of zoom levels
+     */
+    public int getNumberOfZoomLevels() {
+        return Camera.ZOOM_SCALES.length;
+    }
+
+    /**
+     * getter for how big everything on the Map is drawn
+     * compared to its normal size
+     * @return double the scale of the current zoom level
+     */
+    public double getScale() {
+        return Camera.ZOOM_SCALES[this.zoomLevel];
+    }
+
+    /**
+     * getter for how wide a Tile is on the screen at the current zoom
+     * @return int the width of a Tile in pixels
+     */
+    public int getTileWidth() {
+        return Tile.getWidthOfATileInPixels(this.getScale());
+    }
+
+    /**
+     * getter for how high a Tile is on the screen at the current zoom
+     * @return int the height of a Tile in pixels
+     */
+    public int getTileHeight() {
+        return Tile.getHeightOfATileInPixels(this.getScale());
+    }
+
+    /**
+     * getter for the width of the screen
+     * @return int the width of the screen in pixels
+     */
+    public int getViewportWidth() {
+        return this.viewportWidth;
+    }
+
+    /**
+     * getter for the height of the screen
+     * @return int the height of the screen in pixels
+     */
+    public int getViewportHeight() {
+        return this.viewportHeight;
+    }
+
+    /**
+     * returns the largest X coordinate the camera can have without
+     * looking past the right edge of the Map, this is 0 if the whole
+     * width of the Map fits on the screen
+     * @return int the largest X coordinate in pixels
+     */
+    public int getMaxX() {
+        int mapWidth = this.numberOfColumns * this.getTileWidth();
+        return Math.max(0, mapWidth - this.viewportWidth);
+    }
+
+    /**
+     * returns the largest Y coordinate the camera can have without
+     * looking past the bottom edge of the Map, this is 0 if the whole
+     * height of the Map fits on the screen
+     * @return int the largest Y coordinate in pixels
+     */
+    public int getMaxY() {
+        int mapHeight = this.numberOfRows * this.getTileHeight();
+        return Math.max(0, mapHeight - this.viewportHeight);
+    }
+
+    /**
+     * returns the left-most column that is at least partly on the screen
+     * @return int the first visible column
+     */
+    public int getFirstVisibleColumn() {
+        return this.getX() / this.getTileWidth();
+    }
+
+    /**
+     * returns the right-most column that is at least partly on the screen
+     * @return int the last visible column
+     */
+    public int getLastVisibleColumn() {
+        int rightEdge = this.getX() + this.getViewportWidth() - 1;
+        return Math.min(
+            this.numberOfColumns - 1,
+            rightEdge / this.getTileWidth()
+        );
+    }
+
+    /**
+     * returns the top-most row that is at least partly on the screen
+     * @return int the first visible row
+     */
+    public int getFirstVisibleRow() {
+        return this.getY() / this.getTileHeight();
+    }
+
+    /**
+     * returns the bottom-most row that is at least partly on the screen
+     * @return int the last visible row
+     */
+    public int getLastVisibleRow() {
+        int bottomEdge = this.getY() + this.getViewportHeight() - 1;
+        return Math.min(
+            this.numberOfRows - 1,
+            bottomEdge / this.getTileHeight()
+        );
+    }
+
+    /**
+     * returns where on the screen the left edge of the parameter column is
+     * @param column the column on the Map
+     * @return int the X coordinate on the screen in pixels, this can be
+     * off of the screen
+     */
+    public int getScreenXOfColumn(int column) {
+        return column * this.getTileWidth() - this.getX();
+    }
+
+    /**
+     * returns where on the screen the top edge of the parameter row is
+     * @param row the row on the Map
+     * @return int the Y coordinate on the screen in pixels, this can be
+     * off of the screen
+     */
+    public int getScreenYOfRow(int row) {
+        return row * this.getTileHeight() - this.getY();
+    }
+
+    /**
+     * given an X coordinate on the screen returns the column on the Map
+     * that is under it, coordinates past the edges of the Map give back
+     * the nearest column so the result is always a valid column
+     * @param screenX the X coordinate on the screen in pixels
+     * @return int the column under that coordinate
+     */
+    public int getColumnFromScreenX(int screenX) {
+        int mapX = screenX + this.getX();
+        return Camera.clamp(
+            Map.getColumnFromCoordinate(Math.max(0, mapX), this.getScale()),
+            0,
+            this.numberOfColumns - 1
+        );
+    }
+
+    /**
+     * given a Y coordinate on the screen returns the row on the Map
+     * that is under it, coordinates past the edges of the Map give back
+     * the nearest row so the result is always a valid row
+     * @param screenY the Y coordinate on the screen in pixels
+     * @return int the row under that coordinate
+     */
+    public int getRowFromScreenY(int screenY) {
+        int mapY = screenY + this.getY();
+        return Camera.clamp(
+            Map.getRowFromCoordinate(Math.max(0, mapY), this.getScale()),
+            0,
+            this.numberOfRows - 1
+        );
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * moves the camera so that the parameter pixel on the Map is in the
+     * top-left corner of the screen, the position gets clamped so that
+     * the camera never looks past the edges of the Map
+     * @param x the X coordinate on the Map in pixels
+     * @param y the Y coordinate on the Map in pixels
+     */
+    public void setPosition(int x, int y) {
+        this.x = Camera.clamp(x, 0, this.getMaxX());
+        this.y = Camera.clamp(y, 0, this.getMaxY());
+    }
+
+
+    /**
+     * changes the zoom level of the camera, the point on the Map that
+     * is under the parameter point on the screen stays where it is so
+     * that zooming with the mouse zooms in on whatever the mouse is over
+     * @param zoomLevel the new zoom level, it gets clamped to the
+     * levels that the camera has
+     * @param anchorX the X coordinate on the screen that stays put
+     * @param anchorY the Y coordinate on the screen that stays put
+     */
+    public void setZoomLevel(int zoomLevel, int anchorX, int anchorY) {
+        // figure out where the anchor is on the Map in Tiles
+        // since pixels change size when the zoom changes
+        double anchorColumn
+            = ((double) (anchorX + this.getX())) / this.getTileWidth();
+        double anchorRow
+            = ((double) (anchorY + this.getY())) / this.getTileHeight();
+
+        this.zoomLevel
+            = Camera.clamp(zoomLevel, 0, this.getNumberOfZoomLevels() - 1);
+
+        this.setPosition(
+            (int) Math.round(anchorColumn * this.getTileWidth()) - anchorX,
+            (int) Math.round(anchorRow * this.getTileHeight()) - anchorY
+        );
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * zooms in by one level, the parameter point on the screen stays
+     * over the same point on the Map
+     * @param anchorX the X coordinate on the screen that stays put
+     * @param anchorY the Y coordinate on the screen that stays put
+     */
+    public void zoomIn(int anchorX, int anchorY) {
+        this.setZoomLevel(this.getZoomLevel() - 1, anchorX, anchorY);
+    }
+
+    /**
+     * zooms out by one level, the parameter point on the screen stays
+     * over the same point on the Map
+     * @param anchorX the X coordinate on the screen that stays put
+     * @param anchorY the Y coordinate on the screen that stays put
+     */
+    public void zoomOut(int anchorX, int anchorY) {
+        this.setZoomLevel(this.getZoomLevel() + 1, anchorX, anchorY);
+    }
+
+    /**
+     * moves the camera by the parameter number of pixels, the camera
+     * stops at the edges of the Map
+     * @param deltaX how far to move right, negative moves left
+     * @param deltaY how far to move down, negative moves up
+     */
+    public void pan(int deltaX, int deltaY) {
+        this.setPosition(this.getX() + deltaX, this.getY() + deltaY);
+    }
+
+    /**
+     * moves the camera as little as possible so that the whole Tile
+     * at the parameter indices is on the screen, if the screen is smaller
+     * than a Tile then the top-left corner of the Tile is shown
+     * @param column the column of the Tile
+     * @param row the row of the Tile
+     */
+    public void scrollToTile(int column, int row) {
+        int tileLeft   = column * this.getTileWidth();
+        int tileTop    = row * this.getTileHeight();
+        int tileRight  = tileLeft + this.getTileWidth();
+        int tileBottom = tileTop + this.getTileHeight();
+
+        int newX = this.getX();
+        if (tileRight > newX + this.getViewportWidth()) {
+            newX = tileRight - this.getViewportWidth();
+        }
+        if (tileLeft < newX) {
+            newX = tileLeft;
+        }
+
+        int newY = this.getY();
+        if (tileBottom > newY + this.getViewportHeight()) {
+            newY = tileBottom - this.getViewportHeight();
+        }
+        if (tileTop < newY) {
+            newY = tileTop;
+        }
+
+        this.setPosition(newX, newY);
+    }
+
+    /**
+     * returns whether any part of the Tile at the parameter indices
+     * is on the screen
+     * @param column the column of the Tile
+     * @param row the row of the Tile
+     * @return boolean whether the Tile is visible
+     */
+    public boolean isTileVisible(int column, int row) {
+        return column >= this.getFirstVisibleColumn()
+            && column <= this.getLastVisibleColumn()
+            && row >= this.getFirstVisibleRow()
+            && row <= this.getLastVisibleRow();
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * clamps the parameter value so that it is between the parameter
+     * minimum and maximum
+     * @param value the value to clamp
+     * @param minimum the smallest value allowed
+     * @param maximum the largest value allowed
+     * @return int the clamped value
+     */
+    private static int clamp(int value, int minimum, int maximum) {
+        return Math.max(minimum, Math.min(maximum, value));
+    }
+}
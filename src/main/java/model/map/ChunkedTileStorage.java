@@ -0,0 +1,508 @@
+package model.map;
+
+// java standard library imports
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// this project imports
+import exception.MapFileReadException;
+
+/**
+ * a TileStorage for Maps too big to keep every Tile in memory, the Map is
+ * cut into chunks of 64 by 64 Tiles and a chunk is only read in from a
+ * TileSource the first time one of its Tiles is looked at
+ * only so many chunks fit in the memory budget, when another one is
+ * needed the chunk that was looked at longest ago is forgotten and read
+ * in again if it is needed later, so the chunks around the part of the
+ * Map being drawn and played on stay in memory and the rest don't
+ * a chunk whose Terrain or Building has been changed can't be read in
+ * again, so it is never forgotten, and neither are the units, which are
+ * kept for the whole Map once their chunk has been read the first time
+ * since they change as the game is played
+ * @author Ryan Voor
+ */
+public class ChunkedTileStorage extends TileStorage {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many Tiles wide and high a chunk is
+    public static final int CHUNK_SIZE = 64;
+
+    // how many bytes of chunks are kept by default, a quarter
+    // of a 2000 by 2000 Map
+    public static final long DEFAULT_MEMORY_BUDGET = 2L * 1024 * 1024;
+
+    // a chunk holds a byte for the Terrain and one for the Building
+    private static final int BYTES_PER_TILE = 2;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // where the chunks get read from
+    private final TileSource tileSource;
+
+    // how many chunks across and down the Map is
+    private final int numberOfChunkColumns;
+    private final int numberOfChunkRows;
+
+    // the most chunks that are kept before old ones get forgotten
+    private final int maximumNumberOfChunks;
+
+    // the chunks that are in memory by number, in the order they were
+    // last looked at, oldest first
+    private final LinkedHashMap<Integer, Chunk> chunks;
+
+    // the chunk that was looked at last, since Tiles tend to be looked
+    // at in runs along a row, and its number, -1 if there isn't one
+    private Chunk lastChunk;
+    private int lastChunkNumber;
+
+    // whether the units of every chunk have been read in yet, and the
+    // handles of every unit that has been by the number of its Tile
+    private final boolean[] unitsAreRead;
+    private final HandleTable occupantHandles;
+    private final HandleTable invaderHandles;
+
+    // how many times a chunk has been read in or forgotten
+    private long numberOfChunkReads;
+    private long numberOfEvictions;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ChunkedTileStorage class, nothing is read
+     * from the source until a Tile is looked at
+     * @param tileSource where the Tiles are read from
+     * @param memoryBudget how many bytes of chunks to keep, at least
+     * one chunk is always kept however small this is
+     */
+    public ChunkedTileStorage(TileSource tileSource, long memoryBudget) {
+        super(tileSource.getNumberOfColumns(), tileSource.getNumberOfRows());
+        this.tileSource = tileSource;
+        this.numberOfChunkColumns = (this.getNumberOfColumns()
+            + ChunkedTileStorage.CHUNK_SIZE - 1)
+            / ChunkedTileStorage.CHUNK_SIZE;
+        this.numberOfChunkRows = (this.getNumberOfRows()
+            + ChunkedTileStorage.CHUNK_SIZE - 1)
+            / ChunkedTileStorage.CHUNK_SIZE;
+        this.maximumNumberOfChunks = (int) Math.max(1,
+            Math.min(Integer.MAX_VALUE, memoryBudget
+                / (ChunkedTileStorage.CHUNK_SIZE * ChunkedTileStorage.CHUNK_SIZE
+                    * ChunkedTileStorage.BYTES_PER_TILE)));
+        this.chunks = new LinkedHashMap<Integer, Chunk>(16, 0.75f, true);
+        this.lastChunk = null;
+        this.lastChunkNumber = -1;
+        this.unitsAreRead
+            = new boolean[this.numberOfChunkColumns * this.numberOfChunkRows];
+        this.occupantHandles = new HandleTable();
+        this.invaderHandles = new HandleTable();
+        this.numberOfChunkReads = 0;
+        this.numberOfEvictions = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    @Override
+    public synchronized long getNumberOfBytes() {
+        return ((long) this.chunks.size()) * ChunkedTileStorage.CHUNK_SIZE
+            * ChunkedTileStorage.CHUNK_SIZE * ChunkedTileStorage.BYTES_PER_TILE;
+    }
+
+    @Override
+    public boolean readsTilesOnDemand() {
+        return true;
+    }
+
+    /**
+     * getter for the number of chunks that are in memory right now
+     * @return int the number of chunks in memory
+     */
+    public synchronized int getNumberOfResidentChunks() {
+        return this.chunks.size();
+    }
+
+    /**
+     * getter for the most chunks that are kept before old ones get
+     * forgotten, chunks that have been changed can go over this
+     * @return int the most chunks to keep
+     */
+    public int getMaximumNumberOfChunks() {
+        return this.maximumNumberOfChunks;
+    }
+
+    /**
+     * getter for how many times a chunk has been read from the source
+     * @return long the number of chunk reads
+     */
+    public synchronized long getNumberOfChunkReads() {
+        return this.numberOfChunkReads;
+    }
+
+    /**
+     * getter for how many times a chunk has been forgotten
+     * @return long the number of evictions
+     */
+    public synchronized long getNumberOfEvictions() {
+        return this.numberOfEvictions;
+    }
+
+    @Override
+    protected synchronized int getTerrainId(int tileNumber) {
+        Chunk chunk = this.getChunk(tileNumber);
+        return chunk.terrainIds[chunk.getIndex(tileNumber)] & 0xFF;
+    }
+
+    @Override
+    protected synchronized int getBuildingId(int tileNumber) {
+        Chunk chunk = this.getChunk(tileNumber);
+        return chunk.buildingIds[chunk.getIndex(tileNumber)] & 0xFF;
+    }
+
+    @Override
+    protected synchronized int getOccupantHandle(int tileNumber) {
+        this.readUnits(tileNumber);
+        return this.occupantHandles.get(tileNumber);
+    }
+
+    @Override
+    protected synchronized int getInvaderHandle(int tileNumber) {
+        this.readUnits(tileNumber);
+        return this.invaderHandles.get(tileNumber);
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    @Override
+    protected synchronized void setTerrainId(int tileNumber, int terrainId) {
+        Chunk chunk = this.getChunk(tileNumber);
+        chunk.terrainIds[chunk.getIndex(tileNumber)] = (byte) terrainId;
+        chunk.isChanged = true;
+    }
+
+    @Override
+    protected synchronized void setBuildingId(int tileNumber,
+        int buildingId) {
+        Chunk chunk = this.getChunk(tileNumber);
+        chunk.buildingIds[chunk.getIndex(tileNumber)] = (byte) buildingId;
+        chunk.isChanged = true;
+    }
+
+    @Override
+    protected synchronized void setOccupantHandle(int tileNumber,
+        int handle) {
+        this.readUnits(tileNumber);
+        this.occupantHandles.put(tileNumber, handle);
+    }
+
+    @Override
+    protected synchronized void setInvaderHandle(int tileNumber, int handle) {
+        this.readUnits(tileNumber);
+        this.invaderHandles.put(tileNumber, handle);
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * returns the number of the chunk that the parameter Tile is in
+     * @param tileNumber the number of the Tile
+     * @return int the number of its chunk
+     */
+    private int getChunkNumber(int tileNumber) {
+        int x = tileNumber % this.getNumberOfColumns();
+        int y = tileNumber / this.getNumberOfColumns();
+        return (y / ChunkedTileStorage.CHUNK_SIZE) * this.numberOfChunkColumns
+            + x / ChunkedTileStorage.CHUNK_SIZE;
+    }
+
+    /**
+     * returns the chunk that the parameter Tile is in, reading it in
+     * if it isn't in memory
+     * @param tileNumber the number of the Tile
+     * @return Chunk its chunk
+     */
+    private Chunk getChunk(int tileNumber) {
+        int chunkNumber = this.getChunkNumber(tileNumber);
+        if (chunkNumber == this.lastChunkNumber) {
+            return this.lastChunk;
+        }
+        Chunk chunk = this.chunks.get(chunkNumber);
+        if (null == chunk) {
+            chunk = this.readChunk(chunkNumber);
+        }
+        this.lastChunk = chunk;
+        this.lastChunkNumber = chunkNumber;
+        return chunk;
+    }
+
+    /**
+     * makes sure the units of the chunk that the parameter
+     * Tile is in have been read in
+     * @param tileNumber the number of the Tile
+     */
+    private void readUnits(int tileNumber) {
+        if (!this.unitsAreRead[this.getChunkNumber(tileNumber)]) {
+            this.getChunk(tileNumber);
+        }
+    }
+
+    /**
+     * reads the parameter chunk in from the source, along with its units
+     * if they haven't been read before, and forgets old chunks if there
+     * are too many in memory
+     * @param chunkNumber the number of the chunk
+     * @return Chunk the chunk
+     */
+    private Chunk readChunk(int chunkNumber) {
+        int firstColumn = (chunkNumber % this.numberOfChunkColumns)
+            * ChunkedTileStorage.CHUNK_SIZE;
+        int firstRow = (chunkNumber / this.numberOfChunkColumns)
+            * ChunkedTileStorage.CHUNK_SIZE;
+        TileBlock block = new TileBlock(
+            firstColumn,
+            firstRow,
+            Math.min(ChunkedTileStorage.CHUNK_SIZE,
+                this.getNumberOfColumns() - firstColumn),
+            Math.min(ChunkedTileStorage.CHUNK_SIZE,
+                this.getNumberOfRows() - firstRow)
+        );
+        try {
+            this.tileSource.readTiles(block);
+        } catch (MapFileReadException e) {
+            // by now the Map is being played on so there's nobody to hand
+            // a checked exception to, Map.buildMap unwraps this one
+            throw new IllegalStateException(
+                "could not read chunk " + chunkNumber, e);
+        }
+        this.numberOfChunkReads++;
+
+        Chunk chunk = new Chunk(block);
+        if (!this.unitsAreRead[chunkNumber]) {
+            for (int i = 0; i < block.getWidth() * block.getHeight(); i++) {
+                int tileNumber = (firstRow + i / block.getWidth())
+                    * this.getNumberOfColumns()
+                    + firstColumn + i % block.getWidth();
+                this.occupantHandles.put(tileNumber,
+                    this.allocateHandle(block.getOccupant(i)));
+                this.invaderHandles.put(tileNumber,
+                    this.allocateHandle(block.getInvader(i)));
+            }
+            this.unitsAreRead[chunkNumber] = true;
+        }
+
+        this.evictChunks();
+        this.chunks.put(chunkNumber, chunk);
+        return chunk;
+    }
+
+    /**
+     * forgets the chunks that were looked at longest ago until there is
+     * room for one more, skipping the ones that have been changed
+     */
+    private void evictChunks() {
+        // looking a chunk up would move it to the back of the line, so
+        // go through the entries instead
+        Iterator<java.util.Map.Entry<Integer, Chunk>> entries
+            = this.chunks.entrySet().iterator();
+        while (this.chunks.size() >= this.maximumNumberOfChunks
+            && entries.hasNext()) {
+            java.util.Map.Entry<Integer, Chunk> entry = entries.next();
+            if (!entry.getValue().isChanged) {
+                entries.remove();
+                this.numberOfEvictions++;
+                if (entry.getKey() == this.lastChunkNumber) {
+                    this.lastChunk = null;
+                    this.lastChunkNumber = -1;
+                }
+            }
+        }
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * the Terrains and Buildings of one chunk of the Map
+     * @author Ryan Voor
+     */
+    private class Chunk {
+
+        // instance variables
+        private final int firstColumn;
+        private final int firstRow;
+        private final int width;
+        private final byte[] terrainIds;
+        private final byte[] buildingIds;
+
+        // whether a Terrain or Building has been set since the chunk
+        // was read, which means it can't be read again
+        private boolean isChanged;
+
+        /**
+         * constructor for the Chunk class
+         * @param block the Tiles of the chunk as they were read
+         */
+        public Chunk(TileBlock block) {
+            this.firstColumn = block.getFirstColumn();
+            this.firstRow = block.getFirstRow();
+            this.width = block.getWidth();
+            int numberOfTiles = block.getWidth() * block.getHeight();
+            this.terrainIds = new byte[numberOfTiles];
+            this.buildingIds = new byte[numberOfTiles];
+            for (int i = 0; i < numberOfTiles; i++) {
+                this.terrainIds[i] = (byte) block.getTerrainId(i);
+                this.buildingIds[i] = (byte) block.getBuildingId(i);
+            }
+            this.isChanged = false;
+        }
+
+        /**
+         * returns the index of the parameter Tile in this chunk
+         * @param tileNumber the number of the Tile, which has
+         * to be in this chunk
+         * @return int the index of the Tile
+         */
+        public int getIndex(int tileNumber) {
+            int numberOfColumns = ChunkedTileStorage.this.getNumberOfColumns();
+            return (tileNumber / numberOfColumns - this.firstRow) * this.width
+                + tileNumber % numberOfColumns - this.firstColumn;
+        }
+    }
+
+    /**
+     * the handles of the units on a Map by the number of their Tile,
+     * only Tiles with a unit on them are kept, in an open addressed
+     * hash table of ints so that a Map with a hundred thousand units
+     * doesn't need a hundred thousand boxed Integers and map entries
+     * @author Ryan Voor
+     */
+    private static class HandleTable {
+
+        // the mark for a slot with no Tile in it
+        private static final int EMPTY = -1;
+
+        // instance variables
+        private int[] tileNumbers;
+        private int[] handles;
+        private int size;
+
+        /**
+         * constructor for the HandleTable class, the table starts out empty
+         */
+        public HandleTable() {
+            this.tileNumbers = new int[64];
+            Arrays.fill(this.tileNumbers, HandleTable.EMPTY);
+            this.handles = new int[64];
+            this.size = 0;
+        }
+
+        /**
+         * returns the handle of the unit on the parameter Tile
+         * @param tileNumber the number of the Tile
+         * @return int the handle, NOTHING if there isn't a unit there
+         */
+        public int get(int tileNumber) {
+            int slot = this.findSlot(tileNumber);
+            return HandleTable.EMPTY == this.tileNumbers[slot]
+                ? TileStorage.NOTHING : this.handles[slot];
+        }
+
+        /**
+         * sets the handle of the unit on the parameter Tile
+         * @param tileNumber the number of the Tile
+         * @param handle the handle, NOTHING if there isn't a unit there
+         */
+        public void put(int tileNumber, int handle) {
+            int slot = this.findSlot(tileNumber);
+            if (TileStorage.NOTHING == handle) {
+                if (HandleTable.EMPTY != this.tileNumbers[slot]) {
+                    this.removeSlot(slot);
+                }
+                return;
+            }
+            if (HandleTable.EMPTY == this.tileNumbers[slot]) {
+                // keep the table at most half full so runs stay short
+                if (2 * (this.size + 1) > this.tileNumbers.length) {
+                    this.grow();
+                    slot = this.findSlot(tileNumber);
+                }
+                this.tileNumbers[slot] = tileNumber;
+                this.size++;
+            }
+            this.handles[slot] = handle;
+        }
+
+        /**
+         * finds the slot the parameter Tile is in, or the empty
+         * slot it would go in
+         * @param tileNumber the number of the Tile
+         * @return int the slot
+         */
+        private int findSlot(int tileNumber) {
+            int mask = this.tileNumbers.length - 1;
+            int slot = (tileNumber * 0x9E3779B9) >>> 7 & mask;
+            while (HandleTable.EMPTY != this.tileNumbers[slot]
+                && tileNumber != this.tileNumbers[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * empties the parameter slot, moving back any Tiles after it that
+         * would otherwise no longer be found
+         * @param slot the slot to empty
+         */
+        private void removeSlot(int slot) {
+            int mask = this.tileNumbers.length - 1;
+            this.tileNumbers[slot] = HandleTable.EMPTY;
+            this.size--;
+            int next = (slot + 1) & mask;
+            while (HandleTable.EMPTY != this.tileNumbers[next]) {
+                int tileNumber = this.tileNumbers[next];
+                int handle = this.handles[next];
+                this.tileNumbers[next] = HandleTable.EMPTY;
+                int newSlot = this.findSlot(tileNumber);
+                this.tileNumbers[newSlot] = tileNumber;
+                this.handles[newSlot] = handle;
+                next = (next + 1) & mask;
+            }
+        }
+
+        /**
+         * doubles the number of slots
+         */
+        private void grow() {
+            int[] oldTileNumbers = this.tileNumbers;
+            int[] oldHandles = this.handles;
+            this.tileNumbers = new int[oldTileNumbers.length * 2];
+            Arrays.fill(this.tileNumbers, HandleTable.EMPTY);
+            this.handles = new int[oldHandles.length * 2];
+            for (int i = 0; i < oldTileNumbers.length; i++) {
+                if (HandleTable.EMPTY != oldTileNumbers[i]) {
+                    int slot = this.findSlot(oldTileNumbers[i]);
+                    this.tileNumbers[slot] = oldTileNumbers[i];
+                    this.handles[slot] = oldHandles[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package model.map;
+
+/**
+ * a TileStorage that keeps everything in four flat arrays, one entry per
+ * Tile in the order given by Map.getTileNumber: a byte for the Terrain,
+ * a byte for the Building, and an int handle each for the occupant and
+ * invader, which comes to 10 bytes a Tile
+ * walking along a row of the Map walks straight along each array, so
+ * looking at lots of Tiles stays in the cache instead of chasing a Tile
+ * object and four references for every one of them
+ * @author Ryan Voor
+ */
+public class CompactTileStorage extends TileStorage {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many bytes every Tile takes up
+    public static final int BYTES_PER_TILE = 1 + 1 + 4 + 4;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final byte[] terrainIds;
+    private final byte[] buildingIds;
+    private final int[] occupantHandles;
+    private final int[] invaderHandles;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the CompactTileStorage class, every Tile starts
+     * out with nothing on it, not even a Terrain, until a Terrain is set
+     * on a Tile no unit can move onto it, see Tile.getMovementCost
+     * @param numberOfColumns the number of columns of the Map
+     * @param numberOfRows the number of rows of the Map
+     */
+    public CompactTileStorage(int numberOfColumns, int numberOfRows) {
+        super(numberOfColumns, numberOfRows);
+        int numberOfTiles = numberOfColumns * numberOfRows;
+        this.terrainIds = new byte[numberOfTiles];
+        this.buildingIds = new byte[numberOfTiles];
+        this.occupantHandles = new int[numberOfTiles];
+        this.invaderHandles = new int[numberOfTiles];
+    }
+
+    /**
+     * constructor for the CompactTileStorage class that takes over
+     * already filled in arrays of Terrain and Building ids, nobody
+     * should change the arrays after this, every Tile starts out
+     * with no units on it
+     * @param numberOfColumns the number of columns of the Map
+     * @param numberOfRows the number of rows of the Map
+     * @param terrainIds the id of the Terrain of every Tile
+     * @param buildingIds the id of the Building of every Tile
+     */
+    CompactTileStorage(int numberOfColumns, int numberOfRows,
+        byte[] terrainIds, byte[] buildingIds) {
+        super(numberOfColumns, numberOfRows);
+        this.terrainIds = terrainIds;
+        this.buildingIds = buildingIds;
+        this.occupantHandles = new int[terrainIds.length];
+        this.invaderHandles = new int[terrainIds.length];
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    @Override
+    public long getNumberOfBytes() {
+        return ((long) this.terrainIds.length)
+            * CompactTileStorage.BYTES_PER_TILE;
+    }
+
+    @Override
+    protected int getTerrainId(int tileNumber) {
+        return this.terrainIds[tileNumber] & 0xFF;
+    }
+
+    @Override
+    protected int getBuildingId(int tileNumber) {
+        return this.buildingIds[tileNumber] & 0xFF;
+    }
+
+    @Override
+    protected int getOccupantHandle(int tileNumber) {
+        return this.occupantHandles[tileNumber];
+    }
+
+    @Override
+    protected int getInvaderHandle(int tileNumber) {
+        return this.invaderHandles[tileNumber];
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    @Override
+    protected void setTerrainId(int tileNumber, int terrainId) {
+        this.terrainIds[tileNumber] = (byte) terrainId;
+    }
+
+    @Override
+    protected void setBuildingId(int tileNumber, int buildingId) {
+        this.buildingIds[tileNumber] = (byte) buildingId;
+    }
+
+    @Override
+    protected void setOccupantHandle(int tileNumber, int handle) {
+        this.occupantHandles[tileNumber] = handle;
+    }
+
+    @Override
+    protected void setInvaderHandle(int tileNumber, int handle) {
+        this.invaderHandles[tileNumber] = handle;
+    }
+}
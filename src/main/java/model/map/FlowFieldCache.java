@@ -0,0 +1,255 @@
+package model.map;
+
+// java standard library imports
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// this project imports
+import model.drawable.tileOccupant.MovementClass;
+import model.pathfinding.FlowField;
+
+/**
+ * remembers the FlowFields that have been worked out for a Map, one for
+ * every set of targets and way of moving that has been asked for, so
+ * that every unit heading for the same place can keep reading its next
+ * step out of the same field turn after turn
+ * a field depends on the movement cost of every Tile it reaches, which is
+ * most of the Map, so whenever a Tile's cost changes for a way of moving
+ * every field for that way of moving is forgotten, and gets worked out
+ * again the next time it is asked for, fields for the other ways of
+ * moving are kept
+ * every field is as big as the Map, so only as many are kept as fit in
+ * a memory budget, the one that was used longest ago is forgotten to
+ * make room for a new one
+ * @author Ryan Voor
+ */
+public class FlowFieldCache {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many bytes of fields are kept by default, enough for
+    // four fields of a 2000 by 2000 Map
+    public static final long DEFAULT_MEMORY_BUDGET = 80L * 1024 * 1024;
+
+    // a field holds an int distance and a byte direction for every Tile
+    private static final int BYTES_PER_TILE = 5;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // every remembered field, this LinkedHashMap is in access order so
+    // iterating over it starts at the field used longest ago
+    private final LinkedHashMap<Key, FlowField> entries;
+
+    // the most fields that are kept before old ones get forgotten
+    private final int maximumNumberOfEntries;
+
+    // how often a field was found, had to be worked out, or
+    // was forgotten to make room
+    private long numberOfHits;
+    private long numberOfMisses;
+    private long numberOfEvictions;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the FlowFieldCache class, the cache starts out empty
+     * @param numberOfTiles the number of Tiles on the Map, which is how
+     * big every field is
+     * @param memoryBudget how many bytes of fields to keep, at least one
+     * field is always kept however small this is
+     */
+    public FlowFieldCache(int numberOfTiles, long memoryBudget) {
+        // 'true' makes the LinkedHashMap order its entries by access
+        // rather than by insertion which is exactly what LRU needs
+        this.entries = new LinkedHashMap<Key, FlowField>(16, 0.75f, true);
+        this.maximumNumberOfEntries = (int) Math.max(1,
+            Math.min(Integer.MAX_VALUE, memoryBudget
+                / Math.max(1L,
+                    ((long) numberOfTiles) * FlowFieldCache.BYTES_PER_TILE)));
+        this.numberOfHits = 0;
+        this.numberOfMisses = 0;
+        this.numberOfEvictions = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * returns the remembered field that leads units that move the
+     * parameter way to the parameter targets
+     * @param movementClass the way the units move
+     * @param targetTileNumbers the numbers of the target Tiles, sorted
+     * @return FlowField the remembered field, or null if there isn't one
+     */
+    public synchronized FlowField get(MovementClass movementClass,
+        int[] targetTileNumbers) {
+        FlowField flowField
+            = this.entries.get(new Key(movementClass, targetTileNumbers));
+        if (null == flowField) {
+            this.numberOfMisses++;
+        } else {
+            this.numberOfHits++;
+        }
+        return flowField;
+    }
+
+    /**
+     * getter for the number of fields that are remembered right now
+     * @return int the number of remembered fields
+     */
+    public synchronized int getNumberOfEntries() {
+        return this.entries.size();
+    }
+
+    /**
+     * getter for the most fields that are kept before old ones
+     * get forgotten
+     * @return int the most fields to keep
+     */
+    public int getMaximumNumberOfEntries() {
+        return this.maximumNumberOfEntries;
+    }
+
+    /**
+     * getter for how many times a remembered field was found
+     * @return long the number of hits
+     */
+    public synchronized long getNumberOfHits() {
+        return this.numberOfHits;
+    }
+
+    /**
+     * getter for how many times a field had to be worked out
+     * @return long the number of misses
+     */
+    public synchronized long getNumberOfMisses() {
+        return this.numberOfMisses;
+    }
+
+    /**
+     * getter for how many times a field was forgotten to make room
+     * for a new one
+     * @return long the number of evictions
+     */
+    public synchronized long getNumberOfEvictions() {
+        return this.numberOfEvictions;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * remembers the parameter field for units that move the parameter
+     * way heading for the parameter targets, forgetting the fields that
+     * were used longest ago if there are too many
+     * @param movementClass the way the units move
+     * @param targetTileNumbers the numbers of the target Tiles, sorted,
+     * the cache keeps this array
+     * @param flowField the field to remember
+     */
+    public synchronized void put(MovementClass movementClass,
+        int[] targetTileNumbers, FlowField flowField) {
+        this.entries.put(
+            new Key(movementClass, targetTileNumbers), flowField);
+
+        Iterator<Key> keys = this.entries.keySet().iterator();
+        while (this.entries.size() > this.maximumNumberOfEntries
+            && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            this.numberOfEvictions++;
+        }
+    }
+
+    /**
+     * forgets every field for the parameter ways of moving, called
+     * whenever the movement cost of a Tile changes
+     * @param changedMovementClasses the ways of moving whose cost of
+     * a Tile changed
+     */
+    public synchronized void movementCostsChanged(
+        EnumSet<MovementClass> changedMovementClasses) {
+        if (changedMovementClasses.isEmpty()) {
+            return;
+        }
+        Iterator<Key> keys = this.entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (changedMovementClasses.contains(
+                keys.next().getMovementClass())) {
+                keys.remove();
+            }
+        }
+    }
+
+    /**
+     * forgets every remembered field
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * what a field is remembered by, the way of moving and the targets
+     * @author Ryan Voor
+     */
+    private static class Key {
+
+        // instance variables
+        private final MovementClass movementClass;
+        private final int[] targetTileNumbers;
+
+        /**
+         * constructor for the Key class
+         * @param movementClass the way the units move
+         * @param targetTileNumbers the numbers of the target Tiles, sorted
+         */
+        public Key(MovementClass movementClass, int[] targetTileNumbers) {
+            this.movementClass = movementClass;
+            this.targetTileNumbers = targetTileNumbers;
+        }
+
+        /**
+         * getter for the way the units move
+         * @return MovementClass the way the units move
+         */
+        public MovementClass getMovementClass() {
+            return this.movementClass;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key otherKey = (Key) other;
+            return this.movementClass == otherKey.movementClass
+                && Arrays.equals(
+                    this.targetTileNumbers, otherKey.targetTileNumbers);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.movementClass.hashCode()
+                + Arrays.hashCode(this.targetTileNumbers);
+        }
+    }
+}
@@ -4,9 +4,13 @@ package model.map;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 // javafx imports
 import javafx.scene.canvas.Canvas;
@@ -17,15 +21,20 @@ import javafx.scene.paint.Paint;
 // this project imports
 import exception.MapFileReadException;
 import model.drawable.building.Building;
-import model.drawable.building.CommandCenter;
-import model.drawable.building.MedicalCenter;
-import model.drawable.terrain.Terrain;
-import model.drawable.terrain.Forest;
-import model.drawable.terrain.Mountain;
-import model.drawable.terrain.Plains;
+import model.drawable.image.AssetManager;
+import model.drawable.tileOccupant.MovementClass;
 import model.drawable.tileOccupant.TileOccupant;
 import model.drawable.tileOccupant.Infantry;
 import model.drawable.tileOccupant.Sniper;
+import model.pathfinding.AStarSearch;
+import model.pathfinding.DijkstraSearch;
+import model.pathfinding.FlowField;
+import model.pathfinding.HierarchicalPathfinder;
+import model.pathfinding.MovementCostFiller;
+import model.pathfinding.MovementCostGrid;
+import model.pathfinding.Path;
+import model.pathfinding.ReachableSet;
+import model.pathfinding.TileBitSet;
 
 /**
  * Represents an individual Map
@@ -70,12 +79,75 @@ public class Map implements Iterable<Tile> {
         )
     */
 
+    // routes whose ends are at least this many Tiles apart, counting
+    // across plus up and down, are found on the abstract graph of a
+    // HierarchicalPathfinder instead of with a search of every Tile
+    public static final int HIERARCHICAL_PATH_DISTANCE
+        = 4 * HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE;
+
+    // map files bigger than this many bytes are read into a
+    // ChunkedTileStorage instead of all being kept in memory, an entry
+    // is about 5 bytes so this is around a million Tiles
+    public static final long CHUNKED_MAP_FILE_SIZE = 5L * 1024 * 1024;
+
     // instance variables
-    private ArrayList<ArrayList<Tile>> tiles;
+
+    // what is on every Tile of this Map, the Tiles that this Map hands
+    // out are just views into it
+    private final TileStorage tileStorage;
+
+    // goes up by one every time anything on any Tile of this Map
+    // is set, anything worked out from the Tiles is only good for
+    // as long as this stays the same
+    private int version;
+
+    // the movement ranges that have already been worked out for the
+    // units on this Map, patched as the Tiles around them change
+    private final ReachabilityCache reachabilityCache;
+
+    // the FlowFields that have already been worked out for groups of
+    // units heading to the same place, forgotten as the Tiles change
+    private final FlowFieldCache flowFieldCache;
+
+    // which Tiles every player's units could attack next turn, only
+    // built when this Map is prepared for play or the first time it is
+    // asked for, since it has to work out the movement range of every
+    // unit on this Map
+    private ThreatMap threatMap;
+
+    // the Tiles that have each kind of Building on them, so Buildings
+    // can be found without looking at any Tiles, only listed the first
+    // time they are needed and kept up to date as the Tiles change
+    private HashMap<Class<? extends Building>, TileBitSet> buildingTiles;
+
+    // the searches that work out movement ranges and routes, every
+    // thread that asks gets its own which it keeps for the life of this
+    // Map, so their arrays only ever get allocated once per thread
+    private final ThreadLocal<DijkstraSearch> reachabilitySearches;
+    private final ThreadLocal<AStarSearch> pathSearches;
+
+    // what it costs to move onto every Tile for each way of moving,
+    // kept up to date as the Tiles change so searches never have to
+    // ask the Tiles themselves
+    private final EnumMap<MovementClass, MovementCostGrid> movementCostGrids;
+
+    // held while any cost grid is written, since the grids of a Map
+    // whose Tiles are read on demand fill themselves in on whatever
+    // thread first asks about a Tile
+    private final Object movementCostLock;
+
+    // the abstract graphs that long routes are found on for each way of
+    // moving, each one is only built the first time a long route is
+    // asked for, and only the clusters around a Tile that changes are
+    // rebuilt after that
+    private final EnumMap<MovementClass, HierarchicalPathfinder>
+        hierarchicalPathfinders;
 
     /**
-     * constructs a new Map object
-     * @param root the top-left Tile of this map
+     * constructs a new Map object out of a grid of Tiles, what is on the
+     * Tiles gets copied into this Map, so the Tiles of this Map are not
+     * the ones that were passed in
+     * @param tiles the rows of Tiles of this map, top row first
      */
     public Map(ArrayList<ArrayList<Tile>> tiles) {
         // TODO should I have something that enforces that the
@@ -83,7 +155,105 @@ public class Map implements Iterable<Tile> {
         // i should check the factory methods to see if that kind of
         // validation is already handled sort of
         // make decision as to whether i should put additional validation here
-        this.tiles = tiles;
+        this(Map.copyIntoTileStorage(tiles));
+    }
+
+    /**
+     * constructs a new Map object that uses the parameter storage to
+     * hold what is on its Tiles, the storage belongs to this Map from
+     * now on and shouldn't be changed except through this Map's Tiles
+     * @param tileStorage what is on every Tile of this map
+     */
+    public Map(TileStorage tileStorage) {
+        this.tileStorage = tileStorage;
+        this.version = 0;
+        this.reachabilityCache
+            = new ReachabilityCache(this.getNumberOfColumns());
+        this.flowFieldCache = new FlowFieldCache(
+            this.getNumberOfColumns() * this.getNumberOfRows(),
+            FlowFieldCache.DEFAULT_MEMORY_BUDGET);
+        this.threatMap = null;
+        this.buildingTiles = null;
+        this.reachabilitySearches = new ThreadLocal<DijkstraSearch>() {
+            @Override
+            protected DijkstraSearch initialValue() {
+                return new DijkstraSearch(
+                    Map.this.getNumberOfColumns(),
+                    Map.this.getNumberOfRows()
+                );
+            }
+        };
+        this.pathSearches = new ThreadLocal<AStarSearch>() {
+            @Override
+            protected AStarSearch initialValue() {
+                return new AStarSearch(
+                    Map.this.getNumberOfColumns(),
+                    Map.this.getNumberOfRows()
+                );
+            }
+        };
+        this.movementCostLock = new Object();
+        this.movementCostGrids
+            = new EnumMap<MovementClass, MovementCostGrid>(MovementClass.class);
+        this.hierarchicalPathfinders
+            = new EnumMap<MovementClass, HierarchicalPathfinder>(
+                MovementClass.class);
+
+        // fill in every cost grid, unless the storage reads its Tiles on
+        // demand, then a grid only works out a block of Tiles the first
+        // time it is asked about one of them, so nothing is read until
+        // it is drawn or searched
+        int numberOfTiles = this.getNumberOfColumns() * this.getNumberOfRows();
+        boolean readsTilesOnDemand = this.tileStorage.readsTilesOnDemand();
+        MovementCostFiller movementCostFiller = new MovementCostFiller() {
+            @Override
+            public void fillMovementCosts(int tileNumber) {
+                Map.this.fillMovementCostBlock(tileNumber);
+            }
+        };
+        for (MovementClass movementClass : MovementClass.values()) {
+            this.movementCostGrids.put(
+                movementClass,
+                readsTilesOnDemand
+                    ? new MovementCostGrid(numberOfTiles, movementCostFiller,
+                        Map.getCheapestTerrainMovementCost(movementClass))
+                    : new MovementCostGrid(numberOfTiles)
+            );
+        }
+        if (!readsTilesOnDemand) {
+            for (int tileNumber = 0; tileNumber < numberOfTiles;
+                tileNumber++) {
+                this.updateMovementCosts(
+                    tileNumber, this.tileStorage.getTile(tileNumber));
+            }
+        }
+
+        // have the storage tell us when any Tile changes so that we can
+        // patch the grids and know when the movement ranges we've
+        // remembered have gone out of date
+        this.tileStorage.setTileChangeListener(new TileChangeListener() {
+            @Override
+            public void tileChanged(Tile changedTile) {
+                int tileNumber = changedTile.getTileNumber();
+                Map.this.version++;
+                EnumSet<MovementClass> changedMovementClasses
+                    = Map.this.updateMovementCosts(tileNumber, changedTile);
+                Map.this.reachabilityCache.tileChanged(
+                    tileNumber,
+                    changedTile.getOccupant(),
+                    changedMovementClasses
+                );
+                Map.this.flowFieldCache.movementCostsChanged(
+                    changedMovementClasses);
+                Map.this.buildingTilesTileChanged(
+                    tileNumber, changedTile.getBuilding());
+                Map.this.threatMapTileChanged(
+                    tileNumber,
+                    changedTile.getOccupant(),
+                    changedMovementClasses
+                );
+            }
+        });
     }
 
     /////////////
@@ -96,7 +266,7 @@ public class Map implements Iterable<Tile> {
      * that can be accessed
      */
     public int getNumberOfColumns() {
-        return tiles.get(0).size();
+        return this.tileStorage.getNumberOfColumns();
     }
 
     /**
@@ -105,7 +275,7 @@ public class Map implements Iterable<Tile> {
      * that can be accessed
      */
     public int getNumberOfRows() {
-        return tiles.size();
+        return this.tileStorage.getNumberOfRows();
     }
 
     /**
@@ -127,12 +297,52 @@ public class Map implements Iterable<Tile> {
     }
 
     /**
-     * Getter for the tiles variables
-     * this method is private because it should
-     * only ever be used in this class
+     * getter for the version of this Map, the version goes up every
+     * time the Terrain, Building, occupant, or invader of any Tile
+     * on this Map is set
+     * @return int the version of this Map
+     */
+    public int getVersion() {
+        return this.version;
+    }
+
+    /**
+     * getter for the cache of movement ranges that have
+     * already been worked out on this Map
+     * @return ReachabilityCache the cache of movement ranges
      */
-    private ArrayList<ArrayList<Tile>> getTiles() {
-        return this.tiles;
+    public ReachabilityCache getReachabilityCache() {
+        return this.reachabilityCache;
+    }
+
+    /**
+     * getter for the cache of FlowFields that have
+     * already been worked out on this Map
+     * @return FlowFieldCache the cache of FlowFields
+     */
+    public FlowFieldCache getFlowFieldCache() {
+        return this.flowFieldCache;
+    }
+
+    /**
+     * getter for the ThreatMap of this Map, which knows which Tiles every
+     * player's units could attack next turn, it is built the first time
+     * it is asked for and kept up to date as the Tiles change after that
+     * @return ThreatMap the threats on this Map
+     */
+    public synchronized ThreatMap getThreatMap() {
+        if (null == this.threatMap) {
+            this.threatMap = new ThreatMap(this);
+        }
+        return this.threatMap;
+    }
+
+    /**
+     * getter for the storage that holds what is on every Tile of this Map
+     * @return TileStorage the storage of this Map's Tiles
+     */
+    public TileStorage getTileStorage() {
+        return this.tileStorage;
     }
 
     /**
@@ -143,11 +353,40 @@ public class Map implements Iterable<Tile> {
      * @return Tile the Tile that is located at those indexes
      */
     public Tile getTileFromIndices(int xIndex, int yIndex) {
-        // grab all the tiles so we can index in
-        ArrayList<ArrayList<Tile>> tiles = this.getTiles();
+        this.checkIndices(xIndex, yIndex);
 
         // see giant indexing comment at top of this class
-        return tiles.get(yIndex).get(xIndex);
+        return this.tileStorage.getTile(this.getTileNumber(xIndex, yIndex));
+    }
+
+
+    /**
+     * makes sure there is a Tile at the parameter indices, the storage
+     * is one long run of Tiles, so an index that is off the Map would
+     * land on some other Tile if we didn't check
+     * @param xIndex the column of the Tile
+     * @param yIndex the row of the Tile
+     * @throws IndexOutOfBoundsException if the indices are off the Map
+     */
+    private void checkIndices(int xIndex, int yIndex) {
+        if (xIndex < 0 || xIndex > this.getMaxXIndex()
+            || yIndex < 0 || yIndex > this.getMaxYIndex()) {
+            throw new IndexOutOfBoundsException(
+                "no Tile at (" + xIndex + ", " + yIndex + ")");
+        }
+    }
+
+
+    /**
+     * returns the number of the Tile at the parameter indices, Tiles
+     * are numbered from 0 in the same order that the MapIterator
+     * visits them (left to right along each row, top row first)
+     * @param xIndex the column that the Tile is located in
+     * @param yIndex the row that the Tile is located in
+     * @return int the number of the Tile
+     */
+    public int getTileNumber(int xIndex, int yIndex) {
+        return yIndex * this.getNumberOfColumns() + xIndex;
     }
 
 
@@ -187,6 +426,41 @@ public class Map implements Iterable<Tile> {
      */
     public void tintTilesToWhichOccupantCanMove(Canvas mapCanvas,
         int xIndex, int yIndex, Color color, double alpha) {
+        // figure out which Tiles the occupant can move to
+        ReachableSet canMoveTo
+            = this.getTilesToWhichOccupantCanMove(xIndex, yIndex);
+
+        //// highlight all tiles within the movement range ////
+        for (int i = 0; i < canMoveTo.size(); i++) {
+            int tileNumber = canMoveTo.getTileNumber(i);
+            Map.tintTile(
+                mapCanvas,
+                tileNumber % this.getNumberOfColumns(),
+                tileNumber / this.getNumberOfColumns(),
+                color,
+                alpha
+            );
+        }
+    }
+
+
+    /**
+     * figures out all the Tiles that the occupant located on the
+     * Tile specified by the parameter indices can move to, the search
+     * stops as soon as it runs out of movement so this only ever looks
+     * at the Tiles near the occupant no matter how big this Map is
+     * the result is remembered until one of the Tiles its search looked
+     * at changes, so asking again for the same occupant is nearly free
+     * @param xIndex the column that the Tile we are checking is
+     * located in
+     * @param yIndex the row that the Tile we are checking is
+     * located in
+     * @return ReachableSet every Tile that the occupant can move onto
+     * and what it costs to get there, the Tile the occupant is standing
+     * on is never in it
+     */
+    public ReachableSet getTilesToWhichOccupantCanMove(int xIndex,
+        int yIndex) {
         // grab the Tile that the occupant we care about is sitting on
         // so we can grab the TileOCcupant from that Tile
         // so we can grab the movement range from that TileOccupant
@@ -194,501 +468,503 @@ public class Map implements Iterable<Tile> {
         TileOccupant occupantInQuestion = tileInQuestion.getOccupant();
         int movementRange = occupantInQuestion.getMovementRange();
 
-        // set up the DistanceGrid
-        DistanceGrid distanceGrid = new DistanceGrid(
-            this.getNumberOfColumns(),
-            this.getNumberOfRows()
-        );
+        // if nothing has changed since we last worked this out
+        // then there's no need to do it again
+        int tileNumber = this.getTileNumber(xIndex, yIndex);
+        ReachableSet canMoveTo
+            = this.reachabilityCache.get(tileNumber, occupantInQuestion);
+        if (null != canMoveTo) {
+            return canMoveTo;
+        }
 
-        //// build the DistanceGrid ////
-        buildDistanceGrid(
-            distanceGrid,
-            xIndex,
-            yIndex,
-            occupantInQuestion
+        //// find every Tile within the movement range ////
+        // the search keeps its arrays between calls so that it never
+        // has to allocate or clear anything the size of this Map
+        canMoveTo = this.getReachabilitySearch().searchWithinBudget(
+            this.getMovementCostGrid(occupantInQuestion),
+            tileNumber,
+            movementRange
         );
 
-        //// highlight all tiles within the movement range ////
-        highlightTileWithinMovementRange(
-            movementRange,
-            xIndex,
-            yIndex,
-            distanceGrid,
-            mapCanvas,
-            color,
-            alpha
-        );
+        this.reachabilityCache.put(tileNumber, occupantInQuestion, canMoveTo);
+        return canMoveTo;
     }
 
 
     /**
-     * highlights all the Tiles on this Map that the TileOccupant located
-     * at the Tile with the parameter indices can move to
-     * @param movementRange the movement range of the TileOccupant that
-     * may be moving off the Tile at the parameter idices
-     * @param xIndex the X Index of the starting Tile
-     * @param yIndex the Y Index of the starting Tile
-     * @param distanceGrid the DistanceGrid containing the distances to
-     * all the Tiles on the Map
-     * @param mapCanvas the Canvas upon which the Tiles are drawn that we
-     * we need to highlight
-     * @param color the color to highlight the Tiles
-     * @param alpha the Alpha value used to determine transparency,
-     * between 0.0 and 1.0 and lower is more transparent
+     * works out the movement range of every unit on this Map at once,
+     * on the shared fork-join pool, see the overload that takes a pool
+     * @return ReachabilityTable the movement range of every unit
      */
-    private void highlightTileWithinMovementRange(int movementRange,
-        int xIndex, int yIndex, DistanceGrid distanceGrid, Canvas mapCanvas,
-            Color color, double alpha) {
-        // grab the iterator object
-        // this cast is necessary because the iterator
-        // method returns an Iterator and I need to use
-        // some MapIterator specific methods
-        // this cast is safe because I know that this is
-        // going to return a MapIterator
-        MapIterator mapIterator = (MapIterator) this.iterator();
-
-        // get the xIndex
-        int currentXIndexForHighlighting = mapIterator.getCurrentXIndex();
+    public ReachabilityTable getAllTilesToWhichOccupantsCanMove() {
+        return this.getAllTilesToWhichOccupantsCanMove(
+            ForkJoinPool.commonPool());
+    }
 
-        // get the yIndex
-        int currentYIndexForHighlighting = mapIterator.getCurrentYIndex();
 
-        // iterate through all the tiles
-        while (mapIterator.hasNext()) {
-            // move the Iterator to the next Tile
-            // don't assign to anything since we don't actually
-            // need the Tile object for this loop
-            mapIterator.next();
-
-            // grab the current Distance
-            int currentDistance = distanceGrid.getDistance(
-                currentXIndexForHighlighting,
-                currentYIndexForHighlighting
+    /**
+     * works out the movement range of every unit on this Map at once,
+     * spread across the threads of the parameter pool
+     * the searches all read a copy of the movement costs taken when this
+     * is called, so this should be called from the thread that changes
+     * this Map (the JavaFX thread) and it blocks until every search is
+     * done, only the searches run in parallel so the snapshot is kept
+     * down to one pass over the Tiles
+     * @param pool the pool to run the searches on
+     * @return ReachabilityTable the movement range of every unit
+     */
+    public ReachabilityTable getAllTilesToWhichOccupantsCanMove(
+        ForkJoinPool pool) {
+        //// take a snapshot of everything the searches need ////
+        this.fillAllMovementCosts();
+        EnumMap<MovementClass, MovementCostGrid> movementCostGrids
+            = new EnumMap<MovementClass, MovementCostGrid>(MovementClass.class);
+        for (MovementClass movementClass : MovementClass.values()) {
+            movementCostGrids.put(
+                movementClass,
+                new MovementCostGrid(this.getMovementCostGrid(movementClass))
             );
+        }
 
-            // if the current Tile is within the movement range
-            if (currentDistance <= movementRange) {
-                // if the Tile we would highlight is not the Tile
-                // that the TileOccupant is located on
-                if (currentXIndexForHighlighting != xIndex
-                    || currentYIndexForHighlighting != yIndex) {
-                    // tint the current Tile
-                    Map.tintTile(
-                        mapCanvas,
-                        currentXIndexForHighlighting,
-                        currentYIndexForHighlighting,
-                        color,
-                        alpha
-                    );
+        ArrayList<TileOccupant> occupantList = new ArrayList<TileOccupant>();
+        int[] tileNumbers = new int[this.getNumberOfRows()];
+        int numberOfTiles = this.getNumberOfColumns() * this.getNumberOfRows();
+        for (int tileNumber = 0; tileNumber < numberOfTiles; tileNumber++) {
+            TileOccupant occupant = this.tileStorage.getOccupant(tileNumber);
+            if (null != occupant) {
+                if (occupantList.size() == tileNumbers.length) {
+                    tileNumbers = Arrays.copyOf(
+                        tileNumbers, tileNumbers.length * 2);
                 }
+                tileNumbers[occupantList.size()] = tileNumber;
+                occupantList.add(occupant);
             }
-
-            // update xIndex and yIndex
-            currentXIndexForHighlighting = mapIterator.getCurrentXIndex();
-            currentYIndexForHighlighting = mapIterator.getCurrentYIndex();
         }
+        int numberOfUnits = occupantList.size();
+        tileNumbers = Arrays.copyOf(tileNumbers, numberOfUnits);
+        TileOccupant[] occupants
+            = occupantList.toArray(new TileOccupant[numberOfUnits]);
+
+        //// search from every unit at once ////
+        ReachableSet[] reachableSets = new ReachableSet[numberOfUnits];
+        pool.invoke(new ReachabilityBatch(
+            this,
+            movementCostGrids,
+            tileNumbers,
+            occupants,
+            reachableSets,
+            0,
+            numberOfUnits
+        ));
+
+        return new ReachabilityTable(
+            this.getVersion(), tileNumbers, occupants, reachableSets);
     }
 
 
     /**
-     * constructs the DistanceGrid for highlighting a TileOccupant's
-     * movement range using Dijkstra's Algorithm
-     * @param distanceGrid the DistanceGrid that we are filling in with
-     * distance values
-     * @param xIndex the X Index of the starting Tile
-     * @param yIndex the Y Index of the starting Tile
-     * @param occupantInQuestion the TileOccupant that may or may not
-     * be moving from the Tile with the parameter indices
+     * returns the DijkstraSearch that belongs to the current thread,
+     * every thread gets its own the first time it asks
+     * @return DijkstraSearch the search for the current thread
      */
-    private void buildDistanceGrid(DistanceGrid distanceGrid, int xIndex,
-        int yIndex, TileOccupant occupantInQuestion) {
-        //// see: https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm ////
-
-        // assign tentative distance values
-        // initial Tile: 0
-        // everything else: infinity (Integer.MAX_VALUE)
-        // DistanceGrid sets values to "infinity" by default so
-        // we only need to set the value for our initial Tile
-        distanceGrid.setDistance(xIndex, yIndex, 0);
-
-        // set initial Tile as current
-        int currentXIndex = xIndex;
-        int currentYIndex = yIndex;
-
-        // check the unvisited Tiles, if the smallest tentative distance
-        // of all the unvisited Tiles is "infinity" then stop looping
-        while (!distanceGrid.allUnvisitedDistancesAreInfinity()) {
-            // for current Tile calculate tentative distances of its
-            // unvisited neighbors and replace their current tentative
-            // distance if the new one is smaller than their current one,
-            // otherwise just leave their current tentative distance alone
-            int northXIndex = currentXIndex;
-            int northYIndex = currentYIndex - 1;
-            // check that we aren't at the edge of the Map and
-            // that this Tile is unvisited
-            if (northYIndex >= 0
-                && !distanceGrid.isVisited(northXIndex, northYIndex)) {
-                this.updateAdjacentTile(
-                    currentXIndex,
-                    currentYIndex,
-                    northXIndex,
-                    northYIndex,
-                    distanceGrid,
-                    occupantInQuestion
-                );
-            }
+    DijkstraSearch getReachabilitySearch() {
+        return this.reachabilitySearches.get();
+    }
 
-            int eastXIndex = currentXIndex + 1;
-            int eastYIndex = currentYIndex;
-            // check that we aren't at the edge of the Map and
-            // that this Tile is unvisited
-            if (eastXIndex <= this.getMaxXIndex()
-                && !distanceGrid.isVisited(eastXIndex, eastYIndex)) {
-                this.updateAdjacentTile(
-                    currentXIndex,
-                    currentYIndex,
-                    eastXIndex,
-                    eastYIndex,
-                    distanceGrid,
-                    occupantInQuestion
-                );
-            }
 
-            int southXIndex = currentXIndex;
-            int southYIndex = currentYIndex + 1;
-            // check that we aren't at the edge of the Map and
-            // that this Tile is unvisited
-            if (southYIndex <= this.getMaxYIndex()
-                && !distanceGrid.isVisited(southXIndex, southYIndex)) {
-                this.updateAdjacentTile(
-                    currentXIndex,
-                    currentYIndex,
-                    southXIndex,
-                    southYIndex,
-                    distanceGrid,
-                    occupantInQuestion
-                );
-            }
+    /**
+     * finds the cheapest route that the parameter TileOccupant could walk
+     * from one Tile to another, Tiles with another unit on them can't be
+     * walked through or onto
+     * routes whose ends are at least HIERARCHICAL_PATH_DISTANCE apart are
+     * found with the HierarchicalPathfinder for the occupant's way of
+     * moving, which looks at far fewer Tiles but can come back with a
+     * route that costs a few percent more than the cheapest one
+     * @param fromXIndex the column of the Tile to start on
+     * @param fromYIndex the row of the Tile to start on
+     * @param toXIndex the column of the Tile to get to
+     * @param toYIndex the row of the Tile to get to
+     * @param occupant the TileOccupant that would be walking
+     * @return Path the route, start first, or null if there is
+     * no way for the occupant to get there
+     * @throws IndexOutOfBoundsException if either Tile is off the Map
+     * @throws IllegalArgumentException if there is no occupant
+     */
+    public Path findPath(int fromXIndex, int fromYIndex, int toXIndex,
+        int toYIndex, TileOccupant occupant) {
+        this.checkIndices(fromXIndex, fromYIndex);
+        this.checkIndices(toXIndex, toYIndex);
+        if (null == occupant) {
+            throw new IllegalArgumentException("no occupant at ("
+                + fromXIndex + ", " + fromYIndex + ") to find a path for");
+        }
 
-            int westXIndex = currentXIndex - 1;
-            int westYIndex = currentYIndex;
-            // check that we aren't at the edge of the Map and
-            // that this Tile is unvisited
-            if (westXIndex >= 0
-                && !distanceGrid.isVisited(westXIndex, westYIndex)) {
-                this.updateAdjacentTile(
-                    currentXIndex,
-                    currentYIndex,
-                    westXIndex,
-                    westYIndex,
-                    distanceGrid,
-                    occupantInQuestion
-                );
-            }
+        int fromTileNumber = this.getTileNumber(fromXIndex, fromYIndex);
+        int toTileNumber = this.getTileNumber(toXIndex, toYIndex);
+        if (Math.abs(toXIndex - fromXIndex) + Math.abs(toYIndex - fromYIndex)
+            >= Map.HIERARCHICAL_PATH_DISTANCE) {
+            return this.getHierarchicalPathfinder(
+                occupant.getMovementClass()
+            ).findPath(fromTileNumber, toTileNumber);
+        }
+        return this.pathSearches.get().findPath(
+            this.getMovementCostGrid(occupant),
+            fromTileNumber,
+            toTileNumber,
+            this.getMinimumMovementCost(occupant)
+        );
+    }
 
 
-            // mark the current Tile as visited
-            distanceGrid.setToVisited(currentXIndex, currentYIndex);
+    /**
+     * returns the HierarchicalPathfinder that finds long routes for units
+     * that move the parameter way, building it the first time it is
+     * asked for, it is told about every Tile that changes from then on
+     * @param movementClass the way the units move
+     * @return HierarchicalPathfinder the pathfinder for that way of moving
+     */
+    public synchronized HierarchicalPathfinder getHierarchicalPathfinder(
+        MovementClass movementClass) {
+        HierarchicalPathfinder pathfinder
+            = this.hierarchicalPathfinders.get(movementClass);
+        if (null == pathfinder) {
+            pathfinder = new HierarchicalPathfinder(
+                this.getMovementCostGrid(movementClass),
+                this.getNumberOfColumns(),
+                this.getNumberOfRows(),
+                HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE
+            );
+            this.hierarchicalPathfinders.put(movementClass, pathfinder);
+        }
+        return pathfinder;
+    }
 
 
-            // set the unvisited Tile with the smallest tentative
-            // distance to be the new current Tile
-            currentXIndex = distanceGrid.getXIndexOfSmallestUnvisited();
-            currentYIndex = distanceGrid.getYIndexOfSmallestUnvisited();
+    /**
+     * returns a FlowField that leads units that move the parameter way
+     * to the nearest of the parameter Tiles, every unit heading there can
+     * read its next step out of the same field with
+     * FlowField.getNextTileNumber instead of searching for its own route
+     * the field is remembered until the movement cost of a Tile changes
+     * for that way of moving, a target that can't be moved onto (because
+     * a unit is standing on it) can't be reached through
+     * @param targetTileNumbers the numbers of the Tiles to lead to
+     * @param movementClass the way the units move
+     * @return FlowField the field that leads to the targets
+     */
+    public FlowField getFlowField(int[] targetTileNumbers,
+        MovementClass movementClass) {
+        int[] sortedTargets = Arrays.copyOf(
+            targetTileNumbers, targetTileNumbers.length);
+        Arrays.sort(sortedTargets);
+
+        FlowField flowField
+            = this.flowFieldCache.get(movementClass, sortedTargets);
+        if (null == flowField) {
+            flowField = this.getReachabilitySearch().searchToTargets(
+                this.getMovementCostGrid(movementClass), sortedTargets);
+            this.flowFieldCache.put(movementClass, sortedTargets, flowField);
         }
+        return flowField;
+    }
 
-        // when we break out of the loop the DistanceGrid should
-        // be completely filled in with the shortest distances to
-        // each Tile
+
+    /**
+     * returns a FlowField that leads units that move the parameter
+     * way to the Tile at the parameter indices
+     * @param xIndex the column of the Tile to lead to
+     * @param yIndex the row of the Tile to lead to
+     * @param movementClass the way the units move
+     * @return FlowField the field that leads to the Tile, see getFlowField
+     * @throws IndexOutOfBoundsException if the Tile is off the Map
+     */
+    public FlowField getFlowField(int xIndex, int yIndex,
+        MovementClass movementClass) {
+        this.checkIndices(xIndex, yIndex);
+        return this.getFlowField(
+            new int[] {this.getTileNumber(xIndex, yIndex)}, movementClass);
     }
 
 
     /**
-     * updates the adjacent tile at the parameter indices during the execution
-     * of dijkstra's algorithm
-     * @param currentXIndex the X Index of the Tile we are currently visiting
-     * @param currentYIndex the Y Index of the Tile we are currently visiting
-     * @param adjacentXIndex the X Index of the Tile we are updating that
-     * is adjacent to the Tile we are currently visiting
-     * @param adjacentYIndex the Y Index of the Tile we are updating that
-     * is adjacent to the Tile we are currently visiting
-     * @param distanceGrid the DistanceGrid that holds the relevant
-     * information for these Tiles
-     * @param occupantInQuestion the TileOccupant that will eventually
-     * potentially be moving onto one of these Tiles
+     * returns a FlowField that leads units that move the parameter way
+     * to the nearest Tile with the parameter kind of Building on it,
+     * the nearest MedicalCenter for example, the Buildings are found
+     * without looking at the Tiles, see getBuildingTileNumbers, and the
+     * field is only worked out again when the Buildings or the movement
+     * costs have changed
+     * @param buildingType the kind of Building to lead to
+     * @param movementClass the way the units move
+     * @return FlowField the field that leads to the Buildings, see
+     * getFlowField, it leads nowhere if there are none on this Map
      */
-    private void updateAdjacentTile(int currentXIndex,
-        int currentYIndex, int adjacentXIndex, int adjacentYIndex,
-            DistanceGrid distanceGrid, TileOccupant occupantInQuestion) {
-        // grab the Tile to whatever side of the current Tile so we
-        // can grab the Terrain of that Tile so we can grab the
-        // movement cost of that Tile
-        Tile adjacentTile
-            = this.getTileFromIndices(adjacentXIndex, adjacentYIndex);
-        int adjacentMovementCost
-            = adjacentTile.getMovementCost(occupantInQuestion);
-
-        // grab current adjacent tile distance and current tile distance
-        int currentAdjacentTileDistance
-            = distanceGrid.getDistance(adjacentXIndex, adjacentYIndex);
-        int currentTileDistance
-            = distanceGrid.getDistance(currentXIndex, currentYIndex);
-
-        // use those to calculate the distance that might replace the
-        // adjacent tile distance
-        int potentialAdjacentTileDistance
-            = currentTileDistance + adjacentMovementCost;
-
-        // to avoid dealing with Integer overflows we just check
-        // for if the adjacentMovementCost is Integer.MAX_VALUE
-        if (Integer.MAX_VALUE == adjacentMovementCost) {
-            // this will cause logic to work as intended rather
-            // than sometimes ending up with a potential distance
-            // of Integer.MIN_VALUE or -1 etc. (int overflows are weird)
-            potentialAdjacentTileDistance = Integer.MAX_VALUE;
-        }
+    public FlowField getFlowFieldToBuildings(
+        Class<? extends Building> buildingType, MovementClass movementClass) {
+        return this.getFlowField(
+            this.getBuildingTileNumbers(buildingType), movementClass);
+    }
 
-        // if this new distance to the adjacent tile is shorter than
-        // the existing distance to the adjacent tile
-        if (potentialAdjacentTileDistance < currentAdjacentTileDistance) {
-            // replace the distance
-            distanceGrid.setDistance(
-                adjacentXIndex,
-                adjacentYIndex,
-                potentialAdjacentTileDistance
-            );
-        }
+
+    /**
+     * returns the cheapest movement cost of any Tile on this Map that
+     * the parameter TileOccupant can move onto
+     * @param occupant the TileOccupant that would be moving
+     * @return int the cheapest movement cost, 0 if the occupant
+     * can't move onto any Tile on this Map
+     */
+    public int getMinimumMovementCost(TileOccupant occupant) {
+        return this.getMovementCostGrid(occupant).getMinimumMovementCost();
     }
 
 
     /**
-     * internal class that holds information about Tile maps
-     * that is relevant to the implementation of Dijkstra's algorithm
-     * @author Ryan Voor
+     * returns what it costs the parameter TileOccupant to move onto each
+     * Tile of this Map, the grid is kept up to date as the Tiles change
+     * @param occupant the TileOccupant that would be moving
+     * @return MovementCostGrid the movement cost of every Tile, see
+     * Tile.getMovementCost
      */
-    private class DistanceGrid {
-        // see the giant comment at the top of the Map class for
-        // clarification on how the grid is laid out and accessed
+    public MovementCostGrid getMovementCostGrid(TileOccupant occupant) {
+        return this.getMovementCostGrid(occupant.getMovementClass());
+    }
 
-        // instance variables
-        ArrayList<ArrayList<Integer>> distances;
-        ArrayList<ArrayList<Boolean>> visited;
 
-        /**
-         * constructor for the DistanceGrid class
-         * @param width the width of the grid to be constructed
-         * @param height the height of the grid to be constructed
-         */
-        public DistanceGrid(int width, int height) {
-            this.distances = new ArrayList<ArrayList<Integer>>();
-            this.visited   = new ArrayList<ArrayList<Boolean>>();
-
-            // create 'width' number of rows each with
-            // 'height' number of entries (columns)
-            for (int i = 0; i < width; i++) {
-                this.distances.add(new ArrayList<Integer>());
-                this.visited.add(new ArrayList<Boolean>());
-
-                for (int j = 0; j < height; j++) {
-                    // Integer.MAX_VALUE is the default value for
-                    // the distances
-                    this.distances.get(i).add(Integer.MAX_VALUE);
-
-                    // false is the default value for 'visited'
-                    this.visited.get(i).add(false);
-                }
+    /**
+     * returns what it costs units that move the parameter way to move
+     * onto each Tile of this Map, the grid is kept up to date as the
+     * Tiles change
+     * @param movementClass the way the units move
+     * @return MovementCostGrid the movement cost of every Tile, see
+     * Tile.getMovementCost
+     */
+    public MovementCostGrid getMovementCostGrid(MovementClass movementClass) {
+        return this.movementCostGrids.get(movementClass);
+    }
+
+
+    /**
+     * copies the movement costs of the parameter Tile into every
+     * cost grid, called whenever anything on the Tile is set
+     * @param tileNumber the number of the Tile
+     * @param tile the Tile
+     * @return EnumSet the ways of moving whose cost of the Tile changed
+     */
+    private EnumSet<MovementClass> updateMovementCosts(int tileNumber,
+        Tile tile) {
+        EnumSet<MovementClass> changedMovementClasses
+            = EnumSet.noneOf(MovementClass.class);
+        for (MovementClass movementClass : MovementClass.values()) {
+            boolean changed;
+            synchronized (this.movementCostLock) {
+                changed = this.movementCostGrids.get(movementClass)
+                    .setMovementCost(
+                        tileNumber, tile.getMovementCost(movementClass));
+            }
+            if (changed) {
+                changedMovementClasses.add(movementClass);
+                this.hierarchicalPathfinderTileChanged(
+                    movementClass, tileNumber);
             }
         }
+        return changedMovementClasses;
+    }
 
-        /////////////
-        // Getters //
-        /////////////
 
-        /**
-         * returns the current distance to the Tile with
-         * the parameter indices
-         * @param xIndex the X Index of the Tile with the distance
-         * that will be returned
-         * @param yIndex the Y Index of the Tile with the distance
-         * that will be returned
-         * @return int the current distance to the Tile located at
-         * the parameter indicies
-         */
-        public int getDistance(int xIndex, int yIndex) {
-            return this.distances.get(yIndex).get(xIndex);
+    /**
+     * works out the movement costs of the block of
+     * ChunkedTileStorage.CHUNK_SIZE by CHUNK_SIZE Tiles around the
+     * parameter Tile for every cost grid, which reads one chunk of the
+     * storage, only the costs that aren't known yet are filled in and
+     * nothing is told about them since none of them changed
+     * @param tileNumber the number of a Tile whose cost isn't known
+     */
+    private void fillMovementCostBlock(int tileNumber) {
+        int blockSize = ChunkedTileStorage.CHUNK_SIZE;
+        int left = tileNumber % this.getNumberOfColumns() / blockSize
+            * blockSize;
+        int top = tileNumber / this.getNumberOfColumns() / blockSize
+            * blockSize;
+        int right = Math.min(left + blockSize, this.getNumberOfColumns());
+        int bottom = Math.min(top + blockSize, this.getNumberOfRows());
+        synchronized (this.movementCostLock) {
+            for (int y = top; y < bottom; y++) {
+                for (int x = left; x < right; x++) {
+                    int blockTileNumber = this.getTileNumber(x, y);
+                    Tile tile = this.tileStorage.getTile(blockTileNumber);
+                    for (MovementClass movementClass
+                        : MovementClass.values()) {
+                        this.movementCostGrids.get(movementClass)
+                            .fillMovementCost(blockTileNumber,
+                                tile.getMovementCost(movementClass));
+                    }
+                }
+            }
         }
+    }
 
-        /**
-         * returns whether the Tile at the parameter
-         * indicies has been visited
-         * @param xIndex the X Index of the Tile that may
-         * or may not have been visited
-         * @param yIndex the Y Index of the Tile that may
-         * or may not have been visited
-         * @return boolean whether the Tile at the parameter
-         * indicies has been visited
-         */
-        public boolean isVisited(int xIndex, int yIndex) {
-            return this.visited.get(yIndex).get(xIndex);
-        }
 
-        /**
-         * returns the number of columns in this grid
-         * @return int the number of columns in this grid
-         */
-        private int getNumberOfColumns() {
-            return this.distances.get(0).size();
+    /**
+     * makes sure every cost grid knows the cost of every Tile, which
+     * reads the whole Map if its Tiles are read on demand
+     */
+    private void fillAllMovementCosts() {
+        for (MovementCostGrid grid : this.movementCostGrids.values()) {
+            int numberOfTiles
+                = this.getNumberOfColumns() * this.getNumberOfRows();
+            for (int tileNumber = 0;
+                grid.hasUnknownMovementCosts() && tileNumber < numberOfTiles;
+                tileNumber++) {
+                grid.getMovementCost(tileNumber);
+            }
         }
+    }
 
-        /**
-         * returns the number of rows in this grid
-         * @return int the number of rows in this grid
-         */
-        private int getNumberOfRows() {
-            return this.distances.size();
-        }
 
-        /**
-         * returns the X Index of the smallest unvisited
-         * Tile in this grid
-         * @return int the X Index of the smallest unvisited
-         * Tile in this grid
-         */
-        public int getXIndexOfSmallestUnvisited() {
-            return getIndicesOfSmallestUnvisited("x");
+    /**
+     * returns the numbers of every Tile of this Map with the parameter
+     * kind of Building on it, the first time this is called every Tile
+     * is looked at, in the order of their numbers so a Map whose Tiles
+     * are read on demand reads each chunk once, after that the Tiles of
+     * each kind of Building are kept up to date as the Tiles change
+     * @param buildingType the kind of Building to look for
+     * @return int[] the numbers of the Tiles, smallest first
+     */
+    private synchronized int[] getBuildingTileNumbers(
+        Class<? extends Building> buildingType) {
+        int numberOfTiles = this.getNumberOfColumns() * this.getNumberOfRows();
+        if (null == this.buildingTiles) {
+            this.buildingTiles
+                = new HashMap<Class<? extends Building>, TileBitSet>();
+            for (int tileNumber = 0; tileNumber < numberOfTiles;
+                tileNumber++) {
+                this.buildingTilesTileChanged(tileNumber,
+                    this.tileStorage.getBuilding(tileNumber));
+            }
         }
 
-        /**
-         * returns the Y Index of the smallest unvisited
-         * Tile in this grid
-         * @return int the Y Index of the smallest unvisited
-         * Tile in this grid
-         */
-        public int getYIndexOfSmallestUnvisited() {
-            return getIndicesOfSmallestUnvisited("y");
+        // a kind of Building can have more specific kinds under it
+        TileBitSet targetTiles = new TileBitSet(numberOfTiles);
+        for (Class<? extends Building> kind : this.buildingTiles.keySet()) {
+            if (buildingType.isAssignableFrom(kind)) {
+                targetTiles.addAll(this.buildingTiles.get(kind));
+            }
+        }
+        int[] targetTileNumbers = new int[targetTiles.size()];
+        int numberOfTargets = 0;
+        for (int tileNumber = targetTiles.nextTile(0); tileNumber >= 0;
+            tileNumber = targetTiles.nextTile(tileNumber + 1)) {
+            targetTileNumbers[numberOfTargets] = tileNumber;
+            numberOfTargets++;
         }
+        return targetTileNumbers;
+    }
 
-        /**
-         * returns either the X or Y index of the smallest
-         * unvisited Tile in this grid
-         * NOTE: because of logic in my implementation of
-         * dijkstra's algorithm this method should only ever
-         * be called if there is at least 1 unvisited Tile with
-         * a distance less than infinity
-         * @param index either "x" or "y" depending on which
-         * index the caller wants returned
-         */
-        private int getIndicesOfSmallestUnvisited(String index) {
-            int xIndexOfResult = -1;
-            int yIndexOfResult = -1;
-
-            for (int i = 0; i < this.getNumberOfColumns(); i++) {
-                for (int j = 0; j < this.getNumberOfRows(); j++) {
-                    // only bother checking all the other stuff
-                    // if this is an Unvisited Tile
-                    if (!this.isVisited(i, j)) {
-                        // figure out the distance of the Tile we're iterating
-                        // on as well as the tile that is the smallest distance
-                        // we've encountered so far
-                        int currentDistance = this.getDistance(i, j);
-                        int currentResultDistance = Integer.MAX_VALUE;
-                        // check if we've already encountered an unvisited
-                        // tile w/ distance less than infinity
-                        if (-1 != xIndexOfResult && -1 != yIndexOfResult) {
-                            currentResultDistance = this.getDistance(
-                                xIndexOfResult,
-                                yIndexOfResult
-                            );
-                        }
-
-                        // if the current iteration tile has a smaller distance
-                        // than the smallest we've encountered so far then
-                        // i guess we have a new smallest we've encountered so far
-                        if (currentDistance < currentResultDistance) {
-                            xIndexOfResult = i;
-                            yIndexOfResult = j;
-                        }
-                    }
-                }
-            }
 
-            if (index.equals("x")) {
-                return xIndexOfResult;
-            }
-            if (index.equals("y")) {
-                return yIndexOfResult;
+    /**
+     * keeps the Tiles of each kind of Building up to date when something
+     * on a Tile was set, if they have been listed yet
+     * @param tileNumber the number of the Tile that changed
+     * @param building the Building on the Tile now, may be null
+     */
+    private synchronized void buildingTilesTileChanged(int tileNumber,
+        Building building) {
+        if (null == this.buildingTiles) {
+            return;
+        }
+        for (TileBitSet tiles : this.buildingTiles.values()) {
+            tiles.remove(tileNumber);
+        }
+        if (null != building) {
+            TileBitSet tiles = this.buildingTiles.get(building.getClass());
+            if (null == tiles) {
+                tiles = new TileBitSet(
+                    this.getNumberOfColumns() * this.getNumberOfRows());
+                this.buildingTiles.put(building.getClass(), tiles);
             }
-            // TODO make this throw an exception at the start of the method
-            return -1;
+            tiles.add(tileNumber);
         }
+    }
 
 
-        /////////////
-        // Setters //
-        /////////////
-
-        /**
-         * sets the distance of the Tile with the parameter indices
-         * to the parameter distance
-         * @param xIndex the X Index of the Tile whose distance
-         * is to be set
-         * @param yIndex the Y Index of the Tile whose distance
-         * is to be set
-         * @param distance the distance to be set
-         */
-        public void setDistance(int xIndex, int yIndex, int distance) {
-            this.distances.get(yIndex).set(xIndex, distance);
+    /**
+     * tells the ThreatMap that something on a Tile was set,
+     * if the ThreatMap has been built yet
+     * @param tileNumber the number of the Tile that changed
+     * @param occupant whatever is on the Tile now, may be null
+     * @param changedMovementClasses the ways of moving whose cost
+     * of the Tile changed
+     */
+    private synchronized void threatMapTileChanged(int tileNumber,
+        TileOccupant occupant, EnumSet<MovementClass> changedMovementClasses) {
+        if (null != this.threatMap) {
+            this.threatMap.tileChanged(
+                tileNumber, occupant, changedMovementClasses);
         }
+    }
 
-        /**
-         * sets the Tile at the parameter indices to the 'visited' status
-         * @param xIndex the X Index of the Tile to be set to 'visited'
-         * @param yIndex the Y Index of the Tile to be set to 'visited'
-         */
-        public void setToVisited(int xIndex, int yIndex) {
-            this.visited.get(yIndex).set(xIndex, true);
+
+    /**
+     * tells the HierarchicalPathfinder for the parameter way of moving
+     * that a Tile's cost changed, if that pathfinder has been built yet
+     * @param movementClass the way of moving whose cost changed
+     * @param tileNumber the number of the Tile that changed
+     */
+    private synchronized void hierarchicalPathfinderTileChanged(
+        MovementClass movementClass, int tileNumber) {
+        HierarchicalPathfinder pathfinder
+            = this.hierarchicalPathfinders.get(movementClass);
+        if (null != pathfinder) {
+            pathfinder.tileChanged(tileNumber);
         }
+    }
 
-        //////////////////
-        // Real Methods //
-        //////////////////
 
-        /**
-         * returns whether all the unvisited tiles have
-         * distance infinity
-         * NOTE: 'infinity' is just Integer.MAX_VALUE
-         * @return boolean whether all the unvisited tiles have
-         * distance infinity
-         */
-        public boolean allUnvisitedDistancesAreInfinity() {
-            // iterate over all the Tiles in this grid
-            // 'i' is the X Index or the Column
-            // 'j' is the Y Index or the Row
-            for (int i = 0; i < this.getNumberOfColumns(); i++) {
-                for (int j = 0; j < this.getNumberOfRows(); j++) {
-                    if (!this.isVisited(i, j)) {
-                        if (Integer.MAX_VALUE != this.getDistance(i, j)) {
-                            // if the current Tile is unvisited AND
-                            // it is not set to infinity distance then
-                            // all the unvisited tiles are not
-                            // distance infinity
-                            return false;
-                        }
-                    }
-                }
-            }
+    /**
+     * reads everything about this Map that the first few questions asked
+     * during a game need, so that they don't have to read the Tiles of
+     * a Map whose Tiles are read on demand, meant to be called on the
+     * thread that loads this Map, see MapLoadingTask
+     * every cost grid is filled in, the Tiles with Buildings on them are
+     * listed and the ThreatMap is built and brought up to date
+     * @param progressListener told after the footprint of each unit in
+     * the ThreatMap has been worked out, may be null
+     */
+    public void prepareForPlay(AssetManager.ProgressListener progressListener) {
+        this.fillAllMovementCosts();
+        this.getBuildingTileNumbers(Building.class);
+        this.getThreatMap().update(progressListener);
+    }
 
-            // execution will only get outside the loop if
-            // all the unvisited Tiles have distance 'infinity'
-            return true;
-        }
+
+    /**
+     * works out the movement range of every unit whose remembered
+     * movement range went out of date when the Tiles around it changed,
+     * so that they are all ready before they are asked for, at the
+     * start of a turn for example
+     * @return int the number of movement ranges that were worked out
+     */
+    public int repairReachability() {
+        return this.reachabilityCache.repairDirtyEntries(this);
     }
 
+
     /**
      * draws this Map on the passed in Canvas object
      * @param canvas the Canvas object upon which we will draw this map
      */
     public void draw(Canvas canvas, long time) {
+        this.draw(canvas, MapLayer.TERRAIN, time);
+        this.draw(canvas, MapLayer.BUILDINGS, time);
+        this.draw(canvas, MapLayer.UNITS, time);
+    }
+
+    /**
+     * draws just one layer of this Map on the passed in Canvas object
+     * @param canvas the Canvas object upon which we will draw the layer
+     * @param layer the layer of this Map to draw
+     * @param time the time used to calculate animation images
+     */
+    public void draw(Canvas canvas, MapLayer layer, long time) {
         // grab the iterator object
         // this cast is necessary because the iterator
         // method returns an Iterator and I need to use
@@ -723,7 +999,7 @@ public class Map implements Iterable<Tile> {
             // the canvas that we're drawing on
 
             // draw the current tile onto the canvas
-            currentTile.draw(canvas, xPosition, yPosition, time);
+            currentTile.draw(canvas, layer, xPosition, yPosition, time);
 
             // update the X and Y positions after we draw the map because
             // the indices from before the next() call must be used to
@@ -740,6 +1016,49 @@ public class Map implements Iterable<Tile> {
         }
     }
 
+    /**
+     * draws only the part of this Map that the parameter Camera can see
+     * on the passed in Canvas object, Tiles that are off of the screen
+     * are never even looked at
+     * @param canvas the Canvas object upon which we will draw this map
+     * @param camera the Camera that decides what part of the Map shows
+     * @param time the time used to calculate animation images
+     */
+    public void draw(Canvas canvas, Camera camera, long time) {
+        this.draw(canvas, MapLayer.TERRAIN, camera, time);
+        this.draw(canvas, MapLayer.BUILDINGS, camera, time);
+        this.draw(canvas, MapLayer.UNITS, camera, time);
+    }
+
+    /**
+     * draws just one layer of only the part of this Map that the
+     * parameter Camera can see on the passed in Canvas object
+     * @param canvas the Canvas object upon which we will draw the layer
+     * @param layer the layer of this Map to draw
+     * @param camera the Camera that decides what part of the Map shows
+     * @param time the time used to calculate animation images
+     */
+    public void draw(Canvas canvas, MapLayer layer, Camera camera,
+        long time) {
+        // unlike the other draw methods we don't use the MapIterator
+        // here because it would walk over every Tile on the Map
+        for (int y = camera.getFirstVisibleRow();
+            y <= camera.getLastVisibleRow(); y++) {
+            for (int x = camera.getFirstVisibleColumn();
+                x <= camera.getLastVisibleColumn(); x++) {
+                this.getTileFromIndices(x, y).draw(
+                    canvas,
+                    layer,
+                    camera.getScreenXOfColumn(x),
+                    camera.getScreenYOfRow(y),
+                    camera.getTileWidth(),
+                    camera.getTileHeight(),
+                    time
+                );
+            }
+        }
+    }
+
     @Override
     public Iterator<Tile> iterator() {
         return new MapIterator();
@@ -823,9 +1142,8 @@ public class Map implements Iterable<Tile> {
         public Tile next() {
             if (this.hasNext()) {
                 // grab the Tile that will be returned
-                Tile toBeReturned =
-                    Map.this.getTiles()
-                        .get(currentYIndex).get(currentXIndex);
+                Tile toBeReturned = Map.this.getTileFromIndices(
+                    this.getCurrentXIndex(), this.getCurrentYIndex());
 
                 // increment the X and Y cursors
                 if (this.getCurrentXIndex() < Map.this.getMaxXIndex()) {
@@ -876,6 +1194,35 @@ public class Map implements Iterable<Tile> {
         return xCoordinate / widthOfATile;
     }
 
+    /**
+     * given an X-coordinate in pixels on a zoomed Map returns
+     * the tile column on this Map that contains those coordinates
+     * @param xCoordinate the X coordinate that is contained by the
+     * Tile that will be returned
+     * @param scale how zoomed the Map is, 1.0 is the normal size
+     * @return int the column that contains the parameter coordinate
+     */
+    public static int getColumnFromCoordinate(int xCoordinate,
+        double scale) {
+        // calculate how many Tiles over the xPos is
+        // (uses integer division)
+        return xCoordinate / Tile.getWidthOfATileInPixels(scale);
+    }
+
+    /**
+     * given a Y-coordinate in pixels on a zoomed Map returns
+     * the tile row on this Map that contains those coordinates
+     * @param yCoordinate the Y coordinate that is contained by the
+     * Tile that will be returned
+     * @param scale how zoomed the Map is, 1.0 is the normal size
+     * @return int the row that contains the parameter coordinate
+     */
+    public static int getRowFromCoordinate(int yCoordinate, double scale) {
+        // calculate how many Tiles down the yPos is
+        // (uses integer division)
+        return yCoordinate / Tile.getHeightOfATileInPixels(scale);
+    }
+
     /**
      * given a Y-coordinate in pixels returns
      * the tile row on this Map that contains those coordinates
@@ -904,14 +1251,58 @@ public class Map implements Iterable<Tile> {
      */
     public static void tintTile(Canvas mapCanvas,
         int columnIndex, int rowIndex, Color color, double alpha) {
-        // grab the tile width and height
-        int widthOfATile  = Tile.getWidthOfATileInPixels();
-        int heightOfATile = Tile.getHeightOfATileInPixels();
-
         // calculate the top-left corner of the Tile that we're tinting
-        int topLeftCornerOfTileXCoordinate = widthOfATile  * columnIndex;
-        int topLeftCornerOfTileYCoordinate = heightOfATile * rowIndex;
+        Map.tintTileAt(
+            mapCanvas,
+            Tile.getWidthOfATileInPixels() * columnIndex,
+            Tile.getHeightOfATileInPixels() * rowIndex,
+            Tile.getWidthOfATileInPixels(),
+            Tile.getHeightOfATileInPixels(),
+            color,
+            alpha
+        );
+    }
+
+    /**
+     * tint the tile at the parameter indices to the parameter
+     * color and alpha, wherever the parameter Camera has it on the screen
+     * @param mapCanvas the canvas upon which this Map is drawn
+     * @param camera the Camera that decides what part of the Map shows
+     * @param columnIndex the X-Index of the Tile that we are tinting
+     * @param rowIndex the Y-Index of the Tile that we are tinting
+     * @param color the Color to tint the Tile
+     * @param alpha the Alpha value used to determine transparency,
+     * between 0.0 and 1.0 and lower is more transparent
+     */
+    public static void tintTile(Canvas mapCanvas, Camera camera,
+        int columnIndex, int rowIndex, Color color, double alpha) {
+        Map.tintTileAt(
+            mapCanvas,
+            camera.getScreenXOfColumn(columnIndex),
+            camera.getScreenYOfRow(rowIndex),
+            camera.getTileWidth(),
+            camera.getTileHeight(),
+            color,
+            alpha
+        );
+    }
 
+    /**
+     * tint a Tile sized box with its top-left corner at the parameter
+     * position to the parameter color and alpha
+     * @param mapCanvas the canvas upon which this Map is drawn
+     * @param topLeftCornerOfTileXCoordinate the X position in pixels
+     * @param topLeftCornerOfTileYCoordinate the Y position in pixels
+     * @param widthOfATile the width in pixels of the Tile
+     * @param heightOfATile the height in pixels of the Tile
+     * @param color the Color to tint the Tile
+     * @param alpha the Alpha value used to determine transparency,
+     * between 0.0 and 1.0 and lower is more transparent
+     */
+    private static void tintTileAt(Canvas mapCanvas,
+        int topLeftCornerOfTileXCoordinate,
+        int topLeftCornerOfTileYCoordinate, int widthOfATile,
+        int heightOfATile, Color color, double alpha) {
         // grab the graphics context
         GraphicsContext graphicsContext = mapCanvas.getGraphicsContext2D();
 
@@ -945,83 +1336,122 @@ public class Map implements Iterable<Tile> {
     /////////////////////////////////////
 
     /**
-     * builds a Map object given a path to a map file
+     * builds a Map object given a path to a map file, which can be a
+     * csv map file or a binary one (see BinaryMapFormat), the first
+     * bytes of the file say which, a csv map file bigger than
+     * CHUNKED_MAP_FILE_SIZE bytes makes a Map that only keeps the
+     * parts of itself that are being used in memory, see
+     * ChunkedTileStorage, anything wrong with a csv map file is
+     * reported with the line and column it is at
      * @param mapFileName the path to the map file
      * @return Map the map object
      */
     public static Map buildMap(String mapFileName)
         throws FileNotFoundException, MapFileReadException {
-        File    mapFileReader = new File(mapFileName);
-        Scanner scan          = new Scanner(mapFileReader);
-
-        ArrayList<ArrayList<String>> fileStrings
-            = new ArrayList<ArrayList<String>>();
-
-        // fill in fileStrings with strings from csv file
-        int y = 0;
-        int x = 0;
-        while (scan.hasNextLine()) {
-            fileStrings.add(y, new ArrayList<String>());
-            String line = scan.nextLine();
-            String[] lineParts = line.split(",");
-            x = 0;
-            for (String linePart: lineParts) {
-                fileStrings.get(y).add(x, linePart);
-                x++;
-            }
-            y++;
+        if (BinaryMapReader.isBinaryMapFile(mapFileName)) {
+            return new Map(BinaryMapReader.readTileStorage(mapFileName));
         }
-
-        // fill in rows in the Map
-        ArrayList<ArrayList<Tile>> tiles
-            = new ArrayList<ArrayList<Tile>>();
-        for (int i = 0; i < y; i++) {
-            // loop y times where y is the number of
-            // rows on the map from above
-            tiles.add(i, new ArrayList<Tile>());
+        if (new File(mapFileName).length() > Map.CHUNKED_MAP_FILE_SIZE) {
+            return Map.buildMap(new MapFileTileSource(mapFileName),
+                ChunkedTileStorage.DEFAULT_MEMORY_BUDGET);
         }
 
-        // fill in the Tiles on the Map
-        y = 0;
-        x = 0;
-        for (ArrayList<String> row: fileStrings) {
-            for (String chunk: row) {
-                // make sure each chunk has at least 2 characters
-                if (chunk.length() < 4) {
-                    throw new MapFileReadException(
-                        "csv entry did not have enough letters for a tile");
-                }
+        // read every Tile straight into the storage in one pass
+        TileStorage tileStorage = MapFileParser.readTileStorage(mapFileName);
+
+        // make and return the actual Map object using the
+        // storage that was just filled in
+        Map map = new Map(tileStorage);
+        return map;
+    }
 
-                // pull out the terrain and occupant characters
-                String terrainString  = chunk.substring(0, 1);
-                String buildingString = chunk.substring(1, 2);
-                String occupantString = chunk.substring(2, 3);
-                String invaderString  = chunk.substring(3, 4);
-
-                // get the actual java objects that relate to the strings
-                Terrain terrain
-                    = getTerrainFromFileString(terrainString);
-                Building building
-                    = getBuildingFromFileString(buildingString);
-                TileOccupant occupant
-                    = getTileOccupantFromFileString(occupantString);
-                TileOccupant invader
-                    = getTileOccupantFromFileString(invaderString);
-
-                // fill in variable tiles with Tile objects
-                Tile newTile = new Tile(terrain, building, occupant, invader);
-                tiles.get(y).add(x, newTile);
-
-                x++;
+    /**
+     * builds a Map object that reads its Tiles from the parameter
+     * source a chunk at a time as they are needed, and only keeps
+     * as many chunks in memory as fit in the parameter budget
+     * @param tileSource where to read the Tiles from
+     * @param memoryBudget how many bytes of chunks to keep in memory
+     * @return Map the map object
+     */
+    public static Map buildMap(TileSource tileSource, long memoryBudget)
+        throws MapFileReadException {
+        try {
+            // making the Map looks at every Tile once, so this is where
+            // anything wrong with the source will turn up
+            return new Map(new ChunkedTileStorage(tileSource, memoryBudget));
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof MapFileReadException) {
+                throw (MapFileReadException) e.getCause();
             }
-            x = 0;
-            y++;
+            throw e;
         }
+    }
 
-        // make and return the actual Map object using the
-        // grid of tiles that was just constructed
-        Map map = new Map(tiles);
-        return map;
+    /**
+     * copies what is on every Tile of the parameter grid into a new
+     * TileStorage, so that a Map can be made out of Tiles that were
+     * built one by one
+     * @param tiles the rows of Tiles, top row first, every row has to
+     * be as long as the first one
+     * @return TileStorage the storage holding the same things
+     */
+    private static TileStorage copyIntoTileStorage(
+        ArrayList<ArrayList<Tile>> tiles) {
+        int numberOfRows = tiles.size();
+        int numberOfColumns = tiles.get(0).size();
+        TileStorage tileStorage
+            = new CompactTileStorage(numberOfColumns, numberOfRows);
+        for (int y = 0; y < numberOfRows; y++) {
+            ArrayList<Tile> row = tiles.get(y);
+            if (row.size() != numberOfColumns) {
+                throw new IllegalArgumentException("row " + y + " has "
+                    + row.size() + " Tiles but the first row has "
+                    + numberOfColumns);
+            }
+            for (int x = 0; x < numberOfColumns; x++) {
+                Tile tile = row.get(x);
+                int tileNumber = y * numberOfColumns + x;
+                tileStorage.setTerrain(tileNumber, tile.getTerrain());
+                tileStorage.setBuilding(tileNumber, tile.getBuilding());
+                tileStorage.setOccupant(tileNumber, tile.getOccupant());
+                tileStorage.setInvader(tileNumber, tile.getInvader());
+            }
+        }
+        return tileStorage;
+    }
+
+    /**
+     * gives the cheapest cost of any kind of Terrain for units that
+     * move the parameter way, which is the least a Tile can cost before
+     * it has been looked at
+     * @param movementClass the way the units move
+     * @return int the cheapest cost, 0 if no Terrain can be moved onto
+     */
+    private static int getCheapestTerrainMovementCost(
+        MovementClass movementClass) {
+        TileTypeRegistry registry = TileTypeRegistry.getInstance();
+        int cheapestMovementCost = DijkstraSearch.UNREACHABLE;
+        for (int terrainId = TileTypeRegistry.NONE + 1;
+            terrainId < registry.getNumberOfTerrainIds(); terrainId++) {
+            cheapestMovementCost = Math.min(cheapestMovementCost, registry
+                .getTerrain(terrainId).getMovementCost(movementClass));
+        }
+        return DijkstraSearch.UNREACHABLE == cheapestMovementCost
+            ? 0
+            : cheapestMovementCost;
+    }
+
+    /**
+     * makes one of every kind of TileOccupant that a map file can have
+     * on it, for anything that needs to know about every kind without
+     * looking at the Tiles of a Map, like loading their images
+     * @return ArrayList one TileOccupant of every kind
+     */
+    public static ArrayList<TileOccupant> getEveryKindOfTileOccupant() {
+        ArrayList<TileOccupant> kinds = new ArrayList<TileOccupant>();
+        kinds.add(new Infantry());
+        kinds.add(new Sniper());
+        return kinds;
     }
 
     /*
@@ -1046,30 +1476,35 @@ public class Map implements Iterable<Tile> {
             i => infantry,
             s => sniper,
 
+        An entry can have one or two digits after its letters, the
+        first is the player the occupant belongs to and the second is
+        the player the invader belongs to, pnsn1 is a sniper that
+        belongs to player 1, without a digit a unit belongs to player 0
+
     */
 
     /**
-     * helper method that converts a terrain-string from a map file into
-     * an actual Terrain object
-     * @param fileString the string from the map file
-     * @return Terrain the corresponding Terrain
+     * helper method that converts a terrain-letter from a map file into
+     * the id of a kind of Terrain, see TileTypeRegistry
+     * @param letter the letter from the map file
+     * @return int the id of the corresponding Terrain
      */
-    private static Terrain getTerrainFromFileString(String fileString)
+    static int getTerrainIdFromFileLetter(char letter)
         throws MapFileReadException {
-        Terrain toBeReturned = null;
+        int toBeReturned = TileTypeRegistry.NONE;
 
         // use this switch tree to go through all the
-        // possible Terrains and convert those strings into
-        // actual Terrain objects
-        switch (fileString) {
-        case "p":
-            toBeReturned = new Plains();
+        // possible Terrains and convert those letters into
+        // the ids of the shared Terrain objects
+        switch (letter) {
+        case 'p':
+            toBeReturned = TileTypeRegistry.PLAINS;
             break;
-        case "m":
-            toBeReturned = new Mountain();
+        case 'm':
+            toBeReturned = TileTypeRegistry.MOUNTAIN;
             break;
-        case "f":
-            toBeReturned = new Forest();
+        case 'f':
+            toBeReturned = TileTypeRegistry.FOREST;
             break;
         default:
             throw new MapFileReadException(
@@ -1080,27 +1515,27 @@ public class Map implements Iterable<Tile> {
     }
 
     /**
-     * helper method that converts an occupant-string from a map file into
+     * helper method that converts an occupant-letter from a map file into
      * an actual TileOccupant object
-     * @param fileString the string from the map file
+     * @param letter the letter from the map file
      * @return TileOccupant the corresponding TileOccupant
      */
-    private static TileOccupant getTileOccupantFromFileString(String fileString)
+    static TileOccupant getTileOccupantFromFileLetter(char letter)
         throws MapFileReadException {
         TileOccupant toBeReturned = null;
 
         // use this switch tree to go through all the
-        // possible Tile Occupants and convert those strings into
+        // possible Tile Occupants and convert those letters into
         // actual Tile Occupant objects
-        switch (fileString) {
-        case "n":
+        switch (letter) {
+        case 'n':
             toBeReturned = null;
             break;
-        case "i":
+        case 'i':
             System.out.println("making an infantry");
             toBeReturned = new Infantry();
             break;
-        case "s":
+        case 's':
             toBeReturned = new Sniper();
             break;
         default:
@@ -1112,33 +1547,119 @@ public class Map implements Iterable<Tile> {
     }
 
     /**
-     * helper method that converts a building-string from a map file into
-     * an actual Building object
-     * @param fileString the string from the map file
-     * @return Building the corresponding Building
+     * helper method that converts a player-digit from a map file into
+     * the number of the player
+     * @param letter the digit from the map file
+     * @return int the number of the player
      */
-    private static Building getBuildingFromFileString(String fileString)
+    static int getPlayerFromFileLetter(char letter)
         throws MapFileReadException {
-        Building toBeReturned = null;
+        if (!Character.isDigit(letter)) {
+            throw new MapFileReadException(
+                "incorrect player digit in map file");
+        }
+        return Character.digit(letter, 10);
+    }
+
+    /**
+     * helper method that converts a building-letter from a map file into
+     * the id of a kind of Building, see TileTypeRegistry
+     * @param letter the letter from the map file
+     * @return int the id of the corresponding Building,
+     * TileTypeRegistry.NONE if there is no Building
+     */
+    static int getBuildingIdFromFileLetter(char letter)
+        throws MapFileReadException {
+        int toBeReturned = TileTypeRegistry.NONE;
 
         // use this switch tree to go through all the
-        // possible Tile Occupants and convert those strings into
-        // actual Tile Occupant objects
-        switch (fileString) {
-        case "n":
-            toBeReturned = null;
+        // possible Buildings and convert those letters into
+        // the ids of the shared Building objects
+        switch (letter) {
+        case 'n':
+            toBeReturned = TileTypeRegistry.NONE;
             break;
-        case "c":
-            toBeReturned = new CommandCenter();
+        case 'c':
+            toBeReturned = TileTypeRegistry.COMMAND_CENTER;
             break;
-        case "m":
-            toBeReturned = new MedicalCenter();
+        case 'm':
+            toBeReturned = TileTypeRegistry.MEDICAL_CENTER;
             break;
         default:
             throw new MapFileReadException(
-                "incorrect occupant letter in map file");
+                "incorrect building letter in map file");
+        }
+
+        return toBeReturned;
+    }
+
+    /**
+     * helper method that does the opposite of getTerrainIdFromFileLetter
+     * and gives the letter a map file uses for a kind of Terrain
+     * @param terrainId the id of the kind of Terrain, see TileTypeRegistry
+     * @return char the letter of the Terrain in a map file
+     */
+    static char getFileLetterOfTerrainId(int terrainId) {
+        char toBeReturned;
+        switch (terrainId) {
+        case TileTypeRegistry.PLAINS:
+            toBeReturned = 'p';
+            break;
+        case TileTypeRegistry.MOUNTAIN:
+            toBeReturned = 'm';
+            break;
+        case TileTypeRegistry.FOREST:
+            toBeReturned = 'f';
+            break;
+        default:
+            throw new IllegalArgumentException("terrain id " + terrainId
+                + " has no letter in map files");
         }
+        return toBeReturned;
+    }
 
+    /**
+     * helper method that does the opposite of getBuildingIdFromFileLetter
+     * and gives the letter a map file uses for a kind of Building
+     * @param buildingId the id of the kind of Building, see
+     * TileTypeRegistry, TileTypeRegistry.NONE for no Building
+     * @return char the letter of the Building in a map file
+     */
+    static char getFileLetterOfBuildingId(int buildingId) {
+        char toBeReturned;
+        switch (buildingId) {
+        case TileTypeRegistry.NONE:
+            toBeReturned = 'n';
+            break;
+        case TileTypeRegistry.COMMAND_CENTER:
+            toBeReturned = 'c';
+            break;
+        case TileTypeRegistry.MEDICAL_CENTER:
+            toBeReturned = 'm';
+            break;
+        default:
+            throw new IllegalArgumentException("building id " + buildingId
+                + " has no letter in map files");
+        }
         return toBeReturned;
     }
+
+    /**
+     * helper method that does the opposite of
+     * getTileOccupantFromFileLetter and gives the letter a map file uses
+     * for the kind of the parameter TileOccupant
+     * @param occupant the TileOccupant, null for no TileOccupant
+     * @return char the letter of the TileOccupant in a map file
+     */
+    static char getFileLetterOfTileOccupant(TileOccupant occupant) {
+        if (null == occupant) {
+            return 'n';
+        } else if (occupant instanceof Infantry) {
+            return 'i';
+        } else if (occupant instanceof Sniper) {
+            return 's';
+        }
+        throw new IllegalArgumentException(occupant.getClass().getName()
+            + " has no letter in map files");
+    }
 }
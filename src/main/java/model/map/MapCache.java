@@ -0,0 +1,416 @@
+package model.map;
+
+// java standard library imports
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// this project imports
+import exception.MapFileReadException;
+
+/**
+ * keeps a binary copy (see BinaryMapFormat) of every csv map file that
+ * has been loaded in a cache directory, so that loading the same map
+ * again only has to memory map the copy instead of parsing the csv
+ * a copy is named after the map file and the SHA-256 of what is in it,
+ * so when the map file changes its hash changes, the old copy is never
+ * found again and is deleted once the new one is written, copies are
+ * only ever written from a map file that was read without any errors
+ * and end with a checksum, one that turns out to be broken anyway is
+ * deleted and the map file is parsed instead
+ * map files too big to be loaded whole (see Map.CHUNKED_MAP_FILE_SIZE)
+ * and binary map files are loaded the usual way without the cache
+ * it also times every load, cold ones that had to parse the map file
+ * and warm ones that used a copy, so the two can be compared
+ * @author Ryan Voor
+ */
+public class MapCache {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // where the cache that is shared by the whole application keeps
+    // its copies, under the home directory so it outlives the game
+    private static final File DEFAULT_DIRECTORY = new File(
+        System.getProperty("user.home"), ".advancedimproved/map-cache");
+
+    // the cache that is shared by the whole application
+    private static final MapCache SHARED_CACHE
+        = new MapCache(MapCache.DEFAULT_DIRECTORY);
+
+    private static final String COPY_EXTENSION = ".bmap";
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final File directory;
+
+    // how many cold and warm loads there have been and how many
+    // nanoseconds they took altogether
+    private int numberOfColdLoads;
+    private int numberOfWarmLoads;
+    private long coldLoadNanoseconds;
+    private long warmLoadNanoseconds;
+
+    // whether the last load used a copy and how long it took
+    private boolean lastLoadWasWarm;
+    private long lastLoadNanoseconds;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the MapCache class, the directory is made the
+     * first time a copy is written to it
+     * @param directory where to keep the copies
+     */
+    public MapCache(File directory) {
+        this.directory = directory;
+        this.numberOfColdLoads = 0;
+        this.numberOfWarmLoads = 0;
+        this.coldLoadNanoseconds = 0;
+        this.warmLoadNanoseconds = 0;
+        this.lastLoadWasWarm = false;
+        this.lastLoadNanoseconds = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the MapCache that is shared by the whole application
+     * @return MapCache the shared MapCache
+     */
+    public static MapCache getSharedCache() {
+        return MapCache.SHARED_CACHE;
+    }
+
+    /**
+     * getter for where this cache keeps its copies
+     * @return File the cache directory
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * getter for how many loads had to parse their map file
+     * @return int the number of cold loads
+     */
+    public synchronized int getNumberOfColdLoads() {
+        return this.numberOfColdLoads;
+    }
+
+    /**
+     * getter for how many loads used a copy from the cache
+     * @return int the number of warm loads
+     */
+    public synchronized int getNumberOfWarmLoads() {
+        return this.numberOfWarmLoads;
+    }
+
+    /**
+     * getter for how long a load that had to parse its map file takes
+     * on average, writing the copy included
+     * @return double the milliseconds, 0 if there hasn't been one
+     */
+    public synchronized double getAverageColdLoadMilliseconds() {
+        return MapCache.averageMilliseconds(
+            this.coldLoadNanoseconds, this.numberOfColdLoads);
+    }
+
+    /**
+     * getter for how long a load that used a copy takes on average
+     * @return double the milliseconds, 0 if there hasn't been one
+     */
+    public synchronized double getAverageWarmLoadMilliseconds() {
+        return MapCache.averageMilliseconds(
+            this.warmLoadNanoseconds, this.numberOfWarmLoads);
+    }
+
+    /**
+     * getter for whether the last load through the cache used a copy
+     * @return boolean whether the last load was warm
+     */
+    public synchronized boolean getLastLoadWasWarm() {
+        return this.lastLoadWasWarm;
+    }
+
+    /**
+     * getter for how long the last load through the cache took
+     * @return double the milliseconds, 0 if there hasn't been one
+     */
+    public synchronized double getLastLoadMilliseconds() {
+        return MapCache.averageMilliseconds(this.lastLoadNanoseconds, 1);
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * builds a Map object given a path to a map file, the same as
+     * Map.buildMap but using a copy from the cache when there is one
+     * and making one when there isn't
+     * @param mapFileName the path to the map file
+     * @return Map the map object
+     */
+    public Map buildMap(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        return this.loadMap(mapFileName).getMap();
+    }
+
+    /**
+     * builds a Map object given a path to a map file like buildMap, but
+     * also says how that load went, which unlike getLastLoadWasWarm
+     * can't be mixed up with some other load that happened at the
+     * same time
+     * @param mapFileName the path to the map file
+     * @return Load the map object and how it was loaded
+     */
+    public Load loadMap(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        long start = System.nanoTime();
+        if (BinaryMapReader.isBinaryMapFile(mapFileName)
+            || new File(mapFileName).length() > Map.CHUNKED_MAP_FILE_SIZE) {
+            Map map = Map.buildMap(mapFileName);
+            return new Load(map, false, System.nanoTime() - start);
+        }
+
+        ByteBuffer bytes = MapFileParser.mapFile(mapFileName);
+        String copyPrefix = MapCache.getCopyPrefix(mapFileName);
+        File copy = this.getCopyFile(copyPrefix, bytes);
+
+        // warm, memory map the copy
+        CompactTileStorage tileStorage = null;
+        if (copy.isFile()) {
+            try {
+                tileStorage = BinaryMapReader.readTileStorage(copy.getPath());
+            } catch (MapFileReadException e) {
+                // the copy is broken somehow, so parse the map file
+                copy.delete();
+            } catch (FileNotFoundException e) {
+                // somebody else deleted it, so parse the map file
+            }
+        }
+        boolean warm = null != tileStorage;
+
+        // cold, parse the map file then write a copy of it for next time
+        if (!warm) {
+            tileStorage = MapFileParser.readTileStorage(bytes);
+            this.writeCopy(tileStorage, copyPrefix, copy);
+        }
+
+        Map map = new Map(tileStorage);
+        long nanoseconds = System.nanoTime() - start;
+        this.recordLoad(warm, nanoseconds);
+        return new Load(map, warm, nanoseconds);
+    }
+
+    /**
+     * deletes every copy in the cache
+     */
+    public void clear() {
+        File[] copies = this.directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File directory, String name) {
+                return name.endsWith(MapCache.COPY_EXTENSION);
+            }
+        });
+        if (null != copies) {
+            for (File copy : copies) {
+                copy.delete();
+            }
+        }
+    }
+
+    /**
+     * works out where the copy of a map file is kept, which is named
+     * after the file, where it is, and what is in it
+     * @param copyPrefix the start of the names of the copies of the map
+     * file, see getCopyPrefix
+     * @param bytes everything in the map file
+     * @return File the copy, which may not be there
+     */
+    private File getCopyFile(String copyPrefix, ByteBuffer bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every java has to have SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(bytes.duplicate());
+        StringBuilder hash = new StringBuilder();
+        for (byte next : digest.digest()) {
+            hash.append(String.format("%02x", next & 0xff));
+        }
+
+        // the version is in the name so copies in an older
+        // format are never read
+        return new File(this.directory, copyPrefix + hash + "-v"
+            + BinaryMapFormat.VERSION + MapCache.COPY_EXTENSION);
+    }
+
+    /**
+     * writes a copy of a map file, replacing any older copies of the
+     * same map file, nothing goes wrong if the copy can't be written,
+     * the map file will just be parsed again next time
+     * @param tileStorage the Tiles read from the map file
+     * @param copyPrefix the start of the names of the copies of the map
+     * file, see getCopyPrefix
+     * @param copy where the copy goes
+     */
+    private void writeCopy(TileStorage tileStorage, final String copyPrefix,
+        final File copy) {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            return;
+        }
+
+        // write to a temporary file first so that a copy is never
+        // seen half written
+        File temporaryFile = null;
+        try {
+            temporaryFile = File.createTempFile(
+                "writing", MapCache.COPY_EXTENSION + ".tmp", this.directory);
+            BinaryMapWriter.write(tileStorage, temporaryFile.getPath(), true);
+            if (!temporaryFile.renameTo(copy)) {
+                temporaryFile.delete();
+                return;
+            }
+        } catch (IOException e) {
+            if (null != temporaryFile) {
+                temporaryFile.delete();
+            }
+            return;
+        }
+
+        // copies of what used to be in the map file are never used again
+        File[] oldCopies = this.directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File directory, String name) {
+                return name.startsWith(copyPrefix)
+                    && !name.equals(copy.getName());
+            }
+        });
+        if (null != oldCopies) {
+            for (File oldCopy : oldCopies) {
+                oldCopy.delete();
+            }
+        }
+    }
+
+    /**
+     * adds a load to the timings
+     * @param warm whether the load used a copy
+     * @param nanoseconds how long it took
+     */
+    private synchronized void recordLoad(boolean warm, long nanoseconds) {
+        if (warm) {
+            this.numberOfWarmLoads++;
+            this.warmLoadNanoseconds += nanoseconds;
+        } else {
+            this.numberOfColdLoads++;
+            this.coldLoadNanoseconds += nanoseconds;
+        }
+        this.lastLoadWasWarm = warm;
+        this.lastLoadNanoseconds = nanoseconds;
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * gives the start of the name of every copy of the parameter map
+     * file, the name of the file and a hash of where it is so that
+     * map files with the same name in different places don't mix
+     * @param mapFileName the path to the map file
+     * @return String the start of the names of its copies
+     */
+    private static String getCopyPrefix(String mapFileName) {
+        File mapFile = new File(mapFileName).getAbsoluteFile();
+        return mapFile.getName() + "-"
+            + Integer.toHexString(mapFile.getParent().hashCode()) + "-";
+    }
+
+    /**
+     * turns a total time into an average in milliseconds
+     * @param nanoseconds the total time
+     * @param count how many times it is the total of
+     * @return double the average in milliseconds, 0 if count is 0
+     */
+    private static double averageMilliseconds(long nanoseconds, int count) {
+        if (0 == count) {
+            return 0;
+        }
+        return nanoseconds / 1000000.0 / count;
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * a Map that was loaded through a MapCache and how it was loaded
+     * @author Ryan Voor
+     */
+    public static class Load {
+
+        // instance variables
+        private final Map map;
+        private final boolean wasWarm;
+        private final long nanoseconds;
+
+        /**
+         * constructor for the Load class
+         * @param map the Map that was loaded
+         * @param wasWarm whether it was loaded from a copy in the cache
+         * @param nanoseconds how long loading it took
+         */
+        private Load(Map map, boolean wasWarm, long nanoseconds) {
+            this.map = map;
+            this.wasWarm = wasWarm;
+            this.nanoseconds = nanoseconds;
+        }
+
+        /**
+         * getter for the Map that was loaded
+         * @return Map the Map
+         */
+        public Map getMap() {
+            return this.map;
+        }
+
+        /**
+         * getter for whether the Map was loaded from a copy in the cache
+         * instead of by reading its map file
+         * @return boolean whether the load was warm
+         */
+        public boolean getWasWarm() {
+            return this.wasWarm;
+        }
+
+        /**
+         * getter for how long loading the Map took
+         * @return double the milliseconds it took
+         */
+        public double getMilliseconds() {
+            return MapCache.averageMilliseconds(this.nanoseconds, 1);
+        }
+    }
+}
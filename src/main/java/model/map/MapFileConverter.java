@@ -0,0 +1,177 @@
+package model.map;
+
+// java standard library imports
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+// this project imports
+import exception.MapFileReadException;
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * turns csv map files into binary map files (see BinaryMapFormat) that
+ * Map.buildMap can load without parsing any text, every file is read
+ * back after it is written to make sure it holds the same map
+ * run it with "gradle convertMaps", the arguments (-PmapFiles) are the
+ * csv map files to convert, every .map file in lib/maps by default, the
+ * binary file is written next to each one with the .bmap extension,
+ * "--no-checksum" leaves the checksum off the end of the files
+ * @author Ryan Voor
+ */
+public class MapFileConverter {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // where the map files of the game are
+    private static final String MAPS_DIRECTORY = "lib/maps";
+
+    private static final String CSV_EXTENSION = ".map";
+    private static final String BINARY_EXTENSION = ".bmap";
+
+    private static final String NO_CHECKSUM_OPTION = "--no-checksum";
+
+
+    /**
+     * this class only has class methods so it should never be constructed
+     */
+    private MapFileConverter() {
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * converts the map files
+     * @param args the csv map files, and maybe --no-checksum
+     */
+    public static void main(String[] args) {
+        boolean withChecksum = true;
+        ArrayList<String> mapFileNames = new ArrayList<String>();
+        for (String arg : args) {
+            if (MapFileConverter.NO_CHECKSUM_OPTION.equals(arg)) {
+                withChecksum = false;
+            } else {
+                mapFileNames.add(arg);
+            }
+        }
+
+        // with no files given convert every map file of the game
+        if (mapFileNames.isEmpty()) {
+            File[] mapFiles = new File(MapFileConverter.MAPS_DIRECTORY)
+                .listFiles(new FilenameFilter() {
+                    @Override
+                    public boolean accept(File directory, String name) {
+                        return name.endsWith(MapFileConverter.CSV_EXTENSION);
+                    }
+                });
+            if (null != mapFiles) {
+                for (File mapFile : mapFiles) {
+                    mapFileNames.add(mapFile.getPath());
+                }
+            }
+        }
+
+        boolean allConverted = true;
+        for (String mapFileName : mapFileNames) {
+            try {
+                MapFileConverter.convert(mapFileName, withChecksum);
+            } catch (FileNotFoundException e) {
+                System.err.println(mapFileName + ": no such file");
+                allConverted = false;
+            } catch (IOException e) {
+                System.err.println(mapFileName + ": " + e.getMessage());
+                allConverted = false;
+            } catch (MapFileReadException e) {
+                System.err.println(mapFileName + ": " + e.getMessage());
+                allConverted = false;
+            }
+        }
+        if (!allConverted) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * converts one csv map file and checks the binary one it makes
+     * @param mapFileName the path to the csv map file
+     * @param withChecksum whether to end the binary file with a checksum
+     */
+    private static void convert(String mapFileName, boolean withChecksum)
+        throws IOException, MapFileReadException {
+        String binaryMapFileName = mapFileName;
+        if (binaryMapFileName.endsWith(MapFileConverter.CSV_EXTENSION)) {
+            binaryMapFileName = binaryMapFileName.substring(0,
+                binaryMapFileName.length()
+                    - MapFileConverter.CSV_EXTENSION.length());
+        }
+        binaryMapFileName += MapFileConverter.BINARY_EXTENSION;
+
+        CompactTileStorage tileStorage
+            = MapFileParser.readTileStorage(mapFileName);
+        BinaryMapWriter.write(tileStorage, binaryMapFileName, withChecksum);
+        int differentTile = MapFileConverter.findDifferentTile(tileStorage,
+            BinaryMapReader.readTileStorage(binaryMapFileName));
+        if (-1 != differentTile) {
+            throw new MapFileReadException("tile " + differentTile
+                + " is different after it was converted");
+        }
+
+        System.out.println(mapFileName + " (" + new File(mapFileName).length()
+            + " bytes) -> " + binaryMapFileName + " ("
+            + new File(binaryMapFileName).length() + " bytes)");
+    }
+
+    /**
+     * finds the first Tile that doesn't have the same things on it in
+     * both of the parameter storages
+     * @param first one storage
+     * @param second the other storage, the same size as the first
+     * @return int the number of the first Tile that is different,
+     * -1 if they are all the same
+     */
+    private static int findDifferentTile(TileStorage first,
+        TileStorage second) {
+        int numberOfTiles = first.getNumberOfColumns()
+            * first.getNumberOfRows();
+        if (first.getNumberOfColumns() != second.getNumberOfColumns()
+            || first.getNumberOfRows() != second.getNumberOfRows()) {
+            return 0;
+        }
+        for (int tileNumber = 0; tileNumber < numberOfTiles; tileNumber++) {
+            if (first.getTerrainId(tileNumber)
+                    != second.getTerrainId(tileNumber)
+                || first.getBuildingId(tileNumber)
+                    != second.getBuildingId(tileNumber)
+                || !MapFileConverter.isSameUnit(first.getOccupant(tileNumber),
+                    second.getOccupant(tileNumber))
+                || !MapFileConverter.isSameUnit(first.getInvader(tileNumber),
+                    second.getInvader(tileNumber))) {
+                return tileNumber;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * checks whether two units are the same kind and belong to the
+     * same player
+     * @param first one unit, null if there isn't one
+     * @param second the other unit, null if there isn't one
+     * @return boolean whether they are the same
+     */
+    private static boolean isSameUnit(TileOccupant first,
+        TileOccupant second) {
+        if (null == first || null == second) {
+            return first == second;
+        }
+        return first.getClass() == second.getClass()
+            && first.getPlayer() == second.getPlayer();
+    }
+}
@@ -0,0 +1,140 @@
+package model.map;
+
+// java standard library imports
+import java.nio.ByteBuffer;
+
+// this project imports
+import exception.MapFileReadException;
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * turns one entry of a map file, like "pnsn1", into what is on its
+ * Tile, straight from the bytes of the file without making a String
+ * one of these is made per file being read and used for every entry,
+ * after read returns the getters give what was on the entry
+ * see the comment under Map.buildMap for what an entry looks like
+ * @author Ryan Voor
+ */
+class MapFileEntry {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many letters an entry needs for the terrain,
+    // building, occupant, and invader
+    private static final int NUMBER_OF_LETTERS = 4;
+
+    // where the letters and digits are in an entry
+    private static final int TERRAIN_LETTER  = 0;
+    private static final int BUILDING_LETTER = 1;
+    private static final int OCCUPANT_LETTER = 2;
+    private static final int INVADER_LETTER  = 3;
+    private static final int OCCUPANT_PLAYER = 4;
+    private static final int INVADER_PLAYER  = 5;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // what was on the last entry read
+    private int terrainId;
+    private int buildingId;
+    private TileOccupant occupant;
+    private TileOccupant invader;
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the id of the Terrain of the last entry read
+     * @return int the id of the Terrain, see TileTypeRegistry
+     */
+    public int getTerrainId() {
+        return this.terrainId;
+    }
+
+    /**
+     * getter for the id of the Building of the last entry read
+     * @return int the id of the Building, see TileTypeRegistry
+     */
+    public int getBuildingId() {
+        return this.buildingId;
+    }
+
+    /**
+     * getter for the occupant of the last entry read
+     * @return TileOccupant the occupant, null if there isn't one
+     */
+    public TileOccupant getOccupant() {
+        return this.occupant;
+    }
+
+    /**
+     * getter for the invader of the last entry read
+     * @return TileOccupant the invader, null if there isn't one
+     */
+    public TileOccupant getInvader() {
+        return this.invader;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * reads the entry between the parameter positions of the buffer
+     * @param bytes the bytes of the map file
+     * @param start the position of the first byte of the entry
+     * @param end the position just past the last byte of the entry
+     * @param lineNumber the line the entry is on, for error messages
+     * @param columnNumber the column the entry starts at on its line,
+     * for error messages
+     */
+    public void read(ByteBuffer bytes, int start, int end, int lineNumber,
+        int columnNumber) throws MapFileReadException {
+        int length = end - start;
+        if (length < MapFileEntry.NUMBER_OF_LETTERS) {
+            throw new MapFileReadException(
+                "csv entry did not have enough letters for a tile",
+                lineNumber, columnNumber);
+        }
+
+        // every letter is checked on its own so that an error
+        // can say exactly which one is wrong
+        int letter = MapFileEntry.TERRAIN_LETTER;
+        try {
+            this.terrainId = Map.getTerrainIdFromFileLetter(
+                (char) bytes.get(start + letter));
+            letter = MapFileEntry.BUILDING_LETTER;
+            this.buildingId = Map.getBuildingIdFromFileLetter(
+                (char) bytes.get(start + letter));
+            letter = MapFileEntry.OCCUPANT_LETTER;
+            this.occupant = Map.getTileOccupantFromFileLetter(
+                (char) bytes.get(start + letter));
+            letter = MapFileEntry.INVADER_LETTER;
+            this.invader = Map.getTileOccupantFromFileLetter(
+                (char) bytes.get(start + letter));
+
+            // the players the occupant and invader belong to
+            // can follow the letters, player 0 if they don't
+            letter = MapFileEntry.OCCUPANT_PLAYER;
+            if (null != this.occupant && length > letter) {
+                this.occupant.setPlayer(Map.getPlayerFromFileLetter(
+                    (char) bytes.get(start + letter)));
+            }
+            letter = MapFileEntry.INVADER_PLAYER;
+            if (null != this.invader && length > letter) {
+                this.invader.setPlayer(Map.getPlayerFromFileLetter(
+                    (char) bytes.get(start + letter)));
+            }
+        } catch (MapFileReadException e) {
+            throw new MapFileReadException(
+                e.getMessage(), lineNumber, columnNumber + letter);
+        }
+    }
+}
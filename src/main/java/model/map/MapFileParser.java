@@ -0,0 +1,285 @@
+package model.map;
+
+// java standard library imports
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// this project imports
+import exception.MapFileReadException;
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * reads a whole map file into a CompactTileStorage in one pass over the
+ * file, see the comment under Map.buildMap for what a map file looks like
+ * the file is memory mapped and its bytes are decoded where they sit, the
+ * Terrain and Building of every entry go straight into the arrays that
+ * become the storage, so no line or entry ever becomes a String, and
+ * anything wrong with the file is reported with the line and column
+ * it is at
+ * @author Ryan Voor
+ */
+public class MapFileParser {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many Tiles there is room for before the end of the first line
+    // says how big the Map probably is
+    private static final int FIRST_LINE_CAPACITY = 1024;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the bytes of the file and the entry decoder
+    private final ByteBuffer bytes;
+    private final MapFileEntry entry;
+
+    // the Terrain and Building ids of every Tile read so far, in order,
+    // these become the arrays of the storage
+    private byte[] terrainIds;
+    private byte[] buildingIds;
+    private int numberOfTiles;
+
+    // the Tiles that have units on them, and their units
+    private int[] unitTileNumbers;
+    private final ArrayList<TileOccupant> occupants;
+    private final ArrayList<TileOccupant> invaders;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the MapFileParser class, private since a parser is
+     * only ever used for one file, see readTileStorage
+     * @param bytes the bytes of the map file
+     */
+    private MapFileParser(ByteBuffer bytes) {
+        this.bytes = bytes;
+        this.entry = new MapFileEntry();
+        this.terrainIds = new byte[MapFileParser.FIRST_LINE_CAPACITY];
+        this.buildingIds = new byte[MapFileParser.FIRST_LINE_CAPACITY];
+        this.numberOfTiles = 0;
+        this.unitTileNumbers = new int[16];
+        this.occupants = new ArrayList<TileOccupant>();
+        this.invaders = new ArrayList<TileOccupant>();
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * reads every Tile of the parameter map file
+     * @param mapFileName the path to the map file
+     * @return CompactTileStorage the Tiles of the map
+     */
+    public static CompactTileStorage readTileStorage(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        return MapFileParser.readTileStorage(
+            MapFileParser.mapFile(mapFileName));
+    }
+
+    /**
+     * reads every Tile of a map file from the parameter bytes
+     * @param bytes the bytes of the map file, from position 0 to the limit
+     * @return CompactTileStorage the Tiles of the map
+     */
+    public static CompactTileStorage readTileStorage(ByteBuffer bytes)
+        throws MapFileReadException {
+        return new MapFileParser(bytes).read();
+    }
+
+    /**
+     * memory maps the whole parameter file so that its bytes can be
+     * read without copying them
+     * @param mapFileName the path to the file
+     * @return ByteBuffer the bytes of the file
+     */
+    static ByteBuffer mapFile(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        RandomAccessFile file = new RandomAccessFile(mapFileName, "r");
+        ByteBuffer bytes;
+        try {
+            FileChannel channel = file.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new MapFileReadException(
+                    "map file is bigger than 2 GB");
+            }
+
+            // the mapping stays good after the file is closed
+            bytes = channel.map(
+                FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new MapFileReadException(
+                "could not read map file: " + e.getMessage());
+        } finally {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // we already have the mapping, so nothing to do
+            }
+        }
+        return bytes;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * goes through the file once, entry by entry and line by line
+     * @return CompactTileStorage the Tiles of the map
+     */
+    private CompactTileStorage read() throws MapFileReadException {
+        int limit = this.bytes.limit();
+        int numberOfColumns = -1;
+        int numberOfRows = 0;
+
+        // where we are, the end of the file counts as one last line ending
+        int lineNumber = 1;
+        int lineStart = 0;
+        int entryStart = 0;
+        int numberOfEntriesOnLine = 0;
+
+        // empty entries at the end of a line don't count but ones in the
+        // middle do, the same as String.split, so an empty entry is only
+        // an error once another entry comes after it on the same line
+        int firstEmptyEntryColumn = 0;
+
+        for (int position = 0; position <= limit; position++) {
+            byte next = position < limit
+                ? this.bytes.get(position) : (byte) '\n';
+            if (',' != next && '\n' != next && '\r' != next) {
+                continue;
+            }
+
+            // an entry ends here
+            if (position > entryStart) {
+                if (0 != firstEmptyEntryColumn) {
+                    throw new MapFileReadException(
+                        "csv entry did not have enough letters for a tile",
+                        lineNumber, firstEmptyEntryColumn);
+                }
+                if (numberOfEntriesOnLine == numberOfColumns) {
+                    throw new MapFileReadException("line has more than the "
+                        + numberOfColumns + " tiles of the first line",
+                        lineNumber, entryStart - lineStart + 1);
+                }
+                this.entry.read(this.bytes, entryStart, position,
+                    lineNumber, entryStart - lineStart + 1);
+                this.addTile();
+                numberOfEntriesOnLine++;
+            } else if (',' == next && 0 == firstEmptyEntryColumn) {
+                firstEmptyEntryColumn = entryStart - lineStart + 1;
+            }
+            entryStart = position + 1;
+            if (',' == next) {
+                continue;
+            }
+
+            // and so does a line, unless the file ended right after the
+            // last line ending
+            if (position == limit && lineStart == limit && 0 != limit) {
+                break;
+            }
+            if (-1 == numberOfColumns) {
+                if (0 == numberOfEntriesOnLine) {
+                    throw new MapFileReadException(
+                        "first line has no tiles", lineNumber, 1);
+                }
+                numberOfColumns = numberOfEntriesOnLine;
+                this.reserveTiles(((long) numberOfColumns)
+                    * (limit / (position + 1) + 1));
+            } else if (numberOfEntriesOnLine != numberOfColumns) {
+                throw new MapFileReadException("line has "
+                    + numberOfEntriesOnLine + " tiles but the first line has "
+                    + numberOfColumns, lineNumber, position - lineStart + 1);
+            }
+            numberOfRows++;
+
+            // a line ending can be \n or \r\n
+            if ('\r' == next && position + 1 < limit
+                && '\n' == this.bytes.get(position + 1)) {
+                position++;
+            }
+            lineNumber++;
+            lineStart = position + 1;
+            entryStart = position + 1;
+            numberOfEntriesOnLine = 0;
+            firstEmptyEntryColumn = 0;
+        }
+
+        // hand the arrays over to the storage, they only need to be cut
+        // down if the guess at the size of the Map was wrong, then put
+        // the units on it
+        if (this.terrainIds.length != this.numberOfTiles) {
+            this.terrainIds
+                = Arrays.copyOf(this.terrainIds, this.numberOfTiles);
+            this.buildingIds
+                = Arrays.copyOf(this.buildingIds, this.numberOfTiles);
+        }
+        CompactTileStorage tileStorage = new CompactTileStorage(
+            numberOfColumns, numberOfRows, this.terrainIds, this.buildingIds);
+        for (int i = 0; i < this.occupants.size(); i++) {
+            tileStorage.setOccupant(
+                this.unitTileNumbers[i], this.occupants.get(i));
+            tileStorage.setInvader(
+                this.unitTileNumbers[i], this.invaders.get(i));
+        }
+        return tileStorage;
+    }
+
+    /**
+     * puts what is on the entry that was just read onto the next Tile
+     */
+    private void addTile() throws MapFileReadException {
+        if (this.numberOfTiles == this.terrainIds.length) {
+            this.reserveTiles(2L * this.numberOfTiles);
+        }
+        this.terrainIds[this.numberOfTiles] = (byte) this.entry.getTerrainId();
+        this.buildingIds[this.numberOfTiles]
+            = (byte) this.entry.getBuildingId();
+        if (null != this.entry.getOccupant()
+            || null != this.entry.getInvader()) {
+            if (this.occupants.size() == this.unitTileNumbers.length) {
+                this.unitTileNumbers = Arrays.copyOf(
+                    this.unitTileNumbers, this.unitTileNumbers.length * 2);
+            }
+            this.unitTileNumbers[this.occupants.size()] = this.numberOfTiles;
+            this.occupants.add(this.entry.getOccupant());
+            this.invaders.add(this.entry.getInvader());
+        }
+        this.numberOfTiles++;
+    }
+
+    /**
+     * makes room for at least the parameter number of Tiles, the end
+     * of the first line guesses how many there are from the size of
+     * the file so that the arrays usually never have to grow again
+     * @param numberOfTiles how many Tiles to make room for
+     */
+    private void reserveTiles(long numberOfTiles)
+        throws MapFileReadException {
+        if (numberOfTiles <= this.terrainIds.length) {
+            return;
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, numberOfTiles);
+        if (capacity == this.terrainIds.length) {
+            throw new MapFileReadException("map file has too many tiles");
+        }
+        this.terrainIds = Arrays.copyOf(this.terrainIds, capacity);
+        this.buildingIds = Arrays.copyOf(this.buildingIds, capacity);
+    }
+}
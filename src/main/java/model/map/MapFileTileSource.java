@@ -0,0 +1,272 @@
+package model.map;
+
+// java standard library imports
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// this project imports
+import exception.MapFileReadException;
+
+/**
+ * reads the Tiles of a map file a rectangle at a time, see the comment
+ * under Map.buildMap for what a map file looks like
+ * when it is opened the file is read through once to find where every
+ * row starts and where every 64th entry of every row starts, after that
+ * a rectangle is read by jumping straight to the entries it needs, so a
+ * huge map never has to be held in memory as text
+ * the file is opened again for every rectangle, so it is never left open
+ * while the game is running, if it changes after it is opened the
+ * rectangles read from it will be wrong
+ * @author Ryan Voor
+ */
+public class MapFileTileSource implements TileSource {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many entries apart the remembered starts of entries are
+    private static final int ENTRIES_PER_BOOKMARK = 64;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final String mapFileName;
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // where in the file every row starts, and how many bytes it is
+    // without its line ending
+    private final long[] rowOffsets;
+    private final int[] rowLengths;
+
+    // bookmarks[y][k] is where entry k * 64 of row y starts,
+    // counted from the start of the row
+    private final int[][] bookmarks;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the MapFileTileSource class, reads through the
+     * file once to find where its rows and entries are and to make sure
+     * every row has the same number of entries
+     * @param mapFileName the path to the map file
+     */
+    public MapFileTileSource(String mapFileName)
+        throws FileNotFoundException, MapFileReadException {
+        this.mapFileName = mapFileName;
+
+        long[] rowOffsets = new long[16];
+        int[] rowLengths = new int[16];
+        int[][] bookmarks = new int[16][];
+        int numberOfRows = 0;
+        int numberOfColumns = 0;
+
+        InputStream in = new BufferedInputStream(
+            new FileInputStream(mapFileName));
+        try {
+            long offset = 0;
+            int next = in.read();
+            while (-1 != next) {
+                // one row per time around, next is its first byte
+                if (numberOfRows == rowOffsets.length) {
+                    rowOffsets = Arrays.copyOf(rowOffsets, numberOfRows * 2);
+                    rowLengths = Arrays.copyOf(rowLengths, numberOfRows * 2);
+                    bookmarks = Arrays.copyOf(bookmarks, numberOfRows * 2);
+                }
+                rowOffsets[numberOfRows] = offset;
+                int[] rowBookmarks = new int[Math.max(1,
+                    numberOfColumns / MapFileTileSource.ENTRIES_PER_BOOKMARK
+                        + 1)];
+
+                // empty entries at the end of a line don't count but
+                // ones in the middle do, the same as String.split
+                int length = 0;
+                int numberOfEntries = 0;
+                int numberOfNonEmptyEntries = 0;
+                boolean entryIsEmpty = true;
+                while (-1 != next && '\n' != next && '\r' != next) {
+                    if (',' == next) {
+                        numberOfEntries++;
+                        if (!entryIsEmpty) {
+                            numberOfNonEmptyEntries = numberOfEntries;
+                        }
+                        entryIsEmpty = true;
+
+                        // remember where every 64th entry starts
+                        if (0 == numberOfEntries
+                            % MapFileTileSource.ENTRIES_PER_BOOKMARK) {
+                            int bookmark = numberOfEntries
+                                / MapFileTileSource.ENTRIES_PER_BOOKMARK;
+                            if (bookmark == rowBookmarks.length) {
+                                rowBookmarks = Arrays.copyOf(
+                                    rowBookmarks, bookmark * 2);
+                            }
+                            rowBookmarks[bookmark] = length + 1;
+                        }
+                    } else {
+                        entryIsEmpty = false;
+                    }
+                    length++;
+                    next = in.read();
+                }
+                if (!entryIsEmpty) {
+                    numberOfNonEmptyEntries = numberOfEntries + 1;
+                }
+
+                // every row has to be as long as the first one
+                // since the Map is a rectangle
+                if (0 == numberOfRows) {
+                    numberOfColumns = numberOfNonEmptyEntries;
+                } else if (numberOfNonEmptyEntries != numberOfColumns) {
+                    throw new MapFileReadException("line has "
+                        + numberOfNonEmptyEntries
+                        + " tiles but the first line has " + numberOfColumns,
+                        numberOfRows + 1, length + 1);
+                }
+                rowLengths[numberOfRows] = length;
+                bookmarks[numberOfRows] = rowBookmarks;
+                numberOfRows++;
+                offset += length;
+
+                // skip the line ending, which is \n or \r\n
+                if ('\r' == next) {
+                    next = in.read();
+                    offset++;
+                }
+                if ('\n' == next) {
+                    next = in.read();
+                    offset++;
+                }
+            }
+        } catch (IOException e) {
+            throw new MapFileReadException(
+                "could not read map file: " + e.getMessage());
+        } finally {
+            MapFileTileSource.close(in);
+        }
+
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.rowOffsets = rowOffsets;
+        this.rowLengths = rowLengths;
+        this.bookmarks = bookmarks;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    @Override
+    public int getNumberOfColumns() {
+        return this.numberOfColumns;
+    }
+
+    @Override
+    public int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    @Override
+    public void readTiles(TileBlock block) throws MapFileReadException {
+        int firstColumn = block.getFirstColumn();
+        int lastColumn = firstColumn + block.getWidth() - 1;
+        int firstBookmark
+            = firstColumn / MapFileTileSource.ENTRIES_PER_BOOKMARK;
+        int lastBookmark
+            = lastColumn / MapFileTileSource.ENTRIES_PER_BOOKMARK;
+
+        MapFileEntry entry = new MapFileEntry();
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(this.mapFileName, "r");
+            byte[] bytes = new byte[0];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            for (int row = 0; row < block.getHeight(); row++) {
+                int y = block.getFirstRow() + row;
+
+                // read from the bookmark before the first entry we need
+                // to the one after the last entry, or the end of the row
+                int[] rowBookmarks = this.bookmarks[y];
+                int start = rowBookmarks[firstBookmark];
+                int end = this.rowLengths[y];
+                if ((lastBookmark + 1)
+                    * MapFileTileSource.ENTRIES_PER_BOOKMARK
+                    < this.numberOfColumns) {
+                    end = rowBookmarks[lastBookmark + 1];
+                }
+                if (bytes.length < end - start) {
+                    bytes = new byte[end - start];
+                    buffer = ByteBuffer.wrap(bytes);
+                }
+                file.seek(this.rowOffsets[y] + start);
+                file.readFully(bytes, 0, end - start);
+
+                // walk the entries, keeping the ones in the block
+                int x = firstBookmark * MapFileTileSource.ENTRIES_PER_BOOKMARK;
+                int entryStart = 0;
+                for (int i = 0; i <= end - start && x <= lastColumn; i++) {
+                    if (i == end - start || ',' == bytes[i]) {
+                        if (x >= firstColumn) {
+                            entry.read(buffer, entryStart, i, y + 1,
+                                start + entryStart + 1);
+                            block.setTile(
+                                row * block.getWidth() + x - firstColumn,
+                                entry.getTerrainId(),
+                                entry.getBuildingId(),
+                                entry.getOccupant(),
+                                entry.getInvader()
+                            );
+                        }
+                        x++;
+                        entryStart = i + 1;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new MapFileReadException(
+                "could not read map file: " + e.getMessage());
+        } finally {
+            MapFileTileSource.close(file);
+        }
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * closes the parameter file, if it was ever opened, ignoring
+     * anything that goes wrong since we're done with it anyway
+     * @param closeable the file to close, may be null
+     */
+    private static void close(Closeable closeable) {
+        if (null == closeable) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // nothing more to read from it, so nothing to do
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package model.map;
+
+/**
+ * the layers that a Map is drawn in, from the bottom up,
+ * each layer can be drawn onto its own Canvas so that the
+ * layers that never change don't have to be redrawn when
+ * the layers on top of them do
+ * @author Ryan Voor
+ */
+public enum MapLayer {
+    // the Terrain of every Tile
+    TERRAIN,
+
+    // the Buildings on top of the Terrain
+    BUILDINGS,
+
+    // the occupants and invaders on top of the Buildings
+    UNITS
+}
@@ -0,0 +1,124 @@
+package model.map;
+
+// javafx imports
+import javafx.concurrent.Task;
+
+// this project imports
+import model.drawable.image.AssetManager;
+
+/**
+ * reads a Map file and loads every image that the Map needs on a
+ * background thread, the progress of the task goes from 0 to 1 as the
+ * images are decoded, and again as the Map is prepared for play, see
+ * Map.prepareForPlay, so that a progress bar can be bound to it
+ * when the task succeeds its value is the Map, ready to be drawn without
+ * ever touching the disk from the JavaFX thread
+ * the Map is built through the shared MapCache, so a map file that has
+ * been loaded before doesn't have to be parsed again
+ * the message of the task says what it is doing, and once the Map is
+ * built how long that took and whether it came from the cache, so a
+ * label can be bound to it
+ * @author Ryan Voor
+ */
+public class MapLoadingTask extends Task<Map> {
+
+    // instance variables
+    private final String mapFilePath;
+
+    // how long building the Map took and whether it came from the
+    // cache, written by the background thread
+    private volatile double buildMilliseconds;
+    private volatile boolean builtFromCache;
+
+    /**
+     * constructor for the MapLoadingTask class, the task doesn't
+     * do anything until it is started
+     * @param mapFilePath the file path to the file that represents
+     * the map that should be built
+     */
+    public MapLoadingTask(String mapFilePath) {
+        this.mapFilePath = mapFilePath;
+        this.updateMessage("Loading " + mapFilePath + "...");
+    }
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the path of the Map file this task loads
+     * @return String the file path of the Map file
+     */
+    public String getMapFilePath() {
+        return this.mapFilePath;
+    }
+
+    /**
+     * getter for how long building the Map took, not counting loading
+     * its images, only meaningful once the task has succeeded
+     * @return double the milliseconds it took
+     */
+    public double getBuildMilliseconds() {
+        return this.buildMilliseconds;
+    }
+
+    /**
+     * getter for whether the Map was built from a copy in the MapCache
+     * instead of by parsing its map file, only meaningful once the task
+     * has succeeded
+     * @return boolean whether the load was warm
+     */
+    public boolean getBuiltFromCache() {
+        return this.builtFromCache;
+    }
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * runs this task on a new background thread, the thread is a
+     * daemon so it never keeps the application from closing
+     */
+    public void start() {
+        Thread thread = new Thread(this, "map-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    protected Map call() throws Exception {
+        MapCache.Load load
+            = MapCache.getSharedCache().loadMap(this.getMapFilePath());
+        Map map = load.getMap();
+        this.buildMilliseconds = load.getMilliseconds();
+        this.builtFromCache = load.getWasWarm();
+        this.updateMessage(String.format(
+            "Loading images for %s (built in %.1f ms, %s)...",
+            this.getMapFilePath(),
+            this.getBuildMilliseconds(),
+            this.getBuiltFromCache() ? "from the map cache" : "parsed"
+        ));
+
+        AssetManager.ProgressListener progressListener
+            = new AssetManager.ProgressListener() {
+                @Override
+                public void progressChanged(int stepsDone,
+                    int numberOfSteps) {
+                    MapLoadingTask.this.updateProgress(
+                        stepsDone, numberOfSteps);
+                }
+            };
+        AssetManager.getSharedManager().preload(progressListener);
+
+        // the progress starts over for working out what every unit
+        // threatens, so selecting the first unit doesn't have to read
+        // the whole Map on the JavaFX thread
+        this.updateProgress(0, 1);
+        this.updateMessage(String.format(
+            "Working out threats on %s...", this.getMapFilePath()));
+        map.prepareForPlay(progressListener);
+
+        return map;
+    }
+}
@@ -0,0 +1,667 @@
+package model.map;
+
+// javafx imports
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+// this project imports
+import model.drawable.Drawable;
+import model.pathfinding.ReachableSet;
+import model.pathfinding.TileBitSet;
+
+/**
+ * draws a Map onto a stack of Canvases, one Canvas per MapLayer plus
+ * one on top for the selection, hover, and movement range tints
+ * the Terrain layer is rendered once into an offscreen snapshot and
+ * copied onto its Canvas in a single drawImage call, after that it is
+ * only touched if the Terrain of some Tile actually changes
+ * the Building, unit, and tint Canvases each only redraw the Tiles that
+ * look different on that layer than the last time they were drawn, so
+ * a unit walking across the Map never causes the Terrain underneath it
+ * to be repainted
+ * only the Tiles that the Camera can see are ever looked at, so the cost
+ * of a frame depends on the size of the screen and not the size of the
+ * Map, moving or zooming the Camera redraws every visible Tile on every
+ * Canvas
+ * what was drawn is only remembered for the Tiles the Camera can see, so
+ * the memory this takes also depends on the size of the screen, every
+ * visible Tile is redrawn when the Camera moves anyway so nothing is
+ * lost by forgetting the rest
+ * @author Ryan Voor
+ */
+public class MapRenderer {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the tints a Tile can have, these are bit flags
+    private static final int NO_TINT        = 0;
+    private static final int SELECTED_TINT  = 1;
+    private static final int MOVEMENT_TINT  = 2;
+    private static final int HOVERED_TINT   = 4;
+    private static final int DANGER_TINT    = 8;
+
+    // how the tints look
+    private static final Color SELECTED_TINT_COLOR = Color.BLUE;
+    private static final Color MOVEMENT_TINT_COLOR = Color.RED;
+    private static final Color HOVERED_TINT_COLOR  = Color.GREEN;
+    private static final Color DANGER_TINT_COLOR   = Color.ORANGE;
+    private static final double TINT_ALPHA         = 0.3;
+
+    // the frame index we remember for a Drawable that isn't there
+    private static final int NO_FRAME = -1;
+
+    // the column or row we remember for a Tile that isn't there
+    private static final int NO_TILE = -1;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    private final Map map;
+
+    // the Canvases, from the bottom of the stack to the top
+    private final Canvas terrainCanvas;
+    private final Canvas buildingCanvas;
+    private final Canvas unitCanvas;
+    private final Canvas overlayCanvas;
+
+    // decides which part of the Map is on the screen, and where the
+    // Camera was the last time a frame was drawn
+    private final Camera camera;
+    private int drawnCameraX;
+    private int drawnCameraY;
+    private int drawnCameraZoomLevel;
+
+    // the visible part of the Terrain layer of the Map, rendered once,
+    // and whether it still matches what the Camera shows of the Map
+    private WritableImage terrainSnapshot;
+    private boolean terrainSnapshotIsStale;
+
+    // what each visible Tile looked like the last time it was drawn,
+    // indexed by where the Tile is among the visible Tiles, see
+    // getVisibleTileIndex, the arrays only ever grow when zooming out
+    // shows more Tiles than they can hold
+    private Drawable[] drawnTerrains;
+    private Drawable[] drawnBuildings;
+    private Drawable[] drawnOccupants;
+    private Drawable[] drawnInvaders;
+    private int[] drawnTerrainFrames;
+    private int[] drawnBuildingFrames;
+    private int[] drawnOccupantFrames;
+    private int[] drawnInvaderFrames;
+    private int[] drawnTints;
+
+    // the top left visible Tile and how many columns are visible,
+    // which decide where each visible Tile is kept in the arrays
+    private int firstDrawnColumn;
+    private int firstDrawnRow;
+    private int numberOfDrawnColumns;
+
+    // whether every Tile has to be redrawn next frame no matter what
+    private boolean everythingIsDirty;
+
+    // the tints that the next frame should show
+    private int selectedColumn;
+    private int selectedRow;
+    private int hoveredColumn;
+    private int hoveredRow;
+    private ReachableSet movementRange;
+    private TileBitSet dangerZone;
+
+    // how many Tiles were redrawn on each Canvas during the last frame
+    private int numberOfTerrainTilesRedrawnLastFrame;
+    private int numberOfBuildingTilesRedrawnLastFrame;
+    private int numberOfUnitTilesRedrawnLastFrame;
+    private int numberOfOverlayTilesRedrawnLastFrame;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the MapRenderer class, the Canvases should all be
+     * the same size and stacked on top of each other in this order
+     * @param map the Map that will be drawn
+     * @param terrainCanvas the bottom Canvas, the Terrain is drawn on it
+     * @param buildingCanvas the Canvas that the Buildings are drawn on
+     * @param unitCanvas the Canvas that the occupants and invaders
+     * are drawn on
+     * @param overlayCanvas the top Canvas, the tints are drawn on it
+     */
+    public MapRenderer(Map map, Canvas terrainCanvas, Canvas buildingCanvas,
+        Canvas unitCanvas, Canvas overlayCanvas) {
+        this.map            = map;
+        this.terrainCanvas  = terrainCanvas;
+        this.buildingCanvas = buildingCanvas;
+        this.unitCanvas     = unitCanvas;
+        this.overlayCanvas  = overlayCanvas;
+        this.terrainSnapshotIsStale = true;
+
+        // the screen is as big as the Canvases are
+        this.camera = new Camera(
+            map,
+            (int) overlayCanvas.getWidth(),
+            (int) overlayCanvas.getHeight()
+        );
+        this.drawnCameraX = this.camera.getX();
+        this.drawnCameraY = this.camera.getY();
+        this.drawnCameraZoomLevel = this.camera.getZoomLevel();
+
+        this.drawnTerrains = new Drawable[0];
+        this.fitDrawnTilesToCamera();
+
+        this.selectedColumn = NO_TILE;
+        this.selectedRow    = NO_TILE;
+        this.hoveredColumn  = NO_TILE;
+        this.hoveredRow     = NO_TILE;
+        this.everythingIsDirty = true;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the Map that this renderer draws
+     * @return Map the Map that this renderer draws
+     */
+    public Map getMap() {
+        return this.map;
+    }
+
+    /**
+     * getter for the Camera that decides which part of the Map
+     * is drawn, moving it scrolls the Map on the screen
+     * @return Camera the camera of this renderer
+     */
+    public Camera getCamera() {
+        return this.camera;
+    }
+
+    /**
+     * getter for the snapshot of the visible Terrain layer of the Map
+     * @return WritableImage the snapshot, null if it hasn't been
+     * rendered yet
+     */
+    public WritableImage getTerrainSnapshot() {
+        return this.terrainSnapshot;
+    }
+
+    /**
+     * getter for the number of Tiles that were redrawn across every
+     * Canvas during the last frame, useful for checking that static
+     * Tiles are skipped
+     * @return int the number of Tiles that were redrawn
+     */
+    public int getNumberOfTilesRedrawnLastFrame() {
+        return this.numberOfTerrainTilesRedrawnLastFrame
+            + this.numberOfBuildingTilesRedrawnLastFrame
+            + this.numberOfUnitTilesRedrawnLastFrame
+            + this.numberOfOverlayTilesRedrawnLastFrame;
+    }
+
+    /**
+     * getter for the number of Tiles that were redrawn on the Canvas
+     * of the parameter layer during the last frame, the Terrain count
+     * does not include copying the snapshot
+     * @param layer the layer we want to know about
+     * @return int the number of Tiles that were redrawn on that layer
+     */
+    public int getNumberOfTilesRedrawnLastFrame(MapLayer layer) {
+        switch (layer) {
+        case TERRAIN:
+            return this.numberOfTerrainTilesRedrawnLastFrame;
+        case BUILDINGS:
+            return this.numberOfBuildingTilesRedrawnLastFrame;
+        case UNITS:
+            return this.numberOfUnitTilesRedrawnLastFrame;
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * getter for the number of Tiles whose tints were redrawn
+     * during the last frame
+     * @return int the number of Tiles redrawn on the overlay Canvas
+     */
+    public int getNumberOfOverlayTilesRedrawnLastFrame() {
+        return this.numberOfOverlayTilesRedrawnLastFrame;
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * sets the Tile that should get the selection tint
+     * @param column the column of the selected Tile
+     * @param row the row of the selected Tile
+     */
+    public void setSelectedTile(int column, int row) {
+        this.selectedColumn = column;
+        this.selectedRow    = row;
+    }
+
+    /**
+     * makes it so that no Tile gets the selection tint
+     */
+    public void clearSelectedTile() {
+        this.setSelectedTile(NO_TILE, NO_TILE);
+    }
+
+    /**
+     * sets the Tile that should get the hover tint, the hover tint is
+     * not shown if the hovered Tile is also the selected Tile
+     * @param column the column of the hovered Tile
+     * @param row the row of the hovered Tile
+     */
+    public void setHoveredTile(int column, int row) {
+        this.hoveredColumn = column;
+        this.hoveredRow    = row;
+    }
+
+    /**
+     * sets the Tiles that should get the movement range tint
+     * @param movementRange the Tiles in the movement range,
+     * null if no Tile is
+     */
+    public void setMovementRange(ReachableSet movementRange) {
+        this.movementRange = movementRange;
+    }
+
+    /**
+     * sets the Tiles that should get the danger tint, the Tiles that
+     * enemy units could attack next turn for example, see
+     * ThreatMap.getTilesThreatenedByEnemiesOf
+     * @param dangerZone the Tiles in danger, null if no Tile is
+     */
+    public void setDangerZone(TileBitSet dangerZone) {
+        this.dangerZone = dangerZone;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * makes it so that every Tile on every Canvas gets redrawn next
+     * frame, this needs to be called if anything other than this
+     * renderer draws on the Canvases
+     */
+    public void markEverythingDirty() {
+        this.everythingIsDirty = true;
+    }
+
+    /**
+     * makes it so that the Terrain snapshot gets rendered again the
+     * next time the whole Terrain Canvas has to be redrawn, this needs
+     * to be called if the Terrain images themselves change
+     */
+    public void markTerrainSnapshotStale() {
+        this.terrainSnapshotIsStale = true;
+    }
+
+    /**
+     * draws a frame, on each Canvas only the Tiles that look different
+     * on that layer than they did during the last frame are redrawn
+     * @param time the time used to calculate animation images
+     */
+    public void render(long time) {
+        Map map = this.getMap();
+        Camera camera = this.getCamera();
+
+        // every Tile on the screen has moved if the Camera has, so the
+        // snapshot is out of date and every layer has to be redrawn
+        boolean cameraMoved = camera.getX() != this.drawnCameraX
+            || camera.getY() != this.drawnCameraY
+            || camera.getZoomLevel() != this.drawnCameraZoomLevel;
+        if (cameraMoved) {
+            this.drawnCameraX = camera.getX();
+            this.drawnCameraY = camera.getY();
+            this.drawnCameraZoomLevel = camera.getZoomLevel();
+            this.everythingIsDirty = true;
+            this.terrainSnapshotIsStale = true;
+            this.fitDrawnTilesToCamera();
+        }
+        boolean redrawEverything = this.everythingIsDirty;
+
+        if (redrawEverything) {
+            // wipe out anything left over on the Canvases, including
+            // anything outside the edges of the Map
+            MapRenderer.clearCanvas(this.buildingCanvas);
+            MapRenderer.clearCanvas(this.unitCanvas);
+            MapRenderer.clearCanvas(this.overlayCanvas);
+
+            if (cameraMoved) {
+                // the Terrain gets drawn Tile by Tile below, it isn't
+                // worth taking a snapshot that would only last until
+                // the Camera moves again
+                MapRenderer.clearCanvas(this.terrainCanvas);
+            } else {
+                // put the whole Terrain back in one go
+                this.drawTerrainSnapshot(time);
+            }
+        }
+
+        int terrainTilesRedrawn  = 0;
+        int buildingTilesRedrawn = 0;
+        int unitTilesRedrawn     = 0;
+        int overlayTilesRedrawn  = 0;
+        for (int y = camera.getFirstVisibleRow();
+            y <= camera.getLastVisibleRow(); y++) {
+            for (int x = camera.getFirstVisibleColumn();
+                x <= camera.getLastVisibleColumn(); x++) {
+                int tileNumber = map.getTileNumber(x, y);
+                int index = this.getVisibleTileIndex(x, y);
+                Tile tile = map.getTileFromIndices(x, y);
+
+                // the snapshot already holds the Terrain so it only
+                // gets patched if the Terrain of this Tile changed
+                // since the snapshot was taken
+                boolean terrainChanged = this.updateDrawable(
+                    this.drawnTerrains, this.drawnTerrainFrames,
+                    index, tile.getTerrain(), time);
+                if (terrainChanged || cameraMoved) {
+                    this.redrawTile(this.terrainCanvas, MapLayer.TERRAIN,
+                        tile, x, y, time);
+                    this.terrainSnapshotIsStale = true;
+                    terrainTilesRedrawn++;
+                }
+
+                boolean buildingChanged = this.updateDrawable(
+                    this.drawnBuildings, this.drawnBuildingFrames,
+                    index, tile.getBuilding(), time);
+                if (buildingChanged || redrawEverything) {
+                    this.redrawTile(this.buildingCanvas, MapLayer.BUILDINGS,
+                        tile, x, y, time);
+                    buildingTilesRedrawn++;
+                }
+
+                boolean unitsChanged = this.updateUnits(index, tile, time);
+                if (unitsChanged || redrawEverything) {
+                    this.redrawTile(this.unitCanvas, MapLayer.UNITS,
+                        tile, x, y, time);
+                    unitTilesRedrawn++;
+                }
+
+                int tint = this.getTint(x, y, tileNumber);
+                if (this.drawnTints[index] != tint || redrawEverything) {
+                    this.drawnTints[index] = tint;
+                    this.redrawTints(x, y, tint);
+                    overlayTilesRedrawn++;
+                }
+            }
+        }
+
+        this.everythingIsDirty = false;
+        this.numberOfTerrainTilesRedrawnLastFrame  = terrainTilesRedrawn;
+        this.numberOfBuildingTilesRedrawnLastFrame = buildingTilesRedrawn;
+        this.numberOfUnitTilesRedrawnLastFrame     = unitTilesRedrawn;
+        this.numberOfOverlayTilesRedrawnLastFrame  = overlayTilesRedrawn;
+    }
+
+    /**
+     * copies the snapshot of the Terrain layer onto the Terrain Canvas,
+     * rendering a new snapshot first if there isn't an up to date one
+     * @param time the time used to calculate animation images
+     */
+    private void drawTerrainSnapshot(long time) {
+        if (this.terrainSnapshotIsStale) {
+            this.renderTerrainSnapshot(time);
+        }
+
+        MapRenderer.clearCanvas(this.terrainCanvas);
+        this.terrainCanvas.getGraphicsContext2D()
+            .drawImage(this.terrainSnapshot, 0, 0);
+    }
+
+    /**
+     * renders the visible part of the Terrain layer of the Map onto an
+     * offscreen Canvas and keeps a snapshot of it, the snapshot is only
+     * as big as the screen no matter how big the Map is
+     * @param time the time used to calculate animation images
+     */
+    private void renderTerrainSnapshot(long time) {
+        Map map = this.getMap();
+        Camera camera = this.getCamera();
+        Canvas offscreenCanvas = new Canvas(
+            camera.getViewportWidth(),
+            camera.getViewportHeight()
+        );
+        map.draw(offscreenCanvas, MapLayer.TERRAIN, camera, time);
+
+        // keep the parts of the snapshot with no Terrain see-through
+        // instead of the default white
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        this.terrainSnapshot = offscreenCanvas.snapshot(parameters, null);
+        this.terrainSnapshotIsStale = false;
+
+        // remember which Terrain went into the snapshot so that
+        // render notices if any of it changes later on
+        for (int y = camera.getFirstVisibleRow();
+            y <= camera.getLastVisibleRow(); y++) {
+            for (int x = camera.getFirstVisibleColumn();
+                x <= camera.getLastVisibleColumn(); x++) {
+                this.updateDrawable(
+                    this.drawnTerrains,
+                    this.drawnTerrainFrames,
+                    this.getVisibleTileIndex(x, y),
+                    map.getTileFromIndices(x, y).getTerrain(),
+                    time
+                );
+            }
+        }
+    }
+
+    /**
+     * figures out which tints the Tile at the parameter indices
+     * should have this frame
+     * @param x the column of the Tile
+     * @param y the row of the Tile
+     * @param tileNumber the number of the Tile
+     * @return int the tints as bit flags
+     */
+    private int getTint(int x, int y, int tileNumber) {
+        int tint = NO_TINT;
+
+        boolean isSelected
+            = x == this.selectedColumn && y == this.selectedRow;
+        if (isSelected) {
+            tint |= SELECTED_TINT;
+        }
+        if (null != this.movementRange
+            && this.movementRange.contains(tileNumber)) {
+            tint |= MOVEMENT_TINT;
+        }
+        if (null != this.dangerZone && this.dangerZone.contains(tileNumber)) {
+            tint |= DANGER_TINT;
+        }
+        // the hovered Tile doesn't get tinted if it is also the selected
+        // Tile so that the selection color is easy to see
+        if (!isSelected
+            && x == this.hoveredColumn && y == this.hoveredRow) {
+            tint |= HOVERED_TINT;
+        }
+
+        return tint;
+    }
+
+    /**
+     * moves the remembered Tiles to wherever the Camera is now, growing
+     * the arrays if more Tiles are visible than they can hold, every
+     * visible Tile has to be redrawn after this since what is remembered
+     * for it belonged to some other Tile
+     */
+    private void fitDrawnTilesToCamera() {
+        Camera camera = this.getCamera();
+        this.firstDrawnColumn = camera.getFirstVisibleColumn();
+        this.firstDrawnRow = camera.getFirstVisibleRow();
+        this.numberOfDrawnColumns = Math.max(0,
+            camera.getLastVisibleColumn() - this.firstDrawnColumn + 1);
+        int numberOfDrawnRows = Math.max(0,
+            camera.getLastVisibleRow() - this.firstDrawnRow + 1);
+
+        int numberOfDrawnTiles = this.numberOfDrawnColumns * numberOfDrawnRows;
+        if (numberOfDrawnTiles > this.drawnTerrains.length) {
+            this.drawnTerrains       = new Drawable[numberOfDrawnTiles];
+            this.drawnBuildings      = new Drawable[numberOfDrawnTiles];
+            this.drawnOccupants      = new Drawable[numberOfDrawnTiles];
+            this.drawnInvaders       = new Drawable[numberOfDrawnTiles];
+            this.drawnTerrainFrames  = new int[numberOfDrawnTiles];
+            this.drawnBuildingFrames = new int[numberOfDrawnTiles];
+            this.drawnOccupantFrames = new int[numberOfDrawnTiles];
+            this.drawnInvaderFrames  = new int[numberOfDrawnTiles];
+            this.drawnTints          = new int[numberOfDrawnTiles];
+        }
+    }
+
+    /**
+     * figures out where what was drawn on the visible Tile at the
+     * parameter indices is remembered
+     * @param x the column of the Tile
+     * @param y the row of the Tile
+     * @return int the index of the Tile in the drawn arrays
+     */
+    private int getVisibleTileIndex(int x, int y) {
+        return (y - this.firstDrawnRow) * this.numberOfDrawnColumns
+            + x - this.firstDrawnColumn;
+    }
+
+    /**
+     * compares the occupant and invader of the parameter Tile to what was
+     * drawn there last time and remembers the new ones
+     * @param index where the Tile is remembered, see getVisibleTileIndex
+     * @param tile the Tile
+     * @param time the time used to calculate animation images
+     * @return boolean whether the units on the Tile look any different
+     */
+    private boolean updateUnits(int index, Tile tile, long time) {
+        boolean changed = this.updateDrawable(this.drawnOccupants,
+            this.drawnOccupantFrames, index, tile.getOccupant(), time);
+
+        // the invader is only ever drawn when there is an occupant
+        // so it only matters if there is one
+        Drawable invader = tile.hasOccupant() ? tile.getInvader() : null;
+        changed |= this.updateDrawable(this.drawnInvaders,
+            this.drawnInvaderFrames, index, invader, time);
+
+        return changed;
+    }
+
+    /**
+     * compares one Drawable on a Tile to the one that was drawn there
+     * last time and remembers the new one
+     * @param drawnDrawables the Drawables that were last drawn
+     * @param drawnFrames the animation frames that were last drawn
+     * @param index where the Tile is remembered, see getVisibleTileIndex
+     * @param drawable the Drawable that is there now, may be null
+     * @param time the time used to calculate animation images
+     * @return boolean whether the Drawable or its frame changed
+     */
+    private boolean updateDrawable(Drawable[] drawnDrawables,
+        int[] drawnFrames, int index, Drawable drawable, long time) {
+        int frame
+            = null == drawable ? NO_FRAME : drawable.getFrameIndex(time);
+
+        if (drawnDrawables[index] == drawable
+            && drawnFrames[index] == frame) {
+            return false;
+        }
+
+        drawnDrawables[index] = drawable;
+        drawnFrames[index]    = frame;
+        return true;
+    }
+
+    /**
+     * wipes out and redraws one layer of a single Tile
+     * @param canvas the Canvas of that layer
+     * @param layer the layer to redraw
+     * @param tile the Tile to redraw
+     * @param column the column of the Tile
+     * @param row the row of the Tile
+     * @param time the time used to calculate animation images
+     */
+    private void redrawTile(Canvas canvas, MapLayer layer, Tile tile,
+        int column, int row, long time) {
+        Camera camera = this.getCamera();
+        int xPosition = camera.getScreenXOfColumn(column);
+        int yPosition = camera.getScreenYOfRow(row);
+
+        canvas.getGraphicsContext2D().clearRect(
+            xPosition,
+            yPosition,
+            camera.getTileWidth(),
+            camera.getTileHeight()
+        );
+
+        tile.draw(
+            canvas,
+            layer,
+            xPosition,
+            yPosition,
+            camera.getTileWidth(),
+            camera.getTileHeight(),
+            time
+        );
+    }
+
+    /**
+     * wipes out and redraws the tints of a single Tile
+     * @param column the column of the Tile
+     * @param row the row of the Tile
+     * @param tint the tints the Tile has this frame
+     */
+    private void redrawTints(int column, int row, int tint) {
+        GraphicsContext graphicsContext
+            = this.overlayCanvas.getGraphicsContext2D();
+        graphicsContext.clearRect(
+            this.getCamera().getScreenXOfColumn(column),
+            this.getCamera().getScreenYOfRow(row),
+            this.getCamera().getTileWidth(),
+            this.getCamera().getTileHeight()
+        );
+
+        if (0 != (tint & SELECTED_TINT)) {
+            Map.tintTile(this.overlayCanvas, this.getCamera(), column, row,
+                SELECTED_TINT_COLOR, TINT_ALPHA);
+        }
+        if (0 != (tint & MOVEMENT_TINT)) {
+            Map.tintTile(this.overlayCanvas, this.getCamera(), column, row,
+                MOVEMENT_TINT_COLOR, TINT_ALPHA);
+        }
+        if (0 != (tint & DANGER_TINT)) {
+            Map.tintTile(this.overlayCanvas, this.getCamera(), column, row,
+                DANGER_TINT_COLOR, TINT_ALPHA);
+        }
+        if (0 != (tint & HOVERED_TINT)) {
+            Map.tintTile(this.overlayCanvas, this.getCamera(), column, row,
+                HOVERED_TINT_COLOR, TINT_ALPHA);
+        }
+    }
+
+    /**
+     * wipes out everything on the parameter Canvas
+     * @param canvas the Canvas to wipe out
+     */
+    private static void clearCanvas(Canvas canvas) {
+        canvas.getGraphicsContext2D().clearRect(
+            0,
+            0,
+            canvas.getWidth(),
+            canvas.getHeight()
+        );
+    }
+}
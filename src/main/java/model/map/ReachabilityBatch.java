@@ -0,0 +1,144 @@
+package model.map;
+
+// java standard library imports
+import java.util.EnumMap;
+import java.util.concurrent.RecursiveAction;
+
+// this project imports
+import model.drawable.tileOccupant.MovementClass;
+import model.drawable.tileOccupant.TileOccupant;
+import model.pathfinding.MovementCostGrid;
+import model.pathfinding.ReachableSet;
+
+/**
+ * works out the movement ranges of a list of units on a fork-join pool
+ * the list is split in half over and over until each piece is small
+ * enough to just do, and the pieces are spread across the threads of the
+ * pool, so with enough units the work scales with the number of cores
+ * every piece reads the same copies of the Map's movement cost grids,
+ * which nothing ever writes to, so the threads never have to wait on
+ * each other or on the JavaFX thread, and every thread does its searches
+ * with its own DijkstraSearch
+ * @author Ryan Voor
+ */
+public class ReachabilityBatch extends RecursiveAction {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // a piece with this many units or fewer isn't split any further,
+    // small enough that the pool can balance the work and big enough
+    // that splitting doesn't cost more than the searches
+    private static final int UNITS_PER_PIECE = 16;
+
+    // RecursiveAction is Serializable, but a batch only ever lives in
+    // one pool for as long as one call takes, so it is never written
+    // out and none of what it points at has to be serializable
+    private static final long serialVersionUID = 1L;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the Map, only used to hand out the searches
+    private final transient Map map;
+
+    // the copies of the movement cost grids every search reads
+    private final transient EnumMap<MovementClass, MovementCostGrid>
+        movementCostGrids;
+
+    // the units, where they stand, and where their results go
+    private final transient int[] tileNumbers;
+    private final transient TileOccupant[] occupants;
+    private final transient ReachableSet[] reachableSets;
+
+    // the part of the lists that this piece does
+    private final int firstIndex;
+    private final int lastIndex;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ReachabilityBatch class
+     * @param map the Map the units are on
+     * @param movementCostGrids copies of the movement cost grids of the
+     * Map that nothing will write to while the batch runs
+     * @param tileNumbers the numbers of the Tiles the units stand on
+     * @param occupants the units
+     * @param reachableSets where the movement range of each unit goes
+     * @param firstIndex the first unit this piece does
+     * @param lastIndex one past the last unit this piece does
+     */
+    ReachabilityBatch(Map map,
+        EnumMap<MovementClass, MovementCostGrid> movementCostGrids,
+        int[] tileNumbers, TileOccupant[] occupants,
+        ReachableSet[] reachableSets, int firstIndex, int lastIndex) {
+        this.map = map;
+        this.movementCostGrids = movementCostGrids;
+        this.tileNumbers = tileNumbers;
+        this.occupants = occupants;
+        this.reachableSets = reachableSets;
+        this.firstIndex = firstIndex;
+        this.lastIndex = lastIndex;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    @Override
+    protected void compute() {
+        if (this.lastIndex - this.firstIndex
+            <= ReachabilityBatch.UNITS_PER_PIECE) {
+            this.computeDirectly();
+            return;
+        }
+
+        // split in half and let the pool hand the halves out
+        int middleIndex = (this.firstIndex + this.lastIndex) >>> 1;
+        RecursiveAction.invokeAll(
+            this.split(this.firstIndex, middleIndex),
+            this.split(middleIndex, this.lastIndex)
+        );
+    }
+
+    /**
+     * works out the movement range of every unit in this piece
+     * on the current thread
+     */
+    private void computeDirectly() {
+        for (int i = this.firstIndex; i < this.lastIndex; i++) {
+            TileOccupant occupant = this.occupants[i];
+            this.reachableSets[i] = this.map.getReachabilitySearch()
+                .searchWithinBudget(
+                    this.movementCostGrids.get(occupant.getMovementClass()),
+                    this.tileNumbers[i],
+                    occupant.getMovementRange()
+                );
+        }
+    }
+
+    /**
+     * makes a piece that does part of the same lists as this piece
+     * @param firstIndex the first unit the new piece does
+     * @param lastIndex one past the last unit the new piece does
+     * @return ReachabilityBatch the new piece
+     */
+    private ReachabilityBatch split(int firstIndex, int lastIndex) {
+        return new ReachabilityBatch(
+            this.map,
+            this.movementCostGrids,
+            this.tileNumbers,
+            this.occupants,
+            this.reachableSets,
+            firstIndex,
+            lastIndex
+        );
+    }
+}
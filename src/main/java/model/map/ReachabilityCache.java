@@ -0,0 +1,444 @@
+package model.map;
+
+// java standard library imports
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+
+// this project imports
+import model.drawable.tileOccupant.MovementClass;
+import model.drawable.tileOccupant.TileOccupant;
+import model.pathfinding.ReachableSet;
+
+/**
+ * remembers which Tiles every TileOccupant on a Map can move to, so that
+ * the game loop can ask for the movement range of the selected unit on
+ * every tick without running the search again every time, and so that
+ * a whole army's movement ranges can be kept up to date as units move
+ * a result is remembered for the Tile it was worked out from and the
+ * TileOccupant that was standing there, and it only depends on the Tiles
+ * that its search looked at: the Tiles in the result, the starting Tile,
+ * and their neighbours, which is the search region of the result
+ * when the movement cost of a Tile changes (a unit moves onto it or off
+ * of it, or its Terrain is swapped) only the results whose search region
+ * holds that Tile, for units that move the way whose cost changed, are
+ * marked dirty, every other result stays exactly as it was
+ * a dirty result gets worked out again the next time it is asked for, or
+ * all at once with repairDirtyEntries, so moving one unit only costs a
+ * few small searches no matter how many units are on the Map
+ * @author Ryan Voor
+ */
+public class ReachabilityCache {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the width of the Map, used to turn Tile numbers into indices
+    private final int numberOfColumns;
+
+    // every remembered result, dirty or not
+    private final HashMap<Key, Entry> entries;
+
+    // how often a result was found, had to be worked out from
+    // scratch, or had to be worked out again after going dirty
+    private long numberOfHits;
+    private long numberOfMisses;
+    private long numberOfRepairs;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ReachabilityCache class, the cache
+     * starts out empty
+     * @param numberOfColumns the number of columns of the Map
+     */
+    public ReachabilityCache(int numberOfColumns) {
+        this.numberOfColumns = numberOfColumns;
+        this.entries = new HashMap<Key, Entry>();
+        this.numberOfHits = 0;
+        this.numberOfMisses = 0;
+        this.numberOfRepairs = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * returns the remembered result for the parameter TileOccupant
+     * standing on the parameter Tile, as long as none of the Tiles its
+     * search looked at have changed since
+     * @param tileNumber the number of the Tile the occupant is on
+     * @param occupant the TileOccupant standing on that Tile
+     * @return ReachableSet the remembered result, or null if there
+     * isn't one or it has gone dirty
+     */
+    public synchronized ReachableSet get(int tileNumber,
+        TileOccupant occupant) {
+        Entry entry = this.entries.get(new Key(tileNumber, occupant));
+        if (null == entry) {
+            this.numberOfMisses++;
+            return null;
+        }
+        if (entry.isDirty()) {
+            this.numberOfRepairs++;
+            return null;
+        }
+        this.numberOfHits++;
+        return entry.getReachableSet();
+    }
+
+    /**
+     * getter for the number of results that have gone dirty
+     * and haven't been worked out again yet
+     * @return int the number of dirty results
+     */
+    public synchronized int getNumberOfDirtyEntries() {
+        int numberOfDirtyEntries = 0;
+        for (Entry entry : this.entries.values()) {
+            if (entry.isDirty()) {
+                numberOfDirtyEntries++;
+            }
+        }
+        return numberOfDirtyEntries;
+    }
+
+    /**
+     * getter for the number of results that are remembered right now,
+     * dirty ones included
+     * @return int the number of remembered results
+     */
+    public synchronized int getNumberOfEntries() {
+        return this.entries.size();
+    }
+
+    /**
+     * getter for how many times a remembered result was found
+     * @return long the number of hits
+     */
+    public synchronized long getNumberOfHits() {
+        return this.numberOfHits;
+    }
+
+    /**
+     * getter for how many times a result had to be worked out
+     * from scratch
+     * @return long the number of misses
+     */
+    public synchronized long getNumberOfMisses() {
+        return this.numberOfMisses;
+    }
+
+    /**
+     * getter for how many times a dirty result had to be worked out again
+     * @return long the number of repairs
+     */
+    public synchronized long getNumberOfRepairs() {
+        return this.numberOfRepairs;
+    }
+
+    /**
+     * returns a one line summary of how well the cache is doing,
+     * handy for printing while tuning
+     * @return String the hits, misses, repairs, and number of entries
+     */
+    public synchronized String getStatistics() {
+        return "reachability cache: " + this.numberOfHits + " hits, "
+            + this.numberOfMisses + " misses, "
+            + this.numberOfRepairs + " repairs, "
+            + this.entries.size() + " entries";
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * remembers the parameter result for the parameter TileOccupant
+     * standing on the parameter Tile, replacing a dirty result if
+     * there was one
+     * @param tileNumber the number of the Tile the occupant is on
+     * @param occupant the TileOccupant standing on that Tile
+     * @param result which Tiles the occupant can move to
+     */
+    public synchronized void put(int tileNumber, TileOccupant occupant,
+        ReachableSet result) {
+        Key key = new Key(tileNumber, occupant);
+        this.entries.put(key, new Entry(key, result, this.numberOfColumns));
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * tells the cache that something on the parameter Tile was set,
+     * every result whose search region holds the Tile, for a unit that
+     * moves one of the parameter ways, is marked dirty
+     * results that were worked out for a different TileOccupant standing
+     * on this Tile are forgotten entirely since that unit isn't there
+     * anymore
+     * @param tileNumber the number of the Tile that was set
+     * @param occupant the TileOccupant standing on the Tile now
+     * @param changedMovementClasses the ways of moving whose movement
+     * cost of the Tile changed
+     */
+    public synchronized void tileChanged(int tileNumber,
+        TileOccupant occupant, EnumSet<MovementClass> changedMovementClasses) {
+        int column = tileNumber % this.numberOfColumns;
+        int row = tileNumber / this.numberOfColumns;
+
+        ArrayList<Key> departedUnits = new ArrayList<Key>();
+        for (Entry entry : this.entries.values()) {
+            Key key = entry.getKey();
+            if (key.getTileNumber() == tileNumber
+                && key.getOccupant() != occupant) {
+                departedUnits.add(key);
+            } else if (!entry.isDirty()
+                && changedMovementClasses.contains(entry.getMovementClass())
+                && entry.searchRegionContains(column, row)) {
+                entry.markDirty();
+            }
+        }
+
+        for (Key key : departedUnits) {
+            this.entries.remove(key);
+        }
+    }
+
+    /**
+     * works out every dirty result again right away instead of waiting
+     * for it to be asked for, at the start of a turn for example
+     * @param map the Map this cache belongs to
+     * @return int the number of results that were worked out again
+     */
+    public int repairDirtyEntries(Map map) {
+        // grab the dirty keys first since working each one out
+        // again puts a new entry into the cache
+        ArrayList<Key> dirtyKeys = new ArrayList<Key>();
+        synchronized (this) {
+            for (Entry entry : this.entries.values()) {
+                if (entry.isDirty()) {
+                    dirtyKeys.add(entry.getKey());
+                }
+            }
+        }
+
+        for (Key key : dirtyKeys) {
+            map.getTilesToWhichOccupantCanMove(
+                key.getTileNumber() % this.numberOfColumns,
+                key.getTileNumber() / this.numberOfColumns
+            );
+        }
+        return dirtyKeys.size();
+    }
+
+    /**
+     * forgets every remembered result
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * what a result is remembered by, the Tile the occupant is standing
+     * on and the occupant itself, occupants are compared by identity
+     * since two Infantry on the same Tile at different times are
+     * still different units
+     * @author Ryan Voor
+     */
+    private static class Key {
+
+        // instance variables
+        private final int tileNumber;
+        private final TileOccupant occupant;
+
+        /**
+         * constructor for the Key class
+         * @param tileNumber the number of the Tile the occupant is on
+         * @param occupant the TileOccupant standing on that Tile
+         */
+        public Key(int tileNumber, TileOccupant occupant) {
+            this.tileNumber = tileNumber;
+            this.occupant = occupant;
+        }
+
+        /**
+         * getter for the number of the Tile the occupant is on
+         * @return int the number of the Tile
+         */
+        public int getTileNumber() {
+            return this.tileNumber;
+        }
+
+        /**
+         * getter for the TileOccupant standing on the Tile
+         * @return TileOccupant the occupant
+         */
+        public TileOccupant getOccupant() {
+            return this.occupant;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key otherKey = (Key) other;
+            return this.tileNumber == otherKey.tileNumber
+                && this.occupant == otherKey.occupant;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.tileNumber
+                + System.identityHashCode(this.occupant);
+        }
+    }
+
+    /**
+     * one remembered result along with the box around its search region,
+     * the box lets most Tile changes skip the result without looking
+     * at its Tiles at all
+     * @author Ryan Voor
+     */
+    private static class Entry {
+
+        // instance variables
+        private final Key key;
+        private final MovementClass movementClass;
+        private final ReachableSet reachableSet;
+        private final int numberOfColumns;
+        private boolean dirty;
+
+        // the box around every Tile the search looked at
+        private int firstColumn;
+        private int lastColumn;
+        private int firstRow;
+        private int lastRow;
+
+        /**
+         * constructor for the Entry class
+         * @param key the Tile and occupant the result belongs to
+         * @param reachableSet the result
+         * @param numberOfColumns the number of columns of the Map
+         */
+        public Entry(Key key, ReachableSet reachableSet,
+            int numberOfColumns) {
+            this.key = key;
+            this.movementClass = key.getOccupant().getMovementClass();
+            this.reachableSet = reachableSet;
+            this.numberOfColumns = numberOfColumns;
+            this.dirty = false;
+
+            // start with the box around the starting Tile, then grow it
+            // around every reachable Tile, then by one more Tile in every
+            // direction for the neighbours the search looked at
+            int start = key.getTileNumber();
+            this.firstColumn = start % numberOfColumns;
+            this.lastColumn = this.firstColumn;
+            this.firstRow = start / numberOfColumns;
+            this.lastRow = this.firstRow;
+            for (int i = 0; i < reachableSet.size(); i++) {
+                int column = reachableSet.getTileNumber(i) % numberOfColumns;
+                int row = reachableSet.getTileNumber(i) / numberOfColumns;
+                this.firstColumn = Math.min(this.firstColumn, column);
+                this.lastColumn = Math.max(this.lastColumn, column);
+                this.firstRow = Math.min(this.firstRow, row);
+                this.lastRow = Math.max(this.lastRow, row);
+            }
+            this.firstColumn--;
+            this.lastColumn++;
+            this.firstRow--;
+            this.lastRow++;
+        }
+
+        /**
+         * getter for the Tile and occupant this result belongs to
+         * @return Key the key of this result
+         */
+        public Key getKey() {
+            return this.key;
+        }
+
+        /**
+         * getter for the way the occupant of this result moves
+         * @return MovementClass the way the occupant moves
+         */
+        public MovementClass getMovementClass() {
+            return this.movementClass;
+        }
+
+        /**
+         * getter for the result
+         * @return ReachableSet the Tiles the occupant can move to
+         */
+        public ReachableSet getReachableSet() {
+            return this.reachableSet;
+        }
+
+        /**
+         * returns whether a Tile in the search region of this result
+         * has changed since it was worked out
+         * @return boolean whether this result is out of date
+         */
+        public boolean isDirty() {
+            return this.dirty;
+        }
+
+        /**
+         * marks this result as out of date
+         */
+        public void markDirty() {
+            this.dirty = true;
+        }
+
+        /**
+         * returns whether the search that worked out this result looked
+         * at the Tile at the parameter indices, which it did if the Tile
+         * is the start, is reachable, or is next to one of those
+         * @param column the column of the Tile
+         * @param row the row of the Tile
+         * @return boolean whether the Tile is in the search region
+         */
+        public boolean searchRegionContains(int column, int row) {
+            if (column < this.firstColumn || column > this.lastColumn
+                || row < this.firstRow || row > this.lastRow) {
+                return false;
+            }
+            return this.wasSettled(column, row)
+                || this.wasSettled(column, row - 1)
+                || this.wasSettled(column + 1, row)
+                || this.wasSettled(column, row + 1)
+                || this.wasSettled(column - 1, row);
+        }
+
+        /**
+         * returns whether the Tile at the parameter indices is the start
+         * of this result or one of its reachable Tiles
+         * @param column the column of the Tile, may be off the Map
+         * @param row the row of the Tile, may be off the Map
+         * @return boolean whether the search settled on the Tile
+         */
+        private boolean wasSettled(int column, int row) {
+            if (column < 0 || column >= this.numberOfColumns || row < 0) {
+                return false;
+            }
+            int tileNumber = row * this.numberOfColumns + column;
+            return tileNumber == this.key.getTileNumber()
+                || this.reachableSet.contains(tileNumber);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package model.map;
+
+// java standard library imports
+import java.util.Arrays;
+
+// this project imports
+import model.drawable.tileOccupant.TileOccupant;
+import model.pathfinding.ReachableSet;
+
+/**
+ * the movement range of every unit on a Map at one moment, as worked out
+ * all at once by Map.getAllTilesToWhichOccupantsCanMove
+ * the units are kept in order of the number of the Tile they stand on,
+ * so looking one up by its Tile is a binary search
+ * a ReachabilityTable never changes once it is built, and it doesn't
+ * follow the Map either, if units move afterwards it is out of date
+ * @author Ryan Voor
+ */
+public class ReachabilityTable {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the version of the Map the table was worked out from
+    private final int mapVersion;
+
+    // tileNumbers[i] holds occupants[i] which can reach reachableSets[i],
+    // sorted by Tile number
+    private final int[] tileNumbers;
+    private final TileOccupant[] occupants;
+    private final ReachableSet[] reachableSets;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ReachabilityTable class
+     * @param mapVersion the version of the Map the table
+     * was worked out from
+     * @param tileNumbers the numbers of the Tiles the units stand on,
+     * sorted from smallest to largest, the table keeps this array
+     * @param occupants the unit on each of those Tiles, the
+     * table keeps this array
+     * @param reachableSets the movement range of each of those units,
+     * the table keeps this array
+     */
+    public ReachabilityTable(int mapVersion, int[] tileNumbers,
+        TileOccupant[] occupants, ReachableSet[] reachableSets) {
+        this.mapVersion = mapVersion;
+        this.tileNumbers = tileNumbers;
+        this.occupants = occupants;
+        this.reachableSets = reachableSets;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the version of the Map that this table was worked out
+     * from, if the Map's version is different now then the table is
+     * out of date
+     * @return int the version of the Map
+     */
+    public int getMapVersion() {
+        return this.mapVersion;
+    }
+
+    /**
+     * getter for the number of units in this table
+     * @return int the number of units
+     */
+    public int size() {
+        return this.tileNumbers.length;
+    }
+
+    /**
+     * returns the number of the Tile that the unit at the parameter
+     * position in this table stands on
+     * @param index the position in this table, from 0 to size() - 1
+     * @return int the number of the Tile
+     */
+    public int getTileNumber(int index) {
+        return this.tileNumbers[index];
+    }
+
+    /**
+     * returns the unit at the parameter position in this table
+     * @param index the position in this table, from 0 to size() - 1
+     * @return TileOccupant the unit
+     */
+    public TileOccupant getOccupant(int index) {
+        return this.occupants[index];
+    }
+
+    /**
+     * returns the movement range of the unit at the parameter
+     * position in this table
+     * @param index the position in this table, from 0 to size() - 1
+     * @return ReachableSet the Tiles the unit can move to
+     */
+    public ReachableSet getReachableSet(int index) {
+        return this.reachableSets[index];
+    }
+
+    /**
+     * returns the movement range of the unit standing on
+     * the parameter Tile
+     * @param tileNumber the number of the Tile, see Map.getTileNumber
+     * @return ReachableSet the Tiles the unit can move to, or null if
+     * there was no unit on that Tile
+     */
+    public ReachableSet getReachableSetOfTile(int tileNumber) {
+        int index = Arrays.binarySearch(this.tileNumbers, tileNumber);
+        return index < 0 ? null : this.reachableSets[index];
+    }
+}
@@ -0,0 +1,645 @@
+package model.map;
+
+// java standard library imports
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+
+// this project imports
+import model.drawable.image.AssetManager;
+import model.drawable.tileOccupant.MovementClass;
+import model.drawable.tileOccupant.TileOccupant;
+import model.pathfinding.ReachableSet;
+import model.pathfinding.TileBitSet;
+
+/**
+ * keeps track of which Tiles of a Map every player's units could attack
+ * next turn, for the AI to stay out of danger and for a danger overlay
+ * the footprint of a unit is every Tile it could attack from the Tile it
+ * is on or from any Tile in its movement range, for every player there
+ * is a count for every Tile of how many of that player's units have the
+ * Tile in their footprint, and a TileBitSet of the Tiles whose count
+ * isn't 0, so asking how many enemies threaten a Tile is a couple of
+ * array lookups no matter how many units there are
+ * the counts are kept up to date one unit at a time, when a Tile changes
+ * only the units whose movement range search looked at that Tile, and a
+ * unit that showed up on it, have their footprints worked out again, the
+ * old footprint is taken out of the counts and the new one is put in
+ * the work waits until the next time anything is asked for, so moving a
+ * unit across several Tiles only works out each footprint once
+ * only the occupants of Tiles are counted, not the invaders, since only
+ * an occupant has a movement range
+ * @author Ryan Voor
+ */
+public class ThreatMap {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the Map whose threats these are
+    private final Map map;
+
+    // the size of the Map
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // every unit on the Map by the number of the Tile it is on
+    private final HashMap<Integer, Unit> units;
+
+    // the counts and threatened Tiles of every player, indexed by
+    // the number of the player, null for players with no units yet
+    private final ArrayList<PlayerThreats> playerThreats;
+
+    // how many units of any player can attack each Tile
+    private final int[] totalCounts;
+
+    // how many units have to have their footprint worked out again
+    private int numberOfDirtyUnits;
+
+    // how many times a footprint has been worked out, handy for tuning
+    private long numberOfFootprintUpdates;
+
+    // the Tiles already put in the footprint being worked out, so each
+    // one only gets counted once, always empty between footprints
+    private final TileBitSet footprintTiles;
+
+    // the Tiles threatened by the enemies of each player, remembered
+    // until a footprint changes so that a danger overlay can ask for
+    // them every frame, indexed by the number of the player
+    private final HashMap<Integer, TileBitSet> enemyThreatenedTiles;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ThreatMap class, every unit on the parameter
+     * Map starts out dirty so nothing is worked out until the first time
+     * something is asked for
+     * @param map the Map whose threats to keep track of
+     */
+    public ThreatMap(Map map) {
+        this.map = map;
+        this.numberOfColumns = map.getNumberOfColumns();
+        this.numberOfRows = map.getNumberOfRows();
+        int numberOfTiles = this.numberOfColumns * this.numberOfRows;
+
+        this.units = new HashMap<Integer, Unit>();
+        this.playerThreats = new ArrayList<PlayerThreats>();
+        this.totalCounts = new int[numberOfTiles];
+        this.numberOfDirtyUnits = 0;
+        this.numberOfFootprintUpdates = 0;
+        this.enemyThreatenedTiles = new HashMap<Integer, TileBitSet>();
+        this.footprintTiles = new TileBitSet(numberOfTiles);
+
+        // in the order of the Tiles' numbers, so a Map whose Tiles are
+        // read on demand reads each chunk of its storage once
+        TileStorage tileStorage = map.getTileStorage();
+        for (int tileNumber = 0; tileNumber < numberOfTiles; tileNumber++) {
+            TileOccupant occupant = tileStorage.getOccupant(tileNumber);
+            if (null != occupant) {
+                this.addUnit(tileNumber, occupant);
+            }
+        }
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * returns how many units that don't belong to the parameter player
+     * could attack the parameter Tile next turn
+     * @param player the number of the player who is threatened
+     * @param tileNumber the number of the Tile
+     * @return int the number of enemy units that threaten the Tile
+     */
+    public synchronized int getThreatCount(int player, int tileNumber) {
+        this.update();
+        return this.totalCounts[tileNumber]
+            - this.getThreatCountOf(player, tileNumber);
+    }
+
+    /**
+     * returns whether any unit that doesn't belong to the parameter
+     * player could attack the parameter Tile next turn
+     * @param player the number of the player who is threatened
+     * @param tileNumber the number of the Tile
+     * @return boolean whether any enemy unit threatens the Tile
+     */
+    public synchronized boolean isThreatened(int player, int tileNumber) {
+        return 0 != this.getThreatCount(player, tileNumber);
+    }
+
+    /**
+     * returns how many of the parameter player's units could attack the
+     * parameter Tile next turn
+     * @param attackingPlayer the number of the player who is attacking
+     * @param tileNumber the number of the Tile
+     * @return int the number of that player's units that threaten the Tile
+     */
+    public synchronized int getThreatCountBy(int attackingPlayer,
+        int tileNumber) {
+        this.update();
+        return this.getThreatCountOf(attackingPlayer, tileNumber);
+    }
+
+    /**
+     * returns every Tile that the parameter player's units could
+     * attack next turn
+     * @param attackingPlayer the number of the player who is attacking
+     * @return TileBitSet a copy of the threatened Tiles
+     */
+    public synchronized TileBitSet getTilesThreatenedBy(
+        int attackingPlayer) {
+        this.update();
+        if (attackingPlayer >= this.playerThreats.size()
+            || null == this.playerThreats.get(attackingPlayer)) {
+            return new TileBitSet(this.totalCounts.length);
+        }
+        return new TileBitSet(
+            this.playerThreats.get(attackingPlayer).getThreatenedTiles());
+    }
+
+    /**
+     * returns every Tile that a unit that doesn't belong to the parameter
+     * player could attack next turn, this is what a danger overlay shows
+     * the set is remembered and handed out again until a footprint
+     * changes, so it is shared and must not be changed
+     * @param player the number of the player who is threatened
+     * @return TileBitSet the Tiles threatened by that player's enemies
+     */
+    public synchronized TileBitSet getTilesThreatenedByEnemiesOf(
+        int player) {
+        this.update();
+        TileBitSet threatenedTiles = this.enemyThreatenedTiles.get(player);
+        if (null == threatenedTiles) {
+            threatenedTiles = new TileBitSet(this.totalCounts.length);
+            for (int i = 0; i < this.playerThreats.size(); i++) {
+                if (i != player && null != this.playerThreats.get(i)) {
+                    threatenedTiles.addAll(
+                        this.playerThreats.get(i).getThreatenedTiles());
+                }
+            }
+            this.enemyThreatenedTiles.put(player, threatenedTiles);
+        }
+        return threatenedTiles;
+    }
+
+    /**
+     * getter for the number of units being kept track of
+     * @return int the number of units
+     */
+    public synchronized int getNumberOfUnits() {
+        return this.units.size();
+    }
+
+    /**
+     * getter for how many times a footprint has been worked out
+     * @return long the number of footprint updates
+     */
+    public synchronized long getNumberOfFootprintUpdates() {
+        return this.numberOfFootprintUpdates;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * tells this ThreatMap that something on the parameter Tile was set,
+     * the unit that used to be there (if it left) stops threatening
+     * anything, a unit that just showed up gets a footprint, and every
+     * unit whose movement range search looked at the Tile gets its
+     * footprint worked out again before the next question
+     * @param tileNumber the number of the Tile that changed
+     * @param occupant whatever is on the Tile now, may be null
+     * @param changedMovementClasses the ways of moving whose cost
+     * of the Tile changed
+     */
+    public synchronized void tileChanged(int tileNumber,
+        TileOccupant occupant, EnumSet<MovementClass> changedMovementClasses) {
+        Unit unit = this.units.get(tileNumber);
+        if (null != unit && unit.getOccupant() != occupant) {
+            this.removeFootprint(unit);
+            if (unit.isDirty()) {
+                this.numberOfDirtyUnits--;
+            }
+            this.units.remove(tileNumber);
+            unit = null;
+        }
+        if (null == unit && null != occupant) {
+            this.addUnit(tileNumber, occupant);
+        }
+
+        if (changedMovementClasses.isEmpty()) {
+            return;
+        }
+        int column = tileNumber % this.numberOfColumns;
+        int row = tileNumber / this.numberOfColumns;
+        for (Unit otherUnit : this.units.values()) {
+            if (!otherUnit.isDirty()
+                && changedMovementClasses.contains(
+                    otherUnit.getOccupant().getMovementClass())
+                && otherUnit.searchRegionContains(column, row)) {
+                otherUnit.setDirty(true);
+                this.numberOfDirtyUnits++;
+            }
+        }
+    }
+
+    /**
+     * works out the footprint of every unit that has gone dirty
+     * and puts it into the counts
+     */
+    public synchronized void update() {
+        this.update(null);
+    }
+
+    /**
+     * works out the footprint of every unit that has gone dirty and puts
+     * it into the counts, the units are worked out in the order of the
+     * numbers of their Tiles so that a Map whose Tiles are read on demand
+     * reads its chunks one after another instead of jumping around
+     * @param progressListener told after each footprint is worked out,
+     * may be null
+     */
+    public synchronized void update(
+        AssetManager.ProgressListener progressListener) {
+        if (0 == this.numberOfDirtyUnits) {
+            return;
+        }
+        ArrayList<Unit> dirtyUnits = new ArrayList<Unit>();
+        for (Unit unit : this.units.values()) {
+            if (unit.isDirty()) {
+                dirtyUnits.add(unit);
+            }
+        }
+        Collections.sort(dirtyUnits, new Comparator<Unit>() {
+            @Override
+            public int compare(Unit first, Unit second) {
+                return Integer.compare(
+                    first.getTileNumber(), second.getTileNumber());
+            }
+        });
+
+        for (int i = 0; i < dirtyUnits.size(); i++) {
+            Unit unit = dirtyUnits.get(i);
+            this.removeFootprint(unit);
+            this.updateFootprint(unit);
+            this.addFootprint(unit);
+            unit.setDirty(false);
+            if (null != progressListener) {
+                progressListener.progressChanged(i + 1, dirtyUnits.size());
+            }
+        }
+        this.numberOfDirtyUnits = 0;
+    }
+
+    /**
+     * starts keeping track of the parameter unit, its footprint
+     * gets worked out before the next question
+     * @param tileNumber the number of the Tile the unit is on
+     * @param occupant the unit
+     */
+    private void addUnit(int tileNumber, TileOccupant occupant) {
+        Unit unit = new Unit(tileNumber, occupant);
+        unit.setDirty(true);
+        this.units.put(tileNumber, unit);
+        this.numberOfDirtyUnits++;
+    }
+
+    /**
+     * works out every Tile the parameter unit could attack from where it
+     * is or from any Tile it could move to, along with the box around the
+     * Tiles its movement range search looked at
+     * @param unit the unit whose footprint to work out
+     */
+    private void updateFootprint(Unit unit) {
+        TileOccupant occupant = unit.getOccupant();
+        int startTileNumber = unit.getTileNumber();
+        int startColumn = startTileNumber % this.numberOfColumns;
+        int startRow = startTileNumber / this.numberOfColumns;
+        ReachableSet reachableSet = this.map.getTilesToWhichOccupantCanMove(
+            startColumn, startRow);
+
+        int minimumRange = occupant.getMinimumAttackRange();
+        int maximumRange = occupant.getMaximumAttackRange();
+        int[] footprint = new int[16];
+        int footprintSize = 0;
+        int minimumColumn = startColumn;
+        int maximumColumn = startColumn;
+        int minimumRow = startRow;
+        int maximumRow = startRow;
+
+        // the unit can attack from where it is without moving at all
+        for (int i = -1; i < reachableSet.size(); i++) {
+            int origin = i < 0 ? startTileNumber
+                : reachableSet.getTileNumber(i);
+            int originColumn = origin % this.numberOfColumns;
+            int originRow = origin / this.numberOfColumns;
+            minimumColumn = Math.min(minimumColumn, originColumn);
+            maximumColumn = Math.max(maximumColumn, originColumn);
+            minimumRow = Math.min(minimumRow, originRow);
+            maximumRow = Math.max(maximumRow, originRow);
+
+            // every Tile in the diamond between the two ranges
+            int firstRow = Math.max(0, originRow - maximumRange);
+            int lastRow = Math.min(
+                this.numberOfRows - 1, originRow + maximumRange);
+            for (int row = firstRow; row <= lastRow; row++) {
+                int rowDistance = Math.abs(row - originRow);
+                int reach = maximumRange - rowDistance;
+                int firstColumn = Math.max(0, originColumn - reach);
+                int lastColumn = Math.min(
+                    this.numberOfColumns - 1, originColumn + reach);
+                for (int column = firstColumn; column <= lastColumn;
+                    column++) {
+                    if (rowDistance + Math.abs(column - originColumn)
+                        < minimumRange) {
+                        continue;
+                    }
+                    int target = row * this.numberOfColumns + column;
+                    if (this.footprintTiles.contains(target)) {
+                        continue;
+                    }
+                    this.footprintTiles.add(target);
+                    if (footprintSize == footprint.length) {
+                        footprint = Arrays.copyOf(
+                            footprint, footprintSize * 2);
+                    }
+                    footprint[footprintSize] = target;
+                    footprintSize++;
+                }
+            }
+        }
+
+        for (int i = 0; i < footprintSize; i++) {
+            this.footprintTiles.remove(footprint[i]);
+        }
+
+        // the search also looked at the neighbours of every Tile it
+        // reached, so the box reaches one Tile farther
+        unit.setFootprint(Arrays.copyOf(footprint, footprintSize));
+        unit.setSearchRegion(minimumColumn - 1, maximumColumn + 1,
+            minimumRow - 1, maximumRow + 1);
+        this.numberOfFootprintUpdates++;
+    }
+
+    /**
+     * adds one to the counts of the parameter unit's player for every
+     * Tile in the unit's footprint
+     * @param unit the unit
+     */
+    private void addFootprint(Unit unit) {
+        this.enemyThreatenedTiles.clear();
+        PlayerThreats threats = this.getPlayerThreats(unit.getPlayer());
+        for (int tileNumber : unit.getFootprint()) {
+            threats.increment(tileNumber);
+            this.totalCounts[tileNumber]++;
+        }
+    }
+
+    /**
+     * takes one away from the counts of the parameter unit's player for
+     * every Tile in the unit's footprint, and forgets the footprint
+     * @param unit the unit
+     */
+    private void removeFootprint(Unit unit) {
+        this.enemyThreatenedTiles.clear();
+        PlayerThreats threats = this.getPlayerThreats(unit.getPlayer());
+        for (int tileNumber : unit.getFootprint()) {
+            threats.decrement(tileNumber);
+            this.totalCounts[tileNumber]--;
+        }
+        unit.setFootprint(new int[0]);
+    }
+
+    /**
+     * returns how many of the parameter player's units can attack
+     * the parameter Tile, without updating anything first
+     * @param player the number of the player
+     * @param tileNumber the number of the Tile
+     * @return int the count of the Tile for that player
+     */
+    private int getThreatCountOf(int player, int tileNumber) {
+        if (player >= this.playerThreats.size()
+            || null == this.playerThreats.get(player)) {
+            return 0;
+        }
+        return this.playerThreats.get(player).getCount(tileNumber);
+    }
+
+    /**
+     * returns the counts of the parameter player, making them
+     * the first time a unit of that player shows up
+     * @param player the number of the player
+     * @return PlayerThreats the counts of that player
+     */
+    private PlayerThreats getPlayerThreats(int player) {
+        while (this.playerThreats.size() <= player) {
+            this.playerThreats.add(null);
+        }
+        PlayerThreats threats = this.playerThreats.get(player);
+        if (null == threats) {
+            threats = new PlayerThreats(this.totalCounts.length);
+            this.playerThreats.set(player, threats);
+        }
+        return threats;
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * one unit on the Map along with the Tiles it can attack, the unit
+     * keeps the player it belonged to when it showed up so that its
+     * footprint always comes out of the same counts it went into
+     * @author Ryan Voor
+     */
+    private static class Unit {
+
+        // instance variables
+        private final int tileNumber;
+        private final TileOccupant occupant;
+        private final int player;
+        private int[] footprint;
+        private boolean dirty;
+
+        // the box around every Tile its movement range search looked at
+        private int minimumColumn;
+        private int maximumColumn;
+        private int minimumRow;
+        private int maximumRow;
+
+        /**
+         * constructor for the Unit class, the unit starts out
+         * with no footprint
+         * @param tileNumber the number of the Tile the unit is on
+         * @param occupant the TileOccupant that is the unit
+         */
+        public Unit(int tileNumber, TileOccupant occupant) {
+            this.tileNumber = tileNumber;
+            this.occupant = occupant;
+            this.player = occupant.getPlayer();
+            this.footprint = new int[0];
+            this.dirty = false;
+        }
+
+        /**
+         * getter for the number of the Tile the unit is on
+         * @return int the number of the Tile
+         */
+        public int getTileNumber() {
+            return this.tileNumber;
+        }
+
+        /**
+         * getter for the TileOccupant that is the unit
+         * @return TileOccupant the unit
+         */
+        public TileOccupant getOccupant() {
+            return this.occupant;
+        }
+
+        /**
+         * getter for the number of the player the unit belongs to
+         * @return int the number of the player
+         */
+        public int getPlayer() {
+            return this.player;
+        }
+
+        /**
+         * getter for the Tiles the unit can attack
+         * @return int[] the numbers of the Tiles
+         */
+        public int[] getFootprint() {
+            return this.footprint;
+        }
+
+        /**
+         * getter for whether the footprint has to be worked out again
+         * @return boolean whether the unit is dirty
+         */
+        public boolean isDirty() {
+            return this.dirty;
+        }
+
+        /**
+         * returns whether the parameter Tile is in the box around the
+         * Tiles the unit's movement range search looked at
+         * @param column the column of the Tile
+         * @param row the row of the Tile
+         * @return boolean whether the Tile is in the box
+         */
+        public boolean searchRegionContains(int column, int row) {
+            return column >= this.minimumColumn
+                && column <= this.maximumColumn
+                && row >= this.minimumRow
+                && row <= this.maximumRow;
+        }
+
+        /**
+         * setter for the Tiles the unit can attack
+         * @param footprint the numbers of the Tiles
+         */
+        public void setFootprint(int[] footprint) {
+            this.footprint = footprint;
+        }
+
+        /**
+         * setter for whether the footprint has to be worked out again
+         * @param dirty whether the unit is dirty
+         */
+        public void setDirty(boolean dirty) {
+            this.dirty = dirty;
+        }
+
+        /**
+         * setter for the box around the Tiles the unit's
+         * movement range search looked at
+         * @param minimumColumn the left-most column of the box
+         * @param maximumColumn the right-most column of the box
+         * @param minimumRow the top-most row of the box
+         * @param maximumRow the bottom-most row of the box
+         */
+        public void setSearchRegion(int minimumColumn, int maximumColumn,
+            int minimumRow, int maximumRow) {
+            this.minimumColumn = minimumColumn;
+            this.maximumColumn = maximumColumn;
+            this.minimumRow = minimumRow;
+            this.maximumRow = maximumRow;
+        }
+    }
+
+    /**
+     * how many of one player's units can attack every Tile, along with
+     * the set of Tiles that at least one of them can attack
+     * @author Ryan Voor
+     */
+    private static class PlayerThreats {
+
+        // instance variables
+        private final int[] counts;
+        private final TileBitSet threatenedTiles;
+
+        /**
+         * constructor for the PlayerThreats class, nothing
+         * starts out threatened
+         * @param numberOfTiles the number of Tiles of the Map
+         */
+        public PlayerThreats(int numberOfTiles) {
+            this.counts = new int[numberOfTiles];
+            this.threatenedTiles = new TileBitSet(numberOfTiles);
+        }
+
+        /**
+         * getter for how many units can attack the parameter Tile
+         * @param tileNumber the number of the Tile
+         * @return int the count of the Tile
+         */
+        public int getCount(int tileNumber) {
+            return this.counts[tileNumber];
+        }
+
+        /**
+         * getter for the Tiles at least one unit can attack
+         * @return TileBitSet the threatened Tiles
+         */
+        public TileBitSet getThreatenedTiles() {
+            return this.threatenedTiles;
+        }
+
+        /**
+         * adds one to the count of the parameter Tile
+         * @param tileNumber the number of the Tile
+         */
+        public void increment(int tileNumber) {
+            this.counts[tileNumber]++;
+            if (1 == this.counts[tileNumber]) {
+                this.threatenedTiles.add(tileNumber);
+            }
+        }
+
+        /**
+         * takes one away from the count of the parameter Tile
+         * @param tileNumber the number of the Tile
+         */
+        public void decrement(int tileNumber) {
+            this.counts[tileNumber]--;
+            if (0 == this.counts[tileNumber]) {
+                this.threatenedTiles.remove(tileNumber);
+            }
+        }
+    }
+}
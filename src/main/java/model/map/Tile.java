@@ -6,6 +6,7 @@ import javafx.scene.canvas.Canvas;
 // this project imports
 import model.drawable.building.Building;
 import model.drawable.terrain.Terrain;
+import model.drawable.tileOccupant.MovementClass;
 import model.drawable.tileOccupant.TileOccupant;
 
 // TODO I should consider only allowing buildings to be built on certain
@@ -13,8 +14,12 @@ import model.drawable.tileOccupant.TileOccupant;
 
 /**
  * Class that represents a Tile on a Map
- * this class holds the occupant unit(s) and knows the
- * Terrain of this Tile on the Map
+ * this class knows the occupant unit(s), Terrain, and building
+ * of this Tile on the Map
+ * a Tile doesn't hold any of these itself, it is just a view of one
+ * spot in the TileStorage of its Map, so a Map with a million Tiles
+ * doesn't need a million Tile objects, and a Tile that is grabbed from a
+ * Map always shows what is on the Map right now
  * @author Ryan Voor
  */
 public class Tile {
@@ -24,29 +29,41 @@ public class Tile {
     private static final int HEIGHT_OF_A_TILE_IN_PIXELS = 100;
 
     // instance variables
-    private TileOccupant occupant;
-    private TileOccupant invader;
-    private Terrain terrain;
-    private Building building;
+    private final TileStorage tileStorage;
+    private final int tileNumber;
 
 
     //////////////////
     // Constructors //
     //////////////////
 
+    /**
+     * constructor for the Tile class that makes a view of the parameter
+     * spot in a TileStorage, this is how a Map hands out its Tiles
+     * @param tileStorage the storage that holds what is on this Tile
+     * @param tileNumber the number of this Tile in the storage
+     */
+    Tile(TileStorage tileStorage, int tileNumber) {
+        this.tileStorage = tileStorage;
+        this.tileNumber  = tileNumber;
+    }
+
     /**
      * constructor for the Tile class, takes in
      * a Terrain, TileOccupant, and building
+     * this Tile isn't on any Map so it gets a storage of its own
      * @param terrain the terrain of this Tile
      * @param building the building of this Tile
      * @param occupant the occupant of this Tile
      * @param invader the invading TileOccupant of this Tile
      */
-    public Tile(Terrain terrain, Building building, TileOccupant occupant, TileOccupant invader) {
-        this.terrain  = terrain;
-        this.building = building;
-        this.occupant = occupant;
-        this.invader  = invader;
+    public Tile(Terrain terrain, Building building, TileOccupant occupant,
+        TileOccupant invader) {
+        this(new CompactTileStorage(1, 1), 0);
+        this.setTerrain(terrain);
+        this.setBuilding(building);
+        this.setOccupant(occupant);
+        this.setInvader(invader);
     }
 
     /**
@@ -127,12 +144,42 @@ public class Tile {
         return Tile.HEIGHT_OF_A_TILE_IN_PIXELS;
     }
 
+    /**
+     * returns the number of pixels wide that
+     * a Tile is on the Map when the Map is zoomed
+     * @param scale how zoomed the Map is, 1.0 is the
+     * normal size and 0.5 is zoomed out to half size
+     * @return int the pixel width of a Tile at that zoom
+     */
+    public static int getWidthOfATileInPixels(double scale) {
+        return (int) Math.round(Tile.WIDTH_OF_A_TILE_IN_PIXELS * scale);
+    }
+
+    /**
+     * returns the number of pixels high that
+     * a Tile is on the Map when the Map is zoomed
+     * @param scale how zoomed the Map is, 1.0 is the
+     * normal size and 0.5 is zoomed out to half size
+     * @return int the pixel height of a Tile at that zoom
+     */
+    public static int getHeightOfATileInPixels(double scale) {
+        return (int) Math.round(Tile.HEIGHT_OF_A_TILE_IN_PIXELS * scale);
+    }
+
+    /**
+     * getter for the number of this Tile, see Map.getTileNumber
+     * @return int the number of this Tile
+     */
+    public int getTileNumber() {
+        return this.tileNumber;
+    }
+
     /**
      * the getter for the Terrain of this Tile
      * @return Terrain the Terrain of this Tile
      */
     public Terrain getTerrain() {
-        return this.terrain;
+        return this.tileStorage.getTerrain(this.tileNumber);
     }
 
     /**
@@ -140,7 +187,7 @@ public class Tile {
      * @return Building the building of this Tile
      */
     public Building getBuilding() {
-        return this.building;
+        return this.tileStorage.getBuilding(this.tileNumber);
     }
 
     /**
@@ -148,7 +195,7 @@ public class Tile {
      * @return TileOccupant the occupant of this Tile
      */
     public TileOccupant getOccupant() {
-        return this.occupant;
+        return this.tileStorage.getOccupant(this.tileNumber);
     }
 
     /**
@@ -156,7 +203,7 @@ public class Tile {
      * @return TileOccupant the invader of this Tile
      */
     public TileOccupant getInvader() {
-        return this.invader;
+        return this.tileStorage.getInvader(this.tileNumber);
     }
 
     /**
@@ -195,6 +242,20 @@ public class Tile {
      * unit must pay in order to move onto this Tile
      */
     public int getMovementCost(TileOccupant tileOccupant) {
+        return this.getMovementCost(tileOccupant.getMovementClass());
+    }
+
+    /**
+     * returns the movement cost that a unit that moves the parameter
+     * way needs to pay to move onto this Tile
+     * returns Integer.MAX_VALUE if the Unit cannot move
+     * onto this Tile, which includes a Tile that has no Terrain
+     * @param movementClass the way the unit that is attempting
+     * to move onto this Tile moves
+     * @return int the movement cost that the unit must pay
+     * in order to move onto this Tile
+     */
+    public int getMovementCost(MovementClass movementClass) {
         // TODO this will need to be updated once I set up the multiple player
         // controls so that you can move INTO but not PAST a Tile
         // with an enemy unit
@@ -202,10 +263,11 @@ public class Tile {
         // set up our return value
         int movementCost = Integer.MAX_VALUE;
 
-        // don't let a unit move onto this Tile if it is occupied
-        if (!this.hasOccupant()) {
-            Terrain terrain = this.getTerrain();
-            movementCost = terrain.getMovementCost(tileOccupant);
+        // don't let a unit move onto this Tile if it is occupied, or if
+        // nothing has been put on it yet so there is no ground to walk on
+        Terrain terrain = this.getTerrain();
+        if (!this.hasOccupant() && null != terrain) {
+            movementCost = terrain.getMovementCost(movementClass);
         }
 
         return movementCost;
@@ -221,7 +283,7 @@ public class Tile {
      * @param terrain the Terrain to be placed on this Tile
      */
     public void setTerrain(Terrain terrain) {
-        this.terrain = terrain;
+        this.tileStorage.setTerrain(this.tileNumber, terrain);
     }
 
     /**
@@ -229,7 +291,7 @@ public class Tile {
      * @param Building the building to be placed on this Tile
      */
     public void setBuilding(Building building) {
-        this.building = building;
+        this.tileStorage.setBuilding(this.tileNumber, building);
     }
 
     /**
@@ -237,7 +299,7 @@ public class Tile {
      * @param occupant the occupant to be placed on this Tile
      */
     public void setOccupant(TileOccupant occupant) {
-        this.occupant = occupant;
+        this.tileStorage.setOccupant(this.tileNumber, occupant);
     }
 
     /**
@@ -245,7 +307,7 @@ public class Tile {
      * @param invader the invader to be placed on this Tile
      */
     public void setInvader(TileOccupant invader) {
-        this.invader = invader;
+        this.tileStorage.setInvader(this.tileNumber, invader);
     }
 
 
@@ -253,6 +315,23 @@ public class Tile {
     // Real Methods //
     //////////////////
 
+    @Override
+    public boolean equals(Object other) {
+        // two views of the same spot are the same Tile
+        if (!(other instanceof Tile)) {
+            return false;
+        }
+        Tile otherTile = (Tile) other;
+        return this.tileStorage == otherTile.tileStorage
+            && this.tileNumber == otherTile.tileNumber;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(this.tileStorage)
+            + this.tileNumber;
+    }
+
     /**
      * draws the terrain, building, and occupant of this Tile onto the
      * canvas at the specified position
@@ -263,25 +342,136 @@ public class Tile {
      * of the Tile where it will be drawn
      */
     public void draw(Canvas canvas, int xPosition, int yPosition, long time) {
+        this.draw(canvas, MapLayer.TERRAIN, xPosition, yPosition, time);
+        this.draw(canvas, MapLayer.BUILDINGS, xPosition, yPosition, time);
+        this.draw(canvas, MapLayer.UNITS, xPosition, yPosition, time);
+    }
+
+    /**
+     * draws just one layer of this Tile onto the canvas at the
+     * specified position
+     * @param canvas the canvas upon which this Tile will be drawn
+     * @param layer the layer of this Tile to draw
+     * @param xPosition the X position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param yPosition the Y position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param time the time used to calculate animation images
+     */
+    public void draw(Canvas canvas, MapLayer layer, int xPosition,
+        int yPosition, long time) {
+        this.draw(
+            canvas,
+            layer,
+            xPosition,
+            yPosition,
+            Tile.getWidthOfATileInPixels(),
+            Tile.getHeightOfATileInPixels(),
+            time
+        );
+    }
+
+    /**
+     * draws just one layer of this Tile onto the canvas at the
+     * specified position and size, the size changes when the
+     * Map is zoomed in or out
+     * @param canvas the canvas upon which this Tile will be drawn
+     * @param layer the layer of this Tile to draw
+     * @param xPosition the X position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param yPosition the Y position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param width the width in pixels to draw the Tile at
+     * @param height the height in pixels to draw the Tile at
+     * @param time the time used to calculate animation images
+     */
+    public void draw(Canvas canvas, MapLayer layer, int xPosition,
+        int yPosition, int width, int height, long time) {
+        switch (layer) {
+        case TERRAIN:
+            this.drawTerrain(canvas, xPosition, yPosition,
+                width, height, time);
+            break;
+        case BUILDINGS:
+            this.drawBuilding(canvas, xPosition, yPosition,
+                width, height, time);
+            break;
+        case UNITS:
+            this.drawUnits(canvas, xPosition, yPosition,
+                width, height, time);
+            break;
+        default:
+            // there is nothing else on a Tile to draw
+            break;
+        }
+    }
+
+    /**
+     * draws the terrain of this Tile onto the canvas at the
+     * specified position and size
+     * @param canvas the canvas upon which the terrain will be drawn
+     * @param xPosition the X position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param yPosition the Y position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param width the width in pixels to draw the Tile at
+     * @param height the height in pixels to draw the Tile at
+     * @param time the time used to calculate animation images
+     */
+    public void drawTerrain(Canvas canvas, int xPosition, int yPosition,
+        int width, int height, long time) {
         // grab the terrain and draw it on the canvas
         Terrain terrain = this.getTerrain();
-        terrain.draw(canvas, xPosition, yPosition, time);
+        terrain.draw(canvas, xPosition, yPosition, width, height, time);
+    }
 
+    /**
+     * draws the building of this Tile, if it has one, onto the
+     * canvas at the specified position and size
+     * @param canvas the canvas upon which the building will be drawn
+     * @param xPosition the X position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param yPosition the Y position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param width the width in pixels to draw the Tile at
+     * @param height the height in pixels to draw the Tile at
+     * @param time the time used to calculate animation images
+     */
+    public void drawBuilding(Canvas canvas, int xPosition, int yPosition,
+        int width, int height, long time) {
         // if this Tile has a building, then grab
         // it and draw it on the canvas
         if (this.hasBuilding()) {
             Building building = this.getBuilding();
-            building.draw(canvas, xPosition, yPosition, time);
+            building.draw(canvas, xPosition, yPosition, width, height, time);
         }
+    }
 
+    /**
+     * draws the occupant and invader of this Tile, if it has them, onto
+     * the canvas at the specified position and size
+     * @param canvas the canvas upon which the units will be drawn
+     * @param xPosition the X position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param yPosition the Y position in pixels of the top-left corner
+     * of the Tile where it will be drawn
+     * @param width the width in pixels to draw the Tile at
+     * @param height the height in pixels to draw the Tile at
+     * @param time the time used to calculate animation images
+     */
+    public void drawUnits(Canvas canvas, int xPosition, int yPosition,
+        int width, int height, long time) {
         // if this Tile has an occupant, then grab
         // it and draw it on the canvas
         if (this.hasOccupant()) {
             TileOccupant occupant = this.getOccupant();
             if (this.hasInvader()) {
+                // the invader and occupant share the Tile at half size,
+                // their sprites get resampled to that size once and
+                // then reused instead of being shrunk every frame
                 TileOccupant invader  = this.getInvader();
-                int halfWidthOfATile  = Tile.getWidthOfATileInPixels() / 2;
-                int halfHeightOfATile = Tile.getHeightOfATileInPixels() / 2;
+                int halfWidthOfATile  = width / 2;
+                int halfHeightOfATile = height / 2;
                 invader.draw(
                     canvas,
                     xPosition,
@@ -303,11 +493,32 @@ public class Tile {
                     canvas,
                     xPosition,
                     yPosition,
-                    Tile.getWidthOfATileInPixels(),
-                    Tile.getHeightOfATileInPixels(),
+                    width,
+                    height,
                     time
                 );
             }
         }
     }
+
+    /**
+     * resamples the Images of everything on this Tile to the size they
+     * will be drawn at when a Tile is the parameter size, so that the
+     * first frame drawn at a new zoom level doesn't have to do it
+     * @param width the width in pixels a Tile will be drawn at
+     * @param height the height in pixels a Tile will be drawn at
+     */
+    public void prepareSize(int width, int height) {
+        this.getTerrain().prepareSize(width, height);
+        if (this.hasBuilding()) {
+            this.getBuilding().prepareSize(width, height);
+        }
+        if (this.hasOccupant()) {
+            this.getOccupant().prepareSize(width, height);
+            this.getOccupant().prepareSize(width / 2, height / 2);
+        }
+        if (this.hasInvader()) {
+            this.getInvader().prepareSize(width / 2, height / 2);
+        }
+    }
 }
@@ -0,0 +1,148 @@
+package model.map;
+
+// this project imports
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * a rectangle of Tiles that a TileSource fills in, the Terrains and
+ * Buildings are kept as their ids from the TileTypeRegistry, the Tiles
+ * are in the same order as on a Map, left to right along each row of
+ * the rectangle, top row first
+ * @author Ryan Voor
+ */
+public class TileBlock {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // where the rectangle is on the Map and how big it is
+    private final int firstColumn;
+    private final int firstRow;
+    private final int width;
+    private final int height;
+
+    // what is on every Tile of the rectangle
+    private final byte[] terrainIds;
+    private final byte[] buildingIds;
+    private final TileOccupant[] occupants;
+    private final TileOccupant[] invaders;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the TileBlock class, every Tile starts
+     * out with nothing on it
+     * @param firstColumn the column of the left edge of the rectangle
+     * @param firstRow the row of the top edge of the rectangle
+     * @param width the number of columns in the rectangle
+     * @param height the number of rows in the rectangle
+     */
+    public TileBlock(int firstColumn, int firstRow, int width, int height) {
+        this.firstColumn = firstColumn;
+        this.firstRow    = firstRow;
+        this.width       = width;
+        this.height      = height;
+        this.terrainIds  = new byte[width * height];
+        this.buildingIds = new byte[width * height];
+        this.occupants   = new TileOccupant[width * height];
+        this.invaders    = new TileOccupant[width * height];
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the column of the left edge of the rectangle
+     * @return int the first column
+     */
+    public int getFirstColumn() {
+        return this.firstColumn;
+    }
+
+    /**
+     * getter for the row of the top edge of the rectangle
+     * @return int the first row
+     */
+    public int getFirstRow() {
+        return this.firstRow;
+    }
+
+    /**
+     * getter for the number of columns in the rectangle
+     * @return int the width
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * getter for the number of rows in the rectangle
+     * @return int the height
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * getter for the id of the Terrain of the parameter Tile
+     * @param index the index of the Tile in the rectangle
+     * @return int the id of the Terrain
+     */
+    public int getTerrainId(int index) {
+        return this.terrainIds[index] & 0xFF;
+    }
+
+    /**
+     * getter for the id of the Building of the parameter Tile
+     * @param index the index of the Tile in the rectangle
+     * @return int the id of the Building
+     */
+    public int getBuildingId(int index) {
+        return this.buildingIds[index] & 0xFF;
+    }
+
+    /**
+     * getter for the occupant of the parameter Tile
+     * @param index the index of the Tile in the rectangle
+     * @return TileOccupant the occupant, null if there isn't one
+     */
+    public TileOccupant getOccupant(int index) {
+        return this.occupants[index];
+    }
+
+    /**
+     * getter for the invader of the parameter Tile
+     * @param index the index of the Tile in the rectangle
+     * @return TileOccupant the invader, null if there isn't one
+     */
+    public TileOccupant getInvader(int index) {
+        return this.invaders[index];
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * sets everything on the parameter Tile
+     * @param index the index of the Tile in the rectangle
+     * @param terrainId the id of the Terrain
+     * @param buildingId the id of the Building
+     * @param occupant the occupant, null for none
+     * @param invader the invader, null for none
+     */
+    public void setTile(int index, int terrainId, int buildingId,
+        TileOccupant occupant, TileOccupant invader) {
+        this.terrainIds[index]  = (byte) terrainId;
+        this.buildingIds[index] = (byte) buildingId;
+        this.occupants[index]   = occupant;
+        this.invaders[index]    = invader;
+    }
+}
@@ -0,0 +1,17 @@
+package model.map;
+
+/**
+ * gets told whenever something on a Tile is swapped out for something
+ * else, the Map that a Tile belongs to listens to it so that it can tell
+ * when anything that was worked out from its Tiles has gone out of date
+ * @author Ryan Voor
+ */
+public interface TileChangeListener {
+
+    /**
+     * called right after the Terrain, Building, occupant, or
+     * invader of the parameter Tile is set
+     * @param tile the Tile that changed
+     */
+    void tileChanged(Tile tile);
+}
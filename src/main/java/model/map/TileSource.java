@@ -0,0 +1,34 @@
+package model.map;
+
+// this project imports
+import exception.MapFileReadException;
+
+/**
+ * somewhere the Tiles of a Map can be read from a rectangle at a time,
+ * like a map file, so that a TileStorage doesn't need the whole Map
+ * read in at once and can read a part of it again after forgetting it
+ * reading the same rectangle twice has to give the same Terrains and
+ * Buildings both times
+ * @author Ryan Voor
+ */
+public interface TileSource {
+
+    /**
+     * getter for the number of columns of the Map
+     * @return int the number of columns
+     */
+    int getNumberOfColumns();
+
+    /**
+     * getter for the number of rows of the Map
+     * @return int the number of rows
+     */
+    int getNumberOfRows();
+
+    /**
+     * fills in every Tile of the parameter block
+     * @param block the rectangle of Tiles to read, it is always
+     * completely on the Map
+     */
+    void readTiles(TileBlock block) throws MapFileReadException;
+}
@@ -0,0 +1,371 @@
+package model.map;
+
+// java standard library imports
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// this project imports
+import exception.MapFileReadException;
+import model.drawable.building.Building;
+import model.drawable.terrain.Terrain;
+import model.drawable.tileOccupant.TileOccupant;
+
+/**
+ * holds everything that is on every Tile of a Map, a Tile is just a view
+ * of one spot in a TileStorage, so a Map doesn't need an object for each
+ * of its Tiles
+ * a Tile's Terrain and Building are kept as their ids from the
+ * TileTypeRegistry, so every Tile with the same kind of Terrain shares
+ * the registry's one instance of it, a Tile's occupant and invader are
+ * kept as handles into a table of units, 0 always means there is nothing
+ * this class looks after the table of units and telling the listener
+ * about changes, how the ids and handles of the Tiles are actually laid
+ * out is up to the subclasses
+ * @author Ryan Voor
+ */
+public abstract class TileStorage {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the handle that means there is nothing there
+    public static final int NOTHING = 0;
+
+    // how many rows readTilesFrom reads from a TileSource at a time
+    private static final int ROWS_PER_READ = 64;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the size of the Map
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // where the ids of the Terrains and Buildings come from
+    private final TileTypeRegistry tileTypeRegistry;
+
+    // every unit on the Map by handle, and the handles that have been
+    // freed up by units leaving so that they can be handed out again
+    private final ArrayList<TileOccupant> units;
+    private int[] freeHandles;
+    private int numberOfFreeHandles;
+
+    // gets told whenever anything on a Tile is set, null if
+    // nobody is listening
+    private TileChangeListener tileChangeListener;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the TileStorage class, the table
+     * of units starts out empty
+     * @param numberOfColumns the number of columns of the Map
+     * @param numberOfRows the number of rows of the Map
+     */
+    public TileStorage(int numberOfColumns, int numberOfRows) {
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.tileTypeRegistry = TileTypeRegistry.getInstance();
+
+        // handle 0 is nothing
+        this.units = new ArrayList<TileOccupant>();
+        this.units.add(null);
+        this.freeHandles = new int[16];
+        this.numberOfFreeHandles = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of columns of the Map
+     * @return int the number of columns
+     */
+    public int getNumberOfColumns() {
+        return this.numberOfColumns;
+    }
+
+    /**
+     * getter for the number of rows of the Map
+     * @return int the number of rows
+     */
+    public int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+    /**
+     * returns a view of the parameter Tile, the view reads and writes
+     * this storage so it is always up to date
+     * @param tileNumber the number of the Tile, see Map.getTileNumber
+     * @return Tile the view of the Tile
+     */
+    public Tile getTile(int tileNumber) {
+        return new Tile(this, tileNumber);
+    }
+
+    /**
+     * getter for the Terrain of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return Terrain the Terrain of the Tile
+     */
+    public Terrain getTerrain(int tileNumber) {
+        return this.tileTypeRegistry.getTerrain(this.getTerrainId(tileNumber));
+    }
+
+    /**
+     * getter for the Building of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return Building the Building of the Tile, null if there isn't one
+     */
+    public Building getBuilding(int tileNumber) {
+        return this.tileTypeRegistry.getBuilding(
+            this.getBuildingId(tileNumber));
+    }
+
+    /**
+     * getter for the occupant of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return TileOccupant the occupant, null if there isn't one
+     */
+    public TileOccupant getOccupant(int tileNumber) {
+        return this.units.get(this.getOccupantHandle(tileNumber));
+    }
+
+    /**
+     * getter for the invader of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return TileOccupant the invader, null if there isn't one
+     */
+    public TileOccupant getInvader(int tileNumber) {
+        return this.units.get(this.getInvaderHandle(tileNumber));
+    }
+
+    /**
+     * returns how much memory the ids and handles of every Tile take
+     * up, not counting the tables they point into
+     * @return long the number of bytes
+     */
+    public abstract long getNumberOfBytes();
+
+    /**
+     * returns whether the Tiles are only read when they are first
+     * asked for, in blocks of ChunkedTileStorage.CHUNK_SIZE by
+     * CHUNK_SIZE Tiles, so that anything that would look at every Tile
+     * up front should wait until it is asked about one instead
+     * @return boolean whether Tiles are read on demand
+     */
+    public boolean readsTilesOnDemand() {
+        return false;
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * setter for the Terrain of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param terrain the Terrain to put on the Tile
+     */
+    public void setTerrain(int tileNumber, Terrain terrain) {
+        this.setTerrainId(
+            tileNumber, this.tileTypeRegistry.getTerrainId(terrain));
+        this.fireTileChanged(tileNumber);
+    }
+
+    /**
+     * setter for the Building of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param building the Building to put on the Tile, null for none
+     */
+    public void setBuilding(int tileNumber, Building building) {
+        this.setBuildingId(
+            tileNumber, this.tileTypeRegistry.getBuildingId(building));
+        this.fireTileChanged(tileNumber);
+    }
+
+    /**
+     * setter for the occupant of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param occupant the occupant to put on the Tile, null for none
+     */
+    public void setOccupant(int tileNumber, TileOccupant occupant) {
+        this.freeHandle(this.getOccupantHandle(tileNumber));
+        this.setOccupantHandle(tileNumber, this.allocateHandle(occupant));
+        this.fireTileChanged(tileNumber);
+    }
+
+    /**
+     * setter for the invader of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param invader the invader to put on the Tile, null for none
+     */
+    public void setInvader(int tileNumber, TileOccupant invader) {
+        this.freeHandle(this.getInvaderHandle(tileNumber));
+        this.setInvaderHandle(tileNumber, this.allocateHandle(invader));
+        this.fireTileChanged(tileNumber);
+    }
+
+    /**
+     * setter for the listener that gets told whenever anything on any
+     * Tile of this storage is set, normally the Map it belongs to
+     * @param tileChangeListener the listener, null for none
+     */
+    public void setTileChangeListener(TileChangeListener tileChangeListener) {
+        this.tileChangeListener = tileChangeListener;
+    }
+
+
+    ///////////////////////////////////
+    // How the subclasses lay it out //
+    ///////////////////////////////////
+
+    /**
+     * getter for the id of the Terrain of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return int the id of the Terrain
+     */
+    protected abstract int getTerrainId(int tileNumber);
+
+    /**
+     * setter for the id of the Terrain of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param terrainId the id of the Terrain
+     */
+    protected abstract void setTerrainId(int tileNumber, int terrainId);
+
+    /**
+     * getter for the id of the Building of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return int the id of the Building, TileTypeRegistry.NONE
+     * if there isn't one
+     */
+    protected abstract int getBuildingId(int tileNumber);
+
+    /**
+     * setter for the id of the Building of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param buildingId the id of the Building
+     */
+    protected abstract void setBuildingId(int tileNumber, int buildingId);
+
+    /**
+     * getter for the handle of the occupant of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return int the handle of the occupant, NOTHING if there isn't one
+     */
+    protected abstract int getOccupantHandle(int tileNumber);
+
+    /**
+     * setter for the handle of the occupant of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param handle the handle of the occupant
+     */
+    protected abstract void setOccupantHandle(int tileNumber, int handle);
+
+    /**
+     * getter for the handle of the invader of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return int the handle of the invader, NOTHING if there isn't one
+     */
+    protected abstract int getInvaderHandle(int tileNumber);
+
+    /**
+     * setter for the handle of the invader of the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param handle the handle of the invader
+     */
+    protected abstract void setInvaderHandle(int tileNumber, int handle);
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * tells the listener, if there is one, that something
+     * on the parameter Tile has changed
+     * @param tileNumber the number of the Tile that changed
+     */
+    private void fireTileChanged(int tileNumber) {
+        if (null != this.tileChangeListener) {
+            this.tileChangeListener.tileChanged(this.getTile(tileNumber));
+        }
+    }
+
+    /**
+     * reads every Tile of this storage from the parameter source, a band
+     * of rows at a time, this is meant for filling in a new storage so
+     * the listener isn't told about any of it
+     * @param tileSource where to read the Tiles from, the same size
+     * as this storage
+     */
+    public void readTilesFrom(TileSource tileSource)
+        throws MapFileReadException {
+        for (int firstRow = 0; firstRow < this.numberOfRows;
+            firstRow += TileStorage.ROWS_PER_READ) {
+            TileBlock block = new TileBlock(0, firstRow, this.numberOfColumns,
+                Math.min(TileStorage.ROWS_PER_READ,
+                    this.numberOfRows - firstRow));
+            tileSource.readTiles(block);
+            int firstTileNumber = firstRow * this.numberOfColumns;
+            for (int i = 0; i < block.getWidth() * block.getHeight(); i++) {
+                int tileNumber = firstTileNumber + i;
+                this.setTerrainId(tileNumber, block.getTerrainId(i));
+                this.setBuildingId(tileNumber, block.getBuildingId(i));
+                this.freeHandle(this.getOccupantHandle(tileNumber));
+                this.setOccupantHandle(
+                    tileNumber, this.allocateHandle(block.getOccupant(i)));
+                this.freeHandle(this.getInvaderHandle(tileNumber));
+                this.setInvaderHandle(
+                    tileNumber, this.allocateHandle(block.getInvader(i)));
+            }
+        }
+    }
+
+    /**
+     * puts the parameter unit into the table of units
+     * @param unit the unit, may be null
+     * @return int the handle of the unit, NOTHING for null
+     */
+    protected int allocateHandle(TileOccupant unit) {
+        if (null == unit) {
+            return TileStorage.NOTHING;
+        }
+        if (this.numberOfFreeHandles > 0) {
+            this.numberOfFreeHandles--;
+            int handle = this.freeHandles[this.numberOfFreeHandles];
+            this.units.set(handle, unit);
+            return handle;
+        }
+        this.units.add(unit);
+        return this.units.size() - 1;
+    }
+
+    /**
+     * takes the unit with the parameter handle out of the table
+     * of units so that the handle can be handed out again
+     * @param handle the handle of the unit, may be NOTHING
+     */
+    protected void freeHandle(int handle) {
+        if (TileStorage.NOTHING == handle) {
+            return;
+        }
+        this.units.set(handle, null);
+        if (this.numberOfFreeHandles == this.freeHandles.length) {
+            this.freeHandles = Arrays.copyOf(
+                this.freeHandles, this.numberOfFreeHandles * 2);
+        }
+        this.freeHandles[this.numberOfFreeHandles] = handle;
+        this.numberOfFreeHandles++;
+    }
+}
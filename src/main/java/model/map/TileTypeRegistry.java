@@ -0,0 +1,211 @@
+package model.map;
+
+// java standard library imports
+import java.util.Arrays;
+import java.util.HashMap;
+
+// this project imports
+import model.drawable.building.Building;
+import model.drawable.building.CommandCenter;
+import model.drawable.building.MedicalCenter;
+import model.drawable.terrain.Forest;
+import model.drawable.terrain.Mountain;
+import model.drawable.terrain.Plains;
+import model.drawable.terrain.Terrain;
+
+/**
+ * hands out the one shared instance of every kind of Terrain and
+ * Building, along with a small id for each kind that TileStorages keep
+ * instead of a reference
+ * a Plains is the same as every other Plains, nothing on a Terrain or a
+ * Building changes once it is made, so a Map of a million Tiles only
+ * needs one of each kind instead of one per Tile, and they all share the
+ * Images that get loaded for them the first time they are drawn
+ * the kinds this game has are given fixed ids below, so the ids can be
+ * written into files, any other kind is given the next free id the
+ * first time it is seen
+ * @author Ryan Voor
+ */
+public final class TileTypeRegistry {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the id that means there is no Terrain or Building
+    public static final int NONE = 0;
+
+    // the ids of the kinds of Terrain
+    public static final int PLAINS   = 1;
+    public static final int MOUNTAIN = 2;
+    public static final int FOREST   = 3;
+
+    // the ids of the kinds of Building
+    public static final int COMMAND_CENTER = 1;
+    public static final int MEDICAL_CENTER = 2;
+
+    // the most kinds of Terrain or Building there can be,
+    // so that an id always fits in a byte
+    public static final int MAXIMUM_NUMBER_OF_KINDS = 255;
+
+
+    /////////////////////
+    // class variables //
+    /////////////////////
+
+    private static final TileTypeRegistry INSTANCE = new TileTypeRegistry();
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the shared instance of every kind by id, id NONE is null, these
+    // are swapped for a longer copy whenever a kind is added so that
+    // looking up an id never has to lock
+    private volatile Terrain[] terrains;
+    private volatile Building[] buildings;
+
+    // the id of every kind
+    private final HashMap<Class<?>, Integer> terrainIds;
+    private final HashMap<Class<?>, Integer> buildingIds;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the TileTypeRegistry class, private since there
+     * is only ever the one registry, see getInstance
+     */
+    private TileTypeRegistry() {
+        this.terrains = new Terrain[] {
+            null, new Plains(), new Mountain(), new Forest()
+        };
+        this.buildings = new Building[] {
+            null, new CommandCenter(), new MedicalCenter()
+        };
+        this.terrainIds = new HashMap<Class<?>, Integer>();
+        for (int id = 1; id < this.terrains.length; id++) {
+            this.terrainIds.put(this.terrains[id].getClass(), id);
+        }
+        this.buildingIds = new HashMap<Class<?>, Integer>();
+        for (int id = 1; id < this.buildings.length; id++) {
+            this.buildingIds.put(this.buildings[id].getClass(), id);
+        }
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the one TileTypeRegistry
+     * @return TileTypeRegistry the registry
+     */
+    public static TileTypeRegistry getInstance() {
+        return TileTypeRegistry.INSTANCE;
+    }
+
+    /**
+     * returns the shared instance of the kind of Terrain with the
+     * parameter id
+     * @param terrainId the id of the kind of Terrain
+     * @return Terrain the shared Terrain, null for NONE
+     */
+    public Terrain getTerrain(int terrainId) {
+        return this.terrains[terrainId];
+    }
+
+    /**
+     * returns the shared instance of the kind of Building with the
+     * parameter id
+     * @param buildingId the id of the kind of Building
+     * @return Building the shared Building, null for NONE
+     */
+    public Building getBuilding(int buildingId) {
+        return this.buildings[buildingId];
+    }
+
+    /**
+     * returns the id of the kind of the parameter Terrain, giving the
+     * kind the next free id if it hasn't been seen before
+     * @param terrain the Terrain, may be null
+     * @return int the id of its kind, NONE for null
+     */
+    public synchronized int getTerrainId(Terrain terrain) {
+        if (null == terrain) {
+            return TileTypeRegistry.NONE;
+        }
+        Integer id = this.terrainIds.get(terrain.getClass());
+        if (null == id) {
+            id = this.terrains.length;
+            this.terrains = TileTypeRegistry.append(this.terrains, terrain);
+            this.terrainIds.put(terrain.getClass(), id);
+        }
+        return id;
+    }
+
+    /**
+     * returns the id of the kind of the parameter Building, giving the
+     * kind the next free id if it hasn't been seen before
+     * @param building the Building, may be null
+     * @return int the id of its kind, NONE for null
+     */
+    public synchronized int getBuildingId(Building building) {
+        if (null == building) {
+            return TileTypeRegistry.NONE;
+        }
+        Integer id = this.buildingIds.get(building.getClass());
+        if (null == id) {
+            id = this.buildings.length;
+            this.buildings
+                = TileTypeRegistry.append(this.buildings, building);
+            this.buildingIds.put(building.getClass(), id);
+        }
+        return id;
+    }
+
+    /**
+     * getter for the number of ids that are in use for Terrains,
+     * counting NONE, every id below this has a kind
+     * @return int the number of Terrain ids
+     */
+    public int getNumberOfTerrainIds() {
+        return this.terrains.length;
+    }
+
+    /**
+     * getter for the number of ids that are in use for Buildings,
+     * counting NONE, every id below this has a kind
+     * @return int the number of Building ids
+     */
+    public int getNumberOfBuildingIds() {
+        return this.buildings.length;
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * returns a copy of the parameter array with one more kind on
+     * the end of it
+     * @param kinds the shared instance of every kind by id
+     * @param kind the new kind
+     * @return T[] the longer copy
+     */
+    private static <T> T[] append(T[] kinds, T kind) {
+        if (kinds.length > TileTypeRegistry.MAXIMUM_NUMBER_OF_KINDS) {
+            throw new IllegalStateException("more than "
+                + TileTypeRegistry.MAXIMUM_NUMBER_OF_KINDS + " kinds of "
+                + kind.getClass().getSuperclass().getSimpleName());
+        }
+        T[] longerKinds = Arrays.copyOf(kinds, kinds.length + 1);
+        longerKinds[kinds.length] = kind;
+        return longerKinds;
+    }
+}
@@ -0,0 +1,275 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * finds the cheapest route from one Tile to another using A*
+ * see: https://en.wikipedia.org/wiki/A*_search_algorithm
+ * A* is Dijkstra's Algorithm that visits the Tiles which look closest to
+ * the goal first, how close a Tile looks is its Manhattan distance to the
+ * goal times the cheapest movement cost on the Map, that guess is never
+ * more than the real cost so the route that comes out is always one of
+ * the cheapest, and a search toward a nearby Tile never wanders off
+ * across the rest of the Map
+ * like DijkstraSearch the grid is described by a MovementCosts, the
+ * arrays are kept between searches and Tiles are marked with a
+ * generation number instead of the arrays being cleared, so a search
+ * only allocates the Path it returns
+ * a search object is not safe to share between threads, give every
+ * thread its own
+ * @author Ryan Voor
+ */
+public class AStarSearch {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the size of the grid this searches
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // the cheapest known distance to every Tile reached this search
+    private final int[] distances;
+
+    // the Tile we came from to get to every Tile reached this search
+    private final int[] previousTiles;
+
+    // a Tile has been reached this search only if its mark is the
+    // current generation
+    private final int[] marks;
+    private int generation;
+
+    // the Tiles that have been reached but not visited yet,
+    // ordered by their distance plus their guess
+    private final TileHeap heap;
+
+    // how many Tiles the last search visited, handy for tuning
+    private int numberOfVisitedTiles;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the AStarSearch class
+     * @param numberOfColumns the number of columns of the grids
+     * that will be searched
+     * @param numberOfRows the number of rows of the grids
+     * that will be searched
+     */
+    public AStarSearch(int numberOfColumns, int numberOfRows) {
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.distances = new int[numberOfColumns * numberOfRows];
+        this.previousTiles = new int[numberOfColumns * numberOfRows];
+        this.marks = new int[numberOfColumns * numberOfRows];
+        this.generation = 0;
+        this.heap = new TileHeap();
+        this.numberOfVisitedTiles = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of columns of the grids this searches
+     * @return int the number of columns
+     */
+    public int getNumberOfColumns() {
+        return this.numberOfColumns;
+    }
+
+    /**
+     * getter for the number of rows of the grids this searches
+     * @return int the number of rows
+     */
+    public int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+    /**
+     * getter for how many Tiles the last search visited before
+     * it got to the goal or gave up
+     * @return int the number of visited Tiles
+     */
+    public int getNumberOfVisitedTiles() {
+        return this.numberOfVisitedTiles;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * finds the cheapest route from the parameter start Tile to the
+     * parameter goal Tile, the start doesn't cost anything to stand on
+     * @param movementCosts the cost of moving onto each Tile
+     * @param startTileNumber the number of the Tile to start from
+     * @param goalTileNumber the number of the Tile to get to
+     * @param minimumMovementCost the cheapest movement cost of any Tile
+     * that can be moved onto, the guesses are only right if no Tile is
+     * cheaper than this
+     * @return Path the cheapest route, or null if the goal can't
+     * be reached at all
+     */
+    public Path findPath(MovementCosts movementCosts, int startTileNumber,
+        int goalTileNumber, int minimumMovementCost) {
+        int[] distances = this.distances;
+        int[] marks = this.marks;
+        TileHeap heap = this.heap;
+        int columns = this.numberOfColumns;
+        int lastTileNumber = distances.length - 1;
+        int goalColumn = goalTileNumber % columns;
+        int goalRow = goalTileNumber / columns;
+
+        this.generation++;
+        if (0 == this.generation) {
+            Arrays.fill(marks, 0);
+            this.generation = 1;
+        }
+        int generation = this.generation;
+
+        heap.clear();
+        distances[startTileNumber] = 0;
+        this.previousTiles[startTileNumber] = startTileNumber;
+        marks[startTileNumber] = generation;
+        heap.push(startTileNumber, AStarSearch.guess(
+            startTileNumber, columns, goalColumn, goalRow,
+            minimumMovementCost));
+        this.numberOfVisitedTiles = 0;
+
+        while (!heap.isEmpty()) {
+            long entry = heap.pop();
+            int current = TileHeap.getTileNumber(entry);
+            int distance = distances[current];
+
+            // a shorter way to this Tile was found after this copy was
+            // pushed, so the Tile has already been visited
+            int guess = AStarSearch.guess(
+                current, columns, goalColumn, goalRow, minimumMovementCost);
+            if (TileHeap.getDistance(entry) > distance + guess) {
+                continue;
+            }
+            this.numberOfVisitedTiles++;
+
+            if (current == goalTileNumber) {
+                return this.buildPath(startTileNumber, goalTileNumber);
+            }
+
+            int column = current % columns;
+            if (current >= columns) {
+                this.relax(movementCosts, current, distance,
+                    current - columns, goalColumn, goalRow,
+                    minimumMovementCost);
+            }
+            if (column < columns - 1) {
+                this.relax(movementCosts, current, distance,
+                    current + 1, goalColumn, goalRow, minimumMovementCost);
+            }
+            if (current + columns <= lastTileNumber) {
+                this.relax(movementCosts, current, distance,
+                    current + columns, goalColumn, goalRow,
+                    minimumMovementCost);
+            }
+            if (column > 0) {
+                this.relax(movementCosts, current, distance,
+                    current - 1, goalColumn, goalRow, minimumMovementCost);
+            }
+        }
+
+        // we ran out of Tiles without ever getting to the goal
+        return null;
+    }
+
+    /**
+     * replaces the distance to the parameter neighbour if going through
+     * the Tile that is being visited is shorter than what it already has
+     * @param movementCosts the cost of moving onto each Tile
+     * @param current the number of the Tile being visited
+     * @param distance the distance to the Tile being visited
+     * @param neighbour the number of the neighbouring Tile
+     * @param goalColumn the column of the goal
+     * @param goalRow the row of the goal
+     * @param minimumMovementCost the cheapest movement cost of any Tile
+     */
+    private void relax(MovementCosts movementCosts, int current,
+        int distance, int neighbour, int goalColumn, int goalRow,
+        int minimumMovementCost) {
+        boolean reached = this.generation == this.marks[neighbour];
+        if (reached && this.distances[neighbour] <= distance) {
+            return;
+        }
+
+        int movementCost = movementCosts.getMovementCost(neighbour);
+        if (DijkstraSearch.UNREACHABLE == movementCost) {
+            return;
+        }
+
+        int newDistance = distance + movementCost;
+        if (!reached || newDistance < this.distances[neighbour]) {
+            this.distances[neighbour] = newDistance;
+            this.previousTiles[neighbour] = current;
+            this.marks[neighbour] = this.generation;
+            this.heap.push(neighbour, newDistance + AStarSearch.guess(
+                neighbour, this.numberOfColumns, goalColumn, goalRow,
+                minimumMovementCost));
+        }
+    }
+
+    /**
+     * walks back from the goal to the start through the Tile each Tile
+     * was reached from, and turns that into a Path
+     * @param startTileNumber the number of the Tile the search started on
+     * @param goalTileNumber the number of the Tile the search got to
+     * @return Path the route from the start to the goal
+     */
+    private Path buildPath(int startTileNumber, int goalTileNumber) {
+        // count the steps first so the Path is exactly the right size
+        int length = 1;
+        for (int tile = goalTileNumber; tile != startTileNumber;
+            tile = this.previousTiles[tile]) {
+            length++;
+        }
+
+        int[] tileNumbers = new int[length];
+        int tile = goalTileNumber;
+        for (int step = length - 1; step >= 0; step--) {
+            tileNumbers[step] = tile;
+            tile = this.previousTiles[tile];
+        }
+
+        return new Path(
+            this.numberOfColumns,
+            tileNumbers,
+            this.distances[goalTileNumber]
+        );
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * guesses what it costs to get from the parameter Tile to the goal,
+     * the guess is never more than what it really costs
+     * @param tileNumber the number of the Tile
+     * @param columns the number of columns of the grid
+     * @param goalColumn the column of the goal
+     * @param goalRow the row of the goal
+     * @param minimumMovementCost the cheapest movement cost of any Tile
+     * @return int the guessed cost
+     */
+    private static int guess(int tileNumber, int columns, int goalColumn,
+        int goalRow, int minimumMovementCost) {
+        int manhattanDistance = Math.abs(tileNumber % columns - goalColumn)
+            + Math.abs(tileNumber / columns - goalRow);
+        return manhattanDistance * minimumMovementCost;
+    }
+}
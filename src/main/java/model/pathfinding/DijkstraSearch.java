@@ -0,0 +1,429 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * finds the cheapest distance from one Tile to every other Tile of a
+ * grid using Dijkstra's Algorithm
+ * see: https://en.wikipedia.org/wiki/Dijkstra%27s_algorithm
+ * the grid is described by one flat array of movement costs, one entry
+ * for every Tile in the same order as Map.getTileNumber (left to right
+ * along each row, top row first), the cost of a Tile is what it costs to
+ * move onto it and UNREACHABLE means it can't be moved onto at all
+ * the distances are kept in a flat int[] and the next Tile to visit comes
+ * out of a TileHeap, so a search over N Tiles takes O(N log N) time and
+ * never boxes a single number
+ * searchWithinBudget stops as soon as everything cheaper than a unit's
+ * movement budget has been found, so it only ever touches the Tiles near
+ * the unit and costs the same on a huge Map as on a small one, it marks
+ * the Tiles it touches with a generation number instead of clearing its
+ * arrays so that it doesn't have to look at the rest of the Map at all
+ * searchToTargets runs backward from a set of target Tiles to build a
+ * FlowField that every unit heading for those targets can share
+ * a search object keeps its arrays between searches, so one object should
+ * be reused for every search on the same size of grid, it is not safe to
+ * share one between threads
+ * @author Ryan Voor
+ */
+public class DijkstraSearch {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the movement cost of a Tile that can't be moved onto and the
+    // distance to a Tile that can't be reached
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // how many visited Tiles a budgeted search can hold
+    // before it has to grow
+    private static final int DEFAULT_VISITED_CAPACITY = 64;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the size of the grid this searches
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // the distance to every Tile from the start of the last search
+    private final int[] distances;
+
+    // the Tiles that have been reached but not visited yet
+    private final TileHeap heap;
+
+    // a Tile has been reached by the current budgeted search only if its
+    // mark is the current generation, anything else means its distance
+    // is left over from an older search
+    private final int[] marks;
+    private int generation;
+
+    // the Tiles visited by the current budgeted search as (Tile number,
+    // distance) pairs packed into longs the same way TileHeap packs them
+    private long[] visitedTiles;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the DijkstraSearch class
+     * @param numberOfColumns the number of columns of the grids
+     * that will be searched
+     * @param numberOfRows the number of rows of the grids
+     * that will be searched
+     */
+    public DijkstraSearch(int numberOfColumns, int numberOfRows) {
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.distances = new int[numberOfColumns * numberOfRows];
+        this.heap = new TileHeap();
+        this.marks = new int[numberOfColumns * numberOfRows];
+        this.generation = 0;
+        this.visitedTiles = new long[DijkstraSearch.DEFAULT_VISITED_CAPACITY];
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of columns of the grids this searches
+     * @return int the number of columns
+     */
+    public int getNumberOfColumns() {
+        return this.numberOfColumns;
+    }
+
+    /**
+     * getter for the number of rows of the grids this searches
+     * @return int the number of rows
+     */
+    public int getNumberOfRows() {
+        return this.numberOfRows;
+    }
+
+    /**
+     * getter for the distances worked out by the last call to search
+     * @return int[] the distance to every Tile, UNREACHABLE for the
+     * Tiles that couldn't be reached, this array is overwritten by the
+     * next search of either kind
+     */
+    public int[] getDistances() {
+        return this.distances;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * works out the cheapest distance from the parameter Tile to every
+     * other Tile of the grid, the starting Tile has distance 0 no matter
+     * what its own movement cost is
+     * @param movementCosts the cost of moving onto each Tile
+     * @param startTileNumber the number of the Tile to start from
+     * @return int[] the distance to every Tile, see getDistances
+     */
+    public int[] search(MovementCosts movementCosts, int startTileNumber) {
+        int[] distances = this.distances;
+        TileHeap heap = this.heap;
+        int columns = this.numberOfColumns;
+        int lastTileNumber = distances.length - 1;
+
+        // every Tile starts out at "infinity" except the start
+        Arrays.fill(distances, DijkstraSearch.UNREACHABLE);
+        heap.clear();
+        distances[startTileNumber] = 0;
+        heap.push(startTileNumber, 0);
+
+        while (!heap.isEmpty()) {
+            long entry = heap.pop();
+            int current = TileHeap.getTileNumber(entry);
+            int distance = TileHeap.getDistance(entry);
+
+            // a shorter way to this Tile was found after this copy was
+            // pushed, so the Tile has already been visited
+            if (distance > distances[current]) {
+                continue;
+            }
+
+            // the neighbours to the north, east, south, and west,
+            // making sure we don't walk off an edge of the grid
+            int column = current % columns;
+            if (current >= columns) {
+                this.relax(movementCosts, distance, current - columns);
+            }
+            if (column < columns - 1) {
+                this.relax(movementCosts, distance, current + 1);
+            }
+            if (current + columns <= lastTileNumber) {
+                this.relax(movementCosts, distance, current + columns);
+            }
+            if (column > 0) {
+                this.relax(movementCosts, distance, current - 1);
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * finds every Tile that can be reached from the parameter Tile
+     * without spending more than the parameter budget, Tiles that cost
+     * more than that are never even looked at
+     * @param movementCosts the cost of moving onto each Tile
+     * @param startTileNumber the number of the Tile to start from
+     * @param budget the most that can be spent, never negative
+     * @return ReachableSet every Tile other than the start that can be
+     * reached within the budget, with what it costs to reach it
+     */
+    public ReachableSet searchWithinBudget(MovementCosts movementCosts,
+        int startTileNumber, int budget) {
+        int[] distances = this.distances;
+        int[] marks = this.marks;
+        TileHeap heap = this.heap;
+        int columns = this.numberOfColumns;
+        int lastTileNumber = distances.length - 1;
+
+        // a new generation forgets every Tile the last search reached,
+        // when the counter wraps around the marks have to really be
+        // cleared since a very old mark could match again
+        this.generation++;
+        if (0 == this.generation) {
+            Arrays.fill(marks, 0);
+            this.generation = 1;
+        }
+        int generation = this.generation;
+
+        heap.clear();
+        distances[startTileNumber] = 0;
+        marks[startTileNumber] = generation;
+        heap.push(startTileNumber, 0);
+        int numberOfVisitedTiles = 0;
+
+        while (!heap.isEmpty()) {
+            long entry = heap.pop();
+            int current = TileHeap.getTileNumber(entry);
+            int distance = TileHeap.getDistance(entry);
+            if (distance > distances[current]) {
+                continue;
+            }
+
+            if (current != startTileNumber) {
+                if (numberOfVisitedTiles == this.visitedTiles.length) {
+                    this.visitedTiles = Arrays.copyOf(
+                        this.visitedTiles, numberOfVisitedTiles * 2);
+                }
+                this.visitedTiles[numberOfVisitedTiles] = entry;
+                numberOfVisitedTiles++;
+            }
+
+            int column = current % columns;
+            if (current >= columns) {
+                this.relaxWithinBudget(movementCosts, distance,
+                    current - columns, budget);
+            }
+            if (column < columns - 1) {
+                this.relaxWithinBudget(movementCosts, distance,
+                    current + 1, budget);
+            }
+            if (current + columns <= lastTileNumber) {
+                this.relaxWithinBudget(movementCosts, distance,
+                    current + columns, budget);
+            }
+            if (column > 0) {
+                this.relaxWithinBudget(movementCosts, distance,
+                    current - 1, budget);
+            }
+        }
+
+        return this.buildReachableSet(
+            startTileNumber, budget, numberOfVisitedTiles);
+    }
+
+    /**
+     * works out what it costs to get from every Tile of the grid to the
+     * nearest of the parameter target Tiles, and which way to step first,
+     * by searching backward from all of the targets at once
+     * going backward, stepping from a neighbour onto the Tile being
+     * visited costs what the Tile being visited costs, so a Tile that
+     * can't be moved onto is given a distance but nothing is reached
+     * through it, which lets a unit standing on one find its way out
+     * @param movementCosts the cost of moving onto each Tile
+     * @param targetTileNumbers the numbers of the Tiles to get to,
+     * sorted from smallest to largest, the field keeps this array
+     * @return FlowField the distances and directions to the targets
+     */
+    public FlowField searchToTargets(MovementCosts movementCosts,
+        int[] targetTileNumbers) {
+        // the field keeps these, so they can't be this search's arrays
+        int[] distances = new int[this.distances.length];
+        byte[] directions = new byte[this.distances.length];
+        TileHeap heap = this.heap;
+        int columns = this.numberOfColumns;
+        int lastTileNumber = distances.length - 1;
+
+        Arrays.fill(distances, DijkstraSearch.UNREACHABLE);
+        heap.clear();
+        for (int targetTileNumber : targetTileNumbers) {
+            distances[targetTileNumber] = 0;
+            heap.push(targetTileNumber, 0);
+        }
+
+        while (!heap.isEmpty()) {
+            long entry = heap.pop();
+            int current = TileHeap.getTileNumber(entry);
+            int distance = TileHeap.getDistance(entry);
+            if (distance > distances[current]) {
+                continue;
+            }
+
+            // every neighbour would step onto this Tile, which
+            // nobody can do if it can't be moved onto
+            int movementCost = movementCosts.getMovementCost(current);
+            if (DijkstraSearch.UNREACHABLE == movementCost) {
+                continue;
+            }
+            int newDistance = distance + movementCost;
+
+            // the neighbour to the north steps south onto this
+            // Tile, the one to the east steps west, and so on
+            int column = current % columns;
+            if (current >= columns) {
+                DijkstraSearch.relaxBackward(distances, directions, heap,
+                    current - columns, newDistance, FlowField.SOUTH);
+            }
+            if (column < columns - 1) {
+                DijkstraSearch.relaxBackward(distances, directions, heap,
+                    current + 1, newDistance, FlowField.WEST);
+            }
+            if (current + columns <= lastTileNumber) {
+                DijkstraSearch.relaxBackward(distances, directions, heap,
+                    current + columns, newDistance, FlowField.NORTH);
+            }
+            if (column > 0) {
+                DijkstraSearch.relaxBackward(distances, directions, heap,
+                    current - 1, newDistance, FlowField.EAST);
+            }
+        }
+
+        return new FlowField(
+            columns, targetTileNumbers, distances, directions);
+    }
+
+    /**
+     * replaces the distance to the parameter neighbour if going through
+     * the Tile that is being visited is shorter than what it already has
+     * @param movementCosts the cost of moving onto each Tile
+     * @param distance the distance to the Tile being visited
+     * @param neighbour the number of the neighbouring Tile
+     */
+    private void relax(MovementCosts movementCosts, int distance,
+        int neighbour) {
+        int movementCost = movementCosts.getMovementCost(neighbour);
+
+        // checking this first keeps the addition from overflowing
+        if (DijkstraSearch.UNREACHABLE == movementCost) {
+            return;
+        }
+
+        int newDistance = distance + movementCost;
+        if (newDistance < this.distances[neighbour]) {
+            this.distances[neighbour] = newDistance;
+            this.heap.push(neighbour, newDistance);
+        }
+    }
+
+    /**
+     * same as relax except that Tiles that would cost more than the
+     * budget are left alone and a Tile's distance only counts if it was
+     * marked by the current search
+     * @param movementCosts the cost of moving onto each Tile
+     * @param distance the distance to the Tile being visited
+     * @param neighbour the number of the neighbouring Tile
+     * @param budget the most that can be spent
+     */
+    private void relaxWithinBudget(MovementCosts movementCosts,
+        int distance, int neighbour, int budget) {
+        // a Tile that was already reached this search can't get any
+        // cheaper than what it has if it has already been visited,
+        // and the cost lookup is the slow part, so check this first
+        boolean reached = this.generation == this.marks[neighbour];
+        if (reached && this.distances[neighbour] <= distance) {
+            return;
+        }
+
+        int movementCost = movementCosts.getMovementCost(neighbour);
+        if (DijkstraSearch.UNREACHABLE == movementCost
+            || movementCost > budget - distance) {
+            return;
+        }
+
+        int newDistance = distance + movementCost;
+        if (!reached || newDistance < this.distances[neighbour]) {
+            this.distances[neighbour] = newDistance;
+            this.marks[neighbour] = this.generation;
+            this.heap.push(neighbour, newDistance);
+        }
+    }
+
+    /**
+     * replaces the distance from the parameter neighbour during a
+     * backward search if stepping onto the Tile being visited is cheaper
+     * than what it already has
+     * @param distances the distance from every Tile to the targets
+     * @param directions which way every Tile steps first
+     * @param heap the Tiles that have been reached but not visited
+     * @param neighbour the number of the neighbouring Tile
+     * @param newDistance the distance from the neighbour through
+     * the Tile being visited
+     * @param direction which way the neighbour steps to get onto
+     * the Tile being visited
+     */
+    private static void relaxBackward(int[] distances, byte[] directions,
+        TileHeap heap, int neighbour, int newDistance, byte direction) {
+        if (newDistance < distances[neighbour]) {
+            distances[neighbour] = newDistance;
+            directions[neighbour] = direction;
+            heap.push(neighbour, newDistance);
+        }
+    }
+
+    /**
+     * packs the Tiles visited by the current budgeted search into a
+     * ReachableSet sorted by Tile number
+     * @param startTileNumber the number of the Tile the search started on
+     * @param budget the most the search was allowed to spend
+     * @param numberOfVisitedTiles how many entries of visitedTiles
+     * belong to the current search
+     * @return ReachableSet the visited Tiles and their distances
+     */
+    private ReachableSet buildReachableSet(int startTileNumber, int budget,
+        int numberOfVisitedTiles) {
+        // flip every entry around so that sorting them sorts
+        // by Tile number instead of by distance
+        long[] entries = new long[numberOfVisitedTiles];
+        for (int i = 0; i < numberOfVisitedTiles; i++) {
+            long entry = this.visitedTiles[i];
+            entries[i] = (((long) TileHeap.getTileNumber(entry)) << 32)
+                | TileHeap.getDistance(entry);
+        }
+        Arrays.sort(entries);
+
+        int[] tileNumbers = new int[numberOfVisitedTiles];
+        int[] costs = new int[numberOfVisitedTiles];
+        for (int i = 0; i < numberOfVisitedTiles; i++) {
+            tileNumbers[i] = (int) (entries[i] >>> 32);
+            costs[i] = (int) entries[i];
+        }
+
+        return new ReachableSet(startTileNumber, budget, tileNumbers, costs);
+    }
+}
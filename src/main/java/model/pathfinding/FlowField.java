@@ -0,0 +1,155 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * tells every Tile of a Map which way to step to get to the nearest of a
+ * set of target Tiles as cheaply as possible, so that any number of units
+ * heading to the same place can share one search instead of each running
+ * their own
+ * the field is worked out once with a backward search from the targets,
+ * see DijkstraSearch.searchToTargets, and keeps what it costs to get to
+ * the nearest target from every Tile along with the direction of the first
+ * step, one byte per Tile, so finding a unit's next step is one lookup
+ * a Tile that has a unit on it still gets a distance and a direction, as
+ * long as it could step off onto a Tile that leads to a target, so the
+ * units that are standing still can read their way out
+ * a FlowField never changes once it is built
+ * @author Ryan Voor
+ */
+public class FlowField {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the directions of the first step from a Tile, NONE for
+    // the targets and for Tiles that can't get to any target
+    public static final byte NONE = 0;
+    public static final byte NORTH = 1;
+    public static final byte EAST = 2;
+    public static final byte SOUTH = 3;
+    public static final byte WEST = 4;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the width of the Map, used to turn directions into Tile numbers
+    private final int numberOfColumns;
+
+    // the Tiles the field leads to, sorted
+    private final int[] targetTileNumbers;
+
+    // what it costs to get from every Tile to the nearest target
+    private final int[] distances;
+
+    // which way to step from every Tile
+    private final byte[] directions;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the FlowField class
+     * @param numberOfColumns the number of columns of the Map
+     * @param targetTileNumbers the Tiles the field leads to, sorted from
+     * smallest to largest, the field keeps this array
+     * @param distances what it costs to get from every Tile to the
+     * nearest target, the field keeps this array
+     * @param directions which way to step from every Tile, the field
+     * keeps this array
+     */
+    public FlowField(int numberOfColumns, int[] targetTileNumbers,
+        int[] distances, byte[] directions) {
+        this.numberOfColumns = numberOfColumns;
+        this.targetTileNumbers = targetTileNumbers;
+        this.distances = distances;
+        this.directions = directions;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of Tiles the field leads to
+     * @return int the number of targets
+     */
+    public int getNumberOfTargets() {
+        return this.targetTileNumbers.length;
+    }
+
+    /**
+     * returns the number of the target at the parameter position,
+     * positions go in order of Tile number
+     * @param index the position of the target
+     * @return int the number of the target Tile
+     */
+    public int getTargetTileNumber(int index) {
+        return this.targetTileNumbers[index];
+    }
+
+    /**
+     * returns what it costs to get from the parameter Tile to the
+     * nearest target
+     * @param tileNumber the number of the Tile
+     * @return int the cost, 0 for a target, DijkstraSearch.UNREACHABLE
+     * if no target can be reached from the Tile
+     */
+    public int getDistance(int tileNumber) {
+        return this.distances[tileNumber];
+    }
+
+    /**
+     * returns which way to step from the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return byte NORTH, EAST, SOUTH, or WEST, or NONE if the Tile is
+     * a target or no target can be reached from it
+     */
+    public byte getDirection(int tileNumber) {
+        return this.directions[tileNumber];
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * returns the Tile to step onto from the parameter Tile to get to
+     * the nearest target as cheaply as possible
+     * @param tileNumber the number of the Tile
+     * @return int the number of the next Tile, or -1 if the Tile is a
+     * target or no target can be reached from it
+     */
+    public int getNextTileNumber(int tileNumber) {
+        switch (this.directions[tileNumber]) {
+        case FlowField.NORTH:
+            return tileNumber - this.numberOfColumns;
+        case FlowField.EAST:
+            return tileNumber + 1;
+        case FlowField.SOUTH:
+            return tileNumber + this.numberOfColumns;
+        case FlowField.WEST:
+            return tileNumber - 1;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * returns whether the parameter Tile is one of the Tiles
+     * the field leads to
+     * @param tileNumber the number of the Tile
+     * @return boolean whether the Tile is a target
+     */
+    public boolean isTarget(int tileNumber) {
+        return Arrays.binarySearch(this.targetTileNumbers, tileNumber) >= 0;
+    }
+}
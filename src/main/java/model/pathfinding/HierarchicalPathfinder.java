@@ -0,0 +1,940 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * finds routes across very big Maps without searching every Tile in
+ * between, using Hierarchical Path-Finding A* (HPA*)
+ * see: Botea, Muller, and Schaeffer, "Near Optimal Hierarchical
+ * Path-Finding" (2004)
+ * the Map is cut into square clusters of Tiles, and wherever two clusters
+ * touch and a unit could step from one to the other there is an entrance,
+ * the Tiles on either side of every entrance are the nodes of a much
+ * smaller abstract graph, two nodes in the same cluster are joined by the
+ * cheapest route between them that stays inside the cluster, and the two
+ * sides of an entrance are joined by the single step across it
+ * a route is found by running A* on the abstract graph, which only has a
+ * handful of nodes per cluster, and then refining every edge of the
+ * abstract route into real steps with a search that only looks inside
+ * one cluster, the route that comes out is usually within a few percent
+ * of the cheapest one, but it isn't guaranteed to be the cheapest
+ * when a Tile changes only the cluster it is in is rebuilt, along with
+ * the clusters next to it if the Tile is on the edge of its cluster,
+ * and the rebuilding waits until the next route is asked for
+ * one of these is built for each MovementCostGrid and it reads the grid
+ * whenever it rebuilds a cluster, so it follows the grid as it changes
+ * as long as it is told about every Tile that changes
+ * every method is synchronized since all the searches share one set
+ * of arrays
+ * @author Ryan Voor
+ */
+public class HierarchicalPathfinder {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // the width and height in Tiles of a cluster
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    // an opening between two clusters at least this long gets a
+    // node at each end instead of one in the middle, so that routes
+    // along a wide opening don't have to bend to go through its center
+    private static final int ENTRANCE_SPLIT_LENGTH = 6;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // what it costs to move onto every Tile
+    private final MovementCostGrid movementCosts;
+
+    // the size of the Map in Tiles
+    private final int numberOfColumns;
+    private final int numberOfRows;
+
+    // the size of the Map in clusters
+    private final int clusterSize;
+    private final int clustersWide;
+    private final int clustersHigh;
+
+    // every cluster, left to right along each row of
+    // clusters, top row first
+    private final Cluster[] clusters;
+
+    // the entrances between each cluster and the cluster to its east
+    // and the cluster to its south, as pairs of Tile numbers, the
+    // first of each pair is on the side of the cluster itself
+    private final int[][] eastEntrances;
+    private final int[][] southEntrances;
+
+    // how many clusters have something dirty
+    private int numberOfDirtyClusters;
+
+    // how many times a cluster has been rebuilt, handy for tuning
+    private long numberOfClusterRebuilds;
+
+    // the arrays of the search on the abstract graph, indexed by
+    // Tile number and marked with a generation number
+    private final int[] abstractDistances;
+    private final int[] abstractPreviousTiles;
+    private final int[] abstractMarks;
+    private int abstractGeneration;
+    private final TileHeap abstractHeap;
+
+    // the arrays of the searches inside one cluster, indexed by the
+    // position of a Tile inside its cluster
+    private final int[] localDistances;
+    private final int[] localPreviousTiles;
+    private final TileHeap localHeap;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the HierarchicalPathfinder class, nothing is
+     * worked out until the first route is asked for
+     * @param movementCosts what it costs to move onto every Tile
+     * @param numberOfColumns the number of columns of the Map
+     * @param numberOfRows the number of rows of the Map
+     * @param clusterSize the width and height in Tiles of a cluster
+     */
+    public HierarchicalPathfinder(MovementCostGrid movementCosts,
+        int numberOfColumns, int numberOfRows, int clusterSize) {
+        this.movementCosts = movementCosts;
+        this.numberOfColumns = numberOfColumns;
+        this.numberOfRows = numberOfRows;
+        this.clusterSize = clusterSize;
+        this.clustersWide = (numberOfColumns + clusterSize - 1) / clusterSize;
+        this.clustersHigh = (numberOfRows + clusterSize - 1) / clusterSize;
+
+        int numberOfClusters = this.clustersWide * this.clustersHigh;
+        this.clusters = new Cluster[numberOfClusters];
+        this.eastEntrances = new int[numberOfClusters][];
+        this.southEntrances = new int[numberOfClusters][];
+        for (int clusterY = 0; clusterY < this.clustersHigh; clusterY++) {
+            for (int clusterX = 0; clusterX < this.clustersWide; clusterX++) {
+                int firstColumn = clusterX * clusterSize;
+                int firstRow = clusterY * clusterSize;
+                Cluster cluster = new Cluster(
+                    firstColumn,
+                    firstRow,
+                    Math.min(clusterSize, numberOfColumns - firstColumn),
+                    Math.min(clusterSize, numberOfRows - firstRow)
+                );
+
+                // everything starts out dirty so that the first
+                // route builds the whole abstract graph
+                cluster.entrancesAreDirty = true;
+                cluster.nodesAreDirty = true;
+                int clusterNumber = clusterY * this.clustersWide + clusterX;
+                this.clusters[clusterNumber] = cluster;
+                this.eastEntrances[clusterNumber] = new int[0];
+                this.southEntrances[clusterNumber] = new int[0];
+            }
+        }
+        this.numberOfDirtyClusters = numberOfClusters;
+        this.numberOfClusterRebuilds = 0;
+
+        int numberOfTiles = numberOfColumns * numberOfRows;
+        this.abstractDistances = new int[numberOfTiles];
+        this.abstractPreviousTiles = new int[numberOfTiles];
+        this.abstractMarks = new int[numberOfTiles];
+        this.abstractGeneration = 0;
+        this.abstractHeap = new TileHeap();
+
+        this.localDistances = new int[clusterSize * clusterSize];
+        this.localPreviousTiles = new int[clusterSize * clusterSize];
+        this.localHeap = new TileHeap();
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the width and height in Tiles of a cluster
+     * @return int the size of a cluster
+     */
+    public int getClusterSize() {
+        return this.clusterSize;
+    }
+
+    /**
+     * getter for the number of clusters the Map is cut into
+     * @return int the number of clusters
+     */
+    public int getNumberOfClusters() {
+        return this.clusters.length;
+    }
+
+    /**
+     * getter for the number of nodes in the abstract graph, this
+     * rebuilds any dirty clusters first
+     * @return int the number of nodes
+     */
+    public synchronized int getNumberOfNodes() {
+        this.rebuildDirtyClusters();
+        int numberOfNodes = 0;
+        for (Cluster cluster : this.clusters) {
+            numberOfNodes += cluster.nodeTiles.length;
+        }
+        return numberOfNodes;
+    }
+
+    /**
+     * getter for how many times a cluster has been rebuilt
+     * @return long the number of cluster rebuilds
+     */
+    public synchronized long getNumberOfClusterRebuilds() {
+        return this.numberOfClusterRebuilds;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * tells this pathfinder that the movement cost of the parameter Tile
+     * has changed, the cluster the Tile is in gets rebuilt before the
+     * next route is found, and so do its neighbours if the Tile is on
+     * the edge of the cluster since the entrances might have changed
+     * @param tileNumber the number of the Tile that changed
+     */
+    public synchronized void tileChanged(int tileNumber) {
+        int column = tileNumber % this.numberOfColumns;
+        int row = tileNumber / this.numberOfColumns;
+        Cluster cluster = this.clusters[this.getClusterNumber(column, row)];
+        if (!cluster.isDirty()) {
+            this.numberOfDirtyClusters++;
+        }
+
+        cluster.nodesAreDirty = true;
+        int localColumn = column - cluster.firstColumn;
+        int localRow = row - cluster.firstRow;
+        if (0 == localColumn || cluster.width - 1 == localColumn
+            || 0 == localRow || cluster.height - 1 == localRow) {
+            cluster.entrancesAreDirty = true;
+        }
+    }
+
+    /**
+     * finds a cheap route from the parameter start Tile to the parameter
+     * goal Tile, the start doesn't cost anything to stand on
+     * @param startTileNumber the number of the Tile to start from
+     * @param goalTileNumber the number of the Tile to get to
+     * @return Path the route, or null if the goal can't be reached
+     */
+    public synchronized Path findPath(int startTileNumber,
+        int goalTileNumber) {
+        if (startTileNumber == goalTileNumber) {
+            return new Path(
+                this.numberOfColumns, new int[] {startTileNumber}, 0);
+        }
+        if (DijkstraSearch.UNREACHABLE
+            == this.movementCosts.getMovementCost(goalTileNumber)) {
+            return null;
+        }
+
+        this.rebuildDirtyClusters();
+
+        if (!this.searchAbstractGraph(startTileNumber, goalTileNumber)) {
+            return null;
+        }
+        return this.refineAbstractPath(startTileNumber, goalTileNumber);
+    }
+
+
+    /////////////////////////////////
+    // Building the abstract graph //
+    /////////////////////////////////
+
+    /**
+     * rebuilds everything that has gone dirty, first the entrances
+     * around every cluster with dirty entrances, then the nodes and
+     * edges of every cluster whose entrances or Tiles changed
+     */
+    private void rebuildDirtyClusters() {
+        if (0 == this.numberOfDirtyClusters) {
+            return;
+        }
+
+        // new entrances change the nodes of the clusters on
+        // both sides, so those have to be rebuilt too
+        for (int i = 0; i < this.clusters.length; i++) {
+            if (this.clusters[i].entrancesAreDirty) {
+                this.rebuildEntrancesAround(i);
+            }
+        }
+
+        for (Cluster cluster : this.clusters) {
+            if (cluster.nodesAreDirty) {
+                this.rebuildNodes(cluster);
+                this.numberOfClusterRebuilds++;
+            }
+        }
+        this.numberOfDirtyClusters = 0;
+    }
+
+    /**
+     * finds the entrances on all four edges of the parameter cluster,
+     * and marks the nodes of the cluster and its neighbours dirty
+     * @param clusterNumber the number of the cluster
+     */
+    private void rebuildEntrancesAround(int clusterNumber) {
+        int clusterX = clusterNumber % this.clustersWide;
+        int clusterY = clusterNumber / this.clustersWide;
+        this.clusters[clusterNumber].entrancesAreDirty = false;
+        this.clusters[clusterNumber].nodesAreDirty = true;
+
+        if (clusterX + 1 < this.clustersWide) {
+            this.eastEntrances[clusterNumber]
+                = this.findEntrances(clusterNumber, clusterNumber + 1);
+            this.clusters[clusterNumber + 1].nodesAreDirty = true;
+        }
+        if (clusterY + 1 < this.clustersHigh) {
+            int southNumber = clusterNumber + this.clustersWide;
+            this.southEntrances[clusterNumber]
+                = this.findEntrances(clusterNumber, southNumber);
+            this.clusters[southNumber].nodesAreDirty = true;
+        }
+        if (clusterX > 0) {
+            this.eastEntrances[clusterNumber - 1]
+                = this.findEntrances(clusterNumber - 1, clusterNumber);
+            this.clusters[clusterNumber - 1].nodesAreDirty = true;
+        }
+        if (clusterY > 0) {
+            int northNumber = clusterNumber - this.clustersWide;
+            this.southEntrances[northNumber]
+                = this.findEntrances(northNumber, clusterNumber);
+            this.clusters[northNumber].nodesAreDirty = true;
+        }
+    }
+
+    /**
+     * finds the entrances on the edge between two clusters, an entrance
+     * is a run of Tiles along the edge where both sides can be moved
+     * onto, short runs get one pair of nodes in the middle and long
+     * runs get a pair at each end
+     * @param firstClusterNumber the number of the west or north cluster
+     * @param secondClusterNumber the number of the cluster to the east
+     * or south of the first one
+     * @return int[] the entrances as pairs of Tile numbers, the first
+     * of each pair is in the first cluster
+     */
+    private int[] findEntrances(int firstClusterNumber,
+        int secondClusterNumber) {
+        Cluster first = this.clusters[firstClusterNumber];
+        boolean vertical = secondClusterNumber == firstClusterNumber + 1;
+
+        // walk along the edge, the first side's Tiles step by stepAlong
+        // and the second side's Tiles are always acrossOffset away
+        int edgeLength = vertical ? first.height : first.width;
+        int firstTile = vertical
+            ? this.getTileNumber(first.lastColumn(), first.firstRow)
+            : this.getTileNumber(first.firstColumn, first.lastRow());
+        int stepAlong = vertical ? this.numberOfColumns : 1;
+        int acrossOffset = vertical ? 1 : this.numberOfColumns;
+
+        int[] entrances = new int[4 * edgeLength];
+        int numberOfValues = 0;
+        int runStart = -1;
+        for (int i = 0; i <= edgeLength; i++) {
+            boolean open = i < edgeLength
+                && this.isPassable(firstTile + i * stepAlong)
+                && this.isPassable(firstTile + i * stepAlong + acrossOffset);
+            if (open && -1 == runStart) {
+                runStart = i;
+            } else if (!open && -1 != runStart) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1
+                    < HierarchicalPathfinder.ENTRANCE_SPLIT_LENGTH) {
+                    int middle = firstTile
+                        + ((runStart + runEnd) / 2) * stepAlong;
+                    entrances[numberOfValues++] = middle;
+                    entrances[numberOfValues++] = middle + acrossOffset;
+                } else {
+                    int start = firstTile + runStart * stepAlong;
+                    int end = firstTile + runEnd * stepAlong;
+                    entrances[numberOfValues++] = start;
+                    entrances[numberOfValues++] = start + acrossOffset;
+                    entrances[numberOfValues++] = end;
+                    entrances[numberOfValues++] = end + acrossOffset;
+                }
+                runStart = -1;
+            }
+        }
+
+        return Arrays.copyOf(entrances, numberOfValues);
+    }
+
+    /**
+     * works out the nodes of the parameter cluster from the entrances on
+     * its edges, the steps that leave the cluster through them, and the
+     * cheapest route inside the cluster between every pair of nodes
+     * @param cluster the cluster to rebuild
+     */
+    private void rebuildNodes(Cluster cluster) {
+        int clusterNumber = this.getClusterNumber(
+            cluster.firstColumn, cluster.firstRow);
+        int clusterX = clusterNumber % this.clustersWide;
+        int clusterY = clusterNumber / this.clustersWide;
+
+        // gather this cluster's side of every entrance on its edges,
+        // the exits are pairs of (Tile in this cluster, Tile outside)
+        int[][] edges = {
+            this.eastEntrances[clusterNumber],
+            this.southEntrances[clusterNumber],
+            clusterX > 0 ? this.eastEntrances[clusterNumber - 1] : null,
+            clusterY > 0
+                ? this.southEntrances[clusterNumber - this.clustersWide]
+                : null
+        };
+        int numberOfExits = 0;
+        for (int[] edge : edges) {
+            numberOfExits += null == edge ? 0 : edge.length / 2;
+        }
+        int[] exits = new int[2 * numberOfExits];
+        int[] nodeTiles = new int[numberOfExits];
+        int exit = 0;
+        for (int e = 0; e < edges.length; e++) {
+            if (null == edges[e]) {
+                continue;
+            }
+            // the first two edges list this cluster's Tile first
+            // and the last two list it second
+            int inside = e < 2 ? 0 : 1;
+            for (int i = 0; i < edges[e].length; i += 2) {
+                exits[2 * exit] = edges[e][i + inside];
+                exits[2 * exit + 1] = edges[e][i + 1 - inside];
+                nodeTiles[exit] = edges[e][i + inside];
+                exit++;
+            }
+        }
+
+        // a corner Tile can be on two edges, it is still only one node
+        Arrays.sort(nodeTiles);
+        int numberOfNodes = 0;
+        for (int i = 0; i < nodeTiles.length; i++) {
+            if (0 == i || nodeTiles[i] != nodeTiles[i - 1]) {
+                nodeTiles[numberOfNodes++] = nodeTiles[i];
+            }
+        }
+        nodeTiles = Arrays.copyOf(nodeTiles, numberOfNodes);
+
+        int[] exitNodes = new int[numberOfExits];
+        int[] exitTiles = new int[numberOfExits];
+        for (int i = 0; i < numberOfExits; i++) {
+            exitNodes[i] = Arrays.binarySearch(nodeTiles, exits[2 * i]);
+            exitTiles[i] = exits[2 * i + 1];
+        }
+
+        // one search inside the cluster from every node gives
+        // the cheapest route to every other node
+        int[] nodeCosts = new int[numberOfNodes * numberOfNodes];
+        for (int from = 0; from < numberOfNodes; from++) {
+            this.searchCluster(cluster, nodeTiles[from], false);
+            for (int to = 0; to < numberOfNodes; to++) {
+                nodeCosts[from * numberOfNodes + to] = this.localDistances[
+                    cluster.getLocalIndex(nodeTiles[to], this.numberOfColumns)];
+            }
+        }
+
+        cluster.nodeTiles = nodeTiles;
+        cluster.nodeCosts = nodeCosts;
+        cluster.exitNodes = exitNodes;
+        cluster.exitTiles = exitTiles;
+        cluster.nodesAreDirty = false;
+    }
+
+
+    //////////////////////////////////
+    // Searching the abstract graph //
+    //////////////////////////////////
+
+    /**
+     * runs A* on the abstract graph from the start to the goal, with the
+     * start and goal joined to the nodes of their clusters for just this
+     * search, the route can be read back through abstractPreviousTiles
+     * @param startTileNumber the number of the Tile to start from
+     * @param goalTileNumber the number of the Tile to get to
+     * @return boolean whether the goal was reached
+     */
+    private boolean searchAbstractGraph(int startTileNumber,
+        int goalTileNumber) {
+        Cluster startCluster = this.getClusterOfTile(startTileNumber);
+        Cluster goalCluster = this.getClusterOfTile(goalTileNumber);
+        int goalColumn = goalTileNumber % this.numberOfColumns;
+        int goalRow = goalTileNumber / this.numberOfColumns;
+        int minimumMovementCost = this.movementCosts.getMinimumMovementCost();
+
+        // what it costs to get from the start to every node of its
+        // cluster, and straight to the goal if it's in the same cluster
+        this.searchCluster(startCluster, startTileNumber, false);
+        int[] startCosts = new int[startCluster.nodeTiles.length];
+        for (int i = 0; i < startCosts.length; i++) {
+            startCosts[i] = this.localDistances[startCluster.getLocalIndex(
+                startCluster.nodeTiles[i], this.numberOfColumns)];
+        }
+        int directCost = DijkstraSearch.UNREACHABLE;
+        if (startCluster == goalCluster) {
+            directCost = this.localDistances[startCluster.getLocalIndex(
+                goalTileNumber, this.numberOfColumns)];
+        }
+
+        // what it costs to get from every node of the goal's cluster
+        // to the goal, worked out backwards from the goal
+        this.searchCluster(goalCluster, goalTileNumber, true);
+        int[] goalCosts = new int[goalCluster.nodeTiles.length];
+        for (int i = 0; i < goalCosts.length; i++) {
+            goalCosts[i] = this.localDistances[goalCluster.getLocalIndex(
+                goalCluster.nodeTiles[i], this.numberOfColumns)];
+        }
+
+        this.abstractGeneration++;
+        if (0 == this.abstractGeneration) {
+            Arrays.fill(this.abstractMarks, 0);
+            this.abstractGeneration = 1;
+        }
+        this.abstractHeap.clear();
+        this.reachAbstractTile(startTileNumber, startTileNumber, 0,
+            goalColumn, goalRow, minimumMovementCost);
+
+        while (!this.abstractHeap.isEmpty()) {
+            long entry = this.abstractHeap.pop();
+            int current = TileHeap.getTileNumber(entry);
+            int distance = this.abstractDistances[current];
+            if (TileHeap.getDistance(entry) > distance + this.guess(
+                current, goalColumn, goalRow, minimumMovementCost)) {
+                continue;
+            }
+            if (current == goalTileNumber) {
+                return true;
+            }
+
+            if (current == startTileNumber) {
+                for (int i = 0; i < startCosts.length; i++) {
+                    this.relaxAbstractEdge(current, distance, startCosts[i],
+                        startCluster.nodeTiles[i], goalColumn, goalRow,
+                        minimumMovementCost);
+                }
+                this.relaxAbstractEdge(current, distance, directCost,
+                    goalTileNumber, goalColumn, goalRow,
+                    minimumMovementCost);
+            }
+
+            Cluster cluster = this.getClusterOfTile(current);
+            int node = Arrays.binarySearch(cluster.nodeTiles, current);
+            if (node < 0) {
+                continue;
+            }
+            int numberOfNodes = cluster.nodeTiles.length;
+            for (int i = 0; i < numberOfNodes; i++) {
+                this.relaxAbstractEdge(current, distance,
+                    cluster.nodeCosts[node * numberOfNodes + i],
+                    cluster.nodeTiles[i], goalColumn, goalRow,
+                    minimumMovementCost);
+            }
+            for (int i = 0; i < cluster.exitNodes.length; i++) {
+                if (cluster.exitNodes[i] == node) {
+                    this.relaxAbstractEdge(current, distance,
+                        this.movementCosts.getMovementCost(
+                            cluster.exitTiles[i]),
+                        cluster.exitTiles[i], goalColumn, goalRow,
+                        minimumMovementCost);
+                }
+            }
+            if (cluster == goalCluster) {
+                this.relaxAbstractEdge(current, distance, goalCosts[node],
+                    goalTileNumber, goalColumn, goalRow,
+                    minimumMovementCost);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * follows an edge of the abstract graph if it leads somewhere
+     * cheaper than what that Tile already has
+     * @param current the Tile the edge starts at
+     * @param distance the distance to that Tile
+     * @param edgeCost what the edge costs, may be UNREACHABLE
+     * @param next the Tile the edge leads to
+     * @param goalColumn the column of the goal
+     * @param goalRow the row of the goal
+     * @param minimumMovementCost the cheapest movement cost of any Tile
+     */
+    private void relaxAbstractEdge(int current, int distance, int edgeCost,
+        int next, int goalColumn, int goalRow, int minimumMovementCost) {
+        if (DijkstraSearch.UNREACHABLE == edgeCost) {
+            return;
+        }
+        int newDistance = distance + edgeCost;
+        if (this.abstractGeneration != this.abstractMarks[next]
+            || newDistance < this.abstractDistances[next]) {
+            this.reachAbstractTile(next, current, newDistance,
+                goalColumn, goalRow, minimumMovementCost);
+        }
+    }
+
+    /**
+     * records the parameter distance to the parameter Tile and puts
+     * it on the heap of the abstract search
+     * @param tileNumber the Tile that was reached
+     * @param previousTile the Tile it was reached from
+     * @param distance the distance to the Tile
+     * @param goalColumn the column of the goal
+     * @param goalRow the row of the goal
+     * @param minimumMovementCost the cheapest movement cost of any Tile
+     */
+    private void reachAbstractTile(int tileNumber, int previousTile,
+        int distance, int goalColumn, int goalRow, int minimumMovementCost) {
+        this.abstractDistances[tileNumber] = distance;
+        this.abstractPreviousTiles[tileNumber] = previousTile;
+        this.abstractMarks[tileNumber] = this.abstractGeneration;
+        this.abstractHeap.push(tileNumber, distance + this.guess(
+            tileNumber, goalColumn, goalRow, minimumMovementCost));
+    }
+
+    /**
+     * turns the route the abstract search found into real steps, every
+     * edge inside a cluster is walked again with a search of just that
+     * cluster and every edge between clusters is one step
+     * @param startTileNumber the number of the Tile the route starts on
+     * @param goalTileNumber the number of the Tile the route ends on
+     * @return Path the route one Tile at a time
+     */
+    private Path refineAbstractPath(int startTileNumber,
+        int goalTileNumber) {
+        // read the abstract route back from the goal
+        int numberOfWaypoints = 1;
+        for (int tile = goalTileNumber; tile != startTileNumber;
+            tile = this.abstractPreviousTiles[tile]) {
+            numberOfWaypoints++;
+        }
+        int[] waypoints = new int[numberOfWaypoints];
+        int tile = goalTileNumber;
+        for (int i = numberOfWaypoints - 1; i >= 0; i--) {
+            waypoints[i] = tile;
+            tile = this.abstractPreviousTiles[tile];
+        }
+
+        int[] steps = new int[numberOfWaypoints * this.clusterSize];
+        steps[0] = startTileNumber;
+        int numberOfSteps = 1;
+        for (int i = 1; i < numberOfWaypoints; i++) {
+            int from = waypoints[i - 1];
+            int to = waypoints[i];
+            Cluster cluster = this.getClusterOfTile(from);
+            if (cluster != this.getClusterOfTile(to)) {
+                // a step across an entrance
+                steps = HierarchicalPathfinder.append(
+                    steps, numberOfSteps, to);
+                numberOfSteps++;
+                continue;
+            }
+
+            // walk back from the end of this edge to its start
+            // through a search of the cluster, then copy those
+            // steps onto the route in the right order
+            this.searchCluster(cluster, from, false);
+            int edgeLength = 0;
+            for (int local = cluster.getLocalIndex(to, this.numberOfColumns);
+                local != cluster.getLocalIndex(from, this.numberOfColumns);
+                local = this.localPreviousTiles[local]) {
+                edgeLength++;
+            }
+            int local = cluster.getLocalIndex(to, this.numberOfColumns);
+            for (int j = edgeLength - 1; j >= 0; j--) {
+                steps = HierarchicalPathfinder.append(steps,
+                    numberOfSteps + j,
+                    cluster.getTileNumber(local, this.numberOfColumns));
+                local = this.localPreviousTiles[local];
+            }
+            numberOfSteps += edgeLength;
+        }
+
+        return new Path(
+            this.numberOfColumns,
+            Arrays.copyOf(steps, numberOfSteps),
+            this.abstractDistances[goalTileNumber]
+        );
+    }
+
+    /**
+     * runs Dijkstra's Algorithm on the Tiles of one cluster, the results
+     * are left in localDistances and localPreviousTiles
+     * a forward search works out what it costs to get from the parameter
+     * Tile to every Tile of the cluster, a backward search works out what
+     * it costs to get from every Tile of the cluster to the parameter Tile
+     * @param cluster the cluster to search
+     * @param tileNumber the number of the Tile to search from
+     * @param backward whether to search backward
+     */
+    private void searchCluster(Cluster cluster, int tileNumber,
+        boolean backward) {
+        int width = cluster.width;
+        int size = width * cluster.height;
+        Arrays.fill(this.localDistances, 0, size, DijkstraSearch.UNREACHABLE);
+        this.localHeap.clear();
+
+        int start = cluster.getLocalIndex(tileNumber, this.numberOfColumns);
+        this.localDistances[start] = 0;
+        this.localPreviousTiles[start] = start;
+        this.localHeap.push(start, 0);
+
+        while (!this.localHeap.isEmpty()) {
+            long entry = this.localHeap.pop();
+            int current = TileHeap.getTileNumber(entry);
+            int distance = TileHeap.getDistance(entry);
+            if (distance > this.localDistances[current]) {
+                continue;
+            }
+
+            // going backward, every step onto the current Tile
+            // costs what the current Tile costs
+            int currentCost = backward
+                ? this.movementCosts.getMovementCost(
+                    cluster.getTileNumber(current, this.numberOfColumns))
+                : 0;
+
+            int column = current % width;
+            if (current >= width) {
+                this.relaxLocal(cluster, current, current - width,
+                    distance, currentCost, backward);
+            }
+            if (column < width - 1) {
+                this.relaxLocal(cluster, current, current + 1,
+                    distance, currentCost, backward);
+            }
+            if (current + width < size) {
+                this.relaxLocal(cluster, current, current + width,
+                    distance, currentCost, backward);
+            }
+            if (column > 0) {
+                this.relaxLocal(cluster, current, current - 1,
+                    distance, currentCost, backward);
+            }
+        }
+    }
+
+    /**
+     * replaces the distance to the parameter neighbour during a search
+     * of one cluster if going through the current Tile is cheaper
+     * @param cluster the cluster being searched
+     * @param current the position in the cluster of the current Tile
+     * @param neighbour the position in the cluster of the neighbour
+     * @param distance the distance to the current Tile
+     * @param currentCost what the current Tile costs, only used
+     * going backward
+     * @param backward whether the search is going backward
+     */
+    private void relaxLocal(Cluster cluster, int current, int neighbour,
+        int distance, int currentCost, boolean backward) {
+        int neighbourCost = this.movementCosts.getMovementCost(
+            cluster.getTileNumber(neighbour, this.numberOfColumns));
+        if (DijkstraSearch.UNREACHABLE == neighbourCost) {
+            return;
+        }
+        int newDistance = distance + (backward ? currentCost : neighbourCost);
+        if (newDistance < this.localDistances[neighbour]) {
+            this.localDistances[neighbour] = newDistance;
+            this.localPreviousTiles[neighbour] = current;
+            this.localHeap.push(neighbour, newDistance);
+        }
+    }
+
+
+    /////////////
+    // Helpers //
+    /////////////
+
+    /**
+     * returns whether the parameter Tile can be moved onto
+     * @param tileNumber the number of the Tile
+     * @return boolean whether the Tile is passable
+     */
+    private boolean isPassable(int tileNumber) {
+        return DijkstraSearch.UNREACHABLE
+            != this.movementCosts.getMovementCost(tileNumber);
+    }
+
+    /**
+     * returns the number of the Tile at the parameter indices
+     * @param column the column of the Tile
+     * @param row the row of the Tile
+     * @return int the number of the Tile
+     */
+    private int getTileNumber(int column, int row) {
+        return row * this.numberOfColumns + column;
+    }
+
+    /**
+     * returns the number of the cluster that holds the parameter indices
+     * @param column the column of a Tile
+     * @param row the row of a Tile
+     * @return int the number of the cluster
+     */
+    private int getClusterNumber(int column, int row) {
+        return (row / this.clusterSize) * this.clustersWide
+            + column / this.clusterSize;
+    }
+
+    /**
+     * returns the cluster that holds the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return Cluster the cluster
+     */
+    private Cluster getClusterOfTile(int tileNumber) {
+        return this.clusters[this.getClusterNumber(
+            tileNumber % this.numberOfColumns,
+            tileNumber / this.numberOfColumns
+        )];
+    }
+
+    /**
+     * guesses what it costs to get from the parameter Tile to the goal,
+     * the guess is never more than what it really costs
+     * @param tileNumber the number of the Tile
+     * @param goalColumn the column of the goal
+     * @param goalRow the row of the goal
+     * @param minimumMovementCost the cheapest movement cost of any Tile
+     * @return int the guessed cost
+     */
+    private int guess(int tileNumber, int goalColumn, int goalRow,
+        int minimumMovementCost) {
+        return (Math.abs(tileNumber % this.numberOfColumns - goalColumn)
+            + Math.abs(tileNumber / this.numberOfColumns - goalRow))
+            * minimumMovementCost;
+    }
+
+    /**
+     * puts the parameter value into the parameter array at the parameter
+     * index, growing the array first if it is too small
+     * @param values the array
+     * @param index where to put the value
+     * @param value the value
+     * @return int[] the array, or a bigger copy of it
+     */
+    private static int[] append(int[] values, int index, int value) {
+        int[] result = values;
+        if (index >= values.length) {
+            result = Arrays.copyOf(
+                values, Math.max(values.length * 2, index + 1));
+        }
+        result[index] = value;
+        return result;
+    }
+
+
+    ///////////////////
+    // Inner classes //
+    ///////////////////
+
+    /**
+     * one square of Tiles of the Map along with its part of the
+     * abstract graph
+     * @author Ryan Voor
+     */
+    private static class Cluster {
+
+        // where the cluster is and how big it is, the clusters
+        // on the right and bottom edges can be smaller
+        private final int firstColumn;
+        private final int firstRow;
+        private final int width;
+        private final int height;
+
+        // the Tile numbers of the nodes in this cluster, sorted
+        private int[] nodeTiles;
+
+        // what it costs to get from node i to node j without leaving the
+        // cluster is nodeCosts[i * number of nodes + j]
+        private int[] nodeCosts;
+
+        // node exitNodes[i] can step out of the cluster onto exitTiles[i]
+        private int[] exitNodes;
+        private int[] exitTiles;
+
+        // whether the entrances around this cluster and the nodes in
+        // it have to be worked out again
+        private boolean entrancesAreDirty;
+        private boolean nodesAreDirty;
+
+        /**
+         * constructor for the Cluster class, the cluster starts out
+         * with no nodes
+         * @param firstColumn the left-most column of the cluster
+         * @param firstRow the top-most row of the cluster
+         * @param width the number of columns in the cluster
+         * @param height the number of rows in the cluster
+         */
+        public Cluster(int firstColumn, int firstRow, int width,
+            int height) {
+            this.firstColumn = firstColumn;
+            this.firstRow = firstRow;
+            this.width = width;
+            this.height = height;
+            this.nodeTiles = new int[0];
+            this.nodeCosts = new int[0];
+            this.exitNodes = new int[0];
+            this.exitTiles = new int[0];
+        }
+
+        /**
+         * returns the right-most column of the cluster
+         * @return int the last column
+         */
+        public int lastColumn() {
+            return this.firstColumn + this.width - 1;
+        }
+
+        /**
+         * returns the bottom-most row of the cluster
+         * @return int the last row
+         */
+        public int lastRow() {
+            return this.firstRow + this.height - 1;
+        }
+
+        /**
+         * returns whether anything about this cluster has to be
+         * worked out again
+         * @return boolean whether the cluster is dirty
+         */
+        public boolean isDirty() {
+            return this.entrancesAreDirty || this.nodesAreDirty;
+        }
+
+        /**
+         * turns a Tile number into a position inside this cluster
+         * @param tileNumber the number of a Tile in this cluster
+         * @param numberOfColumns the number of columns of the Map
+         * @return int the position of the Tile in this cluster
+         */
+        public int getLocalIndex(int tileNumber, int numberOfColumns) {
+            int column = tileNumber % numberOfColumns - this.firstColumn;
+            int row = tileNumber / numberOfColumns - this.firstRow;
+            return row * this.width + column;
+        }
+
+        /**
+         * turns a position inside this cluster into a Tile number
+         * @param localIndex the position of a Tile in this cluster
+         * @param numberOfColumns the number of columns of the Map
+         * @return int the number of the Tile
+         */
+        public int getTileNumber(int localIndex, int numberOfColumns) {
+            int column = this.firstColumn + localIndex % this.width;
+            int row = this.firstRow + localIndex / this.width;
+            return row * numberOfColumns + column;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package model.pathfinding;
+
+/**
+ * works out the movement costs that a MovementCostGrid doesn't know yet,
+ * so that the grids of a Map too big to keep in memory only ever have
+ * the costs of the Tiles that actually get searched worked out
+ * @author Ryan Voor
+ */
+public interface MovementCostFiller {
+
+    /**
+     * fills in the cost of the parameter Tile, and of any other Tiles
+     * around it that are cheap to work out at the same time, in every
+     * grid that this fills in
+     * @param tileNumber the number of the Tile, see Map.getTileNumber
+     */
+    void fillMovementCosts(int tileNumber);
+}
@@ -0,0 +1,231 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * what it costs one kind of unit to move onto every Tile of a Map, kept
+ * as one byte per Tile so that a search reads a cost with a single array
+ * index instead of asking the Tile, its Terrain, and the unit
+ * a Map keeps one of these for each MovementClass and patches the Tiles
+ * that change, so the grid is always up to date
+ * the grid also counts how many Tiles have each cost so that it always
+ * knows the cheapest cost on the Map, which A* needs for its guesses
+ * the grid of a Map too big to keep in memory starts out not knowing any
+ * costs, the first time the cost of a Tile is asked for a
+ * MovementCostFiller works it out, so only the parts of the Map that are
+ * searched ever have to be read
+ * @author Ryan Voor
+ */
+public class MovementCostGrid implements MovementCosts {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how a Tile that can't be moved onto is stored, as an unsigned
+    // byte this is 255 so every real cost has to be smaller than that
+    private static final byte IMPASSABLE = (byte) 0xFF;
+
+    // how a Tile whose cost hasn't been worked out yet is stored
+    private static final byte UNKNOWN = (byte) 0xFE;
+
+    // the most a Tile that can be moved onto can cost
+    private static final int MAXIMUM_MOVEMENT_COST = 253;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the cost of every Tile as an unsigned byte, in the
+    // order given by Map.getTileNumber
+    private final byte[] movementCosts;
+
+    // how many Tiles have each cost, indexed by the unsigned byte
+    private final int[] numberOfTilesWithCost;
+
+    // works out the costs that aren't known yet, null if every cost
+    // is always known, and the least any of them could cost
+    private final MovementCostFiller movementCostFiller;
+    private final int cheapestUnknownMovementCost;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the MovementCostGrid class, every Tile starts out
+     * impassable until its cost is set
+     * @param numberOfTiles the number of Tiles on the Map
+     */
+    public MovementCostGrid(int numberOfTiles) {
+        this.movementCosts = new byte[numberOfTiles];
+        Arrays.fill(this.movementCosts, MovementCostGrid.IMPASSABLE);
+        this.numberOfTilesWithCost = new int[256];
+        this.numberOfTilesWithCost[MovementCostGrid.IMPASSABLE & 0xFF]
+            = numberOfTiles;
+        this.movementCostFiller = null;
+        this.cheapestUnknownMovementCost = 0;
+    }
+
+
+    /**
+     * constructor for the MovementCostGrid class that starts out not
+     * knowing the cost of any Tile, the parameter filler is asked for
+     * a cost the first time it is needed and has to fill it in with
+     * fillMovementCost
+     * @param numberOfTiles the number of Tiles on the Map
+     * @param movementCostFiller works out the costs that aren't known
+     * @param cheapestUnknownMovementCost the least that any Tile whose
+     * cost isn't known yet could cost, so that the cheapest cost on the
+     * Map is never guessed too high
+     */
+    public MovementCostGrid(int numberOfTiles,
+        MovementCostFiller movementCostFiller,
+        int cheapestUnknownMovementCost) {
+        this.movementCosts = new byte[numberOfTiles];
+        Arrays.fill(this.movementCosts, MovementCostGrid.UNKNOWN);
+        this.numberOfTilesWithCost = new int[256];
+        this.numberOfTilesWithCost[MovementCostGrid.UNKNOWN & 0xFF]
+            = numberOfTiles;
+        this.movementCostFiller = movementCostFiller;
+        this.cheapestUnknownMovementCost = cheapestUnknownMovementCost;
+    }
+
+
+    /**
+     * constructor for the MovementCostGrid class that makes a copy of
+     * the parameter grid, the copy doesn't change when the original does
+     * @param movementCostGrid the grid to copy, it has to know the cost
+     * of every Tile since the copy can't ask for them
+     * @throws IllegalArgumentException if the grid doesn't know every cost
+     */
+    public MovementCostGrid(MovementCostGrid movementCostGrid) {
+        if (movementCostGrid.hasUnknownMovementCosts()) {
+            throw new IllegalArgumentException(
+                "can't copy a grid that doesn't know every cost");
+        }
+        this.movementCosts = movementCostGrid.movementCosts.clone();
+        this.numberOfTilesWithCost
+            = movementCostGrid.numberOfTilesWithCost.clone();
+        this.movementCostFiller = null;
+        this.cheapestUnknownMovementCost = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    @Override
+    public int getMovementCost(int tileNumber) {
+        int movementCost = this.movementCosts[tileNumber] & 0xFF;
+        if ((MovementCostGrid.UNKNOWN & 0xFF) == movementCost) {
+            this.movementCostFiller.fillMovementCosts(tileNumber);
+            movementCost = this.movementCosts[tileNumber] & 0xFF;
+        }
+        return (MovementCostGrid.IMPASSABLE & 0xFF) == movementCost
+            ? DijkstraSearch.UNREACHABLE
+            : movementCost;
+    }
+
+    /**
+     * getter for the number of Tiles in this grid
+     * @return int the number of Tiles
+     */
+    public int getNumberOfTiles() {
+        return this.movementCosts.length;
+    }
+
+    /**
+     * returns the cheapest cost of any Tile in this grid that
+     * can be moved onto
+     * @return int the cheapest movement cost, 0 if no Tile
+     * can be moved onto
+     */
+    public int getMinimumMovementCost() {
+        int minimumMovementCost = -1;
+        for (int cost = 0; cost <= MovementCostGrid.MAXIMUM_MOVEMENT_COST
+            && -1 == minimumMovementCost; cost++) {
+            if (0 != this.numberOfTilesWithCost[cost]) {
+                minimumMovementCost = cost;
+            }
+        }
+
+        // a Tile that hasn't been looked at yet could be cheaper
+        if (this.hasUnknownMovementCosts()) {
+            minimumMovementCost = -1 == minimumMovementCost
+                ? this.cheapestUnknownMovementCost
+                : Math.min(minimumMovementCost,
+                    this.cheapestUnknownMovementCost);
+        }
+        return Math.max(0, minimumMovementCost);
+    }
+
+    /**
+     * returns whether there are Tiles whose cost hasn't been
+     * worked out yet
+     * @return boolean whether any cost isn't known
+     */
+    public boolean hasUnknownMovementCosts() {
+        return 0 != this.numberOfTilesWithCost[MovementCostGrid.UNKNOWN & 0xFF];
+    }
+
+    /**
+     * returns whether the cost of the parameter Tile hasn't been
+     * worked out yet
+     * @param tileNumber the number of the Tile
+     * @return boolean whether its cost isn't known
+     */
+    public boolean isMovementCostUnknown(int tileNumber) {
+        return MovementCostGrid.UNKNOWN == this.movementCosts[tileNumber];
+    }
+
+
+    /////////////
+    // Setters //
+    /////////////
+
+    /**
+     * sets what it costs to move onto the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @param movementCost the movement cost, between 0 and 253, or
+     * DijkstraSearch.UNREACHABLE if the Tile can't be moved onto
+     * @return boolean whether the cost of the Tile changed
+     * @throws IllegalArgumentException if the cost doesn't fit in a byte
+     */
+    public boolean setMovementCost(int tileNumber, int movementCost) {
+        byte storedCost = MovementCostGrid.IMPASSABLE;
+        if (DijkstraSearch.UNREACHABLE != movementCost) {
+            if (movementCost < 0
+                || movementCost > MovementCostGrid.MAXIMUM_MOVEMENT_COST) {
+                throw new IllegalArgumentException("movement cost "
+                    + movementCost + " doesn't fit in a MovementCostGrid");
+            }
+            storedCost = (byte) movementCost;
+        }
+
+        if (storedCost == this.movementCosts[tileNumber]) {
+            return false;
+        }
+        this.numberOfTilesWithCost[this.movementCosts[tileNumber] & 0xFF]--;
+        this.numberOfTilesWithCost[storedCost & 0xFF]++;
+        this.movementCosts[tileNumber] = storedCost;
+        return true;
+    }
+
+    /**
+     * fills in the cost of a Tile whose cost isn't known yet, what the
+     * MovementCostFiller does, Tiles whose cost is known are left alone
+     * so a filler can never undo a change it didn't hear about
+     * @param tileNumber the number of the Tile
+     * @param movementCost the movement cost, see setMovementCost
+     */
+    public void fillMovementCost(int tileNumber, int movementCost) {
+        if (this.isMovementCostUnknown(tileNumber)) {
+            this.setMovementCost(tileNumber, movementCost);
+        }
+    }
+}
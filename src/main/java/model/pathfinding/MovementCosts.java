@@ -0,0 +1,18 @@
+package model.pathfinding;
+
+/**
+ * what it costs some unit to move onto each Tile of a grid, looked up one
+ * Tile at a time so that a search only ever asks about the Tiles it
+ * actually reaches instead of the whole Map being copied up front
+ * @author Ryan Voor
+ */
+public interface MovementCosts {
+
+    /**
+     * returns what it costs to move onto the parameter Tile
+     * @param tileNumber the number of the Tile, see Map.getTileNumber
+     * @return int the movement cost, never negative,
+     * DijkstraSearch.UNREACHABLE if the Tile can't be moved onto
+     */
+    int getMovementCost(int tileNumber);
+}
@@ -0,0 +1,95 @@
+package model.pathfinding;
+
+/**
+ * a route across a Map from one Tile to another, one step at a time
+ * the first Tile of a Path is the Tile it starts on and the last is the
+ * Tile it ends on, every Tile in between is next to the ones before and
+ * after it
+ * a Path never changes once it is built
+ * @author Ryan Voor
+ */
+public class Path {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the width of the Map, used to turn Tile numbers into indices
+    private final int numberOfColumns;
+
+    // the Tiles along the route in order, start first
+    private final int[] tileNumbers;
+
+    // what it costs to walk the whole route
+    private final int cost;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the Path class
+     * @param numberOfColumns the number of columns of the Map
+     * @param tileNumbers the numbers of the Tiles along the route in
+     * order, start first, the Path keeps this array
+     * @param cost what it costs to walk the whole route
+     */
+    public Path(int numberOfColumns, int[] tileNumbers, int cost) {
+        this.numberOfColumns = numberOfColumns;
+        this.tileNumbers = tileNumbers;
+        this.cost = cost;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of Tiles along the route, counting
+     * the start and the end
+     * @return int the number of Tiles
+     */
+    public int getLength() {
+        return this.tileNumbers.length;
+    }
+
+    /**
+     * getter for what it costs to walk the whole route, the
+     * starting Tile doesn't cost anything
+     * @return int the cost of the route
+     */
+    public int getCost() {
+        return this.cost;
+    }
+
+    /**
+     * returns the number of the Tile at the parameter step of the route
+     * @param step the step, 0 is the start
+     * @return int the number of the Tile, see Map.getTileNumber
+     */
+    public int getTileNumber(int step) {
+        return this.tileNumbers[step];
+    }
+
+    /**
+     * returns the X Index (column) of the Tile at the parameter
+     * step of the route
+     * @param step the step, 0 is the start
+     * @return int the column of the Tile
+     */
+    public int getXIndex(int step) {
+        return this.tileNumbers[step] % this.numberOfColumns;
+    }
+
+    /**
+     * returns the Y Index (row) of the Tile at the parameter
+     * step of the route
+     * @param step the step, 0 is the start
+     * @return int the row of the Tile
+     */
+    public int getYIndex(int step) {
+        return this.tileNumbers[step] / this.numberOfColumns;
+    }
+}
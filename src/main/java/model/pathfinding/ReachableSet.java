@@ -0,0 +1,131 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * the Tiles that a unit can reach from where it is standing without
+ * spending more than its movement budget, along with what it costs to
+ * get to each of them
+ * the Tiles are kept in two small parallel arrays sorted by Tile number,
+ * so a ReachableSet is only as big as the number of Tiles in it no matter
+ * how big the Map is, and looking a Tile up is a binary search
+ * the Tile the unit starts on is never in the set
+ * a ReachableSet never changes once it is built
+ * @author Ryan Voor
+ */
+public class ReachableSet {
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the Tile the unit starts on
+    private final int startTileNumber;
+
+    // the most the unit was allowed to spend
+    private final int budget;
+
+    // tileNumbers[i] costs costs[i] to reach, sorted by Tile number
+    private final int[] tileNumbers;
+    private final int[] costs;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the ReachableSet class
+     * @param startTileNumber the number of the Tile the unit starts on
+     * @param budget the most the unit was allowed to spend
+     * @param tileNumbers the numbers of the reachable Tiles, sorted from
+     * smallest to largest, the set keeps this array
+     * @param costs what it costs to reach each of those Tiles, the set
+     * keeps this array
+     */
+    public ReachableSet(int startTileNumber, int budget, int[] tileNumbers,
+        int[] costs) {
+        this.startTileNumber = startTileNumber;
+        this.budget = budget;
+        this.tileNumbers = tileNumbers;
+        this.costs = costs;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of the Tile the unit starts on
+     * @return int the number of the starting Tile
+     */
+    public int getStartTileNumber() {
+        return this.startTileNumber;
+    }
+
+    /**
+     * getter for the most the unit was allowed to spend
+     * @return int the movement budget
+     */
+    public int getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * getter for the number of Tiles in this set
+     * @return int the number of reachable Tiles
+     */
+    public int size() {
+        return this.tileNumbers.length;
+    }
+
+    /**
+     * returns the number of the Tile at the parameter position in this
+     * set, positions go from 0 to size() - 1 in order of Tile number
+     * @param index the position in this set
+     * @return int the number of the Tile
+     */
+    public int getTileNumber(int index) {
+        return this.tileNumbers[index];
+    }
+
+    /**
+     * returns what it costs to reach the Tile at the parameter
+     * position in this set
+     * @param index the position in this set
+     * @return int the cost of reaching the Tile
+     */
+    public int getCostAt(int index) {
+        return this.costs[index];
+    }
+
+    /**
+     * returns what it costs to reach the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return int the cost of reaching the Tile, 0 for the starting
+     * Tile, DijkstraSearch.UNREACHABLE if the Tile isn't in this set
+     */
+    public int getCost(int tileNumber) {
+        if (tileNumber == this.startTileNumber) {
+            return 0;
+        }
+        int index = Arrays.binarySearch(this.tileNumbers, tileNumber);
+        return index < 0 ? DijkstraSearch.UNREACHABLE : this.costs[index];
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * returns whether the unit can move onto the parameter Tile
+     * @param tileNumber the number of the Tile
+     * @return boolean whether the Tile is in this set
+     */
+    public boolean contains(int tileNumber) {
+        return Arrays.binarySearch(this.tileNumbers, tileNumber) >= 0;
+    }
+}
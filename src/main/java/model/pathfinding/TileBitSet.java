@@ -0,0 +1,174 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * a set of Tiles kept as one bit per Tile of a Map, packed 64 to a long,
+ * so a whole Map of a million Tiles fits in 125 kilobytes and two sets
+ * can be combined 64 Tiles at a time
+ * Tiles are numbered the same way as Map.getTileNumber
+ * @author Ryan Voor
+ */
+public class TileBitSet {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many bits are in each word, and how far to shift a Tile number
+    // to get the word it is in
+    private static final int BITS_PER_WORD = 64;
+    private static final int WORD_SHIFT = 6;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // the number of Tiles this set can hold
+    private final int numberOfTiles;
+
+    // Tile t is in the set if bit t % 64 of words[t / 64] is set
+    private final long[] words;
+
+
+    //////////////////
+    // Constructors //
+    //////////////////
+
+    /**
+     * constructor for the TileBitSet class, the set starts out empty
+     * @param numberOfTiles the number of Tiles of the Map
+     */
+    public TileBitSet(int numberOfTiles) {
+        this.numberOfTiles = numberOfTiles;
+        this.words = new long[
+            (numberOfTiles + TileBitSet.BITS_PER_WORD - 1)
+                >>> TileBitSet.WORD_SHIFT];
+    }
+
+    /**
+     * constructor for the TileBitSet class that copies another set
+     * @param other the set to copy
+     */
+    public TileBitSet(TileBitSet other) {
+        this.numberOfTiles = other.numberOfTiles;
+        this.words = Arrays.copyOf(other.words, other.words.length);
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of Tiles this set can hold
+     * @return int the number of Tiles of the Map
+     */
+    public int getNumberOfTiles() {
+        return this.numberOfTiles;
+    }
+
+    /**
+     * returns whether the parameter Tile is in this set
+     * @param tileNumber the number of the Tile
+     * @return boolean whether the Tile is in this set
+     */
+    public boolean contains(int tileNumber) {
+        return 0 != (this.words[tileNumber >>> TileBitSet.WORD_SHIFT]
+            & (1L << tileNumber));
+    }
+
+    /**
+     * counts the Tiles in this set
+     * @return int the number of Tiles in this set
+     */
+    public int size() {
+        int size = 0;
+        for (long word : this.words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * returns whether this set has no Tiles in it
+     * @return boolean whether this set is empty
+     */
+    public boolean isEmpty() {
+        for (long word : this.words) {
+            if (0 != word) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * puts the parameter Tile into this set
+     * @param tileNumber the number of the Tile
+     */
+    public void add(int tileNumber) {
+        this.words[tileNumber >>> TileBitSet.WORD_SHIFT] |= 1L << tileNumber;
+    }
+
+    /**
+     * takes the parameter Tile out of this set
+     * @param tileNumber the number of the Tile
+     */
+    public void remove(int tileNumber) {
+        this.words[tileNumber >>> TileBitSet.WORD_SHIFT]
+            &= ~(1L << tileNumber);
+    }
+
+    /**
+     * puts every Tile of the parameter set into this set
+     * @param other a set of the same size
+     */
+    public void addAll(TileBitSet other) {
+        for (int i = 0; i < this.words.length; i++) {
+            this.words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * takes every Tile out of this set
+     */
+    public void clear() {
+        Arrays.fill(this.words, 0L);
+    }
+
+    /**
+     * finds the first Tile in this set whose number is at least the
+     * parameter number, so every Tile of a set can be walked with
+     * for (int t = set.nextTile(0); t >= 0; t = set.nextTile(t + 1))
+     * @param fromTileNumber the number to start looking from
+     * @return int the number of the Tile, or -1 if there isn't one
+     */
+    public int nextTile(int fromTileNumber) {
+        if (fromTileNumber >= this.numberOfTiles) {
+            return -1;
+        }
+        int wordIndex = fromTileNumber >>> TileBitSet.WORD_SHIFT;
+
+        // ignore the bits below the starting Tile in its word
+        long word = this.words[wordIndex] & (-1L << fromTileNumber);
+        while (true) {
+            if (0 != word) {
+                return (wordIndex << TileBitSet.WORD_SHIFT)
+                    + Long.numberOfTrailingZeros(word);
+            }
+            wordIndex++;
+            if (wordIndex == this.words.length) {
+                return -1;
+            }
+            word = this.words[wordIndex];
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package model.pathfinding;
+
+// java standard library imports
+import java.util.Arrays;
+
+/**
+ * a binary min-heap of Tile numbers ordered by their distance, used to
+ * find the next Tile to visit during a search without looking at every
+ * Tile on the Map
+ * the heap holds nothing but primitives, each entry is one long with the
+ * distance in the high 32 bits and the Tile number in the low 32 bits, so
+ * comparing two entries compares their distances first and pushing or
+ * popping never creates any garbage
+ * a Tile can be pushed more than once when a shorter distance to it is
+ * found, the search is expected to skip the stale copies as they come
+ * out by checking them against its own distances
+ * @author Ryan Voor
+ */
+public class TileHeap {
+
+    ///////////////
+    // constants //
+    ///////////////
+
+    // how many entries the heap can hold before it has to grow
+    private static final int DEFAULT_CAPACITY = 64;
+
+
+    ////////////////////////
+    // instance variables //
+    ////////////////////////
+
+    // entries[0] is always the smallest entry, the children of
+    // entries[i] are entries[2i + 1] and entries[2i + 2]
+    private long[] entries;
+    private int size;
+
+
+    /////////////////
+    // Constructor //
+    /////////////////
+
+    /**
+     * constructor for the TileHeap class, the heap starts out empty
+     */
+    public TileHeap() {
+        this.entries = new long[TileHeap.DEFAULT_CAPACITY];
+        this.size = 0;
+    }
+
+
+    /////////////
+    // Getters //
+    /////////////
+
+    /**
+     * getter for the number of entries in the heap, this counts
+     * stale copies of a Tile too
+     * @return int the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * returns whether there are no entries in the heap
+     * @return boolean whether the heap is empty
+     */
+    public boolean isEmpty() {
+        return 0 == this.size;
+    }
+
+    /**
+     * returns the distance of the smallest entry without removing it,
+     * the heap must not be empty
+     * @return int the smallest distance in the heap
+     */
+    public int peekDistance() {
+        return TileHeap.getDistance(this.entries[0]);
+    }
+
+
+    //////////////////
+    // Real Methods //
+    //////////////////
+
+    /**
+     * adds the parameter Tile to the heap with the parameter distance
+     * @param tileNumber the number of the Tile, never negative
+     * @param distance the distance to the Tile, never negative
+     */
+    public void push(int tileNumber, int distance) {
+        if (this.size == this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries, this.size * 2);
+        }
+
+        // put the new entry at the bottom and let it rise
+        // until its parent is no bigger than it is
+        long entry = TileHeap.toEntry(tileNumber, distance);
+        int index = this.size;
+        this.size++;
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (this.entries[parent] <= entry) {
+                break;
+            }
+            this.entries[index] = this.entries[parent];
+            index = parent;
+        }
+        this.entries[index] = entry;
+    }
+
+    /**
+     * removes the entry with the smallest distance from the heap and
+     * returns it, the heap must not be empty, use getTileNumber and
+     * getDistance to take the entry apart
+     * @return long the smallest entry
+     */
+    public long pop() {
+        long smallest = this.entries[0];
+        this.size--;
+
+        // move the bottom entry to the top and let it sink
+        // until neither of its children are smaller than it is
+        long entry = this.entries[this.size];
+        int index = 0;
+        int half = this.size / 2;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < this.size
+                && this.entries[child + 1] < this.entries[child]) {
+                child++;
+            }
+            if (entry <= this.entries[child]) {
+                break;
+            }
+            this.entries[index] = this.entries[child];
+            index = child;
+        }
+        this.entries[index] = entry;
+
+        return smallest;
+    }
+
+    /**
+     * removes every entry from the heap, the heap keeps the space
+     * it has already grown to so it can be reused for another search
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+
+    ///////////////////
+    // Class methods //
+    ///////////////////
+
+    /**
+     * packs a Tile number and a distance into one heap entry
+     * @param tileNumber the number of the Tile
+     * @param distance the distance to the Tile
+     * @return long the heap entry
+     */
+    private static long toEntry(int tileNumber, int distance) {
+        return (((long) distance) << 32) | (tileNumber & 0xFFFFFFFFL);
+    }
+
+    /**
+     * getter for the Tile number of a heap entry
+     * @param entry an entry returned by pop
+     * @return int the number of the Tile
+     */
+    public static int getTileNumber(long entry) {
+        return (int) entry;
+    }
+
+    /**
+     * getter for the distance of a heap entry
+     * @param entry an entry returned by pop
+     * @return int the distance to the Tile
+     */
+    public static int getDistance(long entry) {
+        return (int) (entry >>> 32);
+    }
+}